@@ -0,0 +1,80 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.theprez.jcmdutils.AppLogger;
+
+/**
+ * The <code>printf</code> and <code>println</code> variants of {@link AppLogger}, in verbose and non-verbose mode.
+ * In non-verbose mode, the <code>_verbose</code> variants show what suppressed output costs. Colors are forced on,
+ * so that the warning and error variants include colorizing.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djcmdutils.forcecolors=true")
+public class AppLoggerBenchmark {
+
+    @Param({ "false", "true" })
+    public boolean verbose;
+
+    private DiscardingLogger m_logger;
+
+    @Setup
+    public void setup() {
+        m_logger = new DiscardingLogger(verbose);
+    }
+
+    @Benchmark
+    public long printfln() {
+        m_logger.printfln("Copied %d of %d files to '%s'", 42, 100, "/tmp/out");
+        return m_logger.getLength();
+    }
+
+    @Benchmark
+    public long printfln_err() {
+        m_logger.printfln_err("Could not copy '%s': %s", "/tmp/in/file.txt", "Permission denied");
+        return m_logger.getLength();
+    }
+
+    @Benchmark
+    public long printfln_verbose() {
+        m_logger.printfln_verbose("Copied %d of %d files to '%s'", 42, 100, "/tmp/out");
+        return m_logger.getLength();
+    }
+
+    @Benchmark
+    public long printfln_warn() {
+        m_logger.printfln_warn("Skipping '%s', which already exists", "/tmp/out/file.txt");
+        return m_logger.getLength();
+    }
+
+    @Benchmark
+    public long println() {
+        m_logger.println("Proceeding to step 2...");
+        return m_logger.getLength();
+    }
+
+    @Benchmark
+    public long println_verbose() {
+        m_logger.println_verbose("Proceeding to step 2...");
+        return m_logger.getLength();
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.theprez.jcmdutils.AppLogger.DeferredLogger;
+
+/**
+ * Queuing messages on a {@link DeferredLogger} and publishing them with {@link DeferredLogger#flush()}. Each
+ * operation is a whole batch, so divide by <code>messages</code> for the cost of one message.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeferredLoggerBenchmark {
+
+    @Param({ "1", "100", "10000" })
+    public int messages;
+
+    private DiscardingLogger m_parent;
+
+    @Setup
+    public void setup() {
+        m_parent = new DiscardingLogger(true);
+    }
+
+    @Benchmark
+    public DeferredLogger enqueue() {
+        final DeferredLogger logger = new DeferredLogger(m_parent);
+        for (int i = 0; i < messages; ++i) {
+            logger.printfln("Processed item %d", i);
+        }
+        // Never flushed: measures queuing alone. Returning the logger keeps its queue from being optimized away.
+        return logger;
+    }
+
+    @Benchmark
+    public long enqueueAndFlush() {
+        final DeferredLogger logger = new DeferredLogger(m_parent);
+        for (int i = 0; i < messages; ++i) {
+            logger.printfln("Processed item %d", i);
+        }
+        logger.flush();
+        return m_parent.getLength();
+    }
+}
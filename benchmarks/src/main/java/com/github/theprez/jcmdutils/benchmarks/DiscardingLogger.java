@@ -0,0 +1,58 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils.benchmarks;
+
+import java.util.Formatter;
+
+import com.github.theprez.jcmdutils.AppLogger;
+
+/**
+ * An {@link AppLogger} that formats everything it is given, just as the default logger does, but into a reused
+ * buffer rather than to the terminal, so that benchmarks measure the logger rather than the console. Not thread
+ * safe; use one per benchmark thread.
+ */
+class DiscardingLogger extends AppLogger {
+
+    private final StringBuilder m_buf = new StringBuilder(256);
+
+    private final OutputHandler m_handler;
+
+    private final boolean m_isVerbose;
+
+    private long m_length = 0;
+
+    DiscardingLogger(final boolean _isVerbose) {
+        m_isVerbose = _isVerbose;
+        final Formatter formatter = new Formatter(m_buf);
+        m_handler = (_fmt, _args) -> {
+            m_buf.setLength(0);
+            formatter.format(_fmt, _args);
+            m_length += m_buf.length();
+        };
+    }
+
+    @Override
+    protected OutputHandler getErr() {
+        return m_handler;
+    }
+
+    /**
+     * Gets the total number of characters formatted, for benchmarks to consume.
+     *
+     * @return the length
+     */
+    long getLength() {
+        return m_length;
+    }
+
+    @Override
+    protected OutputHandler getOut() {
+        return m_handler;
+    }
+
+    @Override
+    public boolean isVerbose() {
+        return m_isVerbose;
+    }
+}
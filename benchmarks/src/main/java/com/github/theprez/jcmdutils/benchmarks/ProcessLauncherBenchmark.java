@@ -0,0 +1,61 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.theprez.jcmdutils.ProcessLauncher;
+import com.github.theprez.jcmdutils.ProcessLauncher.ProcessResult;
+
+/**
+ * {@link ProcessLauncher#exec(String...)} running a {@link SyntheticChild}, a JVM started from this benchmark's
+ * own class path, so it runs the same way on every platform. With <code>lines</code> of 0, this is the cost of
+ * spawning (mostly the child JVM's startup); subtract that from the other results to get output throughput, of
+ * <code>lines</code> times 81 bytes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProcessLauncherBenchmark {
+
+    private static final int LINE_LENGTH = 80;
+
+    @Param({ "0", "10000", "200000" })
+    public int lines;
+
+    private String[] m_cmd;
+
+    @Setup
+    public void setup() {
+        final String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        // Start the child as quickly as possible; it runs for too short a time to need the optimizing compiler
+        m_cmd = new String[] { java, "-Xshare:auto", "-XX:TieredStopAtLevel=1", "-cp", System.getProperty("java.class.path"), SyntheticChild.class.getName(), Integer.toString(lines), Integer.toString(LINE_LENGTH) };
+    }
+
+    @Benchmark
+    public long exec() throws IOException {
+        final ProcessResult result = ProcessLauncher.exec(m_cmd);
+        if (0 != result.getExitStatus()) {
+            throw new IOException("Child failed: " + result.getStderr());
+        }
+        return result.getStdoutByteCount();
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Measures how quickly a command-line program starts: the time from launching it until the first line of output
+ * (stdout or stderr) arrives, and until it exits. JMH can't measure this, since what matters happens before
+ * anything in the child is warmed up. For instance, for the JVM and native builds of the sanity check:
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar com.github.theprez.jcmdutils.benchmarks.StartupBenchmark java -cp ../target/jcmdutils-0.1.5.jar com.github.theprez.jcmdutils.SanityCheck
+ * java -cp target/benchmarks.jar com.github.theprez.jcmdutils.benchmarks.StartupBenchmark ../target/jcmdutils-sanitycheck
+ * </pre>
+ *
+ * The child's standard input is closed, so questions take their defaults.
+ */
+public class StartupBenchmark {
+
+    private static final int DEFAULT_RUNS = 20;
+
+    private static final int WARMUP_RUNS = 3;
+
+    /**
+     * The entry point.
+     *
+     * @param _args
+     *            optionally <code>-n</code> and the number of runs, then the command to run
+     * @throws IOException
+     *             Signals that an I/O exception has occurred.
+     * @throws InterruptedException
+     *             if interrupted while waiting for the child
+     */
+    public static void main(final String[] _args) throws IOException, InterruptedException {
+        int runs = DEFAULT_RUNS;
+        int first = 0;
+        if (_args.length > 1 && "-n".equals(_args[0])) {
+            try {
+                runs = Integer.parseInt(_args[1]);
+            } catch (final NumberFormatException e) {
+                runs = 0;
+            }
+            first = 2;
+        }
+        if (first >= _args.length || runs < 1) {
+            System.err.println("Usage: StartupBenchmark [-n runs] command [args...]");
+            System.err.println("       where runs is at least 1");
+            System.exit(2);
+        }
+        final List<String> cmd = Arrays.asList(Arrays.copyOfRange(_args, first, _args.length));
+        for (int i = 0; i < WARMUP_RUNS; ++i) {
+            run(cmd, new long[2]);
+        }
+        final long[] firstLine = new long[runs];
+        final long[] exit = new long[runs];
+        final long[] times = new long[2];
+        for (int i = 0; i < runs; ++i) {
+            run(cmd, times);
+            firstLine[i] = times[0];
+            exit[i] = times[1];
+        }
+        System.out.println("Command:    " + String.join(" ", cmd));
+        System.out.println("Runs:       " + runs);
+        report("First line", firstLine);
+        report("Exit", exit);
+    }
+
+    private static void report(final String _what, final long[] _nanos) {
+        Arrays.sort(_nanos);
+        System.out.printf("%-11s min %8.2f ms   median %8.2f ms   p90 %8.2f ms   max %8.2f ms%n", _what + ":", _nanos[0] / 1e6, _nanos[_nanos.length / 2] / 1e6, _nanos[(int) (_nanos.length * 0.9)] / 1e6, _nanos[_nanos.length - 1] / 1e6);
+    }
+
+    /**
+     * Run the command once.
+     *
+     * @param _cmd
+     *            the command
+     * @param _times
+     *            receives the nanoseconds until the first line of output (or exit, if there was none) and until exit
+     */
+    private static void run(final List<String> _cmd, final long[] _times) throws IOException, InterruptedException {
+        final long start = System.nanoTime();
+        final Process p = new ProcessBuilder(_cmd).redirectErrorStream(true).start();
+        p.getOutputStream().close();
+        long firstLine = -1;
+        try (InputStream in = p.getInputStream()) {
+            final byte[] buf = new byte[8192];
+            int len;
+            while (-1 != (len = in.read(buf))) {
+                for (int i = 0; -1 == firstLine && i < len; ++i) {
+                    if ('\n' == buf[i]) {
+                        firstLine = System.nanoTime() - start;
+                    }
+                }
+            }
+        }
+        p.waitFor();
+        final long exit = System.nanoTime() - start;
+        _times[0] = -1 == firstLine ? exit : firstLine;
+        _times[1] = exit;
+    }
+}
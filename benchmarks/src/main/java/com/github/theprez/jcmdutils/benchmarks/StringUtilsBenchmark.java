@@ -0,0 +1,93 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.theprez.jcmdutils.StringUtils;
+import com.github.theprez.jcmdutils.StringUtils.TerminalColor;
+
+/**
+ * The string helpers of {@link StringUtils}. <code>length</code> is the length of the text worked on (for
+ * <code>arrayToSpaceSeparatedString</code>, the number of elements). Colors are forced on, since the forked JVM
+ * has no console.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djcmdutils.forcecolors=true")
+public class StringUtilsBenchmark {
+
+    @Param({ "16", "256" })
+    public int length;
+
+    private Object[] m_array;
+
+    private String m_colored;
+
+    private String m_plain;
+
+    @Setup
+    public void setup() {
+        final StringBuilder plain = new StringBuilder(length);
+        final StringBuilder colored = new StringBuilder(2 * length);
+        for (int i = 0; plain.length() < length; ++i) {
+            final String word = "word" + i + " ";
+            plain.append(word);
+            // Every other word in color, as in typical log output
+            colored.append(0 == i % 2 ? StringUtils.colorizeForTerminal(word, TerminalColor.YELLOW) : word);
+        }
+        plain.setLength(length);
+        m_plain = plain.toString();
+        m_colored = colored.toString();
+        m_array = new Object[length];
+        for (int i = 0; i < length; ++i) {
+            m_array[i] = 0 == i % 2 ? "arg" + i : Integer.valueOf(i);
+        }
+    }
+
+    @Benchmark
+    public String arrayToSpaceSeparatedString() {
+        return StringUtils.arrayToSpaceSeparatedString(m_array);
+    }
+
+    @Benchmark
+    public String colorizeForTerminal() {
+        return StringUtils.colorizeForTerminal(m_plain, TerminalColor.GREEN);
+    }
+
+    @Benchmark
+    public String generateRandomString() {
+        return StringUtils.generateRandomString(length);
+    }
+
+    @Benchmark
+    public String spacePad() {
+        return StringUtils.spacePad(m_plain, 2 * length);
+    }
+
+    @Benchmark
+    public String stripCodesFromString() {
+        return TerminalColor.stripCodesFromString(m_colored);
+    }
+
+    @Benchmark
+    public String stripCodesFromString_noCodes() {
+        return TerminalColor.stripCodesFromString(m_plain);
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils.benchmarks;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A child process for {@link ProcessLauncherBenchmark}: writes a given number of lines of a given length to
+ * standard output, as fast as it can, and exits.
+ */
+public class SyntheticChild {
+
+    /**
+     * The entry point.
+     *
+     * @param _args
+     *            the number of lines, and the length of each (without the newline)
+     * @throws IOException
+     *             Signals that an I/O exception has occurred.
+     */
+    public static void main(final String[] _args) throws IOException {
+        final int lines = Integer.parseInt(_args[0]);
+        final byte[] line = new byte[Integer.parseInt(_args[1]) + 1];
+        Arrays.fill(line, "x".getBytes(StandardCharsets.US_ASCII)[0]);
+        line[line.length - 1] = '\n';
+        try (OutputStream out = new BufferedOutputStream(System.out, 64 * 1024)) {
+            for (int i = 0; i < lines; ++i) {
+                out.write(line);
+            }
+        }
+    }
+}
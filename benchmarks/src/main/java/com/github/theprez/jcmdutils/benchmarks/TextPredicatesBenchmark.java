@@ -0,0 +1,71 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils.benchmarks;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.theprez.jcmdutils.TextPredicates;
+
+/**
+ * {@link TextPredicates} against the usual <code>String</code> idioms they replace. Run with <code>-prof gc</code>:
+ * the predicates should show <code>gc.alloc.rate.norm</code> of 0 bytes per operation, and the idioms should not.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TextPredicatesBenchmark {
+
+    private final String m_blank = "    \t   ";
+
+    private final String m_line = "   Error: CPF9801 object not found in library   ";
+
+    private final char[] m_lineChars = m_line.toCharArray();
+
+    private final String m_upperLine = m_line.toUpperCase(Locale.ROOT);
+
+    @Benchmark
+    public boolean isBlank() {
+        return TextPredicates.isBlank(m_blank);
+    }
+
+    @Benchmark
+    public boolean isBlank_trimIdiom() {
+        return m_blank.trim().isEmpty();
+    }
+
+    @Benchmark
+    public boolean startsWith_chars() {
+        final int start = TextPredicates.trimStart(m_lineChars, 0, m_lineChars.length);
+        return TextPredicates.startsWith(m_lineChars, start, m_lineChars.length - start, "Error:");
+    }
+
+    @Benchmark
+    public boolean startsWith_trimIdiom() {
+        return new String(m_lineChars).trim().startsWith("Error:");
+    }
+
+    @Benchmark
+    public boolean equalsIgnoreCase() {
+        return TextPredicates.equalsIgnoreCase(m_line, m_upperLine);
+    }
+
+    @Benchmark
+    public boolean equalsIgnoreCase_lowerCaseIdiom() {
+        return m_line.toLowerCase(Locale.ROOT).equals(m_upperLine.toLowerCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.theprez.jcmdutils.AppLogger;
+import com.github.theprez.jcmdutils.TimingSpans;
+
+/**
+ * The cost of {@link AppLogger#time(String)}, a single span and a span with a child, with timing off (which should
+ * be next to nothing) and on. Run with <code>-prof gc</code> to check that neither allocates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimingSpansBenchmark {
+
+    @Param({ "false", "true" })
+    public boolean timing;
+
+    private DiscardingLogger m_logger;
+
+    @Setup
+    public void setup() {
+        m_logger = new DiscardingLogger(false);
+        m_logger.setTimingEnabled(timing);
+    }
+
+    @Benchmark
+    public void nested() {
+        try (TimingSpans.Span outer = m_logger.time("outer")) {
+            try (TimingSpans.Span inner = m_logger.time("inner")) {
+                // nothing
+            }
+        }
+    }
+
+    @Benchmark
+    public void single() {
+        try (TimingSpans.Span span = m_logger.time("phase")) {
+            // nothing
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+/**
+ * A state machine that recognizes ANSI/ECMA-48 terminal escape sequences in a stream of characters or bytes, one
+ * unit at a time. It covers CSI sequences (including all SGR color and style codes), OSC and the other string
+ * sequences (DCS, SOS, PM, APC) terminated by BEL or ST, and two- and three-character escapes. One instance
+ * tracks one stream; sequences may be split across calls.
+ */
+final class AnsiEscapeFilter {
+
+    private static final int BEL = 0x07;
+
+    private static final int ESC = 0x1b;
+
+    private static final int STATE_CSI = 2;
+
+    private static final int STATE_ESCAPE = 1;
+
+    private static final int STATE_ESCAPE_INTERMEDIATE = 3;
+
+    private static final int STATE_GROUND = 0;
+
+    private static final int STATE_STRING = 4;
+
+    private static final int STATE_STRING_ESCAPE = 5;
+
+    /**
+     * Checks if the given text could contain an escape sequence at all.
+     *
+     * @param _str
+     *            the text
+     * @return true, if there is an escape or C1 control character
+     */
+    static boolean mayContainEscapes(final CharSequence _str) {
+        final int len = _str.length();
+        for (int i = 0; i < len; ++i) {
+            final char c = _str.charAt(i);
+            if (ESC == c || (c >= 0x80 && c <= 0x9f)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Strip all escape sequences from the given text.
+     *
+     * @param _str
+     *            the text
+     * @return the text without escape sequences; the same instance if there were none
+     */
+    static String strip(final String _str) {
+        if (null == _str || !mayContainEscapes(_str)) {
+            return _str;
+        }
+        final AnsiEscapeFilter filter = new AnsiEscapeFilter(true);
+        final int len = _str.length();
+        final StringBuilder ret = new StringBuilder(len);
+        for (int i = 0; i < len; ++i) {
+            final char c = _str.charAt(i);
+            if (filter.isText(c)) {
+                ret.append(c);
+            }
+        }
+        return ret.toString();
+    }
+
+    /** Whether 8-bit C1 controls (such as U+009B for CSI) are recognized; not for UTF-8 bytes. */
+    private final boolean m_isC1Recognized;
+
+    private int m_state = STATE_GROUND;
+
+    /**
+     * Instantiates a new filter.
+     *
+     * @param _isC1Recognized
+     *            whether single-unit C1 control codes start sequences. Use <code>true</code> for characters and
+     *            <code>false</code> for UTF-8 encoded bytes, where these values are continuation bytes.
+     */
+    AnsiEscapeFilter(final boolean _isC1Recognized) {
+        m_isC1Recognized = _isC1Recognized;
+    }
+
+    /**
+     * Feed the next unit (a char, or a byte as 0-255) and find out whether it is visible text.
+     *
+     * @param _c
+     *            the unit
+     * @return true, if the unit is not part of an escape sequence
+     */
+    boolean isText(final int _c) {
+        switch (m_state) {
+            case STATE_GROUND:
+                if (ESC == _c) {
+                    m_state = STATE_ESCAPE;
+                    return false;
+                }
+                if (m_isC1Recognized && _c >= 0x80 && _c <= 0x9f) {
+                    if (0x9b == _c) {
+                        m_state = STATE_CSI;
+                    } else if (0x90 == _c || 0x98 == _c || 0x9d == _c || 0x9e == _c || 0x9f == _c) {
+                        m_state = STATE_STRING;
+                    }
+                    return false;
+                }
+                return true;
+            case STATE_ESCAPE:
+                if ('[' == _c) {
+                    m_state = STATE_CSI;
+                } else if (']' == _c || 'P' == _c || 'X' == _c || '^' == _c || '_' == _c) {
+                    m_state = STATE_STRING;
+                } else if (_c >= 0x20 && _c <= 0x2f) {
+                    m_state = STATE_ESCAPE_INTERMEDIATE;
+                } else if (_c < 0x20 && ESC != _c) {
+                    // Not an escape sequence after all; the control character is output
+                    m_state = STATE_GROUND;
+                    return true;
+                } else if (ESC != _c) {
+                    m_state = STATE_GROUND;
+                }
+                return false;
+            case STATE_ESCAPE_INTERMEDIATE:
+                if (_c < 0x20 || _c > 0x2f) {
+                    m_state = STATE_GROUND;
+                }
+                return false;
+            case STATE_CSI:
+                if (_c >= 0x40 && _c <= 0x7e) {
+                    m_state = STATE_GROUND;
+                    return false;
+                }
+                if (_c < 0x20) {
+                    // A control character aborts the sequence and is itself still output
+                    m_state = ESC == _c ? STATE_ESCAPE : STATE_GROUND;
+                    return ESC != _c;
+                }
+                return false;
+            case STATE_STRING:
+                if (BEL == _c || (m_isC1Recognized && 0x9c == _c)) {
+                    m_state = STATE_GROUND;
+                } else if (ESC == _c) {
+                    m_state = STATE_STRING_ESCAPE;
+                }
+                return false;
+            case STATE_STRING_ESCAPE:
+                m_state = '\\' == _c ? STATE_GROUND : (ESC == _c ? STATE_STRING_ESCAPE : STATE_STRING);
+                return false;
+            default:
+                m_state = STATE_GROUND;
+                return true;
+        }
+    }
+}
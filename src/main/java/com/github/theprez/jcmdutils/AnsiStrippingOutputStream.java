@@ -0,0 +1,52 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * An {@link OutputStream} that removes terminal escape sequences (colors and other ANSI control sequences) from
+ * UTF-8 or ASCII encoded output. Visible bytes are passed on in runs, straight from the caller's buffer, without
+ * intermediate copies. Escape sequences may be split across writes.
+ */
+public class AnsiStrippingOutputStream extends FilterOutputStream {
+
+    private final AnsiEscapeFilter m_filter = new AnsiEscapeFilter(false);
+
+    /**
+     * Instantiates a new stream.
+     *
+     * @param _out
+     *            where the stripped output goes
+     */
+    public AnsiStrippingOutputStream(final OutputStream _out) {
+        super(_out);
+    }
+
+    @Override
+    public void write(final byte[] _buf, final int _off, final int _len) throws IOException {
+        int runStart = _off;
+        final int end = _off + _len;
+        for (int i = _off; i < end; ++i) {
+            if (!m_filter.isText(_buf[i] & 0xff)) {
+                if (i > runStart) {
+                    out.write(_buf, runStart, i - runStart);
+                }
+                runStart = i + 1;
+            }
+        }
+        if (end > runStart) {
+            out.write(_buf, runStart, end - runStart);
+        }
+    }
+
+    @Override
+    public void write(final int _b) throws IOException {
+        if (m_filter.isText(_b & 0xff)) {
+            out.write(_b);
+        }
+    }
+}
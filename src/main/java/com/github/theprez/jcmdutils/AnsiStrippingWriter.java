@@ -0,0 +1,69 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * A {@link Writer} that removes terminal escape sequences (colors and other ANSI control sequences) from
+ * everything written through it. Visible text is passed on in runs, straight from the caller's buffer, without
+ * intermediate copies. Escape sequences may be split across writes.
+ */
+public class AnsiStrippingWriter extends FilterWriter {
+
+    private final AnsiEscapeFilter m_filter = new AnsiEscapeFilter(true);
+
+    /**
+     * Instantiates a new writer.
+     *
+     * @param _out
+     *            where the stripped text goes
+     */
+    public AnsiStrippingWriter(final Writer _out) {
+        super(_out);
+    }
+
+    @Override
+    public void write(final char[] _buf, final int _off, final int _len) throws IOException {
+        int runStart = _off;
+        final int end = _off + _len;
+        for (int i = _off; i < end; ++i) {
+            if (!m_filter.isText(_buf[i])) {
+                if (i > runStart) {
+                    out.write(_buf, runStart, i - runStart);
+                }
+                runStart = i + 1;
+            }
+        }
+        if (end > runStart) {
+            out.write(_buf, runStart, end - runStart);
+        }
+    }
+
+    @Override
+    public void write(final int _c) throws IOException {
+        if (m_filter.isText((char) _c)) {
+            out.write(_c);
+        }
+    }
+
+    @Override
+    public void write(final String _str, final int _off, final int _len) throws IOException {
+        int runStart = _off;
+        final int end = _off + _len;
+        for (int i = _off; i < end; ++i) {
+            if (!m_filter.isText(_str.charAt(i))) {
+                if (i > runStart) {
+                    out.write(_str, runStart, i - runStart);
+                }
+                runStart = i + 1;
+            }
+        }
+        if (end > runStart) {
+            out.write(_str, runStart, end - runStart);
+        }
+    }
+}
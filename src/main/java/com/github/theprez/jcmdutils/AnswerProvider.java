@@ -0,0 +1,122 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+
+/**
+ * A source of answers to the questions asked by a {@link ConsoleQuestionAsker}, so that a tool can run without
+ * anyone at the keyboard. Providers registered with
+ * {@link ConsoleQuestionAsker#addAnswerProvider(AnswerProvider)} are consulted, in order, before the terminal.
+ * <br>
+ * Each question is identified by a key derived from its text by {@link #keyFor(String)}; for instance,
+ * "Enter the host name [localhost]:" has the key <code>enter.the.host.name</code>. Keyed providers, such as
+ * {@link #fromResponseFile(File)} and {@link #fromEnvironment(String)}, look answers up by key. Sequential
+ * providers, such as {@link #fromScript(InputStream)}, hand out their answers in order regardless of the question.
+ */
+public interface AnswerProvider {
+
+    /**
+     * Answers questions from environment variables. The variable for a question is the prefix followed by its key
+     * in upper case, with dots as underscores: with a prefix of <code>MYTOOL_</code>, the key
+     * <code>enter.the.host.name</code> is answered by <code>MYTOOL_ENTER_THE_HOST_NAME</code>.
+     *
+     * @param _prefix
+     *            the prefix of the variable names
+     * @return the provider
+     */
+    static AnswerProvider fromEnvironment(final String _prefix) {
+        return (_key, _prompt) -> System.getenv(_prefix + _key.toUpperCase(Locale.ROOT).replace('.', '_'));
+    }
+
+    /**
+     * Answers questions from a response file, read once, up front. Each line is <code>key=value</code>, where
+     * the key is either a question key or the text of the question itself; blank lines and lines starting with
+     * <code>#</code> are ignored. The file is read as UTF-8.
+     *
+     * @param _file
+     *            the response file
+     * @return the provider
+     * @throws IOException
+     *             Signals that an I/O exception has occurred.
+     */
+    static AnswerProvider fromResponseFile(final File _file) throws IOException {
+        return new ResponseFileAnswerProvider(_file);
+    }
+
+    /**
+     * Answers questions with successive lines of a stream, such as a script piped to standard input, without
+     * printing any prompts. Once the stream ends, it has no more answers.
+     *
+     * @param _in
+     *            the stream
+     * @return the provider
+     */
+    static AnswerProvider fromScript(final InputStream _in) {
+        return new ScriptedAnswerProvider(_in);
+    }
+
+    /**
+     * Gets the key that identifies a question: its text in lower case, without escape sequences, without a
+     * trailing default value in square brackets or trailing punctuation, and with every run of other characters
+     * than letters and digits replaced by a single dot.
+     *
+     * @param _question
+     *            the question text
+     * @return the key
+     */
+    static String keyFor(final String _question) {
+        final String question = AnsiEscapeFilter.strip(_question);
+        int end = question.length();
+        while (end > 0 && (question.charAt(end - 1) <= ' ' || ':' == question.charAt(end - 1) || '>' == question.charAt(end - 1))) {
+            --end;
+        }
+        if (end > 0 && ']' == question.charAt(end - 1)) {
+            final int open = question.lastIndexOf('[', end);
+            if (open >= 0) {
+                end = open;
+            }
+        }
+        final StringBuilder ret = new StringBuilder(end);
+        boolean isSeparatorPending = false;
+        for (int i = 0; i < end; ++i) {
+            final char c = question.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (isSeparatorPending && 0 != ret.length()) {
+                    ret.append('.');
+                }
+                isSeparatorPending = false;
+                ret.append(Character.toLowerCase(c));
+            } else {
+                isSeparatorPending = true;
+            }
+        }
+        return ret.toString();
+    }
+
+    /**
+     * Gets the answer to a question.
+     *
+     * @param _key
+     *            the question key, see {@link #keyFor(String)}
+     * @param _prompt
+     *            the question as it would be shown to the user
+     * @return the answer, or <code>null</code> if this provider has none
+     */
+    String getAnswer(String _key, String _prompt);
+
+    /**
+     * Checks if this provider looks answers up by key. If a keyed provider's answer is rejected (for instance,
+     * it doesn't match the required format), asking again would only get the same answer, so the
+     * {@link ConsoleQuestionAsker} gives up instead.
+     *
+     * @return true, if answers are looked up by key; false, if they are handed out in order
+     */
+    default boolean isKeyed() {
+        return true;
+    }
+}
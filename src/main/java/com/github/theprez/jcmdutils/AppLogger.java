@@ -9,6 +9,9 @@ import java.io.Flushable;
 import java.io.PrintWriter;
 import java.util.LinkedList;
 import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import com.github.theprez.jcmdutils.StringUtils.TerminalColor;
 
@@ -68,6 +71,11 @@ public abstract class AppLogger {
             return m_out;
         }
 
+        @Override
+        void flushPartialLine() {
+            System.out.flush();
+        }
+
         /*
          * (non-Javadoc)
          * 
@@ -192,6 +200,12 @@ public abstract class AppLogger {
         }
     }
 
+    /**
+     * System property that turns on {@link #time(String) timing} for the {@link #getSingleton(boolean) singleton} and prints the summary
+     * when the program exits, to see where a run spends its time without changing the program.
+     */
+    public static final String PROP_TIMING = "jcmdutils.timing";
+
     /** The s singleton. */
     private static DefaultLogger s_singleton;
 
@@ -213,11 +227,41 @@ public abstract class AppLogger {
         if (null != s_singleton) {
             return s_singleton;
         }
-        return s_singleton = new DefaultLogger(_verbose);
+        s_singleton = new DefaultLogger(_verbose);
+        if (Boolean.getBoolean(PROP_TIMING)) {
+            s_singleton.setTimingEnabled(true).setTimingSummaryAtExit(true);
+        }
+        return s_singleton;
     }
 
+    /** Chunks of child process output waiting to be written, see {@link #publishChunk_verbose(String, boolean)}. */
+    private final Queue<PendingChunk> m_pendingChunks = new ConcurrentLinkedQueue<PendingChunk>();
+
+    /** Set while some thread is draining {@link #m_pendingChunks}. */
+    private final AtomicBoolean m_isDrainingChunks = new AtomicBoolean(false);
+
     private boolean m_isWarningsSuppressed = false;
 
+    private volatile boolean m_isTimingSummaryAtExit = false;
+
+    private final AtomicBoolean m_isTimingHookInstalled = new AtomicBoolean(false);
+
+    /** The spans recorded by {@link #time(String)}, or <code>null</code> if timing is off. */
+    private volatile TimingSpans m_timing = null;
+
+    /**
+     * A block of (possibly multiple) lines queued by {@link #publishChunk_verbose(String, boolean)}.
+     */
+    private static class PendingChunk {
+        private final String m_text;
+        private final boolean m_isError;
+
+        PendingChunk(final String _text, final boolean _isError) {
+            m_text = _text;
+            m_isError = _isError;
+        }
+    }
+
     /**
      * Print the exception stack trace
      * 
@@ -228,6 +272,23 @@ public abstract class AppLogger {
         _exc.printStackTrace(System.err);
     }
 
+    /**
+     * Push out any partial line buffered beneath this logger, so that output redrawn in place (such as a
+     * {@link ProgressReporter}) becomes visible. Unlike {@link DeferredLogger#flush()}, this never publishes output
+     * that is being held back on purpose.
+     */
+    void flushPartialLine() {
+    }
+
+    /**
+     * Gets the spans recorded by {@link #time(String)}.
+     *
+     * @return the spans, or <code>null</code> if timing is off
+     */
+    public TimingSpans getTiming() {
+        return m_timing;
+    }
+
     /**
      * Gets the err.
      *
@@ -242,6 +303,15 @@ public abstract class AppLogger {
      */
     protected abstract OutputHandler getOut();
 
+    /**
+     * Checks if {@link #time(String)} is recording.
+     *
+     * @return true, if timing is on
+     */
+    public boolean isTimingEnabled() {
+        return null != m_timing;
+    }
+
     /**
      * Checks if is verbose.
      *
@@ -249,6 +319,38 @@ public abstract class AppLogger {
      */
     public abstract boolean isVerbose();
 
+    /**
+     * Queues a block of lines for output in verbose mode and writes out whatever is queued. This never blocks on a
+     * monitor: whichever thread wins the drain flag writes every pending chunk, each one in a single call to the
+     * underlying {@link OutputHandler}, so concurrent producers interleave per chunk rather than per line.
+     *
+     * @param _chunk
+     *            one or more lines, without a trailing newline
+     * @param _isError
+     *            whether the chunk goes to the error stream
+     */
+    void publishChunk_verbose(final String _chunk, final boolean _isError) {
+        if (!isVerbose()) {
+            return;
+        }
+        m_pendingChunks.offer(new PendingChunk(_chunk, _isError));
+        // Loop in case another producer enqueued after we drained but before we released the flag
+        while (!m_pendingChunks.isEmpty() && m_isDrainingChunks.compareAndSet(false, true)) {
+            try {
+                PendingChunk chunk;
+                while (null != (chunk = m_pendingChunks.poll())) {
+                    if (chunk.m_isError) {
+                        getErr().println(StringUtils.colorizeForTerminal(chunk.m_text, TerminalColor.BRIGHT_RED));
+                    } else {
+                        getOut().println(chunk.m_text);
+                    }
+                }
+            } finally {
+                m_isDrainingChunks.set(false);
+            }
+        }
+    }
+
     /**
      * Prints the exception stack if running in verbose mode.
      *
@@ -629,6 +731,77 @@ public abstract class AppLogger {
         getErr().println(StringUtils.colorizeForTerminal(_msg, TerminalColor.YELLOW));
     }
 
+    /**
+     * Turns {@link #time(String)} on or off. Turning it off discards what was recorded. Off by default, except for the
+     * singleton when the {@value #PROP_TIMING} system property is <code>true</code>.
+     *
+     * @param _isEnabled
+     *            whether to record spans
+     * @return this object
+     */
+    public synchronized AppLogger setTimingEnabled(final boolean _isEnabled) {
+        if (!_isEnabled) {
+            m_timing = null;
+        } else if (null == m_timing) {
+            m_timing = new TimingSpans();
+        }
+        return this;
+    }
+
+    /**
+     * Sets whether the timing summary is printed when the program exits, if timing is on then.
+     *
+     * @param _isEnabled
+     *            whether to print the summary at exit
+     * @return this object
+     */
+    public AppLogger setTimingSummaryAtExit(final boolean _isEnabled) {
+        m_isTimingSummaryAtExit = _isEnabled;
+        if (_isEnabled && m_isTimingHookInstalled.compareAndSet(false, true)) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                if (m_isTimingSummaryAtExit) {
+                    printTimingSummary();
+                }
+            }, "jcmdutils-timing-summary"));
+        }
+        return this;
+    }
+
+    /**
+     * Print where the time went, as recorded by {@link #time(String)}, to the error stream; see
+     * {@link TimingSpans#print(AppLogger)}. Does nothing if timing is off.
+     */
+    public void printTimingSummary() {
+        final TimingSpans timing = m_timing;
+        if (null != timing) {
+            timing.print(this);
+        }
+    }
+
+    /**
+     * Start timing a phase of the program, until the returned span is closed:
+     *
+     * <pre>
+     * try (TimingSpans.Span span = logger.time("load")) {
+     *     ...
+     * }
+     * </pre>
+     *
+     * Spans nest, and repeated spans are counted together; see {@link TimingSpans}. When timing is off (see
+     * {@link #setTimingEnabled(boolean)}), this returns a shared span that does nothing, and costs only a check.
+     *
+     * @param _name
+     *            the name of the phase
+     * @return the span, to be closed on this thread
+     */
+    public TimingSpans.Span time(final String _name) {
+        final TimingSpans timing = m_timing;
+        if (null == timing) {
+            return TimingSpans.Span.DISABLED;
+        }
+        return timing.start(_name);
+    }
+
     public AppLogger setWarningSuppression(boolean _b) {
         m_isWarningsSuppressed = _b;
         return this;
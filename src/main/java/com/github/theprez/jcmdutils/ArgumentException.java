@@ -0,0 +1,36 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+/**
+ * Thrown by {@link ArgumentParser#parse(String...)} when the command line is not valid: an unknown or ambiguous
+ * option, a missing or malformed value, or an unreadable response file. The message is meant for the user, and
+ * is typically shown along with {@link ArgumentParser#getUsage()}.
+ */
+public class ArgumentException extends IllegalArgumentException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Instantiates a new exception.
+     *
+     * @param _message
+     *            the message
+     */
+    public ArgumentException(final String _message) {
+        super(_message);
+    }
+
+    /**
+     * Instantiates a new exception.
+     *
+     * @param _message
+     *            the message
+     * @param _cause
+     *            the cause
+     */
+    public ArgumentException(final String _message, final Throwable _cause) {
+        super(_message, _cause);
+    }
+}
@@ -0,0 +1,675 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A command-line argument parser. Options are declared through a {@link Builder}, which compiles them into lookup
+ * tables: short options are found by indexing an array by character, and long options by walking a trie, so no
+ * option costs more to find than its own name, and nothing is found by reflection or scanning at startup.
+ * <br>
+ * The usual conventions are supported:
+ * <ul>
+ * <li>short options, <code>-f</code>, which can be clustered, <code>-xvf</code>, and take a value either attached,
+ * <code>-ofile</code>, or as the next argument, <code>-o file</code></li>
+ * <li>long options, <code>--force</code>, taking a value as <code>--output=file</code> or
+ * <code>--output file</code>, and which may be abbreviated to any unique prefix, <code>--out</code></li>
+ * <li><code>--</code>, after which every argument is positional</li>
+ * <li>response files: <code>@args.txt</code> is replaced by the arguments in that file, split as a shell would
+ * (see {@link StringUtils#tokenizeCommandLine(String)})</li>
+ * </ul>
+ * Every parser has <code>-v</code>/<code>--verbose</code>, which decides the verbosity of
+ * {@link ParsedArguments#getLogger()}.
+ *
+ * <pre>
+ * final ArgumentParser.Builder builder = ArgumentParser.builder("mytool").setPositionalUsage("FILE...");
+ * final Option&lt;Boolean&gt; force = builder.flag('f', "force", "Overwrite existing files");
+ * final Option&lt;Integer&gt; jobs = builder.intOption('j', "jobs", "N", "Run N jobs at once");
+ * final ArgumentParser parser = builder.build();
+ * final ParsedArguments parsed = parser.parse(args);
+ * final AppLogger logger = parsed.getLogger();
+ * final int n = parsed.get(jobs, 1);
+ * </pre>
+ */
+public class ArgumentParser {
+
+    /**
+     * Declares options and compiles them into an {@link ArgumentParser}.
+     */
+    public static class Builder {
+
+        private boolean m_isResponseFilesEnabled = true;
+
+        private final List<Option<?>> m_options = new ArrayList<Option<?>>();
+
+        private String m_positionalUsage = "";
+
+        private final String m_programName;
+
+        private final Option<Boolean> m_verbose;
+
+        private Builder(final String _programName) {
+            m_programName = _programName;
+            m_verbose = flag('v', "verbose", "Show more output");
+        }
+
+        private <T> Option<T> add(final char _shortName, final String _longName, final String _valueName, final String _description, final Function<String, ? extends T> _converter) {
+            if (0 == _shortName && null == _longName) {
+                throw new IllegalArgumentException("An option needs a short name, a long name, or both");
+            }
+            if (0 != _shortName && !isShortName(_shortName)) {
+                throw new IllegalArgumentException("Short option names must be ASCII letters or digits: '" + _shortName + "'");
+            }
+            if (null != _longName && (_longName.isEmpty() || _longName.startsWith("-") || -1 != _longName.indexOf('='))) {
+                throw new IllegalArgumentException("Invalid long option name: '" + _longName + "'");
+            }
+            for (final Option<?> option : m_options) {
+                if ((0 != _shortName && option.m_shortName == _shortName) || (null != _longName && _longName.equals(option.m_longName))) {
+                    throw new IllegalArgumentException("Option declared twice: " + Option.describe(_shortName, _longName));
+                }
+            }
+            final Option<T> ret = new Option<T>(this, m_options.size(), _shortName, _longName, _valueName, _description, _converter);
+            m_options.add(ret);
+            return ret;
+        }
+
+        /**
+         * Compile the options declared so far into a parser. The builder can still be used afterwards, but
+         * options declared later are not known to this parser.
+         *
+         * @return the parser
+         */
+        public ArgumentParser build() {
+            return new ArgumentParser(this);
+        }
+
+        /**
+         * Declare an option that takes no value.
+         *
+         * @param _shortName
+         *            the short name (an ASCII letter or digit), or 0 for none
+         * @param _longName
+         *            the long name, without the leading dashes, or <code>null</code> for none
+         * @param _description
+         *            the description, shown in the usage
+         * @return the option, to look up its value in the {@link ParsedArguments}
+         */
+        public Option<Boolean> flag(final char _shortName, final String _longName, final String _description) {
+            return add(_shortName, _longName, null, _description, null);
+        }
+
+        /**
+         * Declare an option with an integer value.
+         *
+         * @param _shortName
+         *            the short name (an ASCII letter or digit), or 0 for none
+         * @param _longName
+         *            the long name, without the leading dashes, or <code>null</code> for none
+         * @param _valueName
+         *            what the value is called in the usage, such as <code>N</code>
+         * @param _description
+         *            the description, shown in the usage
+         * @return the option, to look up its value in the {@link ParsedArguments}
+         */
+        public Option<Integer> intOption(final char _shortName, final String _longName, final String _valueName, final String _description) {
+            return add(_shortName, _longName, _valueName, _description, Integer::valueOf);
+        }
+
+        /**
+         * Declare an option with a long integer value.
+         *
+         * @param _shortName
+         *            the short name (an ASCII letter or digit), or 0 for none
+         * @param _longName
+         *            the long name, without the leading dashes, or <code>null</code> for none
+         * @param _valueName
+         *            what the value is called in the usage, such as <code>BYTES</code>
+         * @param _description
+         *            the description, shown in the usage
+         * @return the option, to look up its value in the {@link ParsedArguments}
+         */
+        public Option<Long> longOption(final char _shortName, final String _longName, final String _valueName, final String _description) {
+            return add(_shortName, _longName, _valueName, _description, Long::valueOf);
+        }
+
+        /**
+         * Declare an option with a value of any type.
+         *
+         * @param <T>
+         *            the type of the value
+         * @param _shortName
+         *            the short name (an ASCII letter or digit), or 0 for none
+         * @param _longName
+         *            the long name, without the leading dashes, or <code>null</code> for none
+         * @param _valueName
+         *            what the value is called in the usage, such as <code>FILE</code>
+         * @param _description
+         *            the description, shown in the usage
+         * @param _converter
+         *            converts the text of the value; any exception it throws is reported as an invalid value
+         * @return the option, to look up its value in the {@link ParsedArguments}
+         */
+        public <T> Option<T> option(final char _shortName, final String _longName, final String _valueName, final String _description, final Function<String, ? extends T> _converter) {
+            return add(_shortName, _longName, null == _valueName ? "VALUE" : _valueName, _description, _converter);
+        }
+
+        /**
+         * Sets what follows the options in the usage, such as <code>FILE...</code>.
+         *
+         * @param _usage
+         *            the usage of the positional arguments
+         * @return this object
+         */
+        public Builder setPositionalUsage(final String _usage) {
+            m_positionalUsage = null == _usage ? "" : _usage;
+            return this;
+        }
+
+        /**
+         * Sets whether an argument starting with <code>@</code> names a response file. Defaults to
+         * <code>true</code>.
+         *
+         * @param _isEnabled
+         *            whether response files are expanded
+         * @return this object
+         */
+        public Builder setResponseFilesEnabled(final boolean _isEnabled) {
+            m_isResponseFilesEnabled = _isEnabled;
+            return this;
+        }
+
+        /**
+         * Declare an option with a string value.
+         *
+         * @param _shortName
+         *            the short name (an ASCII letter or digit), or 0 for none
+         * @param _longName
+         *            the long name, without the leading dashes, or <code>null</code> for none
+         * @param _valueName
+         *            what the value is called in the usage, such as <code>FILE</code>
+         * @param _description
+         *            the description, shown in the usage
+         * @return the option, to look up its value in the {@link ParsedArguments}
+         */
+        public Option<String> stringOption(final char _shortName, final String _longName, final String _valueName, final String _description) {
+            return add(_shortName, _longName, _valueName, _description, Function.identity());
+        }
+    }
+
+    /**
+     * A declared option. Use it as the key to its values in {@link ParsedArguments}.
+     *
+     * @param <T>
+     *            the type of the option's value; {@link Boolean} for a flag
+     */
+    public static final class Option<T> {
+
+        private static String describe(final char _shortName, final String _longName) {
+            if (null == _longName) {
+                return "-" + _shortName;
+            }
+            return 0 == _shortName ? "--" + _longName : "-" + _shortName + "/--" + _longName;
+        }
+
+        private final Function<String, ? extends T> m_converter;
+
+        private final String m_description;
+
+        private final int m_index;
+
+        private final String m_longName;
+
+        private final Builder m_owner;
+
+        private final char m_shortName;
+
+        private final String m_valueName;
+
+        private Option(final Builder _owner, final int _index, final char _shortName, final String _longName, final String _valueName, final String _description, final Function<String, ? extends T> _converter) {
+            m_owner = _owner;
+            m_index = _index;
+            m_shortName = _shortName;
+            m_longName = _longName;
+            m_valueName = _valueName;
+            m_description = null == _description ? "" : _description;
+            m_converter = _converter;
+        }
+
+        T convert(final String _value, final String _as) {
+            try {
+                return m_converter.apply(_value);
+            } catch (final RuntimeException e) {
+                throw new ArgumentException("Invalid value for " + _as + ": '" + _value + "'", e);
+            }
+        }
+
+        /**
+         * Gets the description.
+         *
+         * @return the description
+         */
+        public String getDescription() {
+            return m_description;
+        }
+
+        int getIndex() {
+            return m_index;
+        }
+
+        /**
+         * Gets the long name, without the leading dashes.
+         *
+         * @return the long name, or <code>null</code> if it has none
+         */
+        public String getLongName() {
+            return m_longName;
+        }
+
+        Builder getOwner() {
+            return m_owner;
+        }
+
+        /**
+         * Gets the short name.
+         *
+         * @return the short name, or 0 if it has none
+         */
+        public char getShortName() {
+            return m_shortName;
+        }
+
+        /**
+         * Gets what the value is called in the usage.
+         *
+         * @return the value name, or <code>null</code> for a flag
+         */
+        public String getValueName() {
+            return m_valueName;
+        }
+
+        /**
+         * Checks if this option takes no value.
+         *
+         * @return true, if it is a flag
+         */
+        public boolean isFlag() {
+            return null == m_converter;
+        }
+
+        @Override
+        public String toString() {
+            return describe(m_shortName, m_longName);
+        }
+    }
+
+    /** Builds the trie's arrays, each node's edges contiguous, depth first. */
+    private static class TrieBuilder {
+        private final StringBuilder m_edgeChars = new StringBuilder();
+        private final List<Integer> m_edgeTargets = new ArrayList<Integer>();
+        private final List<Integer> m_firstEdges = new ArrayList<Integer>();
+        private final List<Integer> m_nodeOptions = new ArrayList<Integer>();
+        private final List<Integer> m_nodeUniqueOptions = new ArrayList<Integer>();
+        private final List<Option<?>> m_sorted;
+
+        TrieBuilder(final List<Option<?>> _sorted) {
+            m_sorted = _sorted;
+        }
+
+        /** Add the node for the names in [_lo, _hi), which share their first <code>_depth</code> characters. */
+        int addNode(final int _lo, final int _hi, final int _depth) {
+            final int node = m_nodeOptions.size();
+            int lo = _lo;
+            // Being sorted, a name that ends here comes first
+            if (lo < _hi && m_sorted.get(lo).m_longName.length() == _depth) {
+                m_nodeOptions.add(m_sorted.get(lo).m_index);
+                ++lo;
+            } else {
+                m_nodeOptions.add(-1);
+            }
+            m_nodeUniqueOptions.add(1 == _hi - _lo ? m_sorted.get(_lo).m_index : -1);
+            // Reserve this node's edges before any child adds its own
+            final int firstEdge = m_edgeTargets.size();
+            m_firstEdges.add(firstEdge);
+            for (int i = lo; i < _hi; ++i) {
+                if (i == lo || m_sorted.get(i).m_longName.charAt(_depth) != m_sorted.get(i - 1).m_longName.charAt(_depth)) {
+                    m_edgeChars.append(m_sorted.get(i).m_longName.charAt(_depth));
+                    m_edgeTargets.add(-1);
+                }
+            }
+            int edge = firstEdge;
+            for (int start = lo; start < _hi; ++edge) {
+                final char c = m_sorted.get(start).m_longName.charAt(_depth);
+                int end = start + 1;
+                while (end < _hi && m_sorted.get(end).m_longName.charAt(_depth) == c) {
+                    ++end;
+                }
+                m_edgeTargets.set(edge, addNode(start, end, _depth + 1));
+                start = end;
+            }
+            return node;
+        }
+
+        int[] finishFirstEdges() {
+            final int[] ret = new int[m_firstEdges.size() + 1];
+            for (int i = 0; i < m_firstEdges.size(); ++i) {
+                ret[i] = m_firstEdges.get(i);
+            }
+            // Nodes reserve their edges in the order they are numbered, so each node's edges end where the next
+            // node's begin
+            ret[m_firstEdges.size()] = m_edgeTargets.size();
+            return ret;
+        }
+    }
+
+    /** Response files naming response files can go this deep, which is plenty for anything but a loop. */
+    private static final int MAX_RESPONSE_FILE_DEPTH = 8;
+
+    /** Returned by {@link #findLongOption(String, int, int)} when a prefix matches more than one option. */
+    private static final int AMBIGUOUS = -2;
+
+    /** Returned by {@link #findLongOption(String, int, int)} when nothing matches. */
+    private static final int UNKNOWN = -1;
+
+    /**
+     * Start declaring the options of a program.
+     *
+     * @param _programName
+     *            the name of the program, shown in the usage
+     * @return the builder
+     */
+    public static Builder builder(final String _programName) {
+        return new Builder(_programName);
+    }
+
+    private static boolean isShortName(final char _c) {
+        return (_c >= 'a' && _c <= 'z') || (_c >= 'A' && _c <= 'Z') || (_c >= '0' && _c <= '9');
+    }
+
+    /** For each trie node, the index of its first edge in {@link #m_edgeChars}; one extra entry ends the last. */
+    private final int[] m_firstEdge;
+
+    /** The character on each trie edge, sorted within each node. */
+    private final char[] m_edgeChars;
+
+    /** The node each trie edge leads to. */
+    private final int[] m_edgeTargets;
+
+    private final boolean m_isResponseFilesEnabled;
+
+    /** For each trie node, the option whose long name ends there, or -1. */
+    private final int[] m_nodeOptions;
+
+    /** For each trie node, the only option whose long name starts with the node's prefix, or -1 if there are more. */
+    private final int[] m_nodeUniqueOptions;
+
+    private final Option<?>[] m_options;
+
+    private final Builder m_owner;
+
+    private final String m_positionalUsage;
+
+    private final String m_programName;
+
+    /** For each ASCII character, the index of the option with that short name, plus 1, or 0 if none. */
+    private final int[] m_shortOptions = new int[128];
+
+    private final Option<Boolean> m_verbose;
+
+    private ArgumentParser(final Builder _builder) {
+        m_owner = _builder;
+        m_options = _builder.m_options.toArray(new Option<?>[_builder.m_options.size()]);
+        m_programName = _builder.m_programName;
+        m_positionalUsage = _builder.m_positionalUsage;
+        m_isResponseFilesEnabled = _builder.m_isResponseFilesEnabled;
+        m_verbose = _builder.m_verbose;
+        for (final Option<?> option : m_options) {
+            if (0 != option.m_shortName) {
+                m_shortOptions[option.m_shortName] = option.m_index + 1;
+            }
+        }
+
+        // Sorting the long names puts every prefix's names in one contiguous run, from which the trie is built
+        final List<Option<?>> longOptions = new ArrayList<Option<?>>();
+        for (final Option<?> option : m_options) {
+            if (null != option.m_longName) {
+                longOptions.add(option);
+            }
+        }
+        longOptions.sort((_a, _b) -> _a.m_longName.compareTo(_b.m_longName));
+        final TrieBuilder trie = new TrieBuilder(longOptions);
+        trie.addNode(0, longOptions.size(), 0);
+        m_firstEdge = trie.finishFirstEdges();
+        m_edgeChars = trie.m_edgeChars.toString().toCharArray();
+        m_edgeTargets = toArray(trie.m_edgeTargets);
+        m_nodeOptions = toArray(trie.m_nodeOptions);
+        m_nodeUniqueOptions = toArray(trie.m_nodeUniqueOptions);
+    }
+
+    private static int[] toArray(final List<Integer> _list) {
+        final int[] ret = new int[_list.size()];
+        for (int i = 0; i < ret.length; ++i) {
+            ret[i] = _list.get(i);
+        }
+        return ret;
+    }
+
+    /**
+     * Find a long option by name or unique prefix, without copying the name out of the argument.
+     *
+     * @return the option index, {@link #UNKNOWN} or {@link #AMBIGUOUS}
+     */
+    private int findLongOption(final String _arg, final int _start, final int _end) {
+        if (_start == _end) {
+            return UNKNOWN;
+        }
+        int node = 0;
+        for (int i = _start; i < _end; ++i) {
+            final char c = _arg.charAt(i);
+            int next = -1;
+            for (int e = m_firstEdge[node]; e < m_firstEdge[node + 1] && m_edgeChars[e] <= c; ++e) {
+                if (m_edgeChars[e] == c) {
+                    next = m_edgeTargets[e];
+                    break;
+                }
+            }
+            if (-1 == next) {
+                return UNKNOWN;
+            }
+            node = next;
+        }
+        if (-1 != m_nodeOptions[node]) {
+            return m_nodeOptions[node];
+        }
+        return -1 != m_nodeUniqueOptions[node] ? m_nodeUniqueOptions[node] : AMBIGUOUS;
+    }
+
+    Option<?>[] getOptions() {
+        return m_options;
+    }
+
+    Builder getOwner() {
+        return m_owner;
+    }
+
+    /**
+     * Gets the usage: a synopsis, then every option with its description.
+     *
+     * @return the usage text, ending with a newline
+     */
+    public String getUsage() {
+        final StringBuilder ret = new StringBuilder();
+        ret.append("Usage: ").append(m_programName).append(" [options]");
+        if (!m_positionalUsage.isEmpty()) {
+            ret.append(' ').append(m_positionalUsage);
+        }
+        ret.append("\n\nOptions:\n");
+        final String[] names = new String[m_options.length];
+        int width = 0;
+        for (int i = 0; i < m_options.length; ++i) {
+            final Option<?> option = m_options[i];
+            final StringBuilder name = new StringBuilder("  ");
+            name.append(0 == option.m_shortName ? "    " : "-" + option.m_shortName + (null == option.m_longName ? "" : ", "));
+            if (null != option.m_longName) {
+                name.append("--").append(option.m_longName);
+            }
+            if (!option.isFlag()) {
+                name.append(null == option.m_longName ? " " : "=").append(option.m_valueName);
+            }
+            names[i] = name.toString();
+            width = Math.max(width, names[i].length());
+        }
+        for (int i = 0; i < m_options.length; ++i) {
+            ret.append(StringUtils.spacePad(names[i], width + 2)).append(m_options[i].m_description).append('\n');
+        }
+        return ret.toString();
+    }
+
+    /**
+     * Gets the option that sets verbose mode, <code>-v</code>/<code>--verbose</code>.
+     *
+     * @return the option
+     */
+    public Option<Boolean> getVerboseOption() {
+        return m_verbose;
+    }
+
+    /**
+     * Parse a command line.
+     *
+     * @param _args
+     *            the arguments, as given to <code>main()</code>
+     * @return the options and positional arguments found
+     * @throws ArgumentException
+     *             if the command line is not valid
+     */
+    public ParsedArguments parse(final String... _args) {
+        final ParsedArguments ret = new ParsedArguments(this, _args.length);
+        parse(_args, ret, 0);
+        return ret;
+    }
+
+    private void parse(final String[] _args, final ParsedArguments _ret, final int _depth) {
+        for (int i = 0; i < _args.length; ++i) {
+            final String arg = _args[i];
+            final int len = arg.length();
+            if (_ret.isAfterDashes() || len < 2 || '-' != arg.charAt(0)) {
+                if (m_isResponseFilesEnabled && !_ret.isAfterDashes() && len > 1 && '@' == arg.charAt(0)) {
+                    parseResponseFile(arg.substring(1), _ret, _depth);
+                } else {
+                    _ret.addPositional(arg);
+                }
+            } else if ('-' == arg.charAt(1)) {
+                if (2 == len) {
+                    _ret.setAfterDashes();
+                    continue;
+                }
+                final int equals = arg.indexOf('=', 2);
+                final int nameEnd = -1 == equals ? len : equals;
+                final int index = findLongOption(arg, 2, nameEnd);
+                if (UNKNOWN == index) {
+                    throw new ArgumentException("Unknown option: " + arg.substring(0, nameEnd));
+                }
+                if (AMBIGUOUS == index) {
+                    throw new ArgumentException("Ambiguous option: " + arg.substring(0, nameEnd) + " could be " + describeMatches(arg.substring(2, nameEnd)));
+                }
+                final Option<?> option = m_options[index];
+                if (option.isFlag()) {
+                    if (-1 != equals) {
+                        throw new ArgumentException("Option --" + option.m_longName + " does not take a value");
+                    }
+                    _ret.setFlag(option);
+                } else if (-1 != equals) {
+                    _ret.setValue(option, option.convert(arg.substring(equals + 1), "--" + option.m_longName));
+                } else if (++i < _args.length) {
+                    _ret.setValue(option, option.convert(_args[i], "--" + option.m_longName));
+                } else {
+                    throw new ArgumentException("Option --" + option.m_longName + " needs a value");
+                }
+            } else if (isNegativeNumber(arg)) {
+                _ret.addPositional(arg);
+            } else {
+                // One or more clustered short options; one that takes a value takes the rest of the argument
+                for (int c = 1; c < len; ++c) {
+                    final char name = arg.charAt(c);
+                    final int index = name < m_shortOptions.length ? m_shortOptions[name] - 1 : -1;
+                    if (-1 == index) {
+                        throw new ArgumentException("Unknown option: -" + name);
+                    }
+                    final Option<?> option = m_options[index];
+                    if (option.isFlag()) {
+                        _ret.setFlag(option);
+                        continue;
+                    }
+                    if (c + 1 < len) {
+                        _ret.setValue(option, option.convert(arg.substring(c + 1), "-" + name));
+                    } else if (++i < _args.length) {
+                        _ret.setValue(option, option.convert(_args[i], "-" + name));
+                    } else {
+                        throw new ArgumentException("Option -" + name + " needs a value");
+                    }
+                    break;
+                }
+            }
+        }
+    }
+
+    private String describeMatches(final String _prefix) {
+        final List<String> matches = new ArrayList<String>();
+        for (final Option<?> option : m_options) {
+            if (null != option.m_longName && option.m_longName.startsWith(_prefix)) {
+                matches.add("--" + option.m_longName);
+            }
+        }
+        Collections.sort(matches);
+        return String.join(", ", matches);
+    }
+
+    /** A negative number such as <code>-5</code> is an argument, unless a digit has been declared as an option. */
+    private boolean isNegativeNumber(final String _arg) {
+        final char first = _arg.charAt(1);
+        if (first < '0' || first > '9' || 0 != m_shortOptions[first]) {
+            return false;
+        }
+        for (int i = 2; i < _arg.length(); ++i) {
+            final char c = _arg.charAt(i);
+            if ((c < '0' || c > '9') && '.' != c) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void parseResponseFile(final String _file, final ParsedArguments _ret, final int _depth) {
+        if (_depth >= MAX_RESPONSE_FILE_DEPTH) {
+            throw new ArgumentException("Response files are nested too deeply at @" + _file);
+        }
+        final String contents;
+        try {
+            contents = new String(Files.readAllBytes(Paths.get(_file)), StandardCharsets.UTF_8);
+        } catch (final IOException e) {
+            throw new ArgumentException("Cannot read response file @" + _file + ": " + e, e);
+        }
+        final String[] args;
+        try {
+            args = StringUtils.tokenizeCommandLine(contents);
+        } catch (final IllegalArgumentException e) {
+            throw new ArgumentException("In response file @" + _file + ": " + e.getMessage(), e);
+        }
+        parse(args, _ret, _depth + 1);
+    }
+
+    @Override
+    public String toString() {
+        return m_programName + " " + Arrays.toString(m_options);
+    }
+}
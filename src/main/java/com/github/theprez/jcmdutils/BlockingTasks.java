@@ -0,0 +1,31 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+/**
+ * Runs the library's blocking work, such as pumping a child process's output or reading the console, each task on
+ * a thread of its own. This is the Java 8 version, which uses daemon platform threads. On Java 21 and later, the
+ * multi-release jar replaces it with one that uses virtual threads, which are cheaper to start.
+ */
+final class BlockingTasks {
+
+    /**
+     * Start a task.
+     *
+     * @param _name
+     *            the name of the thread
+     * @param _task
+     *            the task
+     * @return the (started) thread running the task, which never keeps the JVM from exiting
+     */
+    static Thread start(final String _name, final Runnable _task) {
+        final Thread ret = new Thread(_task, _name);
+        ret.setDaemon(true);
+        ret.start();
+        return ret;
+    }
+
+    private BlockingTasks() {
+    }
+}
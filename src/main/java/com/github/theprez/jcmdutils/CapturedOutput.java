@@ -0,0 +1,323 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Collects the lines of one output stream of a child process according to an {@link OutputRetentionPolicy}.
+ * Lines that fall between the retained head and tail are counted but not kept. Not thread safe; each stream
+ * is appended to by a single pump thread.
+ */
+class CapturedOutput {
+
+    private static final int READ_CHUNK_CHARS = 8 * 1024;
+
+    /**
+     * Gets the number of bytes needed to encode the given line as UTF-8, plus one for the line terminator.
+     *
+     * @param _line
+     *            the line
+     * @return the encoded length
+     */
+    static long utf8LineLength(final String _line) {
+        final int len = _line.length();
+        long ret = len + 1;
+        for (int i = 0; i < len; ++i) {
+            final char c = _line.charAt(i);
+            if (c >= 0x800) {
+                // surrogate pairs are 4 bytes for 2 chars, everything else in this range is 3 bytes for 1 char
+                ret += Character.isSurrogate(c) ? 1 : 2;
+            } else if (c >= 0x80) {
+                ++ret;
+            }
+        }
+        return ret;
+    }
+
+    private volatile long m_firstByteNanos = -1;
+
+    private final List<String> m_head;
+
+    private long m_headSize = 0;
+
+    private boolean m_isHeadFull = false;
+
+    private final OutputRetentionPolicy m_policy;
+
+    private final ArrayDeque<String> m_tail;
+
+    private long m_tailSize = 0;
+
+    private volatile long m_totalBytes = 0;
+
+    private long m_totalLines = 0;
+
+    private long m_truncatedLines = 0;
+
+    /**
+     * Instantiates a new captured output.
+     *
+     * @param _policy
+     *            the retention policy
+     */
+    CapturedOutput(final OutputRetentionPolicy _policy) {
+        m_policy = _policy;
+        if (_policy.isUnbounded()) {
+            m_head = new ArrayList<String>();
+            m_tail = null;
+        } else {
+            m_head = new ArrayList<String>((int) Math.min(1024, OutputRetentionPolicy.Unit.LINES == _policy.getUnit() ? _policy.getHead() : 16));
+            m_tail = new ArrayDeque<String>((int) Math.min(1024, OutputRetentionPolicy.Unit.LINES == _policy.getUnit() ? _policy.getTail() : 16));
+        }
+    }
+
+    /**
+     * Adds a line of output.
+     *
+     * @param _line
+     *            the line, without its terminator
+     */
+    void add(final String _line) {
+        ++m_totalLines;
+        if (null == m_tail) {
+            m_head.add(_line);
+            return;
+        }
+        final long size = OutputRetentionPolicy.Unit.LINES == m_policy.getUnit() ? 1 : utf8LineLength(_line);
+        if (!m_isHeadFull) {
+            if (m_headSize + size <= m_policy.getHead()) {
+                m_head.add(_line);
+                m_headSize += size;
+                return;
+            }
+            m_isHeadFull = true;
+        }
+        if (size > m_policy.getTail()) {
+            // Can never fit in the tail, and nothing before it can be kept after it either
+            m_tail.clear();
+            m_tailSize = 0;
+            return;
+        }
+        m_tail.addLast(_line);
+        m_tailSize += size;
+        while (m_tailSize > m_policy.getTail()) {
+            final String evicted = m_tail.removeFirst();
+            m_tailSize -= OutputRetentionPolicy.Unit.LINES == m_policy.getUnit() ? 1 : utf8LineLength(evicted);
+        }
+    }
+
+    /**
+     * Gets the time at which the first byte of output arrived.
+     *
+     * @return the {@link System#nanoTime()} of the first byte, or -1 if there was no output
+     */
+    long getFirstByteNanos() {
+        return m_firstByteNanos;
+    }
+
+    /**
+     * Gets the retained leading lines.
+     *
+     * @return the head
+     */
+    List<String> getHead() {
+        return Collections.unmodifiableList(m_head);
+    }
+
+    /**
+     * Gets all retained lines, in order.
+     *
+     * @return the lines
+     */
+    List<String> getLines() {
+        if (null == m_tail || m_tail.isEmpty()) {
+            return Collections.unmodifiableList(m_head);
+        }
+        final List<String> ret = new ArrayList<String>(m_head.size() + m_tail.size());
+        ret.addAll(m_head);
+        ret.addAll(m_tail);
+        return ret;
+    }
+
+    /**
+     * Gets the longest line that is retained whole.
+     *
+     * @return the maximum line length, in characters
+     */
+    int getMaxLineLength() {
+        return m_policy.isUnbounded() ? Integer.MAX_VALUE : OutputRetentionPolicy.MAX_LINE_LENGTH;
+    }
+
+    /**
+     * Gets the number of lines that were seen but not retained.
+     *
+     * @return the omitted line count
+     */
+    long getOmittedLineCount() {
+        return m_totalLines - m_head.size() - (null == m_tail ? 0 : m_tail.size());
+    }
+
+    /**
+     * Gets the retained trailing lines.
+     *
+     * @return the tail
+     */
+    List<String> getTail() {
+        return null == m_tail ? Collections.<String> emptyList() : new ArrayList<String>(m_tail);
+    }
+
+    /**
+     * Gets the number of lines that were cut short because they were longer than {@link #getMaxLineLength()}.
+     *
+     * @return the truncated line count
+     */
+    long getTruncatedLineCount() {
+        return m_truncatedLines;
+    }
+
+    /**
+     * Wraps the raw stream that this output is read from, so that the bytes and the arrival of the first byte
+     * are accounted for.
+     *
+     * @param _in
+     *            the raw stream
+     * @return the metered stream
+     */
+    InputStream meter(final InputStream _in) {
+        return new FilterInputStream(_in) {
+            @Override
+            public int read() throws IOException {
+                final int ret = super.read();
+                if (-1 != ret) {
+                    count(1);
+                }
+                return ret;
+            }
+
+            @Override
+            public int read(final byte[] _b, final int _off, final int _len) throws IOException {
+                final int ret = super.read(_b, _off, _len);
+                if (0 < ret) {
+                    count(ret);
+                }
+                return ret;
+            }
+        };
+    }
+
+    private void count(final int _bytes) {
+        if (-1 == m_firstByteNanos) {
+            m_firstByteNanos = System.nanoTime();
+        }
+        m_totalBytes += _bytes;
+    }
+
+    /**
+     * Gets the total number of bytes seen.
+     *
+     * @return the total bytes
+     */
+    long getTotalBytes() {
+        return m_totalBytes;
+    }
+
+    /**
+     * Gets the total number of lines seen.
+     *
+     * @return the total lines
+     */
+    long getTotalLines() {
+        return m_totalLines;
+    }
+
+    /**
+     * Reads the given stream as UTF-8 until it ends, and adds its lines. Lines end at <code>\n</code>,
+     * <code>\r</code> or <code>\r\n</code>, as with {@link java.io.BufferedReader#readLine()}, but the stream is
+     * read in fixed-size chunks, and only the first {@link #getMaxLineLength()} characters of a line are kept; the
+     * rest of it is read and counted, but not stored. The stream is closed.
+     *
+     * @param _in
+     *            the raw stream, which is {@link #meter(InputStream) metered} by this method
+     * @param _lineConsumer
+     *            also given each line, after it is added; can be <code>null</code>
+     * @throws IOException
+     *             if the stream can't be read
+     */
+    void readFrom(final InputStream _in, final Consumer<String> _lineConsumer) throws IOException {
+        final int max = getMaxLineLength();
+        try (Reader reader = new InputStreamReader(meter(_in), StandardCharsets.UTF_8)) {
+            final char[] chunk = new char[READ_CHUNK_CHARS];
+            final StringBuilder line = new StringBuilder();
+            boolean isCut = false;
+            boolean isAfterCr = false;
+            int n;
+            while (-1 != (n = reader.read(chunk))) {
+                int start = 0;
+                for (int i = 0; i < n; ++i) {
+                    final char c = chunk[i];
+                    if ('\n' == c && isAfterCr) {
+                        // The second half of a \r\n that was split across chunks
+                        isAfterCr = false;
+                        start = i + 1;
+                        continue;
+                    }
+                    isAfterCr = '\r' == c;
+                    if ('\n' == c || '\r' == c) {
+                        isCut = isCut || appendUpTo(line, chunk, start, i, max);
+                        addRead(line, isCut, _lineConsumer);
+                        isCut = false;
+                        start = i + 1;
+                    }
+                }
+                isCut = isCut || appendUpTo(line, chunk, start, n, max);
+            }
+            if (0 < line.length() || isCut) {
+                addRead(line, isCut, _lineConsumer);
+            }
+        }
+    }
+
+    /**
+     * Append part of a chunk to a line, up to the maximum line length.
+     *
+     * @return true, if anything was left out
+     */
+    private static boolean appendUpTo(final StringBuilder _line, final char[] _chunk, final int _start, final int _end, final int _max) {
+        final int room = _max - _line.length();
+        if (_end - _start <= room) {
+            _line.append(_chunk, _start, _end - _start);
+            return false;
+        }
+        int kept = Math.max(0, room);
+        if (0 < kept && Character.isHighSurrogate(_chunk[_start + kept - 1])) {
+            // Don't keep half of a character
+            --kept;
+        }
+        _line.append(_chunk, _start, kept);
+        return true;
+    }
+
+    private void addRead(final StringBuilder _line, final boolean _isCut, final Consumer<String> _lineConsumer) {
+        final String line = _line.toString();
+        _line.setLength(0);
+        if (_isCut) {
+            ++m_truncatedLines;
+        }
+        add(line);
+        if (null != _lineConsumer) {
+            _lineConsumer.accept(line);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+
+/**
+ * Forwards a child process's output streams into an {@link AppLogger} in verbose mode. Every line is tagged
+ * with the process's eyecatcher, and lines are grouped into chunks that are handed to the logger as a unit,
+ * so that many concurrent children don't contend on the logger for every single line.
+ */
+class ChildOutputForwarder {
+
+    /** The maximum number of characters buffered before a chunk is published. */
+    private static final int MAX_CHUNK_CHARS = 8192;
+
+    /** The maximum number of lines buffered before a chunk is published. */
+    private static final int MAX_CHUNK_LINES = 64;
+
+    private final AppLogger m_logger;
+
+    /** The per-line prefix, built once per process. */
+    private final String m_prefix;
+
+    /**
+     * Instantiates a new forwarder.
+     *
+     * @param _eyecatcher
+     *            the eyecatcher identifying the child process
+     * @param _logger
+     *            the logger
+     */
+    ChildOutputForwarder(final String _eyecatcher, final AppLogger _logger) {
+        m_logger = _logger;
+        m_prefix = "child process " + _eyecatcher + ":";
+    }
+
+    /**
+     * Consume the given stream until end of input. If the logger is not in verbose mode, the stream is simply
+     * drained without decoding it.
+     *
+     * @param _stream
+     *            the stream
+     * @param _isError
+     *            whether this is the child's standard error
+     */
+    void forward(final InputStream _stream, final boolean _isError) {
+        try {
+            if (m_logger.isVerbose()) {
+                forwardLines(_stream, _isError);
+            } else {
+                discard(_stream);
+            }
+        } catch (final IOException e) {
+            m_logger.exception(e);
+        }
+    }
+
+    private void forwardLines(final InputStream _stream, final boolean _isError) throws IOException {
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(_stream))) {
+            final StringBuilder chunk = new StringBuilder(256);
+            int lines = 0;
+            String read;
+            while (null != (read = br.readLine())) {
+                if (0 != lines) {
+                    chunk.append('\n');
+                }
+                chunk.append(m_prefix).append(read);
+                ++lines;
+                // Publish once the chunk is full, or once we'd otherwise have to wait on the child for more
+                if (MAX_CHUNK_LINES <= lines || MAX_CHUNK_CHARS <= chunk.length() || !br.ready()) {
+                    m_logger.publishChunk_verbose(chunk.toString(), _isError);
+                    chunk.setLength(0);
+                    lines = 0;
+                }
+            }
+            if (0 != lines) {
+                m_logger.publishChunk_verbose(chunk.toString(), _isError);
+            }
+        }
+    }
+
+    private static void discard(final InputStream _stream) throws IOException {
+        try (InputStream in = _stream) {
+            final byte[] buf = new byte[8192];
+            while (-1 != in.read(buf)) {
+                // keep reading so the child never blocks on a full pipe
+            }
+        }
+    }
+}
@@ -0,0 +1,411 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * An immutable, prebuilt index over a set of choices (such as host or library names) for resolving what a user
+ * typed: exact matches and unique prefixes are found by binary search over the sorted, lower-cased choices (the
+ * sorted array serves as a prefix tree: every prefix maps to one contiguous range), and misspellings are matched
+ * against an index of the three-character sequences (trigrams) in each choice. All lookups are case-insensitive,
+ * and stay well under a millisecond for a hundred thousand choices.
+ *
+ * @see ConsoleQuestionAsker#askChoiceQuestion(AppLogger, String, ChoiceIndex)
+ */
+public class ChoiceIndex {
+
+    /** Marks the start and end of a choice, so that short choices still have trigrams. */
+    private static final char BOUNDARY = '\u0001';
+
+    /** A trigram in more than this share (1/n) of the choices is too common to find candidates by. */
+    private static final int COMMON_TRIGRAM_SHARE = 16;
+
+    /** A trigram in at most this many choices is never too common, however few choices there are. */
+    private static final int COMMON_TRIGRAM_MIN = 256;
+
+    /**
+     * Build an index.
+     *
+     * @param _choices
+     *            the choices; entries that differ only in case from an earlier one are dropped
+     * @return the index
+     */
+    public static ChoiceIndex of(final Collection<String> _choices) {
+        return new ChoiceIndex(_choices.toArray(new String[_choices.size()]));
+    }
+
+    /**
+     * Build an index.
+     *
+     * @param _choices
+     *            the choices; entries that differ only in case from an earlier one are dropped
+     * @return the index
+     */
+    public static ChoiceIndex of(final String... _choices) {
+        return new ChoiceIndex(_choices.clone());
+    }
+
+    private static String padded(final String _lower) {
+        return BOUNDARY + _lower + BOUNDARY;
+    }
+
+    /**
+     * Pack three characters into one key. The marker bit above them keeps every key non-zero, since 0 marks an
+     * empty slot of {@link #m_trigramSlots}.
+     */
+    private static long trigram(final CharSequence _str, final int _i) {
+        return (1L << 48) | ((long) _str.charAt(_i) << 32) | ((long) _str.charAt(_i + 1) << 16) | _str.charAt(_i + 2);
+    }
+
+    /** The choices, in their original order and case. */
+    private final String[] m_choices;
+
+    /** The lower-cased choices, sorted. */
+    private final String[] m_sortedKeys;
+
+    /** For each entry of {@link #m_sortedKeys}, the index of the choice in {@link #m_choices}. */
+    private final int[] m_sortedToChoice;
+
+    /** For each choice, its number of distinct trigrams. */
+    private final int[] m_trigramCounts;
+
+    /** Open-addressing table of trigram keys; 0 marks an empty slot. */
+    private long[] m_trigramSlots = new long[1024];
+
+    /** For each slot of {@link #m_trigramSlots}, the trigram's index into {@link #m_postings}. */
+    private int[] m_trigramIds = new int[1024];
+
+    /** The number of distinct trigrams. */
+    private int m_trigramCount = 0;
+
+    /** For each trigram, the indexes of the choices containing it, in ascending order. */
+    private final int[][] m_postings;
+
+    private ChoiceIndex(final String[] _choices) {
+        final Map<String, Integer> byKey = new HashMap<String, Integer>(_choices.length * 2);
+        final List<String> choices = new ArrayList<String>(_choices.length);
+        final List<String> lowerChoices = new ArrayList<String>(_choices.length);
+        for (final String choice : _choices) {
+            final String key = choice.toLowerCase(Locale.ROOT);
+            if (!byKey.containsKey(key)) {
+                byKey.put(key, choices.size());
+                choices.add(choice);
+                lowerChoices.add(padded(key));
+            }
+        }
+        m_choices = choices.toArray(new String[choices.size()]);
+        m_sortedKeys = byKey.keySet().toArray(new String[byKey.size()]);
+        Arrays.sort(m_sortedKeys);
+        m_sortedToChoice = new int[m_sortedKeys.length];
+        for (int i = 0; i < m_sortedKeys.length; ++i) {
+            m_sortedToChoice[i] = byKey.get(m_sortedKeys[i]);
+        }
+
+        // First pass: number the trigrams and size their postings
+        m_trigramCounts = new int[m_choices.length];
+        int[] postingCounts = new int[1024];
+        int[] lastChoice = new int[1024];
+        for (int c = 0; c < m_choices.length; ++c) {
+            final String padded = lowerChoices.get(c);
+            for (int i = 0; i + 3 <= padded.length(); ++i) {
+                final int id = addTrigram(trigram(padded, i));
+                if (id == postingCounts.length) {
+                    postingCounts = Arrays.copyOf(postingCounts, 2 * id);
+                    lastChoice = Arrays.copyOf(lastChoice, 2 * id);
+                }
+                // Choice numbers are stored plus one, so that the zeroed array means "none yet"
+                if (lastChoice[id] != c + 1) {
+                    lastChoice[id] = c + 1;
+                    ++postingCounts[id];
+                    ++m_trigramCounts[c];
+                }
+            }
+        }
+        // Second pass: fill the postings, which come out in ascending order
+        m_postings = new int[m_trigramCount][];
+        for (int id = 0; id < m_trigramCount; ++id) {
+            m_postings[id] = new int[postingCounts[id]];
+        }
+        Arrays.fill(postingCounts, 0);
+        Arrays.fill(lastChoice, 0);
+        for (int c = 0; c < m_choices.length; ++c) {
+            final String padded = lowerChoices.get(c);
+            for (int i = 0; i + 3 <= padded.length(); ++i) {
+                final int id = findTrigram(trigram(padded, i));
+                if (lastChoice[id] != c + 1) {
+                    lastChoice[id] = c + 1;
+                    m_postings[id][postingCounts[id]++] = c;
+                }
+            }
+        }
+    }
+
+    /** Number a trigram, if it has not been seen before; only called while building. */
+    private int addTrigram(final long _trigram) {
+        if (2 * (m_trigramCount + 1) > m_trigramSlots.length) {
+            final long[] slots = m_trigramSlots;
+            final int[] ids = m_trigramIds;
+            m_trigramSlots = new long[2 * slots.length];
+            m_trigramIds = new int[2 * slots.length];
+            for (int i = 0; i < slots.length; ++i) {
+                if (0 != slots[i]) {
+                    final int slot = slotFor(slots[i]);
+                    m_trigramSlots[slot] = slots[i];
+                    m_trigramIds[slot] = ids[i];
+                }
+            }
+        }
+        final int slot = slotFor(_trigram);
+        if (0 == m_trigramSlots[slot]) {
+            m_trigramSlots[slot] = _trigram;
+            m_trigramIds[slot] = m_trigramCount++;
+        }
+        return m_trigramIds[slot];
+    }
+
+    /** Gets the number of a trigram, or -1 if no choice contains it. */
+    private int findTrigram(final long _trigram) {
+        final int slot = slotFor(_trigram);
+        return 0 == m_trigramSlots[slot] ? -1 : m_trigramIds[slot];
+    }
+
+    /** The slot holding the trigram, or the empty slot where it belongs. */
+    private int slotFor(final long _trigram) {
+        final int mask = m_trigramSlots.length - 1;
+        int i = (int) ((_trigram * 0x9e3779b97f4a7c15L) >>> 32) & mask;
+        while (0 != m_trigramSlots[i] && _trigram != m_trigramSlots[i]) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    /**
+     * Gets a choice.
+     *
+     * @param _index
+     *            the index, in the order given
+     * @return the choice
+     */
+    public String get(final int _index) {
+        return m_choices[_index];
+    }
+
+    /**
+     * Gets all choices, in the order given.
+     *
+     * @return the choices
+     */
+    public List<String> getChoices() {
+        return Collections.unmodifiableList(Arrays.asList(m_choices));
+    }
+
+    /**
+     * Gets the choices, sorted (case-insensitively), that start with the given prefix.
+     *
+     * @param _prefix
+     *            the prefix
+     * @param _max
+     *            the maximum number of choices to return
+     * @return the choices
+     */
+    public List<String> getChoicesStartingWith(final String _prefix, final int _max) {
+        if (_max <= 0) {
+            return new ArrayList<String>(0);
+        }
+        final String prefix = _prefix.toLowerCase(Locale.ROOT);
+        final int lo = lowerBound(prefix);
+        final int hi = upperBound(prefix, lo);
+        final List<String> ret = new ArrayList<String>(Math.min(_max, hi - lo));
+        for (int i = lo; i < hi && ret.size() < _max; ++i) {
+            ret.add(m_choices[m_sortedToChoice[i]]);
+        }
+        return ret;
+    }
+
+    /**
+     * Count the choices that start with the given prefix.
+     *
+     * @param _prefix
+     *            the prefix
+     * @return the number of choices
+     */
+    public int countChoicesStartingWith(final String _prefix) {
+        final String prefix = _prefix.toLowerCase(Locale.ROOT);
+        final int lo = lowerBound(prefix);
+        return upperBound(prefix, lo) - lo;
+    }
+
+    /** The first sorted index whose key is not less than the given one. */
+    private int lowerBound(final String _key) {
+        int lo = 0;
+        int hi = m_sortedKeys.length;
+        while (lo < hi) {
+            final int mid = (lo + hi) >>> 1;
+            if (m_sortedKeys[mid].compareTo(_key) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Resolve what the user typed to a choice: an exact (case-insensitive) match, or else the only choice that
+     * starts with it.
+     *
+     * @param _input
+     *            what the user typed; leading and trailing blanks are ignored
+     * @return the choice, or <code>null</code> if there is no match or more than one
+     */
+    public String resolve(final String _input) {
+        final String key = _input.trim().toLowerCase(Locale.ROOT);
+        if (key.isEmpty()) {
+            return null;
+        }
+        final int lo = lowerBound(key);
+        if (lo < m_sortedKeys.length && m_sortedKeys[lo].equals(key)) {
+            return m_choices[m_sortedToChoice[lo]];
+        }
+        final int hi = upperBound(key, lo);
+        return 1 == hi - lo ? m_choices[m_sortedToChoice[lo]] : null;
+    }
+
+    /**
+     * Gets the number of choices.
+     *
+     * @return the size
+     */
+    public int size() {
+        return m_choices.length;
+    }
+
+    /**
+     * Suggest the choices most similar to what the user typed, best first. Similarity is the share of
+     * three-character sequences the two have in common, so misspellings, missing characters and swapped words
+     * still match. A choice that shares only very common sequences with the input (say, just a prefix that most
+     * choices have) is not suggested.
+     *
+     * @param _input
+     *            what the user typed
+     * @param _max
+     *            the maximum number of suggestions
+     * @return the suggestions; empty if nothing is remotely similar
+     */
+    public List<String> suggest(final String _input, final int _max) {
+        if (_max <= 0) {
+            return new ArrayList<String>(0);
+        }
+        final String padded = padded(_input.trim().toLowerCase(Locale.ROOT));
+        final int queryTrigramCount = padded.length() - 2;
+        final long[] queryTrigrams = new long[queryTrigramCount];
+        final int[] queryIds = new int[queryTrigramCount];
+        int distinctQueryTrigrams = 0;
+        int presentCount = 0;
+        nextTrigram: for (int i = 0; i < queryTrigramCount; ++i) {
+            final long tri = trigram(padded, i);
+            for (int j = 0; j < distinctQueryTrigrams; ++j) {
+                if (tri == queryTrigrams[j]) {
+                    continue nextTrigram;
+                }
+            }
+            queryTrigrams[distinctQueryTrigrams++] = tri;
+            final int id = findTrigram(tri);
+            if (-1 != id) {
+                // Insertion sort, rarest trigram first
+                int pos = presentCount++;
+                while (pos > 0 && m_postings[queryIds[pos - 1]].length > m_postings[id].length) {
+                    queryIds[pos] = queryIds[pos - 1];
+                    --pos;
+                }
+                queryIds[pos] = id;
+            }
+        }
+
+        // Candidates come from the rarer trigrams. A very common one (such as a shared prefix) only adds to the
+        // counts of choices already found, so it does not make nearly every choice a candidate.
+        final int commonLength = Math.max(COMMON_TRIGRAM_MIN, m_choices.length / COMMON_TRIGRAM_SHARE);
+        final int[] shared = new int[m_choices.length];
+        int[] touched = new int[64];
+        int touchedCount = 0;
+        for (int i = 0; i < presentCount; ++i) {
+            final int[] postings = m_postings[queryIds[i]];
+            if (i > 0 && postings.length > commonLength) {
+                for (final int c : postings) {
+                    if (0 != shared[c]) {
+                        ++shared[c];
+                    }
+                }
+                continue;
+            }
+            for (final int c : postings) {
+                if (0 == shared[c]++) {
+                    if (touchedCount == touched.length) {
+                        touched = Arrays.copyOf(touched, 2 * touchedCount);
+                    }
+                    touched[touchedCount++] = c;
+                }
+            }
+        }
+
+        // Keep only the best few, in order, rather than sorting every candidate
+        final int max = _max;
+        final int[] bestScores = new int[max];
+        final int[] bestChoices = new int[max];
+        int bestCount = 0;
+        for (int i = 0; i < touchedCount; ++i) {
+            final int c = touched[i];
+            // Dice coefficient, scaled to an integer
+            final int score = 1000 * 2 * shared[c] / (distinctQueryTrigrams + m_trigramCounts[c]);
+            if (score < 200 || (bestCount == max && !isBetter(score, c, bestScores[max - 1], bestChoices[max - 1]))) {
+                continue;
+            }
+            int pos = Math.min(bestCount, max - 1);
+            while (pos > 0 && isBetter(score, c, bestScores[pos - 1], bestChoices[pos - 1])) {
+                bestScores[pos] = bestScores[pos - 1];
+                bestChoices[pos] = bestChoices[pos - 1];
+                --pos;
+            }
+            bestScores[pos] = score;
+            bestChoices[pos] = c;
+            bestCount = Math.min(bestCount + 1, max);
+        }
+        final List<String> ret = new ArrayList<String>(bestCount);
+        for (int i = 0; i < bestCount; ++i) {
+            ret.add(m_choices[bestChoices[i]]);
+        }
+        return ret;
+    }
+
+    /** Whether one suggestion ranks ahead of another: higher score first, then alphabetically. */
+    private boolean isBetter(final int _score, final int _choice, final int _otherScore, final int _otherChoice) {
+        if (_score != _otherScore) {
+            return _score > _otherScore;
+        }
+        return m_choices[_choice].compareToIgnoreCase(m_choices[_otherChoice]) < 0;
+    }
+
+    /** The first sorted index, at or after <code>_from</code>, whose key does not start with the prefix. */
+    private int upperBound(final String _prefix, final int _from) {
+        int lo = _from;
+        int hi = m_sortedKeys.length;
+        while (lo < hi) {
+            final int mid = (lo + hi) >>> 1;
+            if (m_sortedKeys[mid].startsWith(_prefix)) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
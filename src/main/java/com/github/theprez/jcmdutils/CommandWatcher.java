@@ -0,0 +1,439 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.github.theprez.jcmdutils.StringUtils.TerminalColor;
+
+/**
+ * Re-runs a command on a schedule and reports only what changed in its output since the previous run, like a
+ * quieter <code>watch</code>. The diff is printed to the given {@link AppLogger}'s standard output, added lines in
+ * green and removed lines in red; alternatively, only a one-line summary of each change is printed.
+ * <p>
+ * A run whose output is byte-for-byte the same as the previous one is recognized by a digest of the whole
+ * output, without splitting it into lines. Otherwise, lines are compared by 64-bit hash using Myers' diff
+ * algorithm, after trimming the unchanged lines at either end.
+ */
+public class CommandWatcher implements Closeable {
+
+    /**
+     * Describes the outcome of one run.
+     */
+    public static class ChangeSummary {
+        private final int m_added;
+        private final int m_exitStatus;
+        private final boolean m_isChanged;
+        private final int m_removed;
+
+        ChangeSummary(final boolean _isChanged, final int _added, final int _removed, final int _exitStatus) {
+            m_isChanged = _isChanged;
+            m_added = _added;
+            m_removed = _removed;
+            m_exitStatus = _exitStatus;
+        }
+
+        /**
+         * Gets the number of lines added since the previous run.
+         *
+         * @return the added line count
+         */
+        public int getAddedLineCount() {
+            return m_added;
+        }
+
+        /**
+         * Gets the exit status of the command.
+         *
+         * @return the exit status
+         */
+        public int getExitStatus() {
+            return m_exitStatus;
+        }
+
+        /**
+         * Gets the number of lines removed since the previous run.
+         *
+         * @return the removed line count
+         */
+        public int getRemovedLineCount() {
+            return m_removed;
+        }
+
+        /**
+         * Checks if the output differs from the previous run.
+         *
+         * @return true, if changed
+         */
+        public boolean isChanged() {
+            return m_isChanged;
+        }
+    }
+
+    /**
+     * The output of one run, split into lines on demand.
+     */
+    private static class Snapshot {
+        private final byte[] m_bytes;
+        private final byte[] m_digest;
+        private long[] m_hashes = null;
+        private int m_lineCount = 0;
+        private final int m_length;
+        private int[] m_lineStarts = null;
+
+        Snapshot(final byte[] _bytes, final int _length, final byte[] _digest) {
+            m_bytes = _bytes;
+            m_length = _length;
+            m_digest = _digest;
+        }
+
+        int end(final int _line) {
+            final int next = _line + 1 < m_lineCount ? m_lineStarts[_line + 1] - 1 : m_length;
+            return (next > m_lineStarts[_line] && '\n' == m_bytes[next - 1]) ? next - 1 : next;
+        }
+
+        boolean isSameLine(final int _line, final Snapshot _other, final int _otherLine) {
+            if (m_hashes[_line] != _other.m_hashes[_otherLine]) {
+                return false;
+            }
+            final int start = m_lineStarts[_line];
+            final int len = end(_line) - start;
+            final int otherStart = _other.m_lineStarts[_otherLine];
+            if (len != _other.end(_otherLine) - otherStart) {
+                return false;
+            }
+            for (int i = 0; i < len; ++i) {
+                if (m_bytes[start + i] != _other.m_bytes[otherStart + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        String line(final int _line) {
+            return new String(m_bytes, m_lineStarts[_line], end(_line) - m_lineStarts[_line], StandardCharsets.UTF_8);
+        }
+
+        void split() {
+            if (null != m_hashes) {
+                return;
+            }
+            int count = 0;
+            for (int i = 0; i < m_length; ++i) {
+                if ('\n' == m_bytes[i]) {
+                    ++count;
+                }
+            }
+            if (0 < m_length && '\n' != m_bytes[m_length - 1]) {
+                ++count;
+            }
+            m_lineCount = count;
+            m_lineStarts = new int[count];
+            m_hashes = new long[count];
+            int line = 0;
+            long hash = FNV_OFFSET;
+            int start = 0;
+            for (int i = 0; i < m_length; ++i) {
+                final byte b = m_bytes[i];
+                if ('\n' == b) {
+                    m_lineStarts[line] = start;
+                    m_hashes[line++] = hash;
+                    hash = FNV_OFFSET;
+                    start = i + 1;
+                } else {
+                    hash = (hash ^ (b & 0xff)) * FNV_PRIME;
+                }
+            }
+            if (line < count) {
+                m_lineStarts[line] = start;
+                m_hashes[line] = hash;
+            }
+        }
+    }
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /** Beyond this many edits, an exact minimal diff is too costly and lines are compared as multisets instead. */
+    private static final int MAX_EDIT_DISTANCE = 1000;
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private final String[] m_cmd;
+
+    private ScheduledExecutorService m_executor = null;
+
+    private boolean m_isSummaryOnly = false;
+
+    private final AppLogger m_logger;
+
+    private Snapshot m_previous = null;
+
+    /**
+     * Instantiates a new watcher. Nothing is run until {@link #runOnce()} or {@link #start(long)} is called.
+     *
+     * @param _logger
+     *            where changes are reported
+     * @param _cmd
+     *            the command and its arguments
+     */
+    public CommandWatcher(final AppLogger _logger, final String... _cmd) {
+        m_logger = _logger;
+        m_cmd = _cmd.clone();
+    }
+
+    /**
+     * Stop running the command on a schedule.
+     */
+    @Override
+    public synchronized void close() {
+        if (null != m_executor) {
+            m_executor.shutdownNow();
+            m_executor = null;
+        }
+    }
+
+    /**
+     * Run the command once, and report the differences from the previous run. On the first run, all of the output
+     * is reported as added.
+     *
+     * @return the change summary
+     * @throws IOException
+     *             Signals that an I/O exception has occurred.
+     */
+    public synchronized ChangeSummary runOnce() throws IOException {
+        final Process p = Runtime.getRuntime().exec(m_cmd);
+        final ChildOutputForwarder forwarder = new ChildOutputForwarder(m_cmd[0], m_logger);
+        BlockingTasks.start("jcmdutils-stderr-pump", () -> forwarder.forward(p.getErrorStream(), true));
+        p.getOutputStream().close();
+
+        final MessageDigest digest = newDigest();
+        byte[] buf = null == m_previous ? new byte[8192] : new byte[Math.max(8192, m_previous.m_length + 1)];
+        int len = 0;
+        try (InputStream in = p.getInputStream()) {
+            int read;
+            while (-1 != (read = in.read(buf, len, buf.length - len))) {
+                digest.update(buf, len, read);
+                len += read;
+                if (len == buf.length) {
+                    buf = Arrays.copyOf(buf, buf.length * 2);
+                }
+            }
+        }
+        final int rc;
+        try {
+            rc = p.waitFor();
+        } catch (final InterruptedException e) {
+            throw new IOException(e);
+        }
+        final Snapshot current = new Snapshot(buf, len, digest.digest());
+        if (null != m_previous && MessageDigest.isEqual(m_previous.m_digest, current.m_digest)) {
+            m_logger.printfln_verbose("%s: no change", m_cmd[0]);
+            return new ChangeSummary(false, 0, 0, rc);
+        }
+        final ChangeSummary ret = report(null == m_previous ? new Snapshot(new byte[0], 0, null) : m_previous, current, rc);
+        m_previous = current;
+        return ret;
+    }
+
+    /**
+     * Sets whether only a count of added and removed lines is printed for each change, rather than the lines.
+     *
+     * @param _isSummaryOnly
+     *            whether to print a summary only
+     * @return this object
+     */
+    public CommandWatcher setSummaryOnly(final boolean _isSummaryOnly) {
+        m_isSummaryOnly = _isSummaryOnly;
+        return this;
+    }
+
+    /**
+     * Start running the command on a schedule, on a background thread. Runs never overlap: the interval is the
+     * delay between the end of one run and the start of the next.
+     *
+     * @param _intervalMillis
+     *            the delay between runs, in milliseconds
+     * @return this object
+     */
+    public synchronized CommandWatcher start(final long _intervalMillis) {
+        if (null != m_executor) {
+            throw new IllegalStateException("Already started");
+        }
+        m_executor = Executors.newSingleThreadScheduledExecutor(_r -> {
+            final Thread t = new Thread(_r, "jcmdutils-watch-" + m_cmd[0]);
+            t.setDaemon(true);
+            return t;
+        });
+        m_executor.scheduleWithFixedDelay(() -> {
+            try {
+                runOnce();
+            } catch (final IOException e) {
+                m_logger.printExceptionStack_verbose(e);
+                m_logger.printfln_err("%s: %s", m_cmd[0], e.getLocalizedMessage());
+            }
+        }, 0, _intervalMillis, TimeUnit.MILLISECONDS);
+        return this;
+    }
+
+    /**
+     * Compute the line differences and print them.
+     */
+    private ChangeSummary report(final Snapshot _old, final Snapshot _new, final int _rc) {
+        _old.split();
+        _new.split();
+        // Unchanged lines at either end take no part in the diff
+        int prefix = 0;
+        final int maxCommon = Math.min(_old.m_lineCount, _new.m_lineCount);
+        while (prefix < maxCommon && _old.isSameLine(prefix, _new, prefix)) {
+            ++prefix;
+        }
+        int suffix = 0;
+        while (suffix < maxCommon - prefix && _old.isSameLine(_old.m_lineCount - 1 - suffix, _new, _new.m_lineCount - 1 - suffix)) {
+            ++suffix;
+        }
+        final int oldEnd = _old.m_lineCount - suffix;
+        final int newEnd = _new.m_lineCount - suffix;
+
+        // Each entry is a line index, negative (-1 - index) for a removed old line and non-negative for an added new one
+        int[] edits = myers(_old, prefix, oldEnd, _new, prefix, newEnd);
+        if (null == edits) {
+            edits = multisetDiff(_old, prefix, oldEnd, _new, prefix, newEnd);
+        }
+        int added = 0;
+        int removed = 0;
+        for (final int edit : edits) {
+            if (edit < 0) {
+                ++removed;
+            } else {
+                ++added;
+            }
+        }
+        m_logger.printfln("%s: %d line(s) added, %d line(s) removed", m_cmd[0], added, removed);
+        if (!m_isSummaryOnly) {
+            for (final int edit : edits) {
+                // Both kinds go to the same stream, so the diff stays in order when it is redirected
+                if (edit < 0) {
+                    m_logger.println(StringUtils.colorizeForTerminal("- " + _old.line(-1 - edit), TerminalColor.RED));
+                } else {
+                    m_logger.println(StringUtils.colorizeForTerminal("+ " + _new.line(edit), TerminalColor.GREEN));
+                }
+            }
+        }
+        return new ChangeSummary(true, added, removed, _rc);
+    }
+
+    /**
+     * Myers' O(ND) diff between two ranges of lines.
+     *
+     * @return the edits, in order, or <code>null</code> if there are more than {@link #MAX_EDIT_DISTANCE} of them
+     */
+    private static int[] myers(final Snapshot _a, final int _aStart, final int _aEnd, final Snapshot _b, final int _bStart, final int _bEnd) {
+        final int n = _aEnd - _aStart;
+        final int m = _bEnd - _bStart;
+        final int max = Math.min(n + m, MAX_EDIT_DISTANCE);
+        final int offset = max + 1;
+        final int[] v = new int[2 * max + 3];
+        final int[][] trace = new int[max + 1][];
+        int found = -1;
+        for (int d = 0; d <= max && -1 == found; ++d) {
+            for (int k = -d; k <= d; k += 2) {
+                int x;
+                if (k == -d || (k != d && v[offset + k - 1] < v[offset + k + 1])) {
+                    x = v[offset + k + 1];
+                } else {
+                    x = v[offset + k - 1] + 1;
+                }
+                int y = x - k;
+                while (x < n && y < m && _a.isSameLine(_aStart + x, _b, _bStart + y)) {
+                    ++x;
+                    ++y;
+                }
+                v[offset + k] = x;
+                if (x >= n && y >= m) {
+                    found = d;
+                    break;
+                }
+            }
+            trace[d] = v.clone();
+        }
+        if (-1 == found) {
+            return null;
+        }
+        // Walk back through the trace to recover the edits
+        final int[] edits = new int[found];
+        int x = n;
+        int y = m;
+        for (int d = found; d > 0; --d) {
+            final int[] prev = trace[d - 1];
+            final int k = x - y;
+            final int prevK = (k == -d || (k != d && prev[offset + k - 1] < prev[offset + k + 1])) ? k + 1 : k - 1;
+            final int prevX = prev[offset + prevK];
+            final int prevY = prevX - prevK;
+            edits[d - 1] = (prevK == k + 1) ? _bStart + prevY : -1 - (_aStart + prevX);
+            x = prevX;
+            y = prevY;
+        }
+        return edits;
+    }
+
+    /**
+     * A cheap, order-insensitive diff for heavily changed output: a line is added or removed if it occurs more or
+     * fewer times than before.
+     */
+    private static int[] multisetDiff(final Snapshot _a, final int _aStart, final int _aEnd, final Snapshot _b, final int _bStart, final int _bEnd) {
+        final Map<Long, int[]> counts = new HashMap<Long, int[]>();
+        for (int i = _aStart; i < _aEnd; ++i) {
+            final int[] c = counts.get(_a.m_hashes[i]);
+            if (null == c) {
+                counts.put(_a.m_hashes[i], new int[] { 1 });
+            } else {
+                ++c[0];
+            }
+        }
+        final int[] balance = new int[_bEnd - _bStart];
+        int size = 0;
+        for (int i = _bStart; i < _bEnd; ++i) {
+            final int[] c = counts.get(_b.m_hashes[i]);
+            if (null != c && 0 < c[0]) {
+                --c[0];
+            } else {
+                balance[size++] = i;
+            }
+        }
+        int removed = 0;
+        for (final int[] c : counts.values()) {
+            removed += c[0];
+        }
+        final int[] ret = new int[removed + size];
+        int pos = 0;
+        for (int i = _aStart; i < _aEnd && pos < removed; ++i) {
+            final int[] c = counts.get(_a.m_hashes[i]);
+            if (0 < c[0]) {
+                --c[0];
+                ret[pos++] = -1 - i;
+            }
+        }
+        System.arraycopy(balance, 0, ret, removed, size);
+        return ret;
+    }
+}
@@ -5,11 +5,23 @@ package com.github.theprez.jcmdutils;
 
 import java.io.BufferedReader;
 import java.io.Console;
+import java.io.IOError;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Formatter;
-import java.util.LinkedList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import com.github.theprez.jcmdutils.StringUtils.TerminalColor;
 
@@ -17,10 +29,18 @@ import com.github.theprez.jcmdutils.StringUtils.TerminalColor;
  * A utility class for asking the user questions (including passwords). While an object
  * can be directly instantiated, the expected usage is to access functions through a
  * singleton object returned by {@link #get()}.
+ * <br>
+ * For unattended runs, answers can come from {@link AnswerProvider}s (response files, environment variables,
+ * scripts) instead of the terminal; see {@link #addAnswerProvider(AnswerProvider)}. Questions asked at the
+ * terminal can be given a deadline; see {@link #setPromptTimeout(long)}. Sessions can be recorded and replayed
+ * at full speed, without a terminal; see {@link #setRecorder(SessionRecorder)} and {@link SessionJournal}.
  */
 public class ConsoleQuestionAsker {
 
-    private static ConsoleQuestionAsker m_singleton = new ConsoleQuestionAsker();
+    /** Created on first use, rather than when the class is loaded. */
+    private static class SingletonHolder {
+        private static final ConsoleQuestionAsker INSTANCE = new ConsoleQuestionAsker();
+    }
 
     /**
      * Gets the global singleton.
@@ -28,19 +48,177 @@ public class ConsoleQuestionAsker {
      * @return the console question asker
      */
     public static ConsoleQuestionAsker get() {
-        return m_singleton;
+        return SingletonHolder.INSTANCE;
+    }
+
+    /** One console for every instance, since they all read the same standard input. */
+    private static class ConsoleHolder {
+        private static final PseudoConsole INSTANCE = new PseudoConsole();
     }
 
     private static class PseudoConsole {
+
+        /**
+         * Reads the terminal on a daemon thread, one line (or password) per request, handing each result over
+         * through a queue. A caller that times out leaves its request outstanding, so no thread is left blocked
+         * on its behalf: the line typed late is handed to the next caller instead. A password is never read by an
+         * outstanding (echoing) line request, and a password is never handed to a caller that asked for a line.
+         */
+        private final class InputThread implements Runnable {
+            private boolean m_isPasswordOutstanding = false;
+            private boolean m_isReadOutstanding = false;
+            private final BlockingQueue<Boolean> m_requests = new LinkedBlockingQueue<Boolean>();
+            private final BlockingQueue<Object> m_results = new LinkedBlockingQueue<Object>();
+
+            /**
+             * @return the line, {@link #EOF}, or <code>null</code> on timeout
+             */
+            synchronized Object readLine(final long _timeoutMillis) {
+                final long deadline = System.currentTimeMillis() + _timeoutMillis;
+                while (true) {
+                    final long remaining = _timeoutMillis > 0 ? deadline - System.currentTimeMillis() : 0;
+                    if (_timeoutMillis > 0 && remaining <= 0) {
+                        return null;
+                    }
+                    final Object ret = take(false, remaining);
+                    if (!(ret instanceof char[])) {
+                        return ret;
+                    }
+                    // A password typed late for an earlier prompt; it is not an answer to this one
+                    Arrays.fill((char[]) ret, ' ');
+                }
+            }
+
+            /**
+             * @return the password, {@link #EOF}, or <code>null</code> if interrupted
+             * @throws IOException
+             *             if a line read for an earlier prompt is still outstanding, since what is typed next would
+             *             be echoed
+             */
+            synchronized Object readPassword() throws IOException {
+                if (m_isReadOutstanding && !m_isPasswordOutstanding) {
+                    throw new IOException("Can't read a password while an earlier prompt is still reading a line, since the password would be echoed");
+                }
+                return take(true, 0);
+            }
+
+            private Object take(final boolean _isPassword, final long _timeoutMillis) {
+                if (!m_isReadOutstanding) {
+                    m_requests.add(_isPassword);
+                    m_isReadOutstanding = true;
+                    m_isPasswordOutstanding = _isPassword;
+                }
+                try {
+                    final Object ret = _timeoutMillis > 0 ? m_results.poll(_timeoutMillis, TimeUnit.MILLISECONDS) : m_results.take();
+                    if (null != ret) {
+                        m_isReadOutstanding = false;
+                    }
+                    return ret;
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return null;
+                }
+            }
+
+            @Override
+            public void run() {
+                while (true) {
+                    final boolean isPassword;
+                    try {
+                        isPassword = m_requests.take();
+                    } catch (final InterruptedException e) {
+                        return;
+                    }
+                    Object result;
+                    try {
+                        if (null == m_cons) {
+                            result = m_systemInReader.readLine();
+                        } else {
+                            result = isPassword ? m_cons.readPassword() : m_cons.readLine();
+                        }
+                    } catch (final IOException | IOError e) {
+                        result = null;
+                    }
+                    m_results.add(null == result ? EOF : result);
+                }
+            }
+        }
+
+        private static final Object EOF = new Object();
+
+        /** Returned by {@link #readLine(long, String, Object...)} on timeout; compared by identity. */
+        static final String TIMED_OUT = new String("<timed out>");
+
         private final Console m_cons;
+        private InputThread m_inputThread = null;
         private final BufferedReader m_systemInReader;
 
         public PseudoConsole() {
             m_cons = System.console();
-            m_systemInReader = null != m_cons ? null : new BufferedReader(new InputStreamReader(System.in));
+            m_systemInReader = null != m_cons ? null : new BufferedReader(new InputStreamReader(System.in), 64 * 1024);
+        }
+
+        /**
+         * Gets the input thread, starting it if asked to. Once it is running, every read must go through it.
+         */
+        private synchronized InputThread getInputThread(final boolean _isStarting) {
+            if (null == m_inputThread && _isStarting) {
+                m_inputThread = new InputThread();
+                BlockingTasks.start("jcmdutils-console-input", m_inputThread);
+            }
+            return m_inputThread;
+        }
+
+        private void prompt(final String _fmt, final Object... _args) {
+            if (null == m_cons) {
+                System.out.printf(_fmt, _args);
+                System.out.flush();
+            } else {
+                m_cons.format(_fmt, _args);
+                m_cons.flush();
+            }
+        }
+
+        String readLine(final long _timeoutMillis, final String _fmt, final Object... _args) {
+            final InputThread input = getInputThread(_timeoutMillis > 0);
+            if (null == input) {
+                return readLine(_fmt, _args);
+            }
+            prompt(_fmt, _args);
+            final Object ret = input.readLine(_timeoutMillis);
+            if (null == ret) {
+                return TIMED_OUT;
+            }
+            return EOF == ret ? null : (String) ret;
+        }
+
+        boolean isInteractive() {
+            return null != m_cons;
+        }
+
+        /**
+         * Read a line without printing a prompt.
+         */
+        String readLineQuietly() {
+            final InputThread input = getInputThread(false);
+            if (null != input) {
+                final Object ret = input.readLine(0);
+                return ret instanceof String ? (String) ret : null;
+            }
+            if (null != m_cons) {
+                return m_cons.readLine();
+            }
+            try {
+                return m_systemInReader.readLine();
+            } catch (final IOException e) {
+                return null;
+            }
         }
 
         String readLine(String _fmt, Object... _args) {
+            if (null != getInputThread(false)) {
+                return readLine(0, _fmt, _args);
+            }
             if (null == m_cons) {
                 System.out.printf(_fmt, _args);
                 try {
@@ -64,20 +242,55 @@ public class ConsoleQuestionAsker {
         public char[] readPassword(String _prompt, Object... _args) throws IOException {
             if (null == m_cons) {
                 throw new IOException("Can't allocate console for password input");
-            } else {
+            }
+            final InputThread input = getInputThread(false);
+            if (null == input) {
                 return m_cons.readPassword(_prompt, _args);
             }
+            prompt(_prompt, _args);
+            final Object ret = input.readPassword();
+            return EOF == ret || null == ret ? null : (char[]) ret;
         }
 
     }
 
+    /** Lines of choices shown at a time by {@link #askChoiceQuestion(AppLogger, String, ChoiceIndex)}. */
+    private static final int CHOICE_PAGE_ROWS = 20;
+
+    /** Up to this many choices are listed in the question itself. */
+    private static final int MAX_INLINE_CHOICES = 12;
+
+    private static final int MAX_SUGGESTIONS = 5;
+
+    private final List<AnswerProvider> m_answerProviders = new CopyOnWriteArrayList<AnswerProvider>();
+
+    private volatile boolean m_isCountdownShown = false;
+
+    private volatile boolean m_isInteractiveFallback = true;
+
+    private volatile long m_promptTimeoutMillis = 0;
+
+    private volatile SessionRecorder m_recorder = null;
+
     private final PseudoConsole m_sysConsole;
 
     /**
      * Instantiates a new console question asker.
      */
     public ConsoleQuestionAsker() {
-        m_sysConsole = new PseudoConsole();
+        m_sysConsole = ConsoleHolder.INSTANCE;
+    }
+
+    /**
+     * Add a source of answers, consulted (after any added before it) ahead of the terminal.
+     *
+     * @param _provider
+     *            the answer provider
+     * @return this object
+     */
+    public ConsoleQuestionAsker addAnswerProvider(final AnswerProvider _provider) {
+        m_answerProviders.add(_provider);
+        return this;
     }
 
     /**
@@ -97,6 +310,57 @@ public class ConsoleQuestionAsker {
         return askNonEmptyStringQuestion(_logger, _dft, _fmt, _args).matches("(?i)^(y.*|(tr).*|[1-9]+.*)$");
     }
 
+    /**
+     * Ask a question for which the response is one of the given choices. Will keep asking until the user input
+     * matches a choice, ignoring case, or is the start of exactly one choice. Small sets of choices are listed in
+     * the question; for larger ones, the user can enter <code>?</code> to page through them all, or
+     * <code>?text</code> for those starting with "text". After a mismatch, the most similar choices are
+     * suggested.
+     *
+     * @param _logger
+     *            the logger
+     * @param _question
+     *            the question
+     * @param _choices
+     *            the choices
+     * @return the chosen value, as given in the index
+     */
+    public String askChoiceQuestion(final AppLogger _logger, final String _question, final ChoiceIndex _choices) {
+        if (0 == _choices.size()) {
+            throw new IllegalArgumentException("No choices to choose from");
+        }
+        final String fmt;
+        if (_choices.size() <= MAX_INLINE_CHOICES) {
+            fmt = _question + " (one of: " + String.join("/", _choices.getChoices()) + ")";
+        } else {
+            fmt = _question + " (" + _choices.size() + " choices, enter ? to list them)";
+        }
+        // Escape the question, which may contain '%', since it is used as a format string
+        final String escapedFmt = fmt.replace("%", "%%");
+        for (boolean isRetry = false;; isRetry = true) {
+            final String response = askNonEmptyString(_logger, null, m_promptTimeoutMillis, isRetry, escapedFmt).trim();
+            if (response.startsWith("?")) {
+                printChoices(_logger, _choices, response.substring(1).trim());
+                continue;
+            }
+            final String resolved = _choices.resolve(response);
+            if (null != resolved) {
+                return resolved;
+            }
+            final int prefixCount = _choices.countChoicesStartingWith(response);
+            if (prefixCount > 1) {
+                _logger.printfln_err("'%s' could be any of %d choices, such as: %s", response, prefixCount, String.join(", ", _choices.getChoicesStartingWith(response, MAX_SUGGESTIONS)));
+                continue;
+            }
+            final List<String> suggestions = _choices.suggest(response, MAX_SUGGESTIONS);
+            if (suggestions.isEmpty()) {
+                _logger.printfln_err("User response does not match criteria. Must be one of the choices; enter ? to list them.");
+            } else {
+                _logger.printfln_err("User response does not match criteria. Did you mean: %s?", String.join(", ", suggestions));
+            }
+        }
+    }
+
     /**
      * Ask a question, for which the response is one of the values of the given enum type class. Will keep asking
      * until user input matches the name of an enum value for the given type.
@@ -113,17 +377,11 @@ public class ConsoleQuestionAsker {
      */
     public <T extends Enum<T>> T askEnumQuestion(final AppLogger _logger, final String _question, final Class<T> _type) {
         final T[] constants = _type.getEnumConstants();
-        final String fmt = _question + " (one of: " + StringUtils.arrayToSpaceSeparatedString(constants).replace(' ', '/') + ")";
-
-        while (true) {
-            final String response = askNonEmptyStringQuestion(_logger, null, fmt);
-            for (final T constant : constants) {
-                if (response.trim().equalsIgnoreCase(constant.name())) {
-                    return constant;
-                }
-            }
-            _logger.printfln_err("User response does not match criteria. Must be '%s'.", "one of: " + StringUtils.arrayToSpaceSeparatedString(constants).replace(' ', '/'));
+        final String[] names = new String[constants.length];
+        for (int i = 0; i < constants.length; ++i) {
+            names[i] = constants[i].name();
         }
+        return Enum.valueOf(_type, askChoiceQuestion(_logger, _question, ChoiceIndex.of(names)));
     }
 
     /**
@@ -145,7 +403,8 @@ public class ConsoleQuestionAsker {
 
     /**
      * Ask a question for which the response can be a list of strings. Will keep asking the user for more information
-     * until the user indicates the end of input by way of a blank line.
+     * until the user indicates the end of input by way of a blank line. For very long lists, see
+     * {@link #streamListOfStringsQuestion(AppLogger, String, boolean)}.
      *
      * @param _logger
      *            the logger
@@ -154,17 +413,94 @@ public class ConsoleQuestionAsker {
      * @return the user response
      */
     public List<String> askListOfStringsQuestion(final AppLogger _logger, final String _q) {
+        final List<String> ret = new ArrayList<String>();
+        final Iterator<String> it = iterateListOfStrings(_q, false, true);
+        while (it.hasNext()) {
+            ret.add(it.next());
+        }
+        return ret;
+    }
+
+    /**
+     * Ask a question for which the response can be a list of strings, and read the entries only as they are
+     * consumed. Input ends at a blank line or the end of input. When input is not a terminal (for instance, it is
+     * piped in), the entries are not prompted for one by one and input is read in large chunks, so lists of
+     * millions of entries can be processed without holding them all in memory.
+     *
+     * @param _logger
+     *            the logger
+     * @param _q
+     *            the question
+     * @param _isDeduplicated
+     *            whether to skip entries seen before. Only a 64-bit fingerprint of each entry is kept, so very rarely
+     *            (about once in 30 million lists of a million entries) a distinct entry could be skipped.
+     * @return the entries, trimmed
+     */
+    public Iterator<String> iterateListOfStringsQuestion(final AppLogger _logger, final String _q, final boolean _isDeduplicated) {
+        return iterateListOfStrings(_q, _isDeduplicated, false);
+    }
+
+    /**
+     * @param _isPromptingEachEntry
+     *            whether to prompt for each entry even when input is not a terminal
+     */
+    private Iterator<String> iterateListOfStrings(final String _q, final boolean _isDeduplicated, final boolean _isPromptingEachEntry) {
+        final StringFingerprintSet seen = _isDeduplicated ? new StringFingerprintSet() : null;
+        // A keyed provider answers the whole list at once, comma-separated
+        final String key = AnswerProvider.keyFor(_q);
+        for (final AnswerProvider provider : m_answerProviders) {
+            final String answer = provider.isKeyed() ? provider.getAnswer(key, _q) : null;
+            if (null != answer) {
+                final long askedNanos = System.nanoTime();
+                final List<String> ret = new ArrayList<String>();
+                for (final String entry : answer.split(",")) {
+                    if (StringUtils.isNonEmpty(entry)) {
+                        // Recorded one entry at a time, as if typed, so that the list can be replayed in order
+                        record(askedNanos, key, _q, entry.trim());
+                        if (null == seen || seen.add(entry.trim())) {
+                            ret.add(entry.trim());
+                        }
+                    }
+                }
+                record(askedNanos, key, _q, "");
+                return ret.iterator();
+            }
+        }
         m_sysConsole.println(_q);
         m_sysConsole.println("        (press <enter> after each entry, leave blank to finish entering values)");
-        final java.util.List<String> ret = new LinkedList<String>();
-        for (long i = 1; true; ++i) {
-            final String response = readLine("" + i + "> ");
-            if (StringUtils.isEmpty(response)) {
-                break;
+        final boolean isPrompting = _isPromptingEachEntry || (m_sysConsole.isInteractive() && !hasSequentialProvider());
+        return new Iterator<String>() {
+            private long m_index = 1;
+            private boolean m_isDone = false;
+            private String m_next = null;
+
+            @Override
+            public boolean hasNext() {
+                while (null == m_next && !m_isDone) {
+                    final String response = isPrompting ? readListEntry(key, "" + m_index + "> ") : readListEntryQuietly(key);
+                    if (StringUtils.isEmpty(response)) {
+                        m_isDone = true;
+                        break;
+                    }
+                    ++m_index;
+                    final String entry = response.trim();
+                    if (null == seen || seen.add(entry)) {
+                        m_next = entry;
+                    }
+                }
+                return null != m_next;
             }
-            ret.add(response.trim());
-        }
-        return ret;
+
+            @Override
+            public String next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                final String ret = m_next;
+                m_next = null;
+                return ret;
+            }
+        };
     }
 
     /**
@@ -181,20 +517,78 @@ public class ConsoleQuestionAsker {
      * @return the user response
      */
     public String askNonEmptyStringQuestion(final AppLogger _logger, final String _dft, final String _fmt, final Object... _args) {
+        return askNonEmptyStringQuestion(_logger, _dft, m_promptTimeoutMillis, _fmt, _args);
+    }
+
+    /**
+     * Ask a question for which an empty string is not a valid response, with a deadline. Will keep asking until a
+     * non-empty user response is achieved, or the deadline for an answer passes.
+     *
+     * @param _logger
+     *            the logger
+     * @param _dft
+     *            the default response to be used if the user simply presses enter, or doesn't answer in time. This can be <code>null</code> if no default response.
+     * @param _timeoutMillis
+     *            how long to wait for each answer, in milliseconds, or 0 to wait forever
+     * @param _fmt
+     *            a format string (see {@link Formatter}
+     * @param _args
+     *            the arguments to the format string
+     * @return the user response
+     * @throws PromptTimeoutException
+     *             if there is no answer in time and no default response
+     * @throws UnansweredQuestionException
+     *             if input ends before an answer is given, and there is no default response
+     */
+    public String askNonEmptyStringQuestion(final AppLogger _logger, final String _dft, final long _timeoutMillis, final String _fmt, final Object... _args) {
+        return askNonEmptyString(_logger, _dft, _timeoutMillis, false, _fmt, _args);
+    }
+
+    /**
+     * Ask a question until the response isn't empty.
+     *
+     * @param _isRetry
+     *            whether the question is being asked again because the previous answer was not accepted
+     */
+    private String askNonEmptyString(final AppLogger _logger, final String _dft, final long _timeoutMillis, final boolean _isRetry, final String _fmt, final Object... _args) {
         String response = "";
+        boolean isRetry = _isRetry;
         String fmt = _fmt + " ";
         if (!StringUtils.isEmpty(_dft)) {
             fmt += "[" + _dft + "] ";
         }
-        while (StringUtils.isEmpty((response = readLine(fmt, _args)))) {
+        while (StringUtils.isEmpty((response = readLine(_logger, _dft, _timeoutMillis, isRetry, fmt, _args)))) {
             if (!StringUtils.isEmpty(_dft)) {
                 return _dft.trim();
             }
+            if (null == response) {
+                // End of input; asking again would loop forever
+                final String key = AnswerProvider.keyFor(String.format(fmt, _args));
+                throw new UnansweredQuestionException(key, "Input ended before '" + key + "' was answered");
+            }
             _logger.println_warn("Empty response. Asking again");
+            isRetry = true;
         }
         return response;
     }
 
+    /**
+     * Ask a question for which the response can be a list of strings, as a lazily consumed stream. See
+     * {@link #iterateListOfStringsQuestion(AppLogger, String, boolean)}.
+     *
+     * @param _logger
+     *            the logger
+     * @param _q
+     *            the question
+     * @param _isDeduplicated
+     *            whether to skip entries seen before
+     * @return the entries, trimmed
+     */
+    public Stream<String> streamListOfStringsQuestion(final AppLogger _logger, final String _q, final boolean _isDeduplicated) {
+        final int characteristics = Spliterator.ORDERED | Spliterator.NONNULL | (_isDeduplicated ? Spliterator.DISTINCT : 0);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterateListOfStringsQuestion(_logger, _q, _isDeduplicated), characteristics), false);
+    }
+
     /**
      * Ask a question for which the response must satisfy the given regular expression.
      *
@@ -213,8 +607,8 @@ public class ConsoleQuestionAsker {
      * @return the user response
      */
     public String askStringMatchingRegexQuestion(final AppLogger _logger, final String _dft, final String _regex, final String _regexDesc, final String _fmt, final Object... _args) {
-        while (true) {
-            final String response = askStringQuestion(_logger, _dft, _fmt, _args);
+        for (boolean isRetry = false;; isRetry = true) {
+            final String response = askString(_logger, _dft, m_promptTimeoutMillis, isRetry, _fmt, _args);
             if (response.matches(_regex)) {
                 return response;
             }
@@ -240,8 +634,8 @@ public class ConsoleQuestionAsker {
      * @return the user response
      */
     public String askNonEmpyStringMatchingRegexQuestion(final AppLogger _logger, final String _dft, final String _regex, final String _regexDesc, final String _fmt, final Object... _args) {
-        while (true) {
-            final String response = askNonEmptyStringQuestion(_logger, _dft, _fmt, _args);
+        for (boolean isRetry = false;; isRetry = true) {
+            final String response = askNonEmptyString(_logger, _dft, m_promptTimeoutMillis, isRetry, _fmt, _args);
             if (response.matches(_regex)) {
                 return response;
             }
@@ -263,7 +657,32 @@ public class ConsoleQuestionAsker {
      * @return the user response
      */
     public String askStringQuestion(final AppLogger _logger, final String _dft, final String _fmt, final Object... _args) {
-        final String response = readLine(_fmt + " ", _args);
+        return askStringQuestion(_logger, _dft, m_promptTimeoutMillis, _fmt, _args);
+    }
+
+    /**
+     * Ask a question, with a deadline.
+     *
+     * @param _logger
+     *            the logger
+     * @param _dft
+     *            the default response to be used if the user simply presses enter, or doesn't answer in time. This can be <code>null</code> if no default response.
+     * @param _timeoutMillis
+     *            how long to wait for an answer, in milliseconds, or 0 to wait forever
+     * @param _fmt
+     *            a format string (see {@link Formatter}
+     * @param _args
+     *            the arguments to the format string
+     * @return the user response
+     * @throws PromptTimeoutException
+     *             if there is no answer in time and no default response
+     */
+    public String askStringQuestion(final AppLogger _logger, final String _dft, final long _timeoutMillis, final String _fmt, final Object... _args) {
+        return askString(_logger, _dft, _timeoutMillis, false, _fmt, _args);
+    }
+
+    private String askString(final AppLogger _logger, final String _dft, final long _timeoutMillis, final boolean _isRetry, final String _fmt, final Object... _args) {
+        final String response = readLine(_logger, _dft, _timeoutMillis, _isRetry, _fmt + " ", _args);
         if (StringUtils.isEmpty(response) && !StringUtils.isEmpty(_dft)) {
             return _dft.trim();
         }
@@ -281,6 +700,12 @@ public class ConsoleQuestionAsker {
      *             Signals that an I/O exception has occurred.
      */
     public String askUser(final String _question) throws IOException {
+        final long askedNanos = System.nanoTime();
+        final String key = AnswerProvider.keyFor(_question);
+        final String answer = findAnswer(key, _question, false, false);
+        if (null != answer) {
+            return record(askedNanos, key, _question, answer);
+        }
         if (null == m_sysConsole) {
             System.out.print(_question);
             try (BufferedReader br = new BufferedReader(new InputStreamReader(System.in))) {
@@ -289,7 +714,12 @@ public class ConsoleQuestionAsker {
                 return null;
             }
         } else {
-            return m_sysConsole.readLine("%s", _question);
+            final long timeout = m_promptTimeoutMillis;
+            final String ret = m_sysConsole.readLine(timeout, "%s", _question);
+            if (PseudoConsole.TIMED_OUT == ret) {
+                throw new PromptTimeoutException(key, timeout);
+            }
+            return record(askedNanos, key, _question, ret);
         }
     }
 
@@ -304,10 +734,23 @@ public class ConsoleQuestionAsker {
      *             if we cannot securely ask for a password, or if user input was empty
      */
     public String askUserForPwd(final String _prompt) throws IOException {
+        final long askedNanos = System.nanoTime();
+        final String key = AnswerProvider.keyFor(_prompt);
+        final SessionRecorder recorder = m_recorder;
+        final String answer = findAnswer(key, _prompt, false, false);
+        if (null != answer) {
+            if (null != recorder) {
+                recorder.record(askedNanos, true, key, _prompt, null, null);
+            }
+            return answer;
+        }
         final char[] pw = m_sysConsole.readPassword(_prompt);
         if (null == pw) {
             throw new IOException("Password not entered");
         }
+        if (null != recorder) {
+            recorder.record(askedNanos, true, key, _prompt, null, null);
+        }
         return new String(pw);
     }
 
@@ -347,14 +790,224 @@ public class ConsoleQuestionAsker {
     }
 
     /**
-     * Same as {@link #askUser(String)} except with format args, and the prompt will be formatted green.
-     * 
-     * @param _fmt
-     * @param _args
-     * @return
-     * @throws IOException
+     * Consult the answer providers, in order.
+     *
+     * @param _key
+     *            the question key
+     * @param _prompt
+     *            the formatted prompt
+     * @param _isEndOfInputOk
+     *            whether running out of answers is fine (for list entries) rather than an error
+     * @param _isRetry
+     *            whether the question is being asked again because the previous answer was not accepted
+     * @return the answer, or <code>null</code> to ask at the terminal (or to end a list)
+     * @throws UnansweredQuestionException
+     *             if a keyed answer was rejected, or there is no answer and no terminal fallback
+     */
+    private String findAnswer(final String _key, final String _prompt, final boolean _isEndOfInputOk, final boolean _isRetry) {
+        for (final AnswerProvider provider : m_answerProviders) {
+            final String answer = provider.getAnswer(_key, _prompt);
+            if (null == answer) {
+                continue;
+            }
+            if (_isRetry && provider.isKeyed()) {
+                // A keyed provider would only give the same answer again
+                throw new UnansweredQuestionException(_key, "The provided answer to '" + _key + "' was not accepted");
+            }
+            return answer;
+        }
+        if (!m_isInteractiveFallback && !_isEndOfInputOk) {
+            throw new UnansweredQuestionException(_key, "No answer provided to '" + _key + "'");
+        }
+        return null;
+    }
+
+    /**
+     * Show choices in columns, a page at a time when at a terminal.
      */
+    private void printChoices(final AppLogger _logger, final ChoiceIndex _choices, final String _prefix) {
+        final List<String> choices = _choices.getChoicesStartingWith(_prefix, Integer.MAX_VALUE);
+        if (choices.isEmpty()) {
+            _logger.printfln_warn("No choices start with '%s'", _prefix);
+            return;
+        }
+        int width = 1;
+        for (final String choice : choices) {
+            width = Math.max(width, DisplayWidth.of(choice));
+        }
+        width += 2;
+        final int columns = Math.max(1, (TerminalCapabilities.get().getColumns() - 1) / width);
+        final int rows = (choices.size() + columns - 1) / columns;
+        final boolean isPaging = m_sysConsole.isInteractive();
+        final StringBuilder line = new StringBuilder();
+        for (int row = 0; row < rows; ++row) {
+            if (isPaging && 0 != row && 0 == row % CHOICE_PAGE_ROWS) {
+                final String more = m_sysConsole.readLine("%s", StringUtils.colorizeForTerminal("-- " + row * columns + "/" + choices.size() + ", <enter> for more, q to stop -- ", TerminalColor.GREEN));
+                if (null == more || more.trim().regionMatches(true, 0, "q", 0, 1)) {
+                    return;
+                }
+            }
+            // Fill down the columns, so that each page reads in order
+            final int pageStart = row - row % CHOICE_PAGE_ROWS;
+            final int pageRows = Math.min(CHOICE_PAGE_ROWS, rows - pageStart);
+            line.setLength(0);
+            for (int col = 0; col < columns; ++col) {
+                final int i = pageStart * columns + col * pageRows + (row - pageStart);
+                if (i < choices.size()) {
+                    DisplayWidth.appendPadded(line, choices.get(i), width, false);
+                }
+            }
+            _logger.println(line.toString().trim());
+        }
+    }
+
+    private boolean hasSequentialProvider() {
+        for (final AnswerProvider provider : m_answerProviders) {
+            if (!provider.isKeyed()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Record a question that has just been answered, if recording. The end of a list is recorded as an empty
+     * entry, which ends it just the same when replayed.
+     *
+     * @return the answer
+     */
+    private String record(final long _askedNanos, final String _key, final String _prompt, final String _answer) {
+        final SessionRecorder recorder = m_recorder;
+        if (null != recorder) {
+            recorder.record(_askedNanos, false, _key, _prompt, null, _answer);
+        }
+        return _answer;
+    }
+
+    private String readListEntryQuietly(final String _key) {
+        final long askedNanos = System.nanoTime();
+        String answer = findAnswer(_key, "", true, false);
+        if (null == answer && m_isInteractiveFallback) {
+            answer = m_sysConsole.readLineQuietly();
+        }
+        record(askedNanos, _key, "", null == answer ? "" : answer);
+        return answer;
+    }
+
+    private String readListEntry(final String _key, final String _prompt) {
+        final long askedNanos = System.nanoTime();
+        String answer = findAnswer(_key, _prompt, true, false);
+        if (null == answer && m_isInteractiveFallback) {
+            answer = m_sysConsole.readLine(m_promptTimeoutMillis, "%s", StringUtils.colorizeForTerminal(_prompt, TerminalColor.GREEN));
+            // Running out of time ends the list, like a blank line
+            if (PseudoConsole.TIMED_OUT == answer) {
+                answer = null;
+            }
+        }
+        record(askedNanos, _key, _prompt, null == answer ? "" : answer);
+        return answer;
+    }
+
+    /**
+     * Same as {@link #askUser(String)} except with format args, and the prompt will be formatted green. Answer
+     * providers are consulted first. On timeout, the default is returned if there is one.
+     */
+    private String readLine(final AppLogger _logger, final String _dft, final long _timeoutMillis, final boolean _isRetry, final String _fmt, final Object... _args) {
+        final String ret;
+        final SessionRecorder recorder = m_recorder;
+        if (m_answerProviders.isEmpty() && m_isInteractiveFallback && _timeoutMillis <= 0 && null == recorder) {
+            ret = m_sysConsole.readLine(StringUtils.colorizeForTerminal(_fmt, TerminalColor.GREEN), _args);
+        } else {
+            final long askedNanos = System.nanoTime();
+            final String prompt = String.format(_fmt, _args);
+            final String key = AnswerProvider.keyFor(prompt);
+            String answer = findAnswer(key, prompt, false, _isRetry);
+            if (null != answer) {
+                if (null != recorder) {
+                    recorder.record(askedNanos, false, key, prompt, _dft, answer);
+                }
+                return answer;
+            }
+            if (null != _logger && m_isCountdownShown && _timeoutMillis > 0) {
+                final long seconds = TimeUnit.MILLISECONDS.toSeconds(_timeoutMillis + 999);
+                if (StringUtils.isEmpty(_dft)) {
+                    _logger.printfln_warn("(%ds to answer)", seconds);
+                } else {
+                    _logger.printfln_warn("(%ds to answer, or '%s' is used)", seconds, _dft.trim());
+                }
+            }
+            answer = m_sysConsole.readLine(_timeoutMillis, "%s", StringUtils.colorizeForTerminal(prompt, TerminalColor.GREEN));
+            if (PseudoConsole.TIMED_OUT == answer) {
+                m_sysConsole.println("");
+                if (StringUtils.isEmpty(_dft)) {
+                    throw new PromptTimeoutException(key, _timeoutMillis);
+                }
+                answer = _dft;
+            }
+            if (null != recorder) {
+                recorder.record(askedNanos, false, key, prompt, _dft, answer);
+            }
+            ret = answer;
+        }
+        return ret;
+    }
+
     private String readLine(final String _fmt, final Object... _args) {
-        return m_sysConsole.readLine(StringUtils.colorizeForTerminal(_fmt, TerminalColor.GREEN), _args);
+        return readLine(null, null, m_promptTimeoutMillis, false, _fmt, _args);
+    }
+
+    /**
+     * Record every question asked from now on, with its answer and timing, so that the session can be replayed
+     * later (see {@link SessionJournal#replay()}). Answers from {@link AnswerProvider}s are recorded too.
+     *
+     * @param _recorder
+     *            the recorder, or <code>null</code> to stop recording; closing it is up to the caller
+     * @return this object
+     */
+    public ConsoleQuestionAsker setRecorder(final SessionRecorder _recorder) {
+        m_recorder = _recorder;
+        return this;
+    }
+
+    /**
+     * Sets whether a hint with the time left to answer is shown (through the {@link AppLogger}) before a question
+     * with a deadline.
+     *
+     * @param _isCountdownShown
+     *            whether to show the hint
+     * @return this object
+     */
+    public ConsoleQuestionAsker setCountdownShown(final boolean _isCountdownShown) {
+        m_isCountdownShown = _isCountdownShown;
+        return this;
+    }
+
+    /**
+     * Sets a deadline for answering every question asked at the terminal from now on. When it passes, the
+     * question's default response is used, or, if it has none, a {@link PromptTimeoutException} is thrown; a list
+     * question just ends. Reading is then done on a reusable daemon thread, so a question that times out does not
+     * leave a thread blocked, and an answer typed after the deadline goes to the next question.
+     *
+     * @param _millis
+     *            the deadline, in milliseconds, or 0 to wait forever
+     * @return this object
+     */
+    public ConsoleQuestionAsker setPromptTimeout(final long _millis) {
+        m_promptTimeoutMillis = Math.max(0, _millis);
+        return this;
+    }
+
+    /**
+     * Sets whether a question that no {@link AnswerProvider} answers is asked at the terminal. When this is
+     * <code>false</code>, such a question throws an {@link UnansweredQuestionException} instead, so an unattended
+     * run fails fast rather than waiting for input that will never come.
+     *
+     * @param _isInteractiveFallback
+     *            whether to fall back to the terminal
+     * @return this object
+     */
+    public ConsoleQuestionAsker setInteractiveFallback(final boolean _isInteractiveFallback) {
+        m_isInteractiveFallback = _isInteractiveFallback;
+        return this;
     }
 }
@@ -0,0 +1,244 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+import java.util.Arrays;
+
+/**
+ * Measures how many terminal columns text occupies. Escape sequences (such as colors) take no space, East Asian
+ * wide characters and emoji take two columns, and combining marks, zero-width characters and other control
+ * characters take none. Each measurement is a single pass over the text.
+ */
+public final class DisplayWidth {
+
+    private static final char ESC = 0x1b;
+
+    private static final char[] SPACES = new char[128];
+
+    private static final String TERM_COLOR_RESET = "\u001B[0m";
+
+    /** Inclusive start and end code points of the ranges that are two columns wide, in order. */
+    private static final int[] WIDE_RANGES = {
+            0x1100, 0x115F, // Hangul Jamo initial consonants
+            0x231A, 0x231B, // watch, hourglass
+            0x2329, 0x232A, // angle brackets
+            0x23E9, 0x23EC, // media control emoji
+            0x23F0, 0x23F0, //
+            0x23F3, 0x23F3, //
+            0x25FD, 0x25FE, //
+            0x2614, 0x2615, //
+            0x2648, 0x2653, // zodiac emoji
+            0x267F, 0x267F, //
+            0x2693, 0x2693, //
+            0x26A1, 0x26A1, //
+            0x26AA, 0x26AB, //
+            0x26BD, 0x26BE, //
+            0x26C4, 0x26C5, //
+            0x26CE, 0x26CE, //
+            0x26D4, 0x26D4, //
+            0x26EA, 0x26EA, //
+            0x26F2, 0x26F3, //
+            0x26F5, 0x26F5, //
+            0x26FA, 0x26FA, //
+            0x26FD, 0x26FD, //
+            0x2705, 0x2705, //
+            0x270A, 0x270B, //
+            0x2728, 0x2728, //
+            0x274C, 0x274C, //
+            0x274E, 0x274E, //
+            0x2753, 0x2755, //
+            0x2757, 0x2757, //
+            0x2795, 0x2797, //
+            0x27B0, 0x27B0, //
+            0x27BF, 0x27BF, //
+            0x2B1B, 0x2B1C, //
+            0x2B50, 0x2B50, //
+            0x2B55, 0x2B55, //
+            0x2E80, 0x303E, // CJK radicals through CJK symbols and punctuation
+            0x3041, 0x33FF, // kana through CJK compatibility
+            0x3400, 0x4DBF, // CJK extension A
+            0x4E00, 0x9FFF, // CJK unified ideographs
+            0xA000, 0xA4CF, // Yi
+            0xA960, 0xA97F, // Hangul Jamo extended A
+            0xAC00, 0xD7A3, // Hangul syllables
+            0xF900, 0xFAFF, // CJK compatibility ideographs
+            0xFE10, 0xFE19, // vertical forms
+            0xFE30, 0xFE6F, // CJK compatibility forms, small form variants
+            0xFF00, 0xFF60, // fullwidth forms
+            0xFFE0, 0xFFE6, //
+            0x16FE0, 0x18CFF, // Tangut and friends
+            0x1B000, 0x1B2FF, // kana supplement and extensions
+            0x1F004, 0x1F004, //
+            0x1F0CF, 0x1F0CF, //
+            0x1F18E, 0x1F18E, //
+            0x1F191, 0x1F19A, //
+            0x1F200, 0x1F2FF, // enclosed ideographic supplement
+            0x1F300, 0x1F64F, // pictographs and emoticons
+            0x1F680, 0x1F6FF, // transport and map symbols
+            0x1F7E0, 0x1F7EB, //
+            0x1F90C, 0x1F9FF, // supplemental symbols and pictographs
+            0x1FA70, 0x1FAFF, // symbols and pictographs extended A
+            0x20000, 0x2FFFD, // CJK extensions B and later
+            0x30000, 0x3FFFD, //
+    };
+
+    static {
+        Arrays.fill(SPACES, ' ');
+    }
+
+    /**
+     * Append text to a buffer, padded with spaces to exactly the given display width. Text that is too wide is
+     * cut short; if it contained escape sequences, a reset sequence is appended so that a color does not bleed
+     * into the padding.
+     *
+     * @param _buf
+     *            the buffer
+     * @param _str
+     *            the text
+     * @param _width
+     *            the display width
+     * @param _isRightAligned
+     *            whether the padding goes before the text rather than after it
+     */
+    public static void appendPadded(final StringBuilder _buf, final CharSequence _str, final int _width, final boolean _isRightAligned) {
+        final int len = _str.length();
+        final long measured = measure(_str, 0, len, _width);
+        final int end = (int) (measured >>> 32);
+        final int pad = _width - (int) measured;
+        if (_isRightAligned) {
+            appendSpaces(_buf, pad);
+        }
+        _buf.append(_str, 0, end);
+        if (end < len && AnsiEscapeFilter.mayContainEscapes(_str)) {
+            _buf.append(TERM_COLOR_RESET);
+        }
+        if (!_isRightAligned) {
+            appendSpaces(_buf, pad);
+        }
+    }
+
+    /**
+     * Append the given number of spaces to a buffer.
+     *
+     * @param _buf
+     *            the buffer
+     * @param _count
+     *            the number of spaces
+     */
+    public static void appendSpaces(final StringBuilder _buf, final int _count) {
+        int remaining = _count;
+        while (remaining > 0) {
+            final int n = Math.min(remaining, SPACES.length);
+            _buf.append(SPACES, 0, n);
+            remaining -= n;
+        }
+    }
+
+    /**
+     * Gets the display width of a single code point, outside of any escape sequence.
+     *
+     * @param _codePoint
+     *            the code point
+     * @return 0, 1 or 2
+     */
+    public static int ofCodePoint(final int _codePoint) {
+        if (_codePoint < 0x300) {
+            return (_codePoint < 0x20 || (_codePoint >= 0x7f && _codePoint < 0xa0)) ? 0 : 1;
+        }
+        switch (Character.getType(_codePoint)) {
+            case Character.NON_SPACING_MARK:
+            case Character.ENCLOSING_MARK:
+            case Character.FORMAT:
+            case Character.CONTROL:
+                return 0;
+            default:
+                break;
+        }
+        if (_codePoint >= 0x1160 && _codePoint <= 0x11FF) {
+            // Hangul medial vowels and final consonants combine with the preceding initial
+            return 0;
+        }
+        if (_codePoint < WIDE_RANGES[0]) {
+            return 1;
+        }
+        // Find the last range starting at or before the code point
+        int lo = 0;
+        int hi = WIDE_RANGES.length / 2 - 1;
+        while (lo < hi) {
+            final int mid = (lo + hi + 1) >>> 1;
+            if (WIDE_RANGES[mid * 2] <= _codePoint) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return _codePoint <= WIDE_RANGES[lo * 2 + 1] ? 2 : 1;
+    }
+
+    /**
+     * Gets the display width of the given text.
+     *
+     * @param _str
+     *            the text
+     * @return the number of terminal columns
+     */
+    public static int of(final CharSequence _str) {
+        return of(_str, 0, _str.length());
+    }
+
+    /**
+     * Gets the display width of part of the given text.
+     *
+     * @param _str
+     *            the text
+     * @param _start
+     *            the start index, inclusive
+     * @param _end
+     *            the end index, exclusive
+     * @return the number of terminal columns
+     */
+    public static int of(final CharSequence _str, final int _start, final int _end) {
+        return (int) measure(_str, _start, _end, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Measure the longest prefix of a range of text that fits in the given display width.
+     *
+     * @return the end index of the prefix in the high 32 bits, and its display width in the low 32 bits
+     */
+    static long measure(final CharSequence _str, final int _start, final int _end, final int _maxWidth) {
+        AnsiEscapeFilter filter = null;
+        int width = 0;
+        int i = _start;
+        while (i < _end) {
+            final char c = _str.charAt(i);
+            int next = i + 1;
+            int w;
+            if (null == filter && c >= 0x20 && c < 0x7f) {
+                w = 1;
+            } else {
+                if (null == filter && (ESC == c || (c >= 0x80 && c <= 0x9f))) {
+                    filter = new AnsiEscapeFilter(true);
+                }
+                if (null != filter && !filter.isText(c)) {
+                    w = 0;
+                } else if (Character.isHighSurrogate(c) && next < _end && Character.isLowSurrogate(_str.charAt(next))) {
+                    w = ofCodePoint(Character.toCodePoint(c, _str.charAt(next)));
+                    ++next;
+                } else {
+                    w = ofCodePoint(c);
+                }
+            }
+            if (width + w > _maxWidth) {
+                break;
+            }
+            width += w;
+            i = next;
+        }
+        return ((long) i << 32) | width;
+    }
+
+    private DisplayWidth() {
+    }
+}
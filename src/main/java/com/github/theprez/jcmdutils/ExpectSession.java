@@ -0,0 +1,629 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Drives an interactive child process, in the style of the classic <code>expect</code> tool: wait for the child
+ * to print one of several patterns, send it a reply, and repeat.
+ *
+ * <pre>
+ * try (ExpectSession session = ExpectSession.start("ftp", "example.com")) {
+ *     session.expect(10000, ExpectSession.literal("Name"));
+ *     session.sendLine("anonymous");
+ *     if (1 == session.expect(10000, ExpectSession.literal("ftp&gt;"), ExpectSession.literal("Password:"))) {
+ *         session.sendLine("guest");
+ *     }
+ * }
+ * </pre>
+ *
+ * Output is matched incrementally as it arrives. Only the text after the previous match is kept, and never more
+ * than a bounded window of it, so a long-running session with thousands of prompts costs the same per prompt
+ * as a short one. Consumed and discarded text is not moved out of the buffer on every read; the buffer is only
+ * compacted once the dead text at its start outweighs the live text, so each character is copied a bounded
+ * number of times. Regular expressions are only searched for in the newest {@link #setSearchWindow(int) search
+ * window} of the output, so a pattern that keeps almost matching doesn't rescan the whole window on every read.
+ */
+public class ExpectSession implements Closeable {
+
+    /**
+     * Something to wait for in the child's output. Create one with {@link ExpectSession#literal(String)},
+     * {@link ExpectSession#regex(String)} or {@link ExpectSession#eof()}.
+     */
+    public static abstract class Expectation {
+
+        Expectation() {
+        }
+
+        /**
+         * Creates the state needed to scan one stretch of output for this expectation.
+         *
+         * @param _searchWindow
+         *            how far back from the end of the output a match may start
+         * @return the scanner
+         */
+        abstract Scanner newScanner(int _searchWindow);
+    }
+
+    /**
+     * Incremental search state for one {@link Expectation} during one call to <code>expect</code>.
+     */
+    private static abstract class Scanner {
+
+        /**
+         * Scan newly arrived output.
+         *
+         * @param _buf
+         *            the unconsumed output
+         * @param _from
+         *            where the new output starts
+         * @return whether a match was found; if so, {@link #m_matchStart} and {@link #m_matchEnd} are set
+         */
+        abstract boolean scan(CharSequence _buf, int _from);
+
+        /**
+         * Called when the first <code>_count</code> characters of the buffer are dropped without being consumed by
+         * a match, because the window is full.
+         *
+         * @param _count
+         *            the number of characters dropped
+         */
+        void shift(final int _count) {
+        }
+
+        int m_matchEnd;
+
+        int m_matchStart;
+    }
+
+    /** Returned by <code>expect</code> when none of the expectations matched in time. */
+    public static final int TIMEOUT = -1;
+
+    /** The buffer is never compacted to drop fewer characters than this. */
+    private static final int COMPACT_MIN_CHARS = 8192;
+
+    /** The default longest text a regular expression is searched for in. */
+    private static final int DEFAULT_SEARCH_WINDOW = 8192;
+
+    /** The default maximum number of unconsumed characters kept. */
+    private static final int DEFAULT_WINDOW = 64 * 1024;
+
+    private static final Expectation EOF = new Expectation() {
+        @Override
+        Scanner newScanner(final int _searchWindow) {
+            return null;
+        }
+    };
+
+    /**
+     * Wait for the child to close its output.
+     *
+     * @return the expectation
+     */
+    public static Expectation eof() {
+        return EOF;
+    }
+
+    /**
+     * Wait for the given text to appear. This is matched with a precomputed automaton, one step per character.
+     *
+     * @param _text
+     *            the text
+     * @return the expectation
+     */
+    public static Expectation literal(final String _text) {
+        if (_text.isEmpty()) {
+            throw new IllegalArgumentException("Empty literal");
+        }
+        final char[] pattern = _text.toCharArray();
+        // Knuth-Morris-Pratt failure function
+        final int[] fail = new int[pattern.length];
+        for (int i = 1, k = 0; i < pattern.length; ++i) {
+            while (k > 0 && pattern[i] != pattern[k]) {
+                k = fail[k - 1];
+            }
+            if (pattern[i] == pattern[k]) {
+                ++k;
+            }
+            fail[i] = k;
+        }
+        return new Expectation() {
+            @Override
+            Scanner newScanner(final int _searchWindow) {
+                return new Scanner() {
+                    /** Where the last scan stopped; the partial match in {@link #m_state} ends here. */
+                    private int m_scannedTo = 0;
+
+                    private int m_state = 0;
+
+                    @Override
+                    boolean scan(final CharSequence _buf, final int _from) {
+                        final int len = _buf.length();
+                        m_scannedTo = len;
+                        for (int i = _from; i < len; ++i) {
+                            final char c = _buf.charAt(i);
+                            while (m_state > 0 && c != pattern[m_state]) {
+                                m_state = fail[m_state - 1];
+                            }
+                            if (c == pattern[m_state] && ++m_state == pattern.length) {
+                                m_matchEnd = i + 1;
+                                m_matchStart = m_matchEnd - pattern.length;
+                                m_state = 0;
+                                return true;
+                            }
+                        }
+                        return false;
+                    }
+
+                    @Override
+                    void shift(final int _count) {
+                        // Fall back to the longest partial match that is still entirely in the window
+                        m_scannedTo = Math.max(0, m_scannedTo - _count);
+                        while (m_state > m_scannedTo) {
+                            m_state = fail[m_state - 1];
+                        }
+                    }
+                };
+            }
+
+            @Override
+            public String toString() {
+                return _text;
+            }
+        };
+    }
+
+    /**
+     * Wait for output matching the given regular expression. A match may not be longer than the session's search
+     * window.
+     *
+     * @param _regex
+     *            the regular expression
+     * @return the expectation
+     */
+    public static Expectation regex(final Pattern _regex) {
+        return new Expectation() {
+            @Override
+            Scanner newScanner(final int _searchWindow) {
+                return new Scanner() {
+                    private Matcher m_matcher = null;
+
+                    /** No match can start before this position, whatever arrives later. */
+                    private int m_searchFrom = 0;
+
+                    @Override
+                    boolean scan(final CharSequence _buf, final int _from) {
+                        if (null == m_matcher) {
+                            m_matcher = _regex.matcher(_buf);
+                            m_matcher.useTransparentBounds(true).useAnchoringBounds(false);
+                        } else {
+                            m_matcher.reset(_buf);
+                        }
+                        // A match starting further back would be longer than the search window
+                        final int len = _buf.length();
+                        m_searchFrom = Math.max(m_searchFrom, len - _searchWindow);
+                        m_matcher.region(m_searchFrom, len);
+                        if (m_matcher.find()) {
+                            m_matchStart = m_matcher.start();
+                            m_matchEnd = m_matcher.end();
+                            return true;
+                        }
+                        // If no attempt needed to look past the end, no more input can make one of them succeed.
+                        // Otherwise, skip the positions where an attempt fails without looking past the end, so
+                        // that the next scan starts at the first position that more input could still match.
+                        int from = len;
+                        if (m_matcher.hitEnd()) {
+                            for (from = m_searchFrom; from < len; ++from) {
+                                m_matcher.region(from, len);
+                                if (m_matcher.lookingAt() || m_matcher.hitEnd()) {
+                                    break;
+                                }
+                            }
+                        }
+                        m_searchFrom = from;
+                        return false;
+                    }
+
+                    @Override
+                    void shift(final int _count) {
+                        m_searchFrom = Math.max(0, m_searchFrom - _count);
+                    }
+                };
+            }
+
+            @Override
+            public String toString() {
+                return _regex.pattern();
+            }
+        };
+    }
+
+    /**
+     * Wait for output matching the given regular expression. A match may not be longer than the session's search
+     * window.
+     *
+     * @param _regex
+     *            the regular expression
+     * @return the expectation
+     */
+    public static Expectation regex(final String _regex) {
+        return regex(Pattern.compile(_regex));
+    }
+
+    /**
+     * Start the given command, with its stderr merged into its stdout, and return a session for it.
+     *
+     * @param _cmd
+     *            the command and its arguments
+     * @return the session
+     * @throws IOException
+     *             Signals that an I/O exception has occurred.
+     */
+    public static ExpectSession start(final String... _cmd) throws IOException {
+        return new ExpectSession(new ProcessBuilder(_cmd).redirectErrorStream(true).start(), StandardCharsets.UTF_8);
+    }
+
+    /** Holds the unconsumed output from {@link #m_start} on; what comes before it is waiting to be compacted. */
+    private final StringBuilder m_buf = new StringBuilder();
+
+    /** The unconsumed output, as seen by the scanners. */
+    private final CharSequence m_unconsumed = new CharSequence() {
+        @Override
+        public char charAt(final int _index) {
+            return m_buf.charAt(m_start + _index);
+        }
+
+        @Override
+        public int length() {
+            return m_buf.length() - m_start;
+        }
+
+        @Override
+        public CharSequence subSequence(final int _start, final int _end) {
+            return m_buf.subSequence(m_start + _start, m_start + _end);
+        }
+
+        @Override
+        public String toString() {
+            return m_buf.substring(m_start);
+        }
+    };
+
+    private final Charset m_charset;
+
+    /** The total number of characters discarded because they fell out of the window. */
+    private long m_droppedChars = 0;
+
+    private boolean m_isEof = false;
+
+    private IOException m_readFailure = null;
+
+    private String m_lastBefore = "";
+
+    private String m_lastMatch = "";
+
+    private final Object m_lock = new Object();
+
+    private final Process m_process;
+
+    private int m_searchWindow = DEFAULT_SEARCH_WINDOW;
+
+    /** Where the unconsumed output starts in {@link #m_buf}. */
+    private int m_start = 0;
+
+    private final OutputStream m_stdin;
+
+    private int m_window = DEFAULT_WINDOW;
+
+    /**
+     * Instantiates a new session for an already-started process. Only the process's stdout is watched.
+     *
+     * @param _p
+     *            the process
+     * @param _charset
+     *            the encoding of the process's input and output
+     */
+    public ExpectSession(final Process _p, final Charset _charset) {
+        m_process = _p;
+        m_charset = _charset;
+        m_stdin = _p.getOutputStream();
+        BlockingTasks.start("jcmdutils-expect-reader", this::readOutput);
+    }
+
+    /**
+     * Kill the child process if it is still running.
+     */
+    @Override
+    public void close() {
+        try {
+            m_stdin.close();
+        } catch (final IOException e) {
+            // Child is already gone
+        }
+        m_process.destroy();
+    }
+
+    /**
+     * Wait until the child's output matches one of the given expectations, and consume the output up to and
+     * including the match.
+     *
+     * @param _timeoutMillis
+     *            how long to wait
+     * @param _expectations
+     *            what to wait for
+     * @return the index of the expectation that matched, or {@link #TIMEOUT}
+     * @throws EOFException
+     *             if the child closed its output and {@link #eof()} wasn't among the expectations
+     * @throws IOException
+     *             Signals that an I/O exception has occurred.
+     */
+    public int expect(final long _timeoutMillis, final Expectation... _expectations) throws IOException {
+        final Scanner[] scanners = new Scanner[_expectations.length];
+        int eofIndex = -1;
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(_timeoutMillis);
+        synchronized (m_lock) {
+            final int searchWindow = Math.min(m_searchWindow, m_window);
+            for (int i = 0; i < _expectations.length; ++i) {
+                scanners[i] = _expectations[i].newScanner(searchWindow);
+                if (null == scanners[i] && -1 == eofIndex) {
+                    eofIndex = i;
+                }
+            }
+            int scanned = 0;
+            long droppedBefore = m_droppedChars;
+            while (true) {
+                final int len = m_unconsumed.length();
+                if (scanned < len) {
+                    int best = -1;
+                    for (int i = 0; i < scanners.length; ++i) {
+                        if (null != scanners[i] && scanners[i].scan(m_unconsumed, scanned) && (-1 == best || scanners[i].m_matchEnd < scanners[best].m_matchEnd)) {
+                            best = i;
+                        }
+                    }
+                    if (-1 != best) {
+                        m_lastBefore = m_buf.substring(m_start, m_start + scanners[best].m_matchStart);
+                        m_lastMatch = m_buf.substring(m_start + scanners[best].m_matchStart, m_start + scanners[best].m_matchEnd);
+                        m_start += scanners[best].m_matchEnd;
+                        compact();
+                        return best;
+                    }
+                    scanned = len;
+                }
+                if (m_isEof) {
+                    if (-1 != eofIndex) {
+                        m_lastBefore = m_unconsumed.toString();
+                        m_lastMatch = "";
+                        m_buf.setLength(0);
+                        m_start = 0;
+                        return eofIndex;
+                    }
+                    if (null != m_readFailure) {
+                        throw m_readFailure;
+                    }
+                    throw new EOFException("Child process ended while waiting for: " + describe(_expectations));
+                }
+                final long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return TIMEOUT;
+                }
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(m_lock, remaining);
+                } catch (final InterruptedException e) {
+                    throw new IOException(e);
+                }
+                // The window may have been trimmed while we waited
+                final long dropped = m_droppedChars - droppedBefore;
+                droppedBefore = m_droppedChars;
+                if (0 < dropped) {
+                    scanned = (int) Math.max(0, scanned - dropped);
+                    for (final Scanner s : scanners) {
+                        if (null != s) {
+                            s.shift((int) dropped);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Like {@link #expect(long, Expectation...)}, but whenever nothing matches within the timeout, show the
+     * unconsumed output to the user and ask them what to send to the child. This repeats until something matches.
+     *
+     * @param _logger
+     *            the logger used to show the child's output
+     * @param _asker
+     *            used to ask the user for a reply
+     * @param _timeoutMillis
+     *            how long to wait before asking the user
+     * @param _expectations
+     *            what to wait for
+     * @return the index of the expectation that matched
+     * @throws IOException
+     *             Signals that an I/O exception has occurred.
+     */
+    public int expectOrAskUser(final AppLogger _logger, final ConsoleQuestionAsker _asker, final long _timeoutMillis, final Expectation... _expectations) throws IOException {
+        while (true) {
+            final int ret = expect(_timeoutMillis, _expectations);
+            if (TIMEOUT != ret) {
+                return ret;
+            }
+            _logger.printfln_warn("Child process did not produce any of: %s", describe(_expectations));
+            _logger.println(getUnconsumedOutput());
+            sendLine(_asker.askStringQuestion(_logger, null, "Response to send to the child process:"));
+        }
+    }
+
+    /**
+     * Gets the output that preceded the most recent match.
+     *
+     * @return the text before the last match
+     */
+    public String getBefore() {
+        synchronized (m_lock) {
+            return m_lastBefore;
+        }
+    }
+
+    /**
+     * Gets the text of the most recent match.
+     *
+     * @return the last match
+     */
+    public String getLastMatch() {
+        synchronized (m_lock) {
+            return m_lastMatch;
+        }
+    }
+
+    /**
+     * Gets the process being driven.
+     *
+     * @return the process
+     */
+    public Process getProcess() {
+        return m_process;
+    }
+
+    /**
+     * Gets the output received since the last match that has not been consumed yet.
+     *
+     * @return the unconsumed output
+     */
+    public String getUnconsumedOutput() {
+        synchronized (m_lock) {
+            return m_unconsumed.toString();
+        }
+    }
+
+    /**
+     * Send text to the child's standard input.
+     *
+     * @param _text
+     *            the text
+     * @return this object
+     * @throws IOException
+     *             Signals that an I/O exception has occurred.
+     */
+    public ExpectSession send(final String _text) throws IOException {
+        m_stdin.write(_text.getBytes(m_charset));
+        m_stdin.flush();
+        return this;
+    }
+
+    /**
+     * Send text, followed by a newline, to the child's standard input.
+     *
+     * @param _text
+     *            the text
+     * @return this object
+     * @throws IOException
+     *             Signals that an I/O exception has occurred.
+     */
+    public ExpectSession sendLine(final String _text) throws IOException {
+        return send(_text + "\n");
+    }
+
+    /**
+     * Sets how far back from the newest output a regular expression is searched for, which is also the longest
+     * text it can match. Each read rescans at most this much output for a pattern that could still match, so keep
+     * it to what the expected prompts need. Literals are not affected. The default is 8192 characters.
+     *
+     * @param _chars
+     *            the search window size, in characters
+     * @return this object
+     */
+    public ExpectSession setSearchWindow(final int _chars) {
+        synchronized (m_lock) {
+            m_searchWindow = Math.max(1, _chars);
+        }
+        return this;
+    }
+
+    /**
+     * Sets the maximum amount of unconsumed output that is kept. When more arrives without matching, the oldest
+     * output is discarded. This also bounds the length of a match.
+     *
+     * @param _chars
+     *            the window size, in characters
+     * @return this object
+     */
+    public ExpectSession setWindow(final int _chars) {
+        synchronized (m_lock) {
+            m_window = Math.max(1, _chars);
+        }
+        return this;
+    }
+
+    /**
+     * Wait for the child process to exit.
+     *
+     * @return the exit status
+     * @throws InterruptedException
+     *             if interrupted while waiting
+     */
+    public int waitFor() throws InterruptedException {
+        return m_process.waitFor();
+    }
+
+    /**
+     * Drop the consumed and discarded text from the start of the buffer, once there is at least as much of it as
+     * there is unconsumed text. Must be called with {@link #m_lock} held.
+     */
+    private void compact() {
+        if (m_start >= COMPACT_MIN_CHARS && m_start >= m_buf.length() - m_start) {
+            m_buf.delete(0, m_start);
+            m_start = 0;
+        }
+    }
+
+    private String describe(final Expectation... _expectations) {
+        final StringBuilder ret = new StringBuilder();
+        for (final Expectation e : _expectations) {
+            if (0 != ret.length()) {
+                ret.append(", ");
+            }
+            ret.append(EOF == e ? "<EOF>" : "'" + e + "'");
+        }
+        return ret.toString();
+    }
+
+    private void readOutput() {
+        try (InputStreamReader in = new InputStreamReader(m_process.getInputStream(), m_charset)) {
+            final char[] chunk = new char[8192];
+            int len;
+            while (-1 != (len = in.read(chunk))) {
+                synchronized (m_lock) {
+                    m_buf.append(chunk, 0, len);
+                    final int excess = m_unconsumed.length() - m_window;
+                    if (excess > 0) {
+                        m_start += excess;
+                        m_droppedChars += excess;
+                    }
+                    compact();
+                    m_lock.notifyAll();
+                }
+            }
+        } catch (final IOException e) {
+            synchronized (m_lock) {
+                m_readFailure = e;
+            }
+        } finally {
+            synchronized (m_lock) {
+                m_isEof = true;
+                m_lock.notifyAll();
+            }
+        }
+    }
+}
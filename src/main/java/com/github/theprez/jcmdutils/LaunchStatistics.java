@@ -0,0 +1,179 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.github.theprez.jcmdutils.ProcessLauncher.ProcessResult;
+
+/**
+ * Aggregate timing and resource histograms across every process launched through
+ * {@link ProcessLauncher#exec(ProcessLauncher.CaptureOptions, String...)} and friends. Use
+ * {@link ProcessLauncher#getLaunchStatistics()} to get the global instance.
+ */
+public class LaunchStatistics {
+
+    /**
+     * Histograms for all launches of one command, identified by the file name of the program.
+     */
+    public static class CommandStatistics {
+
+        private final String m_command;
+
+        private final LogHistogram m_cpuTimeNanos = new LogHistogram();
+
+        private final LogHistogram m_outputBytes = new LogHistogram();
+
+        private final LogHistogram m_peakRssBytes = new LogHistogram();
+
+        private final LogHistogram m_wallTimeNanos = new LogHistogram();
+
+        CommandStatistics(final String _command) {
+            m_command = _command;
+        }
+
+        /**
+         * Gets the command name.
+         *
+         * @return the command
+         */
+        public String getCommand() {
+            return m_command;
+        }
+
+        /**
+         * Gets the CPU time histogram, in nanoseconds. Only launches for which CPU time was available are counted.
+         *
+         * @return the CPU time histogram
+         */
+        public LogHistogram getCpuTimeNanos() {
+            return m_cpuTimeNanos;
+        }
+
+        /**
+         * Gets the histogram of combined stdout and stderr size, in bytes.
+         *
+         * @return the output size histogram
+         */
+        public LogHistogram getOutputBytes() {
+            return m_outputBytes;
+        }
+
+        /**
+         * Gets the peak RSS histogram, in bytes. Only launches for which memory usage was sampled are counted.
+         *
+         * @return the peak RSS histogram
+         */
+        public LogHistogram getPeakRssBytes() {
+            return m_peakRssBytes;
+        }
+
+        /**
+         * Gets the wall time histogram, in nanoseconds.
+         *
+         * @return the wall time histogram
+         */
+        public LogHistogram getWallTimeNanos() {
+            return m_wallTimeNanos;
+        }
+
+        void record(final ProcessResult _result) {
+            m_wallTimeNanos.record(_result.getWallTimeNanos());
+            m_outputBytes.record(_result.getStdoutByteCount() + _result.getStderrByteCount());
+            final ProcessResourceUsage usage = _result.getResourceUsage();
+            if (0 <= usage.getCpuTimeNanos()) {
+                m_cpuTimeNanos.record(usage.getCpuTimeNanos());
+            }
+            if (0 <= usage.getPeakRssBytes()) {
+                m_peakRssBytes.record(usage.getPeakRssBytes());
+            }
+        }
+    }
+
+    private static final double NANOS_PER_MILLI = 1000000.0;
+
+    private final CommandStatistics m_all = new CommandStatistics("*");
+
+    private final ConcurrentHashMap<String, CommandStatistics> m_byCommand = new ConcurrentHashMap<String, CommandStatistics>();
+
+    private final LogHistogram m_spawnLatencyNanos = new LogHistogram();
+
+    LaunchStatistics() {
+    }
+
+    /**
+     * Gets the histograms across all commands.
+     *
+     * @return the overall statistics
+     */
+    public CommandStatistics getAll() {
+        return m_all;
+    }
+
+    /**
+     * Gets the per-command histograms, ordered by descending total wall time.
+     *
+     * @return the per-command statistics
+     */
+    public List<CommandStatistics> getByCommand() {
+        final List<CommandStatistics> ret = new ArrayList<CommandStatistics>(m_byCommand.values());
+        Collections.sort(ret, (_a, _b) -> Long.compare(_b.getWallTimeNanos().getTotal(), _a.getWallTimeNanos().getTotal()));
+        return ret;
+    }
+
+    /**
+     * Gets the histogram of the time taken to spawn a process, in nanoseconds.
+     *
+     * @return the spawn latency histogram
+     */
+    public LogHistogram getSpawnLatencyNanos() {
+        return m_spawnLatencyNanos;
+    }
+
+    /**
+     * Print a summary, one line per command, to the given logger.
+     *
+     * @param _logger
+     *            the logger
+     */
+    public void print(final AppLogger _logger) {
+        final Collection<CommandStatistics> commands = getByCommand();
+        _logger.printfln("%-24s %8s %12s %10s %10s %10s %12s", "command", "count", "total(ms)", "p50(ms)", "p99(ms)", "max(ms)", "peakRss(KB)");
+        for (final CommandStatistics cmd : commands) {
+            final LogHistogram wall = cmd.getWallTimeNanos();
+            _logger.printfln("%-24s %8d %12.1f %10.1f %10.1f %10.1f %12d", cmd.getCommand(), wall.getCount(), wall.getTotal() / NANOS_PER_MILLI, wall.getValueAtPercentile(50) / NANOS_PER_MILLI, wall.getValueAtPercentile(99) / NANOS_PER_MILLI,
+                    wall.getMax() / NANOS_PER_MILLI, cmd.getPeakRssBytes().getMax() / 1024);
+        }
+        _logger.printfln("spawn latency: p50=%.2fms p99=%.2fms max=%.2fms", m_spawnLatencyNanos.getValueAtPercentile(50) / NANOS_PER_MILLI, m_spawnLatencyNanos.getValueAtPercentile(99) / NANOS_PER_MILLI, m_spawnLatencyNanos.getMax() / NANOS_PER_MILLI);
+    }
+
+    void record(final String _command, final ProcessResult _result) {
+        m_spawnLatencyNanos.record(_result.getSpawnLatencyNanos());
+        m_all.record(_result);
+        CommandStatistics cmd = m_byCommand.get(_command);
+        if (null == cmd) {
+            final CommandStatistics existing = m_byCommand.putIfAbsent(_command, cmd = new CommandStatistics(_command));
+            if (null != existing) {
+                cmd = existing;
+            }
+        }
+        cmd.record(_result);
+    }
+
+    /**
+     * Discard everything recorded so far.
+     */
+    public void reset() {
+        m_byCommand.clear();
+        m_all.getWallTimeNanos().reset();
+        m_all.getCpuTimeNanos().reset();
+        m_all.getOutputBytes().reset();
+        m_all.getPeakRssBytes().reset();
+        m_spawnLatencyNanos.reset();
+    }
+}
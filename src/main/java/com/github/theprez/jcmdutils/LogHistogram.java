@@ -0,0 +1,159 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-size histogram of non-negative <code>long</code> values, such as durations in nanoseconds or sizes in
+ * bytes. Values are counted in logarithmic buckets, each power of two being split into {@value #SUB_BUCKETS_PER_POWER}
+ * linear sub-buckets, so that reported percentiles are within about 3% of the true value over the whole range of
+ * <code>long</code>. All state lives in primitive arrays allocated up front; recording never allocates and is
+ * safe to do from many threads at once.
+ */
+public class LogHistogram {
+
+    /** The number of bits of precision kept below the most significant bit. */
+    private static final int SUB_BUCKET_BITS = 5;
+
+    /** The number of values below which every value gets its own bucket. */
+    private static final int LINEAR_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /** The number of buckets for each power of two above {@link #LINEAR_BUCKETS}. */
+    static final int SUB_BUCKETS_PER_POWER = LINEAR_BUCKETS / 2;
+
+    private static final int BUCKET_COUNT = LINEAR_BUCKETS + (63 - SUB_BUCKET_BITS) * SUB_BUCKETS_PER_POWER;
+
+    private static int bucketIndex(final long _value) {
+        if (_value < LINEAR_BUCKETS) {
+            return (int) _value;
+        }
+        final int shift = 63 - Long.numberOfLeadingZeros(_value) - (SUB_BUCKET_BITS - 1);
+        return LINEAR_BUCKETS + (shift - 1) * SUB_BUCKETS_PER_POWER + (int) ((_value >>> shift) - SUB_BUCKETS_PER_POWER);
+    }
+
+    private static long bucketUpperBound(final int _index) {
+        if (_index < LINEAR_BUCKETS) {
+            return _index;
+        }
+        final int k = _index - LINEAR_BUCKETS;
+        final int shift = k / SUB_BUCKETS_PER_POWER + 1;
+        final long mantissa = k % SUB_BUCKETS_PER_POWER + SUB_BUCKETS_PER_POWER;
+        return ((mantissa + 1) << shift) - 1;
+    }
+
+    private final AtomicLongArray m_counts = new AtomicLongArray(BUCKET_COUNT);
+
+    private final AtomicLong m_max = new AtomicLong(Long.MIN_VALUE);
+
+    private final AtomicLong m_min = new AtomicLong(Long.MAX_VALUE);
+
+    private final AtomicLong m_total = new AtomicLong();
+
+    private final AtomicLong m_totalCount = new AtomicLong();
+
+    /**
+     * Gets the number of recorded values.
+     *
+     * @return the count
+     */
+    public long getCount() {
+        return m_totalCount.get();
+    }
+
+    /**
+     * Gets the largest recorded value, or 0 if nothing has been recorded.
+     *
+     * @return the max
+     */
+    public long getMax() {
+        return 0 == getCount() ? 0 : m_max.get();
+    }
+
+    /**
+     * Gets the mean of the recorded values, or 0 if nothing has been recorded.
+     *
+     * @return the mean
+     */
+    public double getMean() {
+        final long count = getCount();
+        return 0 == count ? 0 : (double) getTotal() / count;
+    }
+
+    /**
+     * Gets the smallest recorded value, or 0 if nothing has been recorded.
+     *
+     * @return the min
+     */
+    public long getMin() {
+        return 0 == getCount() ? 0 : m_min.get();
+    }
+
+    /**
+     * Gets the sum of all recorded values.
+     *
+     * @return the total
+     */
+    public long getTotal() {
+        return m_total.get();
+    }
+
+    /**
+     * Gets the value at the given percentile. The result is the upper bound of the bucket holding that
+     * percentile, capped at the largest recorded value.
+     *
+     * @param _percentile
+     *            the percentile, from 0 to 100
+     * @return the value, or 0 if nothing has been recorded
+     */
+    public long getValueAtPercentile(final double _percentile) {
+        final long count = getCount();
+        if (0 == count) {
+            return 0;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(Math.min(100.0, Math.max(0.0, _percentile)) / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; ++i) {
+            seen += m_counts.get(i);
+            if (seen >= rank) {
+                return Math.min(bucketUpperBound(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Record a value. Negative values are recorded as 0.
+     *
+     * @param _value
+     *            the value
+     */
+    public void record(final long _value) {
+        final long value = Math.max(0, _value);
+        m_counts.incrementAndGet(bucketIndex(value));
+        m_totalCount.incrementAndGet();
+        m_total.addAndGet(value);
+        long cur;
+        while (value > (cur = m_max.get()) && !m_max.compareAndSet(cur, value)) {
+            // retry
+        }
+        while (value < (cur = m_min.get()) && !m_min.compareAndSet(cur, value)) {
+            // retry
+        }
+    }
+
+    /**
+     * Discard all recorded values. Values recorded concurrently with a reset may or may not be discarded.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; ++i) {
+            m_counts.set(i, 0);
+        }
+        m_totalCount.set(0);
+        m_total.set(0);
+        m_max.set(Long.MIN_VALUE);
+        m_min.set(Long.MAX_VALUE);
+    }
+}
@@ -0,0 +1,318 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A merged, time-ordered record of the lines a child process wrote to stdout and stderr. Both stream pumps
+ * append to the same journal, so the order of the records reflects the order in which lines were read from
+ * the child (which, since the two streams are separate pipes, is as close to the order of writing as can be
+ * observed). Records are kept in parallel primitive arrays rather than as one object per line.
+ * <p>
+ * The journal follows the {@link OutputRetentionPolicy} in effect, applied to the merged lines: it keeps the
+ * first records up to the head limit and the last records up to the tail limit, and only counts those in between
+ * (see {@link #getOmittedLineCount()}). Retained records are indexed consecutively, from 0 to <code>size() - 1</code>,
+ * so the record after the last head record is the first tail record. Each record also keeps its sequence number
+ * among all of the lines read (see {@link #getSequence(int)}), which skips over the omitted lines.
+ */
+public class OutputJournal {
+
+    /**
+     * Identifies which stream a record came from.
+     */
+    public enum Stream {
+        /** Standard error. */
+        STDERR,
+        /** Standard output. */
+        STDOUT
+    }
+
+    private static final Stream[] STREAMS = Stream.values();
+
+    private long m_headSize = 0;
+
+    private boolean m_isHeadFull = false;
+
+    // The head records, from 0 to m_size - 1
+    private String[] m_lines = new String[64];
+
+    private long[] m_nanos = new long[64];
+
+    // The time of the last line appended, retained or not
+    private long m_lastNanos = 0;
+
+    private final OutputRetentionPolicy m_policy;
+
+    private int m_size = 0;
+
+    private final long m_startNanos;
+
+    private byte[] m_streams = new byte[64];
+
+    // The tail records, from m_tailStart to m_tailEnd - 1; the oldest are dropped from the start
+    private int m_tailEnd = 0;
+
+    private String[] m_tailLines = new String[0];
+
+    private long[] m_tailNanos = new long[0];
+
+    // The time of the line read just before the first tail record, which may not have been retained
+    private long m_tailPrevNanos = 0;
+
+    private long[] m_tailSeqs = new long[0];
+
+    private long m_tailSize = 0;
+
+    private int m_tailStart = 0;
+
+    private byte[] m_tailStreams = new byte[0];
+
+    private long m_totalLines = 0;
+
+    /**
+     * Instantiates a new journal that keeps every line.
+     *
+     * @param _startNanos
+     *            the {@link System#nanoTime()} that record timestamps are relative to
+     */
+    OutputJournal(final long _startNanos) {
+        this(_startNanos, OutputRetentionPolicy.unbounded());
+    }
+
+    /**
+     * Instantiates a new journal.
+     *
+     * @param _startNanos
+     *            the {@link System#nanoTime()} that record timestamps are relative to
+     * @param _policy
+     *            how much of the merged output to keep
+     */
+    OutputJournal(final long _startNanos, final OutputRetentionPolicy _policy) {
+        m_startNanos = _startNanos;
+        m_policy = _policy;
+    }
+
+    /**
+     * Appends a line, stamping it with the next sequence number and the current time.
+     *
+     * @param _stream
+     *            the stream the line was read from
+     * @param _line
+     *            the line
+     */
+    synchronized void append(final Stream _stream, final String _line) {
+        final long seq = m_totalLines++;
+        // Take the timestamp while holding the lock so that time never goes backwards as sequence numbers increase
+        final long nanos = System.nanoTime() - m_startNanos;
+        final long prevNanos = m_lastNanos;
+        m_lastNanos = nanos;
+        final long size = OutputRetentionPolicy.Unit.LINES == m_policy.getUnit() ? 1 : CapturedOutput.utf8LineLength(_line);
+        if (!m_isHeadFull) {
+            if (m_headSize + size <= m_policy.getHead()) {
+                if (m_size == m_lines.length) {
+                    final int newLen = m_size + (m_size >> 1);
+                    m_lines = Arrays.copyOf(m_lines, newLen);
+                    m_nanos = Arrays.copyOf(m_nanos, newLen);
+                    m_streams = Arrays.copyOf(m_streams, newLen);
+                }
+                m_nanos[m_size] = nanos;
+                m_streams[m_size] = (byte) _stream.ordinal();
+                m_lines[m_size] = _line;
+                ++m_size;
+                m_headSize += size;
+                return;
+            }
+            m_isHeadFull = true;
+        }
+        if (size > m_policy.getTail()) {
+            // Can never fit in the tail, and nothing before it can be kept after it either
+            Arrays.fill(m_tailLines, null);
+            m_tailStart = m_tailEnd = 0;
+            m_tailSize = 0;
+            return;
+        }
+        if (m_tailStart == m_tailEnd) {
+            m_tailPrevNanos = prevNanos;
+        }
+        if (m_tailEnd == m_tailLines.length) {
+            final int count = m_tailEnd - m_tailStart;
+            // Move the records to the start of new arrays, twice the size unless that frees at least half the space
+            final int newLen = 0 < m_tailLines.length && count <= m_tailLines.length / 2 ? m_tailLines.length : Math.max(16, m_tailLines.length * 2);
+            m_tailLines = moveTail(m_tailLines, new String[newLen], count);
+            m_tailNanos = moveTail(m_tailNanos, new long[newLen], count);
+            m_tailSeqs = moveTail(m_tailSeqs, new long[newLen], count);
+            m_tailStreams = moveTail(m_tailStreams, new byte[newLen], count);
+            m_tailStart = 0;
+            m_tailEnd = count;
+        }
+        m_tailNanos[m_tailEnd] = nanos;
+        m_tailSeqs[m_tailEnd] = seq;
+        m_tailStreams[m_tailEnd] = (byte) _stream.ordinal();
+        m_tailLines[m_tailEnd] = _line;
+        ++m_tailEnd;
+        m_tailSize += size;
+        while (m_tailSize > m_policy.getTail()) {
+            final String evicted = m_tailLines[m_tailStart];
+            m_tailPrevNanos = m_tailNanos[m_tailStart];
+            m_tailLines[m_tailStart++] = null;
+            m_tailSize -= OutputRetentionPolicy.Unit.LINES == m_policy.getUnit() ? 1 : CapturedOutput.utf8LineLength(evicted);
+        }
+    }
+
+    private <T> T moveTail(final T _from, final T _to, final int _count) {
+        System.arraycopy(_from, m_tailStart, _to, 0, _count);
+        return _to;
+    }
+
+    /**
+     * Gets the time between the line read just before the given record (or the launch of the process, for the first
+     * line) and the record. For the first record after omitted lines, that is the last omitted line, not the last
+     * retained record.
+     *
+     * @param _index
+     *            the index of the record
+     * @return the gap in nanoseconds
+     */
+    public synchronized long getGapNanos(final int _index) {
+        checkIndex(_index);
+        final long prevNanos;
+        if (0 == _index) {
+            prevNanos = m_size == 0 ? m_tailPrevNanos : 0;
+        } else if (_index == m_size) {
+            prevNanos = m_tailPrevNanos;
+        } else {
+            prevNanos = nanosAt(_index - 1);
+        }
+        return nanosAt(_index) - prevNanos;
+    }
+
+    /**
+     * Gets the text of a record.
+     *
+     * @param _index
+     *            the index of the record
+     * @return the line
+     */
+    public synchronized String getLine(final int _index) {
+        checkIndex(_index);
+        return _index < m_size ? m_lines[_index] : m_tailLines[m_tailStart + _index - m_size];
+    }
+
+    /**
+     * Gets the number of records that are first in the journal; any omitted records come after these.
+     *
+     * @return the number of head records
+     */
+    synchronized int getHeadCount() {
+        return m_size;
+    }
+
+    /**
+     * Gets all retained lines from both streams, in the order they were read.
+     *
+     * @return the merged lines
+     */
+    public List<String> getLines() {
+        return new AbstractList<String>() {
+            @Override
+            public String get(final int _index) {
+                return getLine(_index);
+            }
+
+            @Override
+            public int size() {
+                return OutputJournal.this.size();
+            }
+        };
+    }
+
+    /**
+     * Gets the time a record was read, relative to the launch of the process.
+     *
+     * @param _index
+     *            the index of the record
+     * @return the timestamp in nanoseconds
+     */
+    public synchronized long getNanos(final int _index) {
+        checkIndex(_index);
+        return nanosAt(_index);
+    }
+
+    /**
+     * Gets the number of lines that were read but not retained, because they fell between the head and the tail.
+     *
+     * @return the omitted line count
+     */
+    public synchronized long getOmittedLineCount() {
+        return m_totalLines - size();
+    }
+
+    /**
+     * Gets the sequence number of a record: its position among all of the lines read, from both streams, counting
+     * from 0. It equals the index for the head records, and is larger for the tail records when lines were omitted.
+     *
+     * @param _index
+     *            the index of the record
+     * @return the sequence number
+     */
+    public synchronized long getSequence(final int _index) {
+        checkIndex(_index);
+        return _index < m_size ? _index : m_tailSeqs[m_tailStart + _index - m_size];
+    }
+
+    /**
+     * Gets the stream a record came from.
+     *
+     * @param _index
+     *            the index of the record
+     * @return the stream
+     */
+    public synchronized Stream getStream(final int _index) {
+        checkIndex(_index);
+        return STREAMS[_index < m_size ? m_streams[_index] : m_tailStreams[m_tailStart + _index - m_size]];
+    }
+
+    /**
+     * Gets the number of retained records. Records are indexed from 0 to <code>size() - 1</code> in the order they
+     * were appended.
+     *
+     * @return the size
+     */
+    public synchronized int size() {
+        return m_size + m_tailEnd - m_tailStart;
+    }
+
+    /**
+     * Write the journal out as text, one record per line: the sequence number, the timestamp and the gap since the
+     * previous line (both in milliseconds), the stream, and the line itself, separated by tabs.
+     *
+     * @param _out
+     *            where to write
+     * @throws IOException
+     *             Signals that an I/O exception has occurred.
+     */
+    public void writeTo(final Appendable _out) throws IOException {
+        final int size = size();
+        for (int i = 0; i < size; ++i) {
+            _out.append(Long.toString(getSequence(i))).append('\t');
+            _out.append(String.format("%.3f\t+%.3f", getNanos(i) / 1000000.0, getGapNanos(i) / 1000000.0)).append('\t');
+            _out.append(getStream(i).name()).append('\t');
+            _out.append(getLine(i)).append('\n');
+        }
+    }
+
+    private long nanosAt(final int _index) {
+        return _index < m_size ? m_nanos[_index] : m_tailNanos[m_tailStart + _index - m_size];
+    }
+
+    private void checkIndex(final int _index) {
+        if (_index < 0 || _index >= size()) {
+            throw new IndexOutOfBoundsException("" + _index);
+        }
+    }
+}
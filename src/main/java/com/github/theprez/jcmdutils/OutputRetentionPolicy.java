@@ -0,0 +1,115 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+/**
+ * Describes how much of a child process's output is kept in memory by {@link ProcessLauncher}. A bounded policy
+ * keeps the first part ("head") and the last part ("tail") of each output stream and drops whatever falls in
+ * between, while still counting everything that was seen. Memory use per process is then bounded no matter how
+ * much output the child produces: output is read in fixed-size chunks, and under a bounded policy, a line longer
+ * than {@link #MAX_LINE_LENGTH} characters is cut to that length rather than read whole.
+ */
+public class OutputRetentionPolicy {
+
+    /** The longest line, in characters, that a bounded policy retains whole. */
+    public static final int MAX_LINE_LENGTH = 64 * 1024;
+
+    /**
+     * The unit in which a policy's limits are expressed.
+     */
+    public enum Unit {
+        /** Limits are a number of UTF-8 encoded bytes, including line terminators. Only whole lines are retained. */
+        BYTES,
+        /** Limits are a number of lines. */
+        LINES
+    }
+
+    private static final OutputRetentionPolicy s_unbounded = new OutputRetentionPolicy(Unit.LINES, Long.MAX_VALUE, 0);
+
+    /**
+     * Keep at most the first <code>_headBytes</code> bytes and the last <code>_tailBytes</code> bytes of output.
+     *
+     * @param _headBytes
+     *            the number of leading bytes to keep
+     * @param _tailBytes
+     *            the number of trailing bytes to keep
+     * @return the policy
+     */
+    public static OutputRetentionPolicy headAndTailBytes(final long _headBytes, final long _tailBytes) {
+        return new OutputRetentionPolicy(Unit.BYTES, _headBytes, _tailBytes);
+    }
+
+    /**
+     * Keep at most the first <code>_headLines</code> lines and the last <code>_tailLines</code> lines of output.
+     *
+     * @param _headLines
+     *            the number of leading lines to keep
+     * @param _tailLines
+     *            the number of trailing lines to keep
+     * @return the policy
+     */
+    public static OutputRetentionPolicy headAndTailLines(final int _headLines, final int _tailLines) {
+        return new OutputRetentionPolicy(Unit.LINES, _headLines, _tailLines);
+    }
+
+    /**
+     * Keep all output. This is the default.
+     *
+     * @return the policy
+     */
+    public static OutputRetentionPolicy unbounded() {
+        return s_unbounded;
+    }
+
+    private final long m_head;
+
+    private final long m_tail;
+
+    private final Unit m_unit;
+
+    private OutputRetentionPolicy(final Unit _unit, final long _head, final long _tail) {
+        if (_head < 0 || _tail < 0) {
+            throw new IllegalArgumentException("Retention limits must not be negative");
+        }
+        m_unit = _unit;
+        m_head = _head;
+        m_tail = _tail;
+    }
+
+    /**
+     * Gets the number of leading lines or bytes that are kept.
+     *
+     * @return the head limit
+     */
+    public long getHead() {
+        return m_head;
+    }
+
+    /**
+     * Gets the number of trailing lines or bytes that are kept.
+     *
+     * @return the tail limit
+     */
+    public long getTail() {
+        return m_tail;
+    }
+
+    /**
+     * Gets the unit of the head and tail limits.
+     *
+     * @return the unit
+     */
+    public Unit getUnit() {
+        return m_unit;
+    }
+
+    /**
+     * Checks if this policy keeps all output.
+     *
+     * @return true, if unbounded
+     */
+    public boolean isUnbounded() {
+        return Long.MAX_VALUE == m_head;
+    }
+}
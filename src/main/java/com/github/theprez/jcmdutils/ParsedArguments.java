@@ -0,0 +1,187 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.github.theprez.jcmdutils.ArgumentParser.Option;
+
+/**
+ * The result of {@link ArgumentParser#parse(String...)}: the values given for each option, and the positional
+ * arguments, in order. Look up an option by the {@link Option} its builder returned.
+ */
+public class ParsedArguments {
+
+    /** Every value of each option given more than once, created only for those. */
+    private final List<Object>[] m_allValues;
+
+    private final int[] m_counts;
+
+    private boolean m_isAfterDashes = false;
+
+    private final Object[] m_lastValues;
+
+    private final ArgumentParser m_parser;
+
+    private final List<String> m_positional;
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    ParsedArguments(final ArgumentParser _parser, final int _argCount) {
+        m_parser = _parser;
+        final int optionCount = _parser.getOptions().length;
+        m_allValues = new List[optionCount];
+        m_counts = new int[optionCount];
+        m_lastValues = new Object[optionCount];
+        m_positional = new ArrayList<String>(_argCount);
+    }
+
+    void addPositional(final String _arg) {
+        m_positional.add(_arg);
+    }
+
+    private int checkOption(final Option<?> _option) {
+        final int index = _option.getIndex();
+        if (_option.getOwner() != m_parser.getOwner() || index >= m_counts.length) {
+            throw new IllegalArgumentException("Option " + _option + " was not declared for this parser");
+        }
+        return index;
+    }
+
+    /**
+     * Gets the value of an option; if it was given more than once, the last one. For a flag, this is whether it
+     * was given.
+     *
+     * @param <T>
+     *            the type of the value
+     * @param _option
+     *            the option
+     * @return the value, or <code>null</code> if the option was not given
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(final Option<T> _option) {
+        final int index = checkOption(_option);
+        if (_option.isFlag()) {
+            return (T) Boolean.valueOf(0 != m_counts[index]);
+        }
+        return (T) m_lastValues[index];
+    }
+
+    /**
+     * Gets the value of an option; if it was given more than once, the last one.
+     *
+     * @param <T>
+     *            the type of the value
+     * @param _option
+     *            the option
+     * @param _dft
+     *            the value to use if the option was not given
+     * @return the value
+     */
+    public <T> T get(final Option<T> _option, final T _dft) {
+        return 0 == m_counts[checkOption(_option)] ? _dft : get(_option);
+    }
+
+    /**
+     * Gets every value given for an option, in order.
+     *
+     * @param <T>
+     *            the type of the value
+     * @param _option
+     *            the option
+     * @return the values, empty if the option was not given
+     */
+    @SuppressWarnings("unchecked")
+    public <T> List<T> getAll(final Option<T> _option) {
+        final int index = checkOption(_option);
+        if (null != m_allValues[index]) {
+            return Collections.unmodifiableList((List<T>) m_allValues[index]);
+        }
+        return 0 == m_counts[index] ? Collections.<T> emptyList() : Collections.singletonList(get(_option));
+    }
+
+    /**
+     * Gets the number of times an option was given, such as for <code>-vvv</code>.
+     *
+     * @param _option
+     *            the option
+     * @return the count
+     */
+    public int getCount(final Option<?> _option) {
+        return m_counts[checkOption(_option)];
+    }
+
+    /**
+     * Gets a logger whose verbosity is set by <code>-v</code>/<code>--verbose</code>.
+     *
+     * @return the logger
+     */
+    public AppLogger getLogger() {
+        return AppLogger.getSingleton(isVerbose());
+    }
+
+    /**
+     * Gets the parser that produced these arguments.
+     *
+     * @return the parser
+     */
+    public ArgumentParser getParser() {
+        return m_parser;
+    }
+
+    /**
+     * Gets the arguments that are not options, in order.
+     *
+     * @return the positional arguments
+     */
+    public List<String> getPositional() {
+        return Collections.unmodifiableList(m_positional);
+    }
+
+    boolean isAfterDashes() {
+        return m_isAfterDashes;
+    }
+
+    /**
+     * Checks if an option was given.
+     *
+     * @param _option
+     *            the option
+     * @return true, if it was given at least once
+     */
+    public boolean isSet(final Option<?> _option) {
+        return 0 != m_counts[checkOption(_option)];
+    }
+
+    /**
+     * Checks if <code>-v</code>/<code>--verbose</code> was given.
+     *
+     * @return true, if verbose
+     */
+    public boolean isVerbose() {
+        return isSet(m_parser.getVerboseOption());
+    }
+
+    void setAfterDashes() {
+        m_isAfterDashes = true;
+    }
+
+    void setFlag(final Option<?> _option) {
+        ++m_counts[_option.getIndex()];
+    }
+
+    void setValue(final Option<?> _option, final Object _value) {
+        final int index = _option.getIndex();
+        if (0 != m_counts[index]) {
+            if (null == m_allValues[index]) {
+                m_allValues[index] = new ArrayList<Object>(4);
+                m_allValues[index].add(m_lastValues[index]);
+            }
+            m_allValues[index].add(_value);
+        }
+        m_lastValues[index] = _value;
+        ++m_counts[index];
+    }
+}
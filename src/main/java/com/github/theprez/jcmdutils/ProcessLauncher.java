@@ -4,10 +4,11 @@
 package com.github.theprez.jcmdutils;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -18,22 +19,118 @@ import com.github.theprez.jcmdutils.StringUtils.TerminalColor;
  */
 public class ProcessLauncher {
 
+    /**
+     * Options controlling how {@link ProcessLauncher#exec(CaptureOptions, String...)} captures a child's output.
+     */
+    public static class CaptureOptions {
+
+        private boolean m_isMergedJournal = false;
+
+        private long m_resourceSamplingIntervalMillis = 0;
+
+        private OutputRetentionPolicy m_retentionPolicy = OutputRetentionPolicy.unbounded();
+
+        /**
+         * Gets the resource sampling interval.
+         *
+         * @return the interval in milliseconds, or 0 if the child is only sampled once its output ends
+         */
+        public long getResourceSamplingIntervalMillis() {
+            return m_resourceSamplingIntervalMillis;
+        }
+
+        /**
+         * Gets the retention policy.
+         *
+         * @return the retention policy
+         */
+        public OutputRetentionPolicy getRetentionPolicy() {
+            return m_retentionPolicy;
+        }
+
+        /**
+         * Checks if a merged journal of stdout and stderr is kept.
+         *
+         * @return true, if a merged journal is kept
+         */
+        public boolean isMergedJournal() {
+            return m_isMergedJournal;
+        }
+
+        /**
+         * Sets whether both output streams are also recorded, in the order they were read, to a single
+         * {@link OutputJournal} (see {@link ProcessResult#getJournal()}). The journal is bounded by the same
+         * {@link OutputRetentionPolicy}, applied to the merged lines.
+         *
+         * @param _isMergedJournal
+         *            whether to keep a merged journal
+         * @return this object
+         */
+        public CaptureOptions setMergedJournal(final boolean _isMergedJournal) {
+            m_isMergedJournal = _isMergedJournal;
+            return this;
+        }
+
+        /**
+         * Sets the policy that decides how much of each output stream is kept. Defaults to
+         * {@link OutputRetentionPolicy#unbounded()}.
+         *
+         * @param _policy
+         *            the policy
+         * @return this object
+         */
+        public CaptureOptions setRetentionPolicy(final OutputRetentionPolicy _policy) {
+            m_retentionPolicy = null == _policy ? OutputRetentionPolicy.unbounded() : _policy;
+            return this;
+        }
+
+        /**
+         * Sets how often the child's memory, I/O and CPU usage is sampled while it runs (see
+         * {@link ProcessResult#getResourceUsage()}). Sampling is done by a single thread shared by all processes.
+         * Short-lived children may exit before they are ever sampled, in which case some values are unavailable.
+         *
+         * @param _millis
+         *            the interval in milliseconds, or 0 to only take one sample once the child's output ends
+         * @return this object
+         */
+        public CaptureOptions setResourceSamplingInterval(final long _millis) {
+            m_resourceSamplingIntervalMillis = Math.max(0, _millis);
+            return this;
+        }
+    }
+
     /**
      * Encapsulates the result of a process invocation.
      */
     public static class ProcessResult {
-        
+
+        private final long m_endNanos;
+
         private final int m_exitStatus;
-        
-        private final List<String> m_stderr;
-        
-        private final List<String> m_stdout;
 
-         ProcessResult(final List<String> m_stdout, final List<String> m_stderr, final int m_exitStatus) {
+        private final OutputJournal m_journal;
+
+        private final ProcessResourceUsage m_resourceUsage;
+
+        private final long m_spawnedNanos;
+
+        private final long m_startNanos;
+
+        private final CapturedOutput m_stderr;
+
+        private final CapturedOutput m_stdout;
+
+        ProcessResult(final CapturedOutput _stdout, final CapturedOutput _stderr, final int _exitStatus, final long _startNanos, final long _spawnedNanos, final long _endNanos, final ProcessResourceUsage _resourceUsage,
+                final OutputJournal _journal) {
             super();
-            this.m_stdout = m_stdout;
-            this.m_stderr = m_stderr;
-            this.m_exitStatus = m_exitStatus;
+            m_stdout = _stdout;
+            m_stderr = _stderr;
+            m_exitStatus = _exitStatus;
+            m_startNanos = _startNanos;
+            m_spawnedNanos = _spawnedNanos;
+            m_endNanos = _endNanos;
+            m_resourceUsage = _resourceUsage;
+            m_journal = _journal;
         }
 
         /**
@@ -46,41 +143,220 @@ public class ProcessLauncher {
         }
 
         /**
-         * Gets the stderr.
+         * Gets the merged journal of stdout and stderr.
+         *
+         * @return the journal, or <code>null</code> if {@link CaptureOptions#setMergedJournal(boolean)} was not set
+         */
+        public OutputJournal getJournal() {
+            return m_journal;
+        }
+
+        /**
+         * Gets stdout and stderr merged in the order the lines were read. If no merged journal was kept, this is
+         * all of stdout followed by all of stderr.
+         *
+         * @return the merged output
+         */
+        public List<String> getMergedOutput() {
+            if (null != m_journal) {
+                return m_journal.getLines();
+            }
+            final List<String> ret = new ArrayList<String>(getStdout());
+            ret.addAll(getStderr());
+            return ret;
+        }
+
+        /**
+         * Gets the child's CPU time, memory and I/O counters.
+         *
+         * @return the resource usage
+         */
+        public ProcessResourceUsage getResourceUsage() {
+            return m_resourceUsage;
+        }
+
+        /**
+         * Gets the time it took to create the child process.
+         *
+         * @return the spawn latency in nanoseconds
+         */
+        public long getSpawnLatencyNanos() {
+            return m_spawnedNanos - m_startNanos;
+        }
+
+        /**
+         * Gets the time from the launch request to the first byte of stderr.
+         *
+         * @return the time to first byte in nanoseconds, or -1 if nothing was written to stderr
+         */
+        public long getStderrFirstByteNanos() {
+            return -1 == m_stderr.getFirstByteNanos() ? -1 : m_stderr.getFirstByteNanos() - m_startNanos;
+        }
+
+        /**
+         * Gets the time from the launch request to the first byte of stdout.
+         *
+         * @return the time to first byte in nanoseconds, or -1 if nothing was written to stdout
+         */
+        public long getStdoutFirstByteNanos() {
+            return -1 == m_stdout.getFirstByteNanos() ? -1 : m_stdout.getFirstByteNanos() - m_startNanos;
+        }
+
+        /**
+         * Gets the time from the launch request until the child had exited and all of its output was read.
+         *
+         * @return the wall time in nanoseconds
+         */
+        public long getWallTimeNanos() {
+            return m_endNanos - m_startNanos;
+        }
+
+        /**
+         * Gets the stderr. If a bounded {@link OutputRetentionPolicy} was in effect, this only contains the retained
+         * lines.
          *
          * @return the stderr
          */
         public List<String> getStderr() {
-            return m_stderr;
+            return m_stderr.getLines();
+        }
+
+        /**
+         * Gets the total number of bytes written to stderr, including lines that were not retained.
+         *
+         * @return the stderr byte count
+         */
+        public long getStderrByteCount() {
+            return m_stderr.getTotalBytes();
+        }
+
+        /**
+         * Gets the total number of lines written to stderr, including lines that were not retained.
+         *
+         * @return the stderr line count
+         */
+        public long getStderrLineCount() {
+            return m_stderr.getTotalLines();
+        }
+
+        /**
+         * Gets the number of stderr lines dropped by the {@link OutputRetentionPolicy}.
+         *
+         * @return the omitted stderr line count
+         */
+        public long getStderrOmittedLineCount() {
+            return m_stderr.getOmittedLineCount();
         }
 
         /**
-         * Gets the stdout.
+         * Gets the number of stderr lines that were cut to {@link OutputRetentionPolicy#MAX_LINE_LENGTH}.
+         *
+         * @return the truncated stderr line count
+         */
+        public long getStderrTruncatedLineCount() {
+            return m_stderr.getTruncatedLineCount();
+        }
+
+        /**
+         * Gets the stdout. If a bounded {@link OutputRetentionPolicy} was in effect, this only contains the retained
+         * lines.
          *
          * @return the stdout
          */
         public List<String> getStdout() {
-            return m_stdout;
+            return m_stdout.getLines();
         }
 
         /**
-         * Pretty print, formatting the stdout in green and the stderr in red. Note that this will always
-         * be ordered such that all of the stdout precedes all of the stderr, regardless of the process's 
-         * output order.
+         * Gets the total number of bytes written to stdout, including lines that were not retained.
+         *
+         * @return the stdout byte count
+         */
+        public long getStdoutByteCount() {
+            return m_stdout.getTotalBytes();
+        }
+
+        /**
+         * Gets the total number of lines written to stdout, including lines that were not retained.
+         *
+         * @return the stdout line count
+         */
+        public long getStdoutLineCount() {
+            return m_stdout.getTotalLines();
+        }
+
+        /**
+         * Gets the number of stdout lines dropped by the {@link OutputRetentionPolicy}.
+         *
+         * @return the omitted stdout line count
+         */
+        public long getStdoutOmittedLineCount() {
+            return m_stdout.getOmittedLineCount();
+        }
+
+        /**
+         * Gets the number of stdout lines that were cut to {@link OutputRetentionPolicy#MAX_LINE_LENGTH}.
+         *
+         * @return the truncated stdout line count
+         */
+        public long getStdoutTruncatedLineCount() {
+            return m_stdout.getTruncatedLineCount();
+        }
+
+        /**
+         * Pretty print, formatting the stdout in green and the stderr in red. If a merged journal was kept (see
+         * {@link CaptureOptions#setMergedJournal(boolean)}), lines are printed in the order they were read. Otherwise,
+         * all of the stdout precedes all of the stderr, regardless of the process's output order. Either way, lines
+         * dropped by the {@link OutputRetentionPolicy} are shown as a single marker line.
          */
         public void prettyPrint() {
-            for (final String stdout : m_stdout) {
-                System.out.println(StringUtils.colorizeForTerminal(stdout, TerminalColor.GREEN));
+            if (null != m_journal) {
+                final int size = m_journal.size();
+                final int headCount = m_journal.getHeadCount();
+                for (int i = 0; i < size; ++i) {
+                    if (i == headCount) {
+                        printOmitted(m_journal.getOmittedLineCount());
+                    }
+                    final TerminalColor color = OutputJournal.Stream.STDOUT == m_journal.getStream(i) ? TerminalColor.GREEN : TerminalColor.BRIGHT_RED;
+                    System.out.println(StringUtils.colorizeForTerminal(m_journal.getLine(i), color));
+                }
+                if (size == headCount) {
+                    printOmitted(m_journal.getOmittedLineCount());
+                }
+                return;
             }
-            for (final String stderr : m_stderr) {
-                System.out.println(StringUtils.colorizeForTerminal(stderr, TerminalColor.BRIGHT_RED));
+            prettyPrint(m_stdout, TerminalColor.GREEN);
+            prettyPrint(m_stderr, TerminalColor.BRIGHT_RED);
+        }
+
+        private static void prettyPrint(final CapturedOutput _output, final TerminalColor _color) {
+            for (final String line : _output.getHead()) {
+                System.out.println(StringUtils.colorizeForTerminal(line, _color));
+            }
+            printOmitted(_output.getOmittedLineCount());
+            for (final String line : _output.getTail()) {
+                System.out.println(StringUtils.colorizeForTerminal(line, _color));
+            }
+        }
+
+        private static void printOmitted(final long _omitted) {
+            if (0 < _omitted) {
+                System.out.println(StringUtils.colorizeForTerminal("... " + _omitted + " lines omitted ...", TerminalColor.YELLOW));
             }
         }
 
     }
 
+    private static final LaunchStatistics s_launchStatistics = new LaunchStatistics();
+
     /**
-     * Execute a command!
+     * Execute a command! The command line is split into arguments with {@link StringUtils#tokenizeCommandLine(String)},
+     * so arguments may be quoted as they would be for a shell (but no other shell processing takes place).
+     * <p>
+     * Note that, unlike {@link Runtime#exec(String)}, which only splits on whitespace, a backslash outside single
+     * quotes escapes the next character. An unquoted Windows path such as <code>C:\Tools\app.exe</code> therefore
+     * loses its backslashes. Put such paths in single quotes, or pass the arguments separately to
+     * {@link #exec(String...)}.
      *
      * @param _cmd the cmd
      * @return the process result
@@ -88,75 +364,89 @@ public class ProcessLauncher {
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public static ProcessResult exec(final String _cmd) throws UnsupportedEncodingException, IOException {
-        final Process p = Runtime.getRuntime().exec(_cmd);
-        final List<String> stdout = new LinkedList<String>();
-        final List<String> stderr = new LinkedList<String>();
-        final Thread stderrThread = new Thread() {
-            @Override
-            public void run() {
-
-                try (BufferedReader br = new BufferedReader(new InputStreamReader(p.getErrorStream(), "UTF-8"))) {
-                    String line;
-                    while (null != (line = br.readLine())) {
-                        stderr.add(line);
-                    }
-                } catch (final Exception e) {
-                    e.printStackTrace();
-                }
-            };
-        };
-        stderrThread.setDaemon(true);
-        stderrThread.start();
-        p.getOutputStream().close();
-        try (BufferedReader br = new BufferedReader(new InputStreamReader(p.getInputStream(), "UTF-8"))) {
-            String line;
-            while (null != (line = br.readLine())) {
-                stdout.add(line);
-            }
-        }
-        int rc;
-        try {
-            rc = p.waitFor();
-        } catch (final InterruptedException e) {
-            throw new IOException(e);
+        final String[] cmd = StringUtils.tokenizeCommandLine(_cmd);
+        if (0 == cmd.length) {
+            throw new IllegalArgumentException("Empty command");
         }
-        return new ProcessResult(stdout, stderr, rc);
+        return exec(new CaptureOptions(), cmd);
     }
-    
+
+    /**
+     * Execute a command, given as an argument list.
+     *
+     * @param _cmd the command and its arguments
+     * @return the process result
+     * @throws UnsupportedEncodingException the unsupported encoding exception
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
     public static ProcessResult exec(final String... _cmd) throws UnsupportedEncodingException, IOException {
-        final Process p = Runtime.getRuntime().exec(_cmd);
-        final List<String> stdout = new LinkedList<String>();
-        final List<String> stderr = new LinkedList<String>();
-        final Thread stderrThread = new Thread() {
-            @Override
-            public void run() {
-
-                try (BufferedReader br = new BufferedReader(new InputStreamReader(p.getErrorStream(), "UTF-8"))) {
-                    String line;
-                    while (null != (line = br.readLine())) {
-                        stderr.add(line);
-                    }
-                } catch (final Exception e) {
-                    e.printStackTrace();
-                }
-            };
-        };
-        stderrThread.setDaemon(true);
-        stderrThread.start();
-        p.getOutputStream().close();
-        try (BufferedReader br = new BufferedReader(new InputStreamReader(p.getInputStream(), "UTF-8"))) {
-            String line;
-            while (null != (line = br.readLine())) {
-                stdout.add(line);
+        return exec(new CaptureOptions(), _cmd);
+    }
+
+    /**
+     * Execute a command, given as an argument list, capturing its output as described by the given options.
+     *
+     * @param _options the capture options
+     * @param _cmd the command and its arguments
+     * @return the process result
+     * @throws UnsupportedEncodingException the unsupported encoding exception
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public static ProcessResult exec(final CaptureOptions _options, final String... _cmd) throws UnsupportedEncodingException, IOException {
+        final long start = System.nanoTime();
+        return capture(Runtime.getRuntime().exec(_cmd), _options, 0 == _cmd.length ? "" : _cmd[0], start, true);
+    }
+
+    /**
+     * Gets the global statistics of all processes run through the <code>exec</code> methods of this class.
+     *
+     * @return the launch statistics
+     */
+    public static LaunchStatistics getLaunchStatistics() {
+        return s_launchStatistics;
+    }
+
+    /**
+     * Read the output of an already-started process until it ends, and wait for it to exit.
+     *
+     * @param _p the process
+     * @param _options the capture options
+     * @param _program the program name to record statistics under
+     * @param _startNanos the {@link System#nanoTime()} at which the launch was requested
+     * @param _isStdinClosed whether the process's standard input should be closed; pass <code>false</code> if
+     *            something else feeds it
+     * @return the process result
+     * @throws UnsupportedEncodingException the unsupported encoding exception
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    static ProcessResult capture(final Process _p, final CaptureOptions _options, final String _program, final long _startNanos, final boolean _isStdinClosed) throws UnsupportedEncodingException, IOException {
+        final long spawned = System.nanoTime();
+        final ProcessResourceSampler sampler = new ProcessResourceSampler(_p, _options.getResourceSamplingIntervalMillis());
+        final CapturedOutput stdout = new CapturedOutput(_options.getRetentionPolicy());
+        final CapturedOutput stderr = new CapturedOutput(_options.getRetentionPolicy());
+        final OutputJournal journal = _options.isMergedJournal() ? new OutputJournal(_startNanos, _options.getRetentionPolicy()) : null;
+        final Thread stderrThread = BlockingTasks.start("jcmdutils-stderr-pump", () -> {
+            try {
+                stderr.readFrom(_p.getErrorStream(), null == journal ? null : _line -> journal.append(OutputJournal.Stream.STDERR, _line));
+            } catch (final Exception e) {
+                e.printStackTrace();
             }
+        });
+        if (_isStdinClosed) {
+            _p.getOutputStream().close();
         }
+        stdout.readFrom(_p.getInputStream(), null == journal ? null : _line -> journal.append(OutputJournal.Stream.STDOUT, _line));
+        final ProcessResourceUsage usage = sampler.finish();
         int rc;
         try {
-            rc = p.waitFor();
+            rc = _p.waitFor();
+            stderrThread.join();
         } catch (final InterruptedException e) {
             throw new IOException(e);
         }
-        return new ProcessResult(stdout, stderr, rc);
+        final ProcessResult ret = new ProcessResult(stdout, stderr, rc, _startNanos, spawned, System.nanoTime(), usage, journal);
+        s_launchStatistics.record(new File(_program).getName(), ret);
+        return ret;
     }
 
     /**
@@ -171,14 +461,8 @@ public class ProcessLauncher {
      */
     public static List<String> getStdout(final String _eyecatcher, final Process _p, final AppLogger _logger) throws UnsupportedEncodingException, IOException {
         final List<String> ret = new LinkedList<String>();
-        final Thread stderrThread = new Thread() {
-            @Override
-            public void run() {
-                handleStream(_eyecatcher, _p.getErrorStream(), _logger, true);
-            };
-        };
-        stderrThread.setDaemon(true);
-        stderrThread.start();
+        final ChildOutputForwarder forwarder = new ChildOutputForwarder(_eyecatcher, _logger);
+        BlockingTasks.start("jcmdutils-stderr-pump", () -> forwarder.forward(_p.getErrorStream(), true));
 
         try (BufferedReader br = new BufferedReader(new InputStreamReader(_p.getInputStream(), "UTF-8"))) {
             String line;
@@ -188,25 +472,6 @@ public class ProcessLauncher {
         }
         return ret;
     }
-    
-    private static void handleStream(final String _eyeCatcher, final InputStream _stream, final AppLogger _logger, final boolean _isError) {
-        try (BufferedReader br = new BufferedReader(new InputStreamReader(_stream))) {
-            String read;
-            while (null != (read = br.readLine())) {
-                synchronized (_logger) {
-                    if (_isError) {
-                        _logger.println_err_verbose("child process " + _eyeCatcher + ":" + read);
-                    } else {
-                        _logger.println_verbose("child process " + _eyeCatcher + ":" + read);
-                    }
-                }
-            }
-        } catch (final IOException e) {
-            synchronized (_logger) {
-                _logger.exception(e);
-            }
-        }
-    }
 
     /**
      * Run the process, but route the child's stdout and stderr to this process
@@ -216,21 +481,8 @@ public class ProcessLauncher {
      * @param _logger the logger
      */
     public static void pipeStreamsToCurrentProcess(final String _eyecatcher, final Process _p, final AppLogger _logger) {
-        final Thread stderrThread = new Thread() {
-            @Override
-            public void run() {
-                handleStream(_eyecatcher, _p.getErrorStream(), _logger, true);
-            };
-        };
-        stderrThread.setDaemon(true);
-        stderrThread.start();
-        final Thread stdoutThread = new Thread() {
-            @Override
-            public void run() {
-                handleStream(_eyecatcher, _p.getInputStream(), _logger, false);
-            };
-        };
-        stdoutThread.setDaemon(true);
-        stdoutThread.start();
+        final ChildOutputForwarder forwarder = new ChildOutputForwarder(_eyecatcher, _logger);
+        BlockingTasks.start("jcmdutils-stderr-pump", () -> forwarder.forward(_p.getErrorStream(), true));
+        BlockingTasks.start("jcmdutils-stdout-pump", () -> forwarder.forward(_p.getInputStream(), false));
     }
 }
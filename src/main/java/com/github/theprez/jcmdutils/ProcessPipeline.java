@@ -0,0 +1,222 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.github.theprez.jcmdutils.ProcessLauncher.CaptureOptions;
+import com.github.theprez.jcmdutils.ProcessLauncher.ProcessResult;
+
+/**
+ * Runs several commands connected like a shell pipeline (<code>A | B | C</code>), without needing a shell.
+ * Only the output of the final stage is captured; the standard error of every other stage goes to the standard
+ * error of this process. On Java 9 and later, the stages are connected directly by the operating system, so the
+ * data flowing between them never passes through the JVM. On Java 8, each connection is pumped by a thread.
+ *
+ * <pre>
+ * final PipelineResult result = new ProcessPipeline().then("cat", "big.log").then("grep", "ERROR").then("sort").exec();
+ * </pre>
+ */
+public class ProcessPipeline {
+
+    /**
+     * Encapsulates the result of a pipeline invocation.
+     */
+    public static class PipelineResult {
+
+        private final int[] m_exitStatuses;
+
+        private final ProcessResult m_result;
+
+        PipelineResult(final ProcessResult _result, final int[] _exitStatuses) {
+            m_result = _result;
+            m_exitStatuses = _exitStatuses;
+        }
+
+        /**
+         * Gets the exit status of the last stage, which is the exit status of the pipeline as a shell would report it.
+         *
+         * @return the exit status
+         */
+        public int getExitStatus() {
+            return m_exitStatuses[m_exitStatuses.length - 1];
+        }
+
+        /**
+         * Gets the exit status of the given stage.
+         *
+         * @param _stage
+         *            the stage, counting from 0
+         * @return the exit status
+         */
+        public int getExitStatus(final int _stage) {
+            return m_exitStatuses[_stage];
+        }
+
+        /**
+         * Gets the exit statuses of all stages, in order.
+         *
+         * @return the exit statuses
+         */
+        public int[] getExitStatuses() {
+            return m_exitStatuses.clone();
+        }
+
+        /**
+         * Gets the captured result of the last stage.
+         *
+         * @return the last stage's result
+         */
+        public ProcessResult getResult() {
+            return m_result;
+        }
+
+        /**
+         * Checks if every stage exited with status 0.
+         *
+         * @return true, if successful
+         */
+        public boolean isSuccessful() {
+            for (final int rc : m_exitStatuses) {
+                if (0 != rc) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Copy everything from one stage to the next, then close both ends.
+     */
+    private static void pump(final InputStream _from, final OutputStream _to) {
+        try (InputStream in = _from; OutputStream out = _to) {
+            final byte[] buf = new byte[64 * 1024];
+            int len;
+            while (-1 != (len = in.read(buf))) {
+                out.write(buf, 0, len);
+            }
+        } catch (final IOException e) {
+            // The downstream stage went away (e.g. "head"). Closing our end lets the upstream one see a broken pipe.
+        }
+    }
+
+    private CaptureOptions m_options = new CaptureOptions();
+
+    private final List<String[]> m_stages = new ArrayList<String[]>();
+
+    /**
+     * Run the pipeline, capturing the output of the final stage, and wait for every stage to exit.
+     *
+     * @return the pipeline result
+     * @throws IOException
+     *             Signals that an I/O exception has occurred, or that the pipeline has no stages.
+     */
+    public PipelineResult exec() throws IOException {
+        if (m_stages.isEmpty()) {
+            throw new IOException("Pipeline has no stages");
+        }
+        final long start = System.nanoTime();
+        final List<ProcessBuilder> builders = new ArrayList<ProcessBuilder>(m_stages.size());
+        for (int i = 0; i < m_stages.size(); ++i) {
+            final ProcessBuilder pb = new ProcessBuilder(m_stages.get(i));
+            if (i < m_stages.size() - 1) {
+                pb.redirectError(ProcessBuilder.Redirect.INHERIT);
+            }
+            builders.add(pb);
+        }
+        List<Process> processes = ProcessSupport.startPipeline(builders);
+        final boolean isPumped = null == processes;
+        if (isPumped) {
+            processes = startPumped(builders);
+        }
+        boolean isComplete = false;
+        try {
+            processes.get(0).getOutputStream().close();
+            final Process last = processes.get(processes.size() - 1);
+            final ProcessResult result = ProcessLauncher.capture(last, m_options, m_stages.get(m_stages.size() - 1)[0], start, !isPumped);
+
+            final int[] statuses = new int[processes.size()];
+            try {
+                for (int i = 0; i < statuses.length; ++i) {
+                    statuses[i] = processes.get(i).waitFor();
+                }
+            } catch (final InterruptedException e) {
+                throw new IOException(e);
+            }
+            isComplete = true;
+            return new PipelineResult(result, statuses);
+        } finally {
+            if (!isComplete) {
+                // Don't leave the other stages running on their own
+                for (final Process p : processes) {
+                    p.destroy();
+                }
+            }
+        }
+    }
+
+    /**
+     * Sets how the output of the final stage is captured.
+     *
+     * @param _options
+     *            the capture options
+     * @return this object
+     */
+    public ProcessPipeline setCaptureOptions(final CaptureOptions _options) {
+        m_options = null == _options ? new CaptureOptions() : _options;
+        return this;
+    }
+
+    private List<Process> startPumped(final List<ProcessBuilder> _builders) throws IOException {
+        final List<Process> ret = new ArrayList<Process>(_builders.size());
+        try {
+            for (final ProcessBuilder pb : _builders) {
+                ret.add(pb.start());
+            }
+        } catch (final IOException e) {
+            for (final Process p : ret) {
+                p.destroy();
+            }
+            throw e;
+        }
+        for (int i = 0; i < ret.size() - 1; ++i) {
+            final Process from = ret.get(i);
+            final Process to = ret.get(i + 1);
+            BlockingTasks.start("jcmdutils-pipe-pump", () -> pump(from.getInputStream(), to.getOutputStream()));
+        }
+        return ret;
+    }
+
+    /**
+     * Add a stage to the end of the pipeline.
+     *
+     * @param _cmd
+     *            the command and its arguments
+     * @return this object
+     */
+    public ProcessPipeline then(final String... _cmd) {
+        if (0 == _cmd.length) {
+            throw new IllegalArgumentException("Empty command");
+        }
+        m_stages.add(_cmd.clone());
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder ret = new StringBuilder();
+        for (final String[] stage : m_stages) {
+            if (0 != ret.length()) {
+                ret.append(" | ");
+            }
+            ret.append(StringUtils.arrayToSpaceSeparatedString((Object[]) stage));
+        }
+        return ret.toString();
+    }
+}
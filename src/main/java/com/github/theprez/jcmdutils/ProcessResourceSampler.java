@@ -0,0 +1,182 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically samples the resource usage of running child processes into a {@link ProcessResourceUsage}. All
+ * tracked processes share a single daemon thread. Memory and I/O counters are read from <code>/proc</code> and
+ * are therefore only available on Linux.
+ */
+class ProcessResourceSampler {
+
+    /** Linux reports CPU times in <code>/proc/&lt;pid&gt;/stat</code> in USER_HZ ticks, which is 100 in practice. */
+    private static final long NANOS_PER_CLOCK_TICK = 10_000_000L;
+
+    /** Checked on first use, rather than when the class is loaded. */
+    private static class ProcHolder {
+        private static final boolean IS_AVAILABLE = new File("/proc/self/status").canRead();
+    }
+
+    private static ScheduledExecutorService s_executor = null;
+
+    private static synchronized ScheduledExecutorService getExecutor() {
+        if (null == s_executor) {
+            final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, _r -> {
+                final Thread t = new Thread(_r, "jcmdutils-process-sampler");
+                t.setDaemon(true);
+                return t;
+            });
+            executor.setRemoveOnCancelPolicy(true);
+            s_executor = executor;
+        }
+        return s_executor;
+    }
+
+    /**
+     * Parses the value of a <code>key: value</code> line, such as those in <code>/proc/&lt;pid&gt;/status</code>.
+     */
+    private static long parseValue(final String _line, final int _start) {
+        long ret = 0;
+        boolean isDigitSeen = false;
+        for (int i = _start; i < _line.length(); ++i) {
+            final char c = _line.charAt(i);
+            if (c >= '0' && c <= '9') {
+                ret = ret * 10 + (c - '0');
+                isDigitSeen = true;
+            } else if (isDigitSeen) {
+                break;
+            }
+        }
+        return isDigitSeen ? ret : -1;
+    }
+
+    private static BufferedReader open(final String _path) throws IOException {
+        return new BufferedReader(new InputStreamReader(new FileInputStream(_path), StandardCharsets.US_ASCII));
+    }
+
+    private ScheduledFuture<?> m_future = null;
+
+    private final Process m_process;
+
+    private final String m_procDir;
+
+    private final ProcessResourceUsage m_usage = new ProcessResourceUsage();
+
+    /**
+     * Starts tracking the given process.
+     *
+     * @param _p
+     *            the process
+     * @param _intervalMillis
+     *            how often to sample it, or 0 to only sample when {@link #finish()} is called
+     */
+    ProcessResourceSampler(final Process _p, final long _intervalMillis) {
+        m_process = _p;
+        final long pid = ProcessSupport.getPid(_p);
+        m_procDir = (ProcHolder.IS_AVAILABLE && 0 < pid) ? "/proc/" + pid + "/" : null;
+        if (0 < _intervalMillis) {
+            m_future = getExecutor().scheduleAtFixedRate(this::sample, 0, _intervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stops periodic sampling, takes a last sample if the process can still be observed, and returns the result.
+     *
+     * @return the usage
+     */
+    ProcessResourceUsage finish() {
+        if (null != m_future) {
+            m_future.cancel(false);
+        }
+        sample();
+        return m_usage;
+    }
+
+    private synchronized void sample() {
+        long cpu = ProcessSupport.getCpuTimeNanos(m_process);
+        boolean isSampled = -1 != cpu;
+        if (null != m_procDir) {
+            try {
+                if (-1 == cpu) {
+                    cpu = readCpuTimeFromStat();
+                }
+                readStatus();
+                readIo();
+                isSampled = true;
+            } catch (final IOException e) {
+                // The process is gone (or never was visible to us). Keep what we have.
+            }
+        }
+        if (cpu > m_usage.m_cpuTimeNanos) {
+            m_usage.m_cpuTimeNanos = cpu;
+        }
+        if (isSampled) {
+            ++m_usage.m_sampleCount;
+        }
+    }
+
+    private long readCpuTimeFromStat() throws IOException {
+        final String stat;
+        try (BufferedReader br = open(m_procDir + "stat")) {
+            stat = br.readLine();
+        }
+        if (null == stat) {
+            return -1;
+        }
+        // Fields after the command name (which may itself contain spaces) start at field 3; utime and stime are 14 and 15
+        int pos = stat.lastIndexOf(')') + 2;
+        for (int field = 3; field < 14 && pos > 0; ++field) {
+            pos = stat.indexOf(' ', pos) + 1;
+        }
+        if (pos <= 0) {
+            return -1;
+        }
+        final long utime = parseValue(stat, pos);
+        final long stime = parseValue(stat, stat.indexOf(' ', pos) + 1);
+        return (utime < 0 || stime < 0) ? -1 : (utime + stime) * NANOS_PER_CLOCK_TICK;
+    }
+
+    private void readIo() throws IOException {
+        try (BufferedReader br = open(m_procDir + "io")) {
+            String line;
+            while (null != (line = br.readLine())) {
+                if (line.startsWith("rchar:")) {
+                    m_usage.m_readBytes = Math.max(m_usage.m_readBytes, parseValue(line, 6));
+                } else if (line.startsWith("wchar:")) {
+                    m_usage.m_writeBytes = Math.max(m_usage.m_writeBytes, parseValue(line, 6));
+                } else if (line.startsWith("read_bytes:")) {
+                    m_usage.m_storageReadBytes = Math.max(m_usage.m_storageReadBytes, parseValue(line, 11));
+                } else if (line.startsWith("write_bytes:")) {
+                    m_usage.m_storageWriteBytes = Math.max(m_usage.m_storageWriteBytes, parseValue(line, 12));
+                }
+            }
+        }
+    }
+
+    private void readStatus() throws IOException {
+        try (BufferedReader br = open(m_procDir + "status")) {
+            String line;
+            while (null != (line = br.readLine())) {
+                if (line.startsWith("VmHWM:")) {
+                    final long kb = parseValue(line, 6);
+                    if (0 <= kb) {
+                        m_usage.m_peakRssBytes = Math.max(m_usage.m_peakRssBytes, kb * 1024);
+                    }
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+/**
+ * Resource usage of a child process (not including its own descendants), as observed by sampling it while it runs. Every value is -1 when it could
+ * not be determined, for instance because the platform doesn't expose it or because the process ended before it
+ * could be sampled. CPU time requires Java 9 or later, or Linux; memory and I/O counters require Linux.
+ */
+public class ProcessResourceUsage {
+
+    volatile long m_cpuTimeNanos = -1;
+
+    volatile long m_peakRssBytes = -1;
+
+    volatile long m_readBytes = -1;
+
+    volatile long m_sampleCount = 0;
+
+    volatile long m_storageReadBytes = -1;
+
+    volatile long m_storageWriteBytes = -1;
+
+    volatile long m_writeBytes = -1;
+
+    ProcessResourceUsage() {
+    }
+
+    /**
+     * Gets the total user and system CPU time of the process.
+     *
+     * @return the CPU time in nanoseconds
+     */
+    public long getCpuTimeNanos() {
+        return m_cpuTimeNanos;
+    }
+
+    /**
+     * Gets the peak resident set size ("high water mark") of the process.
+     *
+     * @return the peak RSS in bytes
+     */
+    public long getPeakRssBytes() {
+        return m_peakRssBytes;
+    }
+
+    /**
+     * Gets the number of bytes the process read through any kind of file descriptor, including pipes and terminals.
+     *
+     * @return the bytes read
+     */
+    public long getReadBytes() {
+        return m_readBytes;
+    }
+
+    /**
+     * Gets the number of times the process was successfully sampled.
+     *
+     * @return the sample count
+     */
+    public long getSampleCount() {
+        return m_sampleCount;
+    }
+
+    /**
+     * Gets the number of bytes the process caused to be fetched from storage.
+     *
+     * @return the storage bytes read
+     */
+    public long getStorageReadBytes() {
+        return m_storageReadBytes;
+    }
+
+    /**
+     * Gets the number of bytes the process caused to be sent to storage.
+     *
+     * @return the storage bytes written
+     */
+    public long getStorageWriteBytes() {
+        return m_storageWriteBytes;
+    }
+
+    /**
+     * Gets the number of bytes the process wrote through any kind of file descriptor, including pipes and terminals.
+     *
+     * @return the bytes written
+     */
+    public long getWriteBytes() {
+        return m_writeBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "cpu=" + m_cpuTimeNanos + "ns peakRss=" + m_peakRssBytes + "B read=" + m_readBytes + "B write=" + m_writeBytes + "B samples=" + m_sampleCount;
+    }
+}
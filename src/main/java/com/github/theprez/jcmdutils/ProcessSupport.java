@@ -0,0 +1,54 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Access to process functionality that the Java 8 {@link Process} API doesn't offer. This is the Java 8 version,
+ * which reports everything as unavailable or unsupported; the multi-release jar carries a Java 9+ version of this class that
+ * uses {@code ProcessHandle}.
+ */
+final class ProcessSupport {
+
+    /**
+     * Gets the total CPU time used so far by the given process.
+     *
+     * @param _p
+     *            the process
+     * @return the CPU time in nanoseconds, or -1 if not available
+     */
+    static long getCpuTimeNanos(final Process _p) {
+        return -1;
+    }
+
+    /**
+     * Gets the operating system process ID of the given process.
+     *
+     * @param _p
+     *            the process
+     * @return the pid, or -1 if not available
+     */
+    static long getPid(final Process _p) {
+        return -1;
+    }
+
+    /**
+     * Starts the given processes with the standard output of each one connected directly to the standard input
+     * of the next.
+     *
+     * @param _builders
+     *            the builders, one per stage
+     * @return the processes, or <code>null</code> if the platform can't connect processes directly
+     * @throws IOException
+     *             if a process could not be started
+     */
+    static List<Process> startPipeline(final List<ProcessBuilder> _builders) throws IOException {
+        return null;
+    }
+
+    private ProcessSupport() {
+    }
+}
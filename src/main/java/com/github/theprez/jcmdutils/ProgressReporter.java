@@ -0,0 +1,429 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.github.theprez.jcmdutils.StringUtils.TerminalColor;
+
+/**
+ * Shows the progress of a long job through an {@link AppLogger}. Workers on any number of threads call
+ * {@link #increment()}, which only bumps a lock-free counter; a single background thread does all of the
+ * rendering, at a capped frame rate, whatever the item rate.
+ * <br>
+ * On a terminal that supports cursor control, a progress bar (or a spinner, if the total is unknown) is redrawn
+ * in place on one line, writing only the characters that changed since the previous frame. Otherwise, such as
+ * when output is piped to a file, a summary line is printed periodically instead.
+ *
+ * <pre>
+ * try (ProgressReporter progress = new ProgressReporter(logger, "Copying", files.size()).start()) {
+ *     files.parallelStream().forEach(f -&gt; {
+ *         copy(f);
+ *         progress.increment();
+ *     });
+ * }
+ * </pre>
+ */
+public class ProgressReporter implements AutoCloseable {
+
+    /** The default maximum number of redraws per second on a terminal. */
+    public static final int DEFAULT_FRAMES_PER_SECOND = 10;
+
+    /** The default time between summary lines when output is not a terminal. */
+    public static final long DEFAULT_SUMMARY_INTERVAL_MILLIS = 10_000L;
+
+    private static final int BAR_WIDTH = 30;
+
+    private static final String CLEAR_TO_END_OF_LINE = "\u001B[K";
+
+    private static final String RESET = "\u001B[0m";
+
+    private static final char[] SPINNER = { '|', '/', '-', '\\' };
+
+    private static ScheduledExecutorService s_executor = null;
+
+    private static void appendDuration(final StringBuilder _buf, final long _seconds) {
+        final long hours = _seconds / 3600;
+        final long minutes = (_seconds / 60) % 60;
+        final long seconds = _seconds % 60;
+        if (0 != hours) {
+            _buf.append(hours).append(':');
+            if (minutes < 10) {
+                _buf.append('0');
+            }
+        }
+        _buf.append(minutes).append(':');
+        if (seconds < 10) {
+            _buf.append('0');
+        }
+        _buf.append(seconds);
+    }
+
+    private static synchronized ScheduledExecutorService getExecutor() {
+        if (null == s_executor) {
+            final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, _r -> {
+                final Thread t = new Thread(_r, "jcmdutils-progress");
+                t.setDaemon(true);
+                return t;
+            });
+            executor.setRemoveOnCancelPolicy(true);
+            s_executor = executor;
+        }
+        return s_executor;
+    }
+
+    private TerminalColor m_color = TerminalColor.GREEN;
+
+    private final LongAdder m_done = new LongAdder();
+
+    private int m_framesPerSecond = DEFAULT_FRAMES_PER_SECOND;
+
+    private final StringBuilder m_frame = new StringBuilder();
+
+    /** The range of {@link #m_frame} drawn in color: the filled part of the bar. */
+    private int m_frameColorEnd = 0;
+
+    private int m_frameColorStart = 0;
+
+    private int m_frameCount = 0;
+
+    private boolean m_isClosed = false;
+
+    private final boolean m_isRedrawing;
+
+    private final String m_label;
+
+    private long m_lastSummaryDone = -1;
+
+    private final AppLogger m_logger;
+
+    private volatile String m_message = "";
+
+    private final StringBuilder m_out = new StringBuilder();
+
+    private ScheduledFuture<?> m_renderTask = null;
+
+    /** What is currently on the terminal line, for diffing. */
+    private char[] m_shown = new char[0];
+
+    private int m_shownColorEnd = 0;
+
+    private int m_shownColorStart = 0;
+
+    private int m_shownLength = 0;
+
+    private int m_shownWidth = 0;
+
+    private long m_startNanos = System.nanoTime();
+
+    private long m_summaryIntervalMillis = DEFAULT_SUMMARY_INTERVAL_MILLIS;
+
+    private final long m_total;
+
+    /**
+     * Instantiates a new progress reporter. Nothing is shown until {@link #start()} is called.
+     *
+     * @param _logger
+     *            the logger to report through
+     * @param _label
+     *            what is being done, such as "Copying"
+     * @param _total
+     *            the number of items expected, or 0 if unknown
+     */
+    public ProgressReporter(final AppLogger _logger, final String _label, final long _total) {
+        m_logger = _logger;
+        m_label = AnsiEscapeFilter.strip(_label);
+        m_total = Math.max(0, _total);
+        m_isRedrawing = TerminalCapabilities.get().isCursorControlSupported();
+    }
+
+    /**
+     * Record that some items are done.
+     *
+     * @param _count
+     *            the number of items
+     */
+    public void add(final long _count) {
+        m_done.add(_count);
+    }
+
+    private void buildFrame() {
+        final long done = m_done.sum();
+        final long elapsedNanos = System.nanoTime() - m_startNanos;
+        final StringBuilder f = m_frame;
+        f.setLength(0);
+        m_frameColorStart = m_frameColorEnd = 0;
+        f.append(m_label).append(' ');
+        if (0 < m_total) {
+            final long clamped = Math.min(done, m_total);
+            final int filled = (int) (BAR_WIDTH * clamped / m_total);
+            f.append('[');
+            m_frameColorStart = f.length();
+            for (int i = 0; i < filled; ++i) {
+                f.append('=');
+            }
+            m_frameColorEnd = f.length();
+            for (int i = filled; i < BAR_WIDTH; ++i) {
+                f.append(' ');
+            }
+            f.append("] ");
+            final long percent = 100 * clamped / m_total;
+            if (percent < 10) {
+                f.append("  ");
+            } else if (percent < 100) {
+                f.append(' ');
+            }
+            f.append(percent).append("% ").append(done).append('/').append(m_total);
+        } else {
+            f.append(m_isClosed ? ' ' : SPINNER[m_frameCount % SPINNER.length]).append(' ').append(done);
+        }
+        appendRateAndEta(f, done, elapsedNanos);
+        final String message = m_message;
+        if (!message.isEmpty()) {
+            f.append("  ").append(message);
+        }
+        // Never wrap, or the carriage return would not get back to the start of the line
+        final int end = (int) (DisplayWidth.measure(f, 0, f.length(), TerminalCapabilities.get().getColumns() - 1) >>> 32);
+        f.setLength(end);
+        m_frameColorEnd = Math.min(m_frameColorEnd, end);
+        m_frameColorStart = Math.min(m_frameColorStart, m_frameColorEnd);
+    }
+
+    private void appendRateAndEta(final StringBuilder _buf, final long _done, final long _elapsedNanos) {
+        if (_elapsedNanos <= 0) {
+            return;
+        }
+        final double perSecond = _done * 1e9 / _elapsedNanos;
+        final long tenths = Math.round(perSecond * 10);
+        _buf.append(' ').append(tenths / 10).append('.').append(tenths % 10).append("/s");
+        if (0 < m_total && 0 < perSecond && _done < m_total) {
+            _buf.append(" ETA ");
+            appendDuration(_buf, (long) Math.ceil((m_total - _done) / perSecond));
+        } else if (m_isClosed) {
+            _buf.append(" in ");
+            appendDuration(_buf, TimeUnit.NANOSECONDS.toSeconds(_elapsedNanos));
+        }
+    }
+
+    /**
+     * Stop reporting and show the final state.
+     */
+    @Override
+    public void close() {
+        final ScheduledFuture<?> task;
+        synchronized (this) {
+            if (m_isClosed) {
+                return;
+            }
+            m_isClosed = true;
+            task = m_renderTask;
+        }
+        if (null != task) {
+            task.cancel(false);
+        }
+        synchronized (this) {
+            if (m_isRedrawing) {
+                redraw();
+                if (0 != m_shownLength) {
+                    m_logger.println();
+                }
+            } else {
+                printSummary();
+            }
+        }
+    }
+
+    /**
+     * Gets the number of items done so far.
+     *
+     * @return the count
+     */
+    public long getDone() {
+        return m_done.sum();
+    }
+
+    /**
+     * Record that one item is done. This is a single lock-free increment.
+     */
+    public void increment() {
+        m_done.increment();
+    }
+
+    /**
+     * Print a line of output without garbling the progress bar: the bar is cleared, the line printed, and the bar
+     * redrawn below it.
+     *
+     * @param _line
+     *            the line
+     */
+    public synchronized void printAbove(final String _line) {
+        if (!m_isRedrawing || 0 == m_shownLength) {
+            m_logger.println(_line);
+            return;
+        }
+        m_logger.printf("%s", "\r" + CLEAR_TO_END_OF_LINE + _line + "\n");
+        m_shownLength = m_shownWidth = 0;
+        m_shownColorStart = m_shownColorEnd = 0;
+        if (!m_isClosed) {
+            redraw();
+        }
+    }
+
+    private void printSummary() {
+        final long done = m_done.sum();
+        if (done == m_lastSummaryDone) {
+            return;
+        }
+        m_lastSummaryDone = done;
+        final StringBuilder line = m_out;
+        line.setLength(0);
+        line.append(m_label).append(": ").append(done);
+        if (0 < m_total) {
+            line.append('/').append(m_total).append(" (").append(100 * Math.min(done, m_total) / m_total).append("%)");
+        }
+        appendRateAndEta(line, done, System.nanoTime() - m_startNanos);
+        final String message = m_message;
+        if (!message.isEmpty()) {
+            line.append("  ").append(message);
+        }
+        m_logger.println(line.toString());
+    }
+
+    private synchronized void redraw() {
+        ++m_frameCount;
+        buildFrame();
+        final StringBuilder f = m_frame;
+        final int len = f.length();
+
+        // Find the first character that differs from what is on the line, in content or in color
+        int first = 0;
+        final int common = Math.min(len, m_shownLength);
+        while (first < common && f.charAt(first) == m_shown[first] && isColored(first, m_frameColorStart, m_frameColorEnd) == isColored(first, m_shownColorStart, m_shownColorEnd)) {
+            ++first;
+        }
+        if (first == len && len == m_shownLength) {
+            return;
+        }
+        if (first > 0 && first < len && Character.isLowSurrogate(f.charAt(first))) {
+            --first;
+        }
+
+        final String color = TerminalStyle.of(m_color).getSequence();
+        final StringBuilder out = m_out;
+        out.setLength(0);
+        out.append('\r');
+        if (first > 0) {
+            out.append("\u001B[").append(DisplayWidth.of(f, 0, first)).append('C');
+        }
+        boolean isInColor = false;
+        for (int i = first; i < len; ++i) {
+            final boolean isColored = !color.isEmpty() && isColored(i, m_frameColorStart, m_frameColorEnd);
+            if (isColored != isInColor) {
+                out.append(isColored ? color : RESET);
+                isInColor = isColored;
+            }
+            out.append(f.charAt(i));
+        }
+        if (isInColor) {
+            out.append(RESET);
+        }
+        final int width = DisplayWidth.of(f);
+        if (width < m_shownWidth) {
+            out.append(CLEAR_TO_END_OF_LINE);
+        }
+        m_logger.printf("%s", out.toString());
+        m_logger.flushPartialLine();
+
+        if (m_shown.length < len) {
+            m_shown = new char[Math.max(len, 2 * m_shown.length)];
+        }
+        f.getChars(0, len, m_shown, 0);
+        m_shownLength = len;
+        m_shownWidth = width;
+        m_shownColorStart = m_frameColorStart;
+        m_shownColorEnd = m_frameColorEnd;
+    }
+
+    private static boolean isColored(final int _index, final int _start, final int _end) {
+        return _index >= _start && _index < _end;
+    }
+
+    private void render() {
+        synchronized (this) {
+            if (m_isClosed) {
+                return;
+            }
+            if (m_isRedrawing) {
+                redraw();
+            } else {
+                printSummary();
+            }
+        }
+    }
+
+    /**
+     * Sets the color of the filled part of the progress bar.
+     *
+     * @param _color
+     *            the color
+     * @return this object
+     */
+    public ProgressReporter setColor(final TerminalColor _color) {
+        m_color = _color;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of redraws per second on a terminal. Takes effect on {@link #start()}.
+     *
+     * @param _framesPerSecond
+     *            the frame rate, at least 1
+     * @return this object
+     */
+    public ProgressReporter setMaxFramesPerSecond(final int _framesPerSecond) {
+        m_framesPerSecond = Math.max(1, _framesPerSecond);
+        return this;
+    }
+
+    /**
+     * Sets a short status message shown after the progress, such as the current file name.
+     *
+     * @param _message
+     *            the message, or <code>null</code> for none
+     */
+    public void setMessage(final String _message) {
+        m_message = null == _message ? "" : AnsiEscapeFilter.strip(_message);
+    }
+
+    /**
+     * Sets the time between summary lines when output is not a terminal. Takes effect on {@link #start()}.
+     *
+     * @param _millis
+     *            the interval, in milliseconds
+     * @return this object
+     */
+    public ProgressReporter setSummaryInterval(final long _millis) {
+        m_summaryIntervalMillis = Math.max(1, _millis);
+        return this;
+    }
+
+    /**
+     * Start showing progress. Rates are measured from this point.
+     *
+     * @return this object
+     */
+    public synchronized ProgressReporter start() {
+        if (null != m_renderTask || m_isClosed) {
+            return this;
+        }
+        m_startNanos = System.nanoTime();
+        final long periodMillis = m_isRedrawing ? Math.max(1, 1000 / m_framesPerSecond) : m_summaryIntervalMillis;
+        m_renderTask = getExecutor().scheduleAtFixedRate(this::render, m_isRedrawing ? 0 : periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+        return this;
+    }
+}
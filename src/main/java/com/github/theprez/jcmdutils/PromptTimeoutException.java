@@ -0,0 +1,37 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+/**
+ * Thrown by {@link ConsoleQuestionAsker} when nobody answers a question before its deadline and there is no
+ * default answer to fall back on.
+ */
+public class PromptTimeoutException extends UnansweredQuestionException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long m_timeoutMillis;
+
+    /**
+     * Instantiates a new exception.
+     *
+     * @param _key
+     *            the question key, see {@link AnswerProvider#keyFor(String)}
+     * @param _timeoutMillis
+     *            the time that was allowed for an answer, in milliseconds
+     */
+    public PromptTimeoutException(final String _key, final long _timeoutMillis) {
+        super(_key, "No answer to '" + _key + "' within " + _timeoutMillis + " ms");
+        m_timeoutMillis = _timeoutMillis;
+    }
+
+    /**
+     * Gets the time that was allowed for an answer.
+     *
+     * @return the timeout, in milliseconds
+     */
+    public long getTimeoutMillis() {
+        return m_timeoutMillis;
+    }
+}
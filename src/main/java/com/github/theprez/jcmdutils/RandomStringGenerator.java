@@ -0,0 +1,204 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+import java.security.SecureRandom;
+import java.util.SplittableRandom;
+import java.util.function.LongSupplier;
+
+/**
+ * Generates random strings, such as temporary names, sentinels or tokens, over a choice of alphabets. Each
+ * random <code>long</code> drawn from the entropy source yields several characters, and characters are written
+ * straight into a <code>char[]</code>.
+ *
+ * <pre>
+ * final String token = RandomStringGenerator.secure(Alphabet.URL_SAFE).generate(32);
+ * </pre>
+ */
+public class RandomStringGenerator {
+
+    /**
+     * The characters a generated string may contain.
+     */
+    public enum Alphabet {
+        /** Lowercase RFC 4648 base 32: <code>a-z</code> and <code>2-7</code>. Safe in case-insensitive file names. */
+        BASE32("abcdefghijklmnopqrstuvwxyz234567"),
+        /** Digits and upper and lower case letters. */
+        BASE62("0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz"),
+        /** Lowercase hexadecimal digits. */
+        HEX("0123456789abcdef"),
+        /** The RFC 4648 URL- and file-name-safe base 64 alphabet. */
+        URL_SAFE("ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_");
+
+        /** The number of random bits consumed per character. */
+        private final int m_bits;
+
+        private final char[] m_chars;
+
+        Alphabet(final String _chars) {
+            m_chars = _chars.toCharArray();
+            // Round up to a whole number of bits; values past the end of the alphabet are rejected
+            m_bits = 32 - Integer.numberOfLeadingZeros(m_chars.length - 1);
+        }
+    }
+
+    private static final ThreadLocal<SecureRandom> s_secureRandom = new ThreadLocal<SecureRandom>() {
+        @Override
+        protected SecureRandom initialValue() {
+            return new SecureRandom();
+        }
+    };
+
+    /** Seeded on first use, so that the seed is never fixed at build time in a native image. */
+    private static class SplittableRoot {
+        private static final SplittableRandom INSTANCE = new SplittableRandom();
+    }
+
+    private static final ThreadLocal<SplittableRandom> s_splittableRandom = new ThreadLocal<SplittableRandom>() {
+        @Override
+        protected SplittableRandom initialValue() {
+            synchronized (SplittableRoot.INSTANCE) {
+                return SplittableRoot.INSTANCE.split();
+            }
+        }
+    };
+
+    /**
+     * A generator using a fast, non-cryptographic {@link SplittableRandom} per thread. Suitable for names that only
+     * need to be unique, not unguessable.
+     *
+     * @param _alphabet
+     *            the alphabet
+     * @return the generator
+     */
+    public static RandomStringGenerator fast(final Alphabet _alphabet) {
+        return new RandomStringGenerator(_alphabet, () -> s_splittableRandom.get().nextLong());
+    }
+
+    /**
+     * A generator using a {@link SecureRandom} per thread, so that threads don't contend on a shared one. Suitable
+     * for tokens that must be unguessable.
+     *
+     * @param _alphabet
+     *            the alphabet
+     * @return the generator
+     */
+    public static RandomStringGenerator secure(final Alphabet _alphabet) {
+        return new RandomStringGenerator(_alphabet, () -> s_secureRandom.get().nextLong());
+    }
+
+    /**
+     * A generator using the given source of random bits. The source is called from whichever thread generates
+     * a string, so it must be thread safe if the generator is shared.
+     *
+     * @param _alphabet
+     *            the alphabet
+     * @param _source
+     *            the source of random bits
+     * @return the generator
+     */
+    public static RandomStringGenerator withSource(final Alphabet _alphabet, final LongSupplier _source) {
+        return new RandomStringGenerator(_alphabet, _source);
+    }
+
+    private final Alphabet m_alphabet;
+
+    private final LongSupplier m_source;
+
+    private RandomStringGenerator(final Alphabet _alphabet, final LongSupplier _source) {
+        m_alphabet = _alphabet;
+        m_source = _source;
+    }
+
+    /**
+     * Fill part of an array with random characters.
+     *
+     * @param _buf
+     *            the array
+     * @param _off
+     *            the first index to fill
+     * @param _len
+     *            the number of characters
+     * @throws IndexOutOfBoundsException
+     *             if the range is not within the array
+     */
+    public void fill(final char[] _buf, final int _off, final int _len) {
+        if (_off < 0 || _len < 0 || _off > _buf.length - _len) {
+            throw new IndexOutOfBoundsException("Range [" + _off + ", " + _off + " + " + _len + ") is out of bounds for length " + _buf.length);
+        }
+        final char[] chars = m_alphabet.m_chars;
+        final int bits = m_alphabet.m_bits;
+        final int mask = (1 << bits) - 1;
+        final int perLong = 64 / bits;
+        final int end = _off + _len;
+        int pos = _off;
+        while (pos < end) {
+            long random = m_source.getAsLong();
+            for (int i = 0; i < perLong && pos < end; ++i) {
+                final int index = (int) random & mask;
+                random >>>= bits;
+                if (index < chars.length) {
+                    _buf[pos++] = chars[index];
+                }
+            }
+        }
+    }
+
+    /**
+     * Generate a random string.
+     *
+     * @param _len
+     *            the length of string to generate
+     * @return the string
+     * @throws IllegalArgumentException
+     *             if the length is negative
+     */
+    public String generate(final int _len) {
+        if (_len < 0) {
+            throw new IllegalArgumentException("Negative length: " + _len);
+        }
+        final char[] ret = new char[_len];
+        fill(ret, 0, _len);
+        return new String(ret);
+    }
+
+    /**
+     * Generate many random strings at once.
+     *
+     * @param _count
+     *            the number of strings
+     * @param _len
+     *            the length of each string
+     * @return the strings
+     * @throws IllegalArgumentException
+     *             if either argument is negative, or the strings add up to more characters than fit in an array
+     */
+    public String[] generate(final int _count, final int _len) {
+        if (_count < 0 || _len < 0) {
+            throw new IllegalArgumentException("Negative count or length: " + _count + " strings of " + _len + " characters");
+        }
+        final int total;
+        try {
+            total = Math.multiplyExact(_count, _len);
+        } catch (final ArithmeticException e) {
+            throw new IllegalArgumentException("Too many characters to generate at once: " + _count + " strings of " + _len + " characters", e);
+        }
+        final String[] ret = new String[_count];
+        final char[] buf = new char[total];
+        fill(buf, 0, buf.length);
+        for (int i = 0; i < _count; ++i) {
+            ret[i] = new String(buf, i * _len, _len);
+        }
+        return ret;
+    }
+
+    /**
+     * Gets the alphabet.
+     *
+     * @return the alphabet
+     */
+    public Alphabet getAlphabet() {
+        return m_alphabet;
+    }
+}
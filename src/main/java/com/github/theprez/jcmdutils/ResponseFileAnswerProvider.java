@@ -0,0 +1,45 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Answers questions from a <code>key=value</code> response file, see {@link AnswerProvider#fromResponseFile(File)}.
+ */
+class ResponseFileAnswerProvider implements AnswerProvider {
+
+    private final Map<String, String> m_answers = new HashMap<String, String>();
+
+    ResponseFileAnswerProvider(final File _file) throws IOException {
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(_file), StandardCharsets.UTF_8))) {
+            String line;
+            int lineNumber = 0;
+            while (null != (line = br.readLine())) {
+                ++lineNumber;
+                final int start = TextPredicates.trimStart(line, 0, line.length());
+                if (start == line.length() || '#' == line.charAt(start)) {
+                    continue;
+                }
+                final int eq = line.indexOf('=', start);
+                if (eq < 0) {
+                    throw new IOException(_file + ":" + lineNumber + ": expected key=value");
+                }
+                m_answers.put(AnswerProvider.keyFor(line.substring(start, eq)), line.substring(eq + 1).trim());
+            }
+        }
+    }
+
+    @Override
+    public String getAnswer(final String _key, final String _prompt) {
+        return m_answers.get(_key);
+    }
+}
@@ -14,8 +14,23 @@ public class SanityCheck {
      * @param args the arguments
      */
     public static void main(final String[] args) {
-        boolean isVerbose = false;
-        final AppLogger logger = AppLogger.getSingleton(true);
+        final ArgumentParser.Builder builder = ArgumentParser.builder("sanitycheck");
+        final ArgumentParser.Option<Boolean> help = builder.flag('h', "help", "Show this help");
+        final ArgumentParser parser = builder.build();
+        final ParsedArguments parsed;
+        try {
+            parsed = parser.parse(args);
+        } catch (final ArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(parser.getUsage());
+            System.exit(2);
+            return;
+        }
+        if (parsed.get(help)) {
+            System.out.print(parser.getUsage());
+            return;
+        }
+        final AppLogger logger = parsed.getLogger();
         String objectName = "test";
         String objectName2 = "test2";
         // This will print in red text to standard error
@@ -0,0 +1,43 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+
+/**
+ * Answers questions with successive lines of a stream, see {@link AnswerProvider#fromScript(InputStream)}.
+ */
+class ScriptedAnswerProvider implements AnswerProvider {
+
+    private boolean m_isEnded = false;
+
+    private final BufferedReader m_reader;
+
+    ScriptedAnswerProvider(final InputStream _in) {
+        m_reader = new BufferedReader(new InputStreamReader(_in), 64 * 1024);
+    }
+
+    @Override
+    public synchronized String getAnswer(final String _key, final String _prompt) {
+        if (m_isEnded) {
+            return null;
+        }
+        try {
+            final String ret = m_reader.readLine();
+            m_isEnded = null == ret;
+            return ret;
+        } catch (final IOException e) {
+            m_isEnded = true;
+            return null;
+        }
+    }
+
+    @Override
+    public boolean isKeyed() {
+        return false;
+    }
+}
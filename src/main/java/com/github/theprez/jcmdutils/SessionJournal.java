@@ -0,0 +1,309 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The questions asked during a recorded {@link ConsoleQuestionAsker} session, in order, with their answers and
+ * timing; see {@link SessionRecorder}. A journal is read once and is then immutable, so any number of
+ * {@link #replay() replays} can run from it at the same time.
+ * <p>
+ * For each question, two times are kept: the <i>tool time</i>, from the previous answer (or the start of the
+ * recording) until the question was asked, which is time spent in the tool itself; and the <i>think time</i>,
+ * from the question until its answer, which is time spent waiting for the user.
+ * <p>
+ * The journal is a binary stream: a header, then one entry per question, each holding a flags byte, the two
+ * times as variable-length integers, and the key, prompt, default and answer. Each distinct string is written
+ * once and referred to by number after that, so repeated questions take only a few bytes each.
+ */
+public class SessionJournal {
+
+    /** The entry has a default response. */
+    static final int FLAG_DEFAULT = 1;
+
+    /** The entry has an answer; without one, the question is left to the next answer provider (or the terminal). */
+    static final int FLAG_ANSWER = 2;
+
+    /** The question asked for a password, which is never recorded. */
+    static final int FLAG_PASSWORD = 4;
+
+    /** "JCQJ" */
+    static final int MAGIC = 0x4a43514a;
+
+    static final int VERSION = 1;
+
+    /**
+     * Read a journal written by a {@link SessionRecorder}. The stream is read to its end, but not closed.
+     *
+     * @param _in
+     *            the stream
+     * @return the journal
+     * @throws IOException
+     *             if the stream can't be read, or is not a complete journal
+     */
+    public static SessionJournal read(final InputStream _in) throws IOException {
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(_in, 64 * 1024));
+        if (MAGIC != in.readInt()) {
+            throw new IOException("Not a session journal");
+        }
+        final int version = in.readUnsignedByte();
+        if (VERSION != version) {
+            throw new IOException("Unsupported session journal version " + version);
+        }
+        final SessionJournal ret = new SessionJournal();
+        final List<String> strings = new ArrayList<String>();
+        while (true) {
+            final int flags = in.read();
+            if (-1 == flags) {
+                break;
+            }
+            try {
+                final long toolNanos = readVarLong(in);
+                final long thinkNanos = readVarLong(in);
+                final String key = readString(in, strings);
+                final String prompt = readString(in, strings);
+                final String dft = 0 == (flags & FLAG_DEFAULT) ? null : readString(in, strings);
+                final String answer = 0 == (flags & FLAG_ANSWER) ? null : readString(in, strings);
+                ret.append(flags, toolNanos, thinkNanos, key, prompt, dft, answer);
+            } catch (final EOFException e) {
+                throw new IOException("Session journal is truncated after " + ret.size() + " entries");
+            }
+        }
+        ret.trim();
+        return ret;
+    }
+
+    private static String readString(final DataInputStream _in, final List<String> _strings) throws IOException {
+        final int ref = (int) readVarLong(_in);
+        if (0 != ref) {
+            if (ref > _strings.size()) {
+                throw new IOException("Corrupt session journal");
+            }
+            return _strings.get(ref - 1);
+        }
+        final byte[] bytes = new byte[(int) readVarLong(_in)];
+        _in.readFully(bytes);
+        final String ret = new String(bytes, StandardCharsets.UTF_8);
+        _strings.add(ret);
+        return ret;
+    }
+
+    static long readVarLong(final DataInputStream _in) throws IOException {
+        long ret = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final int b = _in.readUnsignedByte();
+            ret |= (long) (b & 0x7f) << shift;
+            if (0 == (b & 0x80)) {
+                return ret;
+            }
+        }
+        throw new IOException("Corrupt session journal");
+    }
+
+    static void writeVarLong(final DataOutputStream _out, final long _value) throws IOException {
+        long value = _value;
+        while (0 != (value & ~0x7fL)) {
+            _out.write((int) (value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        _out.write((int) value);
+    }
+
+    private String[] m_answers = new String[64];
+
+    private String[] m_defaults = new String[64];
+
+    private byte[] m_flags = new byte[64];
+
+    private String[] m_keys = new String[64];
+
+    private String[] m_prompts = new String[64];
+
+    private int m_size = 0;
+
+    private long[] m_thinkNanos = new long[64];
+
+    private long[] m_toolNanos = new long[64];
+
+    private SessionJournal() {
+    }
+
+    private void append(final int _flags, final long _toolNanos, final long _thinkNanos, final String _key, final String _prompt, final String _dft, final String _answer) {
+        if (m_size == m_keys.length) {
+            final int newLen = m_size + (m_size >> 1);
+            m_answers = Arrays.copyOf(m_answers, newLen);
+            m_defaults = Arrays.copyOf(m_defaults, newLen);
+            m_flags = Arrays.copyOf(m_flags, newLen);
+            m_keys = Arrays.copyOf(m_keys, newLen);
+            m_prompts = Arrays.copyOf(m_prompts, newLen);
+            m_thinkNanos = Arrays.copyOf(m_thinkNanos, newLen);
+            m_toolNanos = Arrays.copyOf(m_toolNanos, newLen);
+        }
+        m_flags[m_size] = (byte) _flags;
+        m_toolNanos[m_size] = _toolNanos;
+        m_thinkNanos[m_size] = _thinkNanos;
+        m_keys[m_size] = _key;
+        m_prompts[m_size] = _prompt;
+        m_defaults[m_size] = _dft;
+        m_answers[m_size] = _answer;
+        ++m_size;
+    }
+
+    /**
+     * Gets the answer given to a question.
+     *
+     * @param _seq
+     *            the number of the question, from 0
+     * @return the answer, or <code>null</code> if none was recorded (such as for a password)
+     */
+    public String getAnswer(final int _seq) {
+        checkIndex(_seq);
+        return m_answers[_seq];
+    }
+
+    /**
+     * Gets the default response offered with a question.
+     *
+     * @param _seq
+     *            the number of the question, from 0
+     * @return the default, or <code>null</code> if it had none
+     */
+    public String getDefault(final int _seq) {
+        checkIndex(_seq);
+        return m_defaults[_seq];
+    }
+
+    /**
+     * Gets the key of a question, see {@link AnswerProvider#keyFor(String)}. For the entries of a list, this is the
+     * key of the list question.
+     *
+     * @param _seq
+     *            the number of the question, from 0
+     * @return the key
+     */
+    public String getKey(final int _seq) {
+        checkIndex(_seq);
+        return m_keys[_seq];
+    }
+
+    /**
+     * Gets a question as it was shown, without colors.
+     *
+     * @param _seq
+     *            the number of the question, from 0
+     * @return the prompt
+     */
+    public String getPrompt(final int _seq) {
+        checkIndex(_seq);
+        return m_prompts[_seq];
+    }
+
+    /**
+     * Gets the time taken to answer a question.
+     *
+     * @param _seq
+     *            the number of the question, from 0
+     * @return the think time, in nanoseconds
+     */
+    public long getThinkNanos(final int _seq) {
+        checkIndex(_seq);
+        return m_thinkNanos[_seq];
+    }
+
+    /**
+     * Gets the time spent in the tool before a question, since the previous answer (or, for the first question, the
+     * start of the recording).
+     *
+     * @param _seq
+     *            the number of the question, from 0
+     * @return the tool time, in nanoseconds
+     */
+    public long getToolNanos(final int _seq) {
+        checkIndex(_seq);
+        return m_toolNanos[_seq];
+    }
+
+    /**
+     * Gets the total time spent answering questions.
+     *
+     * @return the think time, in nanoseconds
+     */
+    public long getTotalThinkNanos() {
+        long ret = 0;
+        for (int i = 0; i < m_size; ++i) {
+            ret += m_thinkNanos[i];
+        }
+        return ret;
+    }
+
+    /**
+     * Gets the total time spent in the tool, up to the last answer.
+     *
+     * @return the tool time, in nanoseconds
+     */
+    public long getTotalToolNanos() {
+        long ret = 0;
+        for (int i = 0; i < m_size; ++i) {
+            ret += m_toolNanos[i];
+        }
+        return ret;
+    }
+
+    /**
+     * Checks if a question asked for a password. Passwords are never recorded.
+     *
+     * @param _seq
+     *            the number of the question, from 0
+     * @return true, if it was a password
+     */
+    public boolean isPassword(final int _seq) {
+        checkIndex(_seq);
+        return 0 != (m_flags[_seq] & FLAG_PASSWORD);
+    }
+
+    /**
+     * Start a replay of this journal. Each replay keeps its own place, so many can run at once, each feeding its
+     * own {@link ConsoleQuestionAsker}.
+     *
+     * @return the replay, to be added with {@link ConsoleQuestionAsker#addAnswerProvider(AnswerProvider)}
+     */
+    public SessionReplay replay() {
+        return new SessionReplay(this);
+    }
+
+    /**
+     * Gets the number of questions.
+     *
+     * @return the size
+     */
+    public int size() {
+        return m_size;
+    }
+
+    private void checkIndex(final int _seq) {
+        if (_seq < 0 || _seq >= m_size) {
+            throw new IndexOutOfBoundsException("" + _seq);
+        }
+    }
+
+    private void trim() {
+        m_answers = Arrays.copyOf(m_answers, m_size);
+        m_defaults = Arrays.copyOf(m_defaults, m_size);
+        m_flags = Arrays.copyOf(m_flags, m_size);
+        m_keys = Arrays.copyOf(m_keys, m_size);
+        m_prompts = Arrays.copyOf(m_prompts, m_size);
+        m_thinkNanos = Arrays.copyOf(m_thinkNanos, m_size);
+        m_toolNanos = Arrays.copyOf(m_toolNanos, m_size);
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Records every question a {@link ConsoleQuestionAsker} asks, with its default, its answer and its timing, to a
+ * compact binary journal that can be read back with {@link SessionJournal#read(java.io.InputStream)} and replayed.
+ * Passwords are never recorded; only the fact that one was asked for.
+ * <br>
+ * Recording never makes a question fail: if the journal can't be written, recording stops, and the error is
+ * thrown by {@link #close()}.
+ *
+ * @see ConsoleQuestionAsker#setRecorder(SessionRecorder)
+ */
+public class SessionRecorder implements Closeable {
+
+    private IOException m_error = null;
+
+    private long m_lastAnswerNanos;
+
+    private final DataOutputStream m_out;
+
+    /** The number of each string written so far, from 1. */
+    private final Map<String, Integer> m_strings = new HashMap<String, Integer>();
+
+    /**
+     * Start a recording. The time until the first question counts as tool time.
+     *
+     * @param _out
+     *            where to write the journal; closed by {@link #close()}
+     * @throws IOException
+     *             Signals that an I/O exception has occurred.
+     */
+    public SessionRecorder(final OutputStream _out) throws IOException {
+        m_out = new DataOutputStream(new BufferedOutputStream(_out, 64 * 1024));
+        m_out.writeInt(SessionJournal.MAGIC);
+        m_out.writeByte(SessionJournal.VERSION);
+        m_lastAnswerNanos = System.nanoTime();
+    }
+
+    /**
+     * Finish the recording and close the stream.
+     *
+     * @throws IOException
+     *             if the journal couldn't be written, now or while recording
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            m_out.close();
+        } catch (final IOException e) {
+            if (null == m_error) {
+                m_error = e;
+            }
+        }
+        if (null != m_error) {
+            throw m_error;
+        }
+    }
+
+    /**
+     * Write out what has been recorded so far.
+     *
+     * @throws IOException
+     *             if the journal couldn't be written, now or while recording
+     */
+    public synchronized void flush() throws IOException {
+        if (null != m_error) {
+            throw m_error;
+        }
+        m_out.flush();
+    }
+
+    /**
+     * Record a question that has just been answered.
+     *
+     * @param _askedNanos
+     *            the {@link System#nanoTime()} when the question was asked
+     * @param _isPassword
+     *            whether it asked for a password, in which case the answer is not recorded
+     * @param _key
+     *            the question key
+     * @param _prompt
+     *            the question as shown, without colors
+     * @param _dft
+     *            the default response, or <code>null</code>
+     * @param _answer
+     *            the answer, or <code>null</code> if there was none
+     */
+    synchronized void record(final long _askedNanos, final boolean _isPassword, final String _key, final String _prompt, final String _dft, final String _answer) {
+        final long now = System.nanoTime();
+        final long toolNanos = Math.max(0, _askedNanos - m_lastAnswerNanos);
+        m_lastAnswerNanos = now;
+        if (null != m_error) {
+            return;
+        }
+        int flags = _isPassword ? SessionJournal.FLAG_PASSWORD : 0;
+        if (null != _dft) {
+            flags |= SessionJournal.FLAG_DEFAULT;
+        }
+        if (null != _answer && !_isPassword) {
+            flags |= SessionJournal.FLAG_ANSWER;
+        }
+        try {
+            m_out.writeByte(flags);
+            SessionJournal.writeVarLong(m_out, toolNanos);
+            SessionJournal.writeVarLong(m_out, now - _askedNanos);
+            writeString(_key);
+            writeString(_prompt);
+            if (0 != (flags & SessionJournal.FLAG_DEFAULT)) {
+                writeString(_dft);
+            }
+            if (0 != (flags & SessionJournal.FLAG_ANSWER)) {
+                writeString(_answer);
+            }
+        } catch (final IOException e) {
+            m_error = e;
+        }
+    }
+
+    private void writeString(final String _str) throws IOException {
+        final Integer ref = m_strings.get(_str);
+        if (null != ref) {
+            SessionJournal.writeVarLong(m_out, ref);
+            return;
+        }
+        final byte[] bytes = _str.getBytes(StandardCharsets.UTF_8);
+        SessionJournal.writeVarLong(m_out, 0);
+        SessionJournal.writeVarLong(m_out, bytes.length);
+        m_out.write(bytes);
+        m_strings.put(_str, m_strings.size() + 1);
+    }
+}
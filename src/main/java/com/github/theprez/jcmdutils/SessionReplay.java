@@ -0,0 +1,84 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+/**
+ * Answers questions from a recorded session, in order, checking that each question is the one that was recorded;
+ * see {@link SessionJournal#replay()}. There is no waiting for the user, so the time between answers is the
+ * tool's own latency, which is collected in {@link #getToolLatency()}.
+ * <br>
+ * Questions are matched by key (see {@link AnswerProvider#keyFor(String)}), so colors, defaults and trailing
+ * punctuation can change without breaking a replay. Passwords were not recorded: for those, the replay has no
+ * answer and the next provider is consulted, so add one that knows the passwords after the replay. For a replay
+ * without a terminal, also use {@link ConsoleQuestionAsker#setInteractiveFallback(boolean)} so that running out of
+ * answers fails rather than waiting for input.
+ */
+public class SessionReplay implements AnswerProvider {
+
+    private final SessionJournal m_journal;
+
+    private long m_lastAnswerNanos;
+
+    private int m_next = 0;
+
+    private final LogHistogram m_toolLatency = new LogHistogram();
+
+    SessionReplay(final SessionJournal _journal) {
+        m_journal = _journal;
+        m_lastAnswerNanos = System.nanoTime();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws UnansweredQuestionException
+     *             if the question is not the one that was recorded next
+     */
+    @Override
+    public synchronized String getAnswer(final String _key, final String _prompt) {
+        if (m_next >= m_journal.size()) {
+            return null;
+        }
+        if (!m_journal.getKey(m_next).equals(_key)) {
+            throw new UnansweredQuestionException(_key, String.format("Replay diverged at question %d: '%s' was recorded, but '%s' was asked", m_next + 1, m_journal.getKey(m_next), _key));
+        }
+        m_toolLatency.record(System.nanoTime() - m_lastAnswerNanos);
+        final String ret = m_journal.getAnswer(m_next++);
+        m_lastAnswerNanos = System.nanoTime();
+        return ret;
+    }
+
+    /**
+     * Gets the number of recorded questions answered so far.
+     *
+     * @return the position in the journal
+     */
+    public synchronized int getPosition() {
+        return m_next;
+    }
+
+    /**
+     * Gets the time the tool took before each question: from the previous answer (or the start of the replay)
+     * until the question was asked. Compare with {@link SessionJournal#getToolNanos(int)} for the recorded times.
+     *
+     * @return the latencies, in nanoseconds
+     */
+    public LogHistogram getToolLatency() {
+        return m_toolLatency;
+    }
+
+    /**
+     * Checks if every recorded question has been asked.
+     *
+     * @return true, if the replay is complete
+     */
+    public synchronized boolean isComplete() {
+        return m_next == m_journal.size();
+    }
+
+    @Override
+    public boolean isKeyed() {
+        return false;
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+/**
+ * A set of strings that stores only a 64-bit fingerprint of each, in an open-addressing <code>long[]</code>: 8
+ * to 16 bytes per entry, and no per-entry objects. Two different strings with the same fingerprint are treated as
+ * equal; with a 64-bit hash, the chance of that happening anywhere among a million strings is about 1 in 30
+ * million.
+ */
+class StringFingerprintSet {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private static long fingerprint(final CharSequence _str) {
+        long hash = FNV_OFFSET;
+        final int len = _str.length();
+        for (int i = 0; i < len; ++i) {
+            hash = (hash ^ _str.charAt(i)) * FNV_PRIME;
+        }
+        // Mix the high bits down, since the low bits pick the slot (MurmurHash3 finalizer)
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        // 0 marks an empty slot
+        return 0 == hash ? 1 : hash;
+    }
+
+    private int m_size = 0;
+
+    private long[] m_slots = new long[1024];
+
+    /**
+     * Add a string.
+     *
+     * @param _str
+     *            the string
+     * @return true, if it was not already in the set
+     */
+    boolean add(final CharSequence _str) {
+        if (2 * (m_size + 1) > m_slots.length) {
+            grow();
+        }
+        if (insert(m_slots, fingerprint(_str))) {
+            ++m_size;
+            return true;
+        }
+        return false;
+    }
+
+    private void grow() {
+        final long[] slots = new long[2 * m_slots.length];
+        for (final long fingerprint : m_slots) {
+            if (0 != fingerprint) {
+                insert(slots, fingerprint);
+            }
+        }
+        m_slots = slots;
+    }
+
+    private static boolean insert(final long[] _slots, final long _fingerprint) {
+        final int mask = _slots.length - 1;
+        int i = (int) _fingerprint & mask;
+        while (0 != _slots[i]) {
+            if (_fingerprint == _slots[i]) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        _slots[i] = _fingerprint;
+        return true;
+    }
+
+    int size() {
+        return m_size;
+    }
+}
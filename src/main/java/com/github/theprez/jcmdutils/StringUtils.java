@@ -3,7 +3,8 @@
  */
 package com.github.theprez.jcmdutils;
 
-import java.util.UUID;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Simple string utilities. Not much here.
@@ -36,22 +37,16 @@ public class StringUtils {
         YELLOW("\u001B[33m");
 
         /**
-         * Strip terminal color codes from a string that may have them.
+         * Strip terminal color codes, and any other ANSI escape sequences, from a string that may have them. This
+         * is done in a single pass; if the string has no escape sequences, the same instance is returned. To strip
+         * codes from output as it is written, see {@link AnsiStrippingWriter} and {@link AnsiStrippingOutputStream}.
          *
          * @param _str
          *            the str
          * @return the string
          */
         public static String stripCodesFromString(final String _str) {
-            if (!s_isTerminalColorsSupported) {
-                return _str;
-            }
-            String ret = _str;
-            for (final TerminalColor color : values()) {
-                ret = ret.replace(color.m_code, "");
-            }
-            ret.replace(TERM_COLOR_RESET, "");
-            return ret;
+            return AnsiEscapeFilter.strip(_str);
         }
 
         private final String m_code;
@@ -65,16 +60,30 @@ public class StringUtils {
         }
     }
 
-    private static final String LOTSA_SPACES = "                                             ";
+    /** Characters that never need quoting in a POSIX shell word, indexed by (ASCII) character. */
+    private static final boolean[] SHELL_SAFE_CHARS = new boolean[128];
+    static {
+        for (char c = 'a'; c <= 'z'; ++c) {
+            SHELL_SAFE_CHARS[c] = true;
+            SHELL_SAFE_CHARS[Character.toUpperCase(c)] = true;
+        }
+        for (char c = '0'; c <= '9'; ++c) {
+            SHELL_SAFE_CHARS[c] = true;
+        }
+        for (final char c : "_.-/:+,@%".toCharArray()) {
+            SHELL_SAFE_CHARS[c] = true;
+        }
+    }
 
     /** System property that can be used for disabling terminal colorizations. */
     public static final String PROP_DISABLE_COLORS = "jcmdutils.disablecolors";
 
-    // We can print emojis (maybe) if we're running in a UTF-8 SSH terminal
-    private static final boolean s_isEmojiSupported = (null != System.console() && !isEmpty(System.getenv("SSH_TTY")) && System.getProperty("file.encoding", "").equalsIgnoreCase("UTF-8"));
-
-    // SSH_TTY will be unset in non-SSH environments, and System.console() returns null when output is being piped
-    private static final boolean s_isTerminalColorsSupported = (null != System.console() && !isEmpty(System.getenv("SSH_TTY")) && !Boolean.getBoolean(PROP_DISABLE_COLORS));
+    /**
+     * System property that can be used for enabling terminal colorizations even when output is not going to a
+     * console, such as when it is piped to a pager that understands colors. {@link #PROP_DISABLE_COLORS} and the
+     * <code>NO_COLOR</code> environment variable still take precedence.
+     */
+    public static final String PROP_FORCE_COLORS = "jcmdutils.forcecolors";
 
     private static final String TERM_COLOR_RESET = "\u001B[0m";
 
@@ -89,22 +98,195 @@ public class StringUtils {
      */
     @SafeVarargs
     public static <T extends Object> String arrayToSpaceSeparatedString(final T... _arr) {
-        final StringBuilder ret = new StringBuilder();
-        for (final T o : _arr) {
-            final String str = ("" + o);
-            if (str.matches("^[\\w\\.\\-]+$")) {
-                ret.append(str);
-            } else {
-                final char delim = str.contains("'") ? '\"' : '\'';
-                ret.append("" + delim + str + delim);
+        final String[] strs = new String[_arr.length];
+        int len = 0;
+        for (int i = 0; i < _arr.length; ++i) {
+            strs[i] = "" + _arr[i];
+            len += strs[i].length() + 3;
+        }
+        final StringBuilder ret = new StringBuilder(len);
+        for (int i = 0; i < strs.length; ++i) {
+            if (0 != i) {
+                ret.append(' ');
+            }
+            appendShellQuoted(ret, strs[i]);
+        }
+        return ret.toString();
+    }
+
+    /**
+     * Quote a string, if needed, so that a POSIX shell reads it back as exactly one word with exactly the same
+     * value. Strings consisting only of letters, digits and <code>_.-/:+,@%</code> are returned as-is; anything
+     * else is enclosed in single quotes, with embedded single quotes written as <code>'\''</code>. This is the
+     * inverse of {@link #tokenizeCommandLine(String)}.
+     *
+     * @param _str
+     *            the string
+     * @return the quoted string
+     */
+    public static String shellQuote(final String _str) {
+        if (isShellSafe(_str)) {
+            return _str;
+        }
+        return appendShellQuoted(new StringBuilder(_str.length() + 8), _str).toString();
+    }
+
+    private static StringBuilder appendShellQuoted(final StringBuilder _sb, final String _str) {
+        if (isShellSafe(_str)) {
+            return _sb.append(_str);
+        }
+        _sb.append('\'');
+        final int len = _str.length();
+        int runStart = 0;
+        for (int i = 0; i < len; ++i) {
+            if ('\'' == _str.charAt(i)) {
+                _sb.append(_str, runStart, i).append("'\\''");
+                runStart = i + 1;
             }
-            ret.append(' ');
         }
-        return ret.toString().trim();
+        return _sb.append(_str, runStart, len).append('\'');
+    }
+
+    private static boolean isShellSafe(final String _str) {
+        final int len = _str.length();
+        if (0 == len) {
+            return false;
+        }
+        for (int i = 0; i < len; ++i) {
+            final char c = _str.charAt(i);
+            if (c >= SHELL_SAFE_CHARS.length || !SHELL_SAFE_CHARS[c]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Split a command line into its arguments the way a POSIX shell would, without performing any expansions.
+     * Words are separated by unquoted whitespace. Inside single quotes everything is literal; inside double quotes
+     * a backslash only escapes <code>$ ` " \</code> and newline; elsewhere a backslash escapes any character, and
+     * a backslash-newline is removed. This is the inverse of {@link #shellQuote(String)} and
+     * {@link #arrayToSpaceSeparatedString(Object...)}.
+     *
+     * @param _cmdLine
+     *            the command line
+     * @return the arguments
+     * @throws IllegalArgumentException
+     *             if a quote is not terminated
+     */
+    public static String[] tokenizeCommandLine(final String _cmdLine) {
+        final List<String> ret = new ArrayList<String>();
+        final int len = _cmdLine.length();
+        final StringBuilder word = new StringBuilder(Math.min(len, 64));
+        boolean isInWord = false;
+        for (int i = 0; i < len; ++i) {
+            final char c = _cmdLine.charAt(i);
+            switch (c) {
+                case ' ':
+                case '\t':
+                case '\n':
+                case '\r':
+                    if (isInWord) {
+                        ret.add(word.toString());
+                        word.setLength(0);
+                        isInWord = false;
+                    }
+                    break;
+                case '\'': {
+                    final int close = _cmdLine.indexOf('\'', i + 1);
+                    if (-1 == close) {
+                        throw new IllegalArgumentException("Unterminated single quote at offset " + i);
+                    }
+                    word.append(_cmdLine, i + 1, close);
+                    i = close;
+                    isInWord = true;
+                    break;
+                }
+                case '"': {
+                    final int open = i;
+                    while (true) {
+                        if (++i >= len) {
+                            throw new IllegalArgumentException("Unterminated double quote at offset " + open);
+                        }
+                        final char q = _cmdLine.charAt(i);
+                        if ('"' == q) {
+                            break;
+                        }
+                        if ('\\' == q && i + 1 < len) {
+                            final char next = _cmdLine.charAt(i + 1);
+                            if ('\n' == next) {
+                                ++i;
+                                continue;
+                            }
+                            if ('$' == next || '`' == next || '"' == next || '\\' == next) {
+                                word.append(next);
+                                ++i;
+                                continue;
+                            }
+                        }
+                        word.append(q);
+                    }
+                    isInWord = true;
+                    break;
+                }
+                case '\\':
+                    if (i + 1 < len) {
+                        final char next = _cmdLine.charAt(++i);
+                        if ('\n' != next) {
+                            word.append(next);
+                            isInWord = true;
+                        }
+                    } else {
+                        word.append(c);
+                        isInWord = true;
+                    }
+                    break;
+                default:
+                    word.append(c);
+                    isInWord = true;
+            }
+        }
+        if (isInWord) {
+            ret.add(word.toString());
+        }
+        return ret.toArray(new String[ret.size()]);
+    }
+
+    /**
+     * Append the given string to a buffer, surrounded with terminal color codes if supported. See
+     * {@link #colorizeForTerminal(String, TerminalColor)}.
+     *
+     * @param _buf
+     *            the buffer
+     * @param _str
+     *            the str
+     * @param _color
+     *            the color
+     * @return the buffer
+     */
+    public static StringBuilder appendColorized(final StringBuilder _buf, final CharSequence _str, final TerminalColor _color) {
+        return TerminalStyle.of(_color).appendTo(_buf, _str);
+    }
+
+    /**
+     * Append the given string to a buffer, surrounded with terminal color codes if supported. See
+     * {@link #colorizeForTerminal(String, TerminalStyle)}.
+     *
+     * @param _buf
+     *            the buffer
+     * @param _str
+     *            the str
+     * @param _style
+     *            the style
+     * @return the buffer
+     */
+    public static StringBuilder appendColorized(final StringBuilder _buf, final CharSequence _str, final TerminalStyle _style) {
+        return _style.appendTo(_buf, _str);
     }
 
     /**
      * Surround the given string with terminal color codes, if supported. Can be disabled by setting the {@value #PROP_DISABLE_COLORS} system property to <code>true</code>
+     * or the <code>NO_COLOR</code> environment variable; see {@link TerminalCapabilities}.
      *
      * @param _str
      *            the str
@@ -113,26 +295,37 @@ public class StringUtils {
      * @return the string
      */
     public static String colorizeForTerminal(final String _str, final TerminalColor _color) {
-        if (s_isTerminalColorsSupported) {
-            return _color.getCode() + _str + TERM_COLOR_RESET;
-        } else {
+        return colorizeForTerminal(_str, TerminalStyle.of(_color));
+    }
+
+    /**
+     * Surround the given string with the terminal codes for the given style, if supported. Colors the terminal
+     * can't display are replaced by the nearest one it can.
+     *
+     * @param _str
+     *            the str
+     * @param _style
+     *            the style
+     * @return the string
+     */
+    public static String colorizeForTerminal(final String _str, final TerminalStyle _style) {
+        final String seq = _style.getSequence();
+        if (seq.isEmpty()) {
             return _str;
         }
+        return new StringBuilder(seq.length() + _str.length() + TERM_COLOR_RESET.length()).append(seq).append(_str).append(TERM_COLOR_RESET).toString();
     }
 
     /**
-     * Generate random string.
+     * Generate random string of lowercase hexadecimal digits, from a secure source of randomness. See
+     * {@link RandomStringGenerator} for other alphabets and sources.
      *
      * @param _len
      *            the length of string to generate
      * @return the string
      */
     public static String generateRandomString(final int _len) {
-        String ret = "";
-        while (ret.length() < _len) {
-            ret += UUID.randomUUID().toString().replace("-", "");
-        }
-        return ret.substring(0, _len);
+        return RandomStringGenerator.secure(RandomStringGenerator.Alphabet.HEX).generate(_len);
     }
 
     /**
@@ -141,7 +334,7 @@ public class StringUtils {
      * @return the shrug for output
      */
     public static String getShrugForOutput() {
-        return s_isEmojiSupported ? "¯\\_\uD83D\uDE00_/¯" : "<unknown>";
+        return TerminalCapabilities.get().isEmojiSupported() ? "¯\\_\uD83D\uDE00_/¯" : "<unknown>";
     }
 
     /**
@@ -152,7 +345,7 @@ public class StringUtils {
      * @return true, if is empty
      */
     public static boolean isEmpty(final char[] _str) {
-        return null == _str || isEmpty(new String(_str));
+        return null == _str || TextPredicates.isBlank(_str, 0, _str.length);
     }
 
     /**
@@ -163,7 +356,7 @@ public class StringUtils {
      * @return true, if is empty
      */
     public static boolean isEmpty(final String _str) {
-        return (null == _str) || (_str.trim().isEmpty());
+        return TextPredicates.isBlank(_str);
     }
 
     /**
@@ -189,7 +382,9 @@ public class StringUtils {
     }
 
     /**
-     * Pad the given string with spaces until it is the provided length.
+     * Pad the given string with spaces until it occupies the provided number of terminal columns, or cut it short
+     * if it is too wide. Color codes take no space and wide characters take two columns; see {@link DisplayWidth}.
+     * For many rows, see {@link TableRenderer}.
      *
      * @param _str
      *            the string
@@ -201,10 +396,9 @@ public class StringUtils {
         if (0 == _len) {
             return "";
         }
-        String ret = _str + LOTSA_SPACES;
-        while (ret.length() < _len) {
-            ret += LOTSA_SPACES;
-        }
-        return ret.substring(0, _len);
+        final String str = String.valueOf(_str);
+        final StringBuilder ret = new StringBuilder(str.length() + _len);
+        DisplayWidth.appendPadded(ret, str, _len, false);
+        return ret.toString();
     }
 }
@@ -0,0 +1,600 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A streaming parser for the tables that many commands print, such as <code>ps</code>, <code>df</code> or
+ * <code>ls -l</code>. Output is read as raw bytes, and each row is handed to a {@link RowHandler} as a
+ * {@link Row} whose fields are just offsets into the read buffer; nothing is decoded until one of the
+ * <code>Row</code> accessors asks for it. Parsing a huge table therefore doesn't create a String per field.
+ *
+ * <pre>
+ * final Process p = new ProcessBuilder("ps", "-eo", "pid,rss,args").start();
+ * TableParser.whitespaceDelimited().parse(p.getInputStream(), _row -&gt; total += _row.getLong("RSS"));
+ * </pre>
+ *
+ * Fixed column positions are counted in bytes, so fixed-width layouts are expected to be aligned in ASCII.
+ * <p>
+ * A parser is not thread safe: it keeps the column layout of the stream it is parsing, so use a separate
+ * instance for each stream being parsed at the same time.
+ */
+public class TableParser {
+
+    /**
+     * An explicitly specified fixed-width column.
+     */
+    public static class ColumnSpec {
+        private final int m_end;
+        private final String m_name;
+        private final int m_start;
+
+        /**
+         * Instantiates a new column spec.
+         *
+         * @param _name
+         *            the column name
+         * @param _start
+         *            the offset of the first byte of the column
+         * @param _end
+         *            the offset just past the last byte of the column, or -1 for the rest of the line
+         * @throws IllegalArgumentException
+         *             if the start is negative, or the end is before the start
+         */
+        public ColumnSpec(final String _name, final int _start, final int _end) {
+            if (_start < 0 || (-1 != _end && _end < _start)) {
+                throw new IllegalArgumentException("Invalid column bounds for '" + _name + "': " + _start + " to " + _end);
+            }
+            m_name = _name;
+            m_start = _start;
+            m_end = _end;
+        }
+    }
+
+    /**
+     * A row of a table. The same object is reused for every row, and is only valid during the call to
+     * {@link RowHandler#onRow(Row)}. Fields are trimmed of surrounding whitespace.
+     */
+    public static class Row {
+
+        private byte[] m_buf;
+
+        private int m_count;
+
+        private int[] m_ends;
+
+        private long m_lineNumber;
+
+        private int[] m_starts;
+
+        private final TableParser m_table;
+
+        Row(final TableParser _table) {
+            m_table = _table;
+            m_starts = new int[16];
+            m_ends = new int[16];
+        }
+
+        /**
+         * Gets a field as a character sequence. For ASCII fields, this is a view over the read buffer and
+         * must not be kept past the current row.
+         *
+         * @param _col
+         *            the column index
+         * @return the field, or an empty sequence if the row has no such column
+         */
+        public CharSequence getChars(final int _col) {
+            if (_col >= m_count) {
+                return "";
+            }
+            final int start = m_starts[_col];
+            final int end = m_ends[_col];
+            for (int i = start; i < end; ++i) {
+                if (m_buf[i] < 0) {
+                    return getString(_col);
+                }
+            }
+            return new AsciiSlice(m_buf, start, end);
+        }
+
+        /**
+         * Gets the number of fields in this row.
+         *
+         * @return the column count
+         */
+        public int getColumnCount() {
+            return m_count;
+        }
+
+        /**
+         * Gets a field as a <code>double</code>.
+         *
+         * @param _col
+         *            the column index
+         * @return the value
+         * @throws NumberFormatException
+         *             if the field is not a number
+         * @throws IndexOutOfBoundsException
+         *             if the row has no such column
+         */
+        public double getDouble(final int _col) {
+            checkColumn(_col);
+            final int start = m_starts[_col];
+            final int end = m_ends[_col];
+            // Fast path for plain decimals with up to 15 significant digits, which a double represents exactly
+            int i = start;
+            final boolean isNegative = i < end && '-' == m_buf[i];
+            if (isNegative || (i < end && '+' == m_buf[i])) {
+                ++i;
+            }
+            long mantissa = 0;
+            int digits = 0;
+            int scale = 0;
+            boolean isDotSeen = false;
+            boolean isDigitSeen = false;
+            for (; i < end; ++i) {
+                final byte b = m_buf[i];
+                if (b >= '0' && b <= '9') {
+                    isDigitSeen = true;
+                    mantissa = mantissa * 10 + (b - '0');
+                    if (0 != mantissa) {
+                        ++digits;
+                    }
+                    if (isDotSeen) {
+                        ++scale;
+                    }
+                } else if ('.' == b && !isDotSeen) {
+                    isDotSeen = true;
+                } else {
+                    break;
+                }
+            }
+            if (i == end && isDigitSeen && digits <= 15 && scale < POWERS_OF_TEN.length) {
+                final double ret = mantissa / POWERS_OF_TEN[scale];
+                return isNegative ? -ret : ret;
+            }
+            return Double.parseDouble(getString(_col));
+        }
+
+        /**
+         * Gets a field, by column name, as a <code>double</code>.
+         *
+         * @param _col
+         *            the column name
+         * @return the value
+         */
+        public double getDouble(final String _col) {
+            return getDouble(m_table.getColumnIndex(_col));
+        }
+
+        /**
+         * Gets the line number of this row within the input, counting from 1.
+         *
+         * @return the line number
+         */
+        public long getLineNumber() {
+            return m_lineNumber;
+        }
+
+        /**
+         * Gets a field as a <code>long</code>.
+         *
+         * @param _col
+         *            the column index
+         * @return the value
+         * @throws NumberFormatException
+         *             if the field is not an integer
+         * @throws IndexOutOfBoundsException
+         *             if the row has no such column
+         */
+        public long getLong(final int _col) {
+            checkColumn(_col);
+            int i = m_starts[_col];
+            final int end = m_ends[_col];
+            final boolean isNegative = i < end && '-' == m_buf[i];
+            if (isNegative || (i < end && '+' == m_buf[i])) {
+                ++i;
+            }
+            if (i == end || end - i > 18) {
+                return Long.parseLong(getString(_col));
+            }
+            long ret = 0;
+            for (; i < end; ++i) {
+                final int digit = m_buf[i] - '0';
+                if (digit < 0 || digit > 9) {
+                    throw new NumberFormatException("For input string: \"" + getString(_col) + "\"");
+                }
+                ret = ret * 10 + digit;
+            }
+            return isNegative ? -ret : ret;
+        }
+
+        /**
+         * Gets a field, by column name, as a <code>long</code>.
+         *
+         * @param _col
+         *            the column name
+         * @return the value
+         */
+        public long getLong(final String _col) {
+            return getLong(m_table.getColumnIndex(_col));
+        }
+
+        /**
+         * Gets a field as a String.
+         *
+         * @param _col
+         *            the column index
+         * @return the field, or an empty string if the row has no such column
+         */
+        public String getString(final int _col) {
+            if (_col >= m_count) {
+                return "";
+            }
+            return new String(m_buf, m_starts[_col], m_ends[_col] - m_starts[_col], StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Gets a field, by column name, as a String.
+         *
+         * @param _col
+         *            the column name
+         * @return the field
+         */
+        public String getString(final String _col) {
+            return getString(m_table.getColumnIndex(_col));
+        }
+
+        /**
+         * Gets a field as a date and/or time.
+         *
+         * @param _col
+         *            the column index
+         * @param _format
+         *            the format of the field
+         * @return the parsed value
+         */
+        public TemporalAccessor getTimestamp(final int _col, final DateTimeFormatter _format) {
+            return _format.parse(getChars(_col));
+        }
+
+        /**
+         * Checks if a field is empty or missing.
+         *
+         * @param _col
+         *            the column index
+         * @return true, if empty
+         */
+        public boolean isEmpty(final int _col) {
+            return _col >= m_count || m_starts[_col] == m_ends[_col];
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder ret = new StringBuilder();
+            for (int i = 0; i < m_count; ++i) {
+                ret.append(0 == i ? "[" : ", ").append(getString(i));
+            }
+            return ret.append(']').toString();
+        }
+
+        private void checkColumn(final int _col) {
+            if (_col < 0 || _col >= m_count) {
+                final String name = _col >= 0 && _col < m_table.m_names.size() ? " (" + m_table.m_names.get(_col) + ")" : "";
+                throw new IndexOutOfBoundsException("Line " + m_lineNumber + " has " + m_count + " columns, so it has no column " + _col + name);
+            }
+        }
+
+        private void addField(int _start, int _end) {
+            while (_start < _end && isSpace(m_buf[_start])) {
+                ++_start;
+            }
+            while (_end > _start && isSpace(m_buf[_end - 1])) {
+                --_end;
+            }
+            if (m_count == m_starts.length) {
+                m_starts = Arrays.copyOf(m_starts, m_count * 2);
+                m_ends = Arrays.copyOf(m_ends, m_count * 2);
+            }
+            m_starts[m_count] = _start;
+            m_ends[m_count] = _end;
+            ++m_count;
+        }
+    }
+
+    /**
+     * Receives the rows of a table.
+     */
+    public interface RowHandler {
+
+        /**
+         * Called once per row, in order.
+         *
+         * @param _row
+         *            the row, valid only for the duration of this call
+         * @throws IOException
+         *             to abort parsing
+         */
+        void onRow(Row _row) throws IOException;
+    }
+
+    /**
+     * A zero-copy view of an ASCII range of a byte array.
+     */
+    private static class AsciiSlice implements CharSequence {
+        private final byte[] m_bytes;
+        private final int m_end;
+        private final int m_start;
+
+        AsciiSlice(final byte[] _bytes, final int _start, final int _end) {
+            m_bytes = _bytes;
+            m_start = _start;
+            m_end = _end;
+        }
+
+        @Override
+        public char charAt(final int _index) {
+            return (char) m_bytes[m_start + _index];
+        }
+
+        @Override
+        public int length() {
+            return m_end - m_start;
+        }
+
+        @Override
+        public CharSequence subSequence(final int _start, final int _end) {
+            return new AsciiSlice(m_bytes, m_start + _start, m_start + _end);
+        }
+
+        @Override
+        public String toString() {
+            return new String(m_bytes, m_start, m_end - m_start, StandardCharsets.US_ASCII);
+        }
+    }
+
+    private enum Mode {
+        FIXED, WHITESPACE
+    }
+
+    private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+    /**
+     * A parser for tables with explicitly specified fixed-width columns and no header line.
+     *
+     * @param _columns
+     *            the columns
+     * @return the parser
+     */
+    public static TableParser fixedWidth(final ColumnSpec... _columns) {
+        final TableParser ret = new TableParser(Mode.FIXED, false);
+        ret.m_starts = new int[_columns.length];
+        ret.m_ends = new int[_columns.length];
+        for (int i = 0; i < _columns.length; ++i) {
+            ret.m_names.add(_columns[i].m_name);
+            ret.m_starts[i] = _columns[i].m_start;
+            ret.m_ends[i] = _columns[i].m_end;
+        }
+        return ret;
+    }
+
+    /**
+     * A parser for fixed-width tables whose first line is a header. Each column is taken to start where its header
+     * starts, and to end where the next one starts. This suits left-aligned layouts; for right-aligned numeric
+     * columns, use {@link #whitespaceDelimited()} or {@link #fixedWidth(ColumnSpec...)}.
+     *
+     * @return the parser
+     */
+    public static TableParser fixedWidthFromHeader() {
+        return new TableParser(Mode.FIXED, true);
+    }
+
+    /**
+     * A parser for tables whose fields are separated by runs of whitespace and whose first line is a header. If a
+     * row has more fields than the header, the last column takes the rest of the line, so that a trailing
+     * free-text column (such as the command line in <code>ps</code> output) stays whole.
+     *
+     * @return the parser
+     */
+    public static TableParser whitespaceDelimited() {
+        return new TableParser(Mode.WHITESPACE, true);
+    }
+
+    private static boolean isSpace(final byte _b) {
+        return ' ' == _b || '\t' == _b || '\r' == _b;
+    }
+
+    private int[] m_ends = new int[0];
+
+    private final boolean m_isHeaderExpected;
+
+    private final Mode m_mode;
+
+    private final List<String> m_names = new ArrayList<String>();
+
+    private int[] m_starts = new int[0];
+
+    private TableParser(final Mode _mode, final boolean _isHeaderExpected) {
+        m_mode = _mode;
+        m_isHeaderExpected = _isHeaderExpected;
+    }
+
+    /**
+     * Gets the index of the named column. Names are compared ignoring case.
+     *
+     * @param _name
+     *            the column name
+     * @return the column index
+     * @throws IllegalArgumentException
+     *             if there is no such column
+     */
+    public int getColumnIndex(final String _name) {
+        for (int i = 0; i < m_names.size(); ++i) {
+            if (m_names.get(i).equalsIgnoreCase(_name)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("No such column: " + _name);
+    }
+
+    /**
+     * Gets the column names, as given by the column specs, or by the header line of the most recent parse.
+     *
+     * @return the column names
+     */
+    public List<String> getColumnNames() {
+        return new ArrayList<String>(m_names);
+    }
+
+    /**
+     * Parse a table from the given stream, until the end of the stream. Blank lines are skipped. The stream
+     * is not closed. A parser that expects a header takes its columns afresh from each stream's header.
+     *
+     * @param _in
+     *            the stream, such as the standard output of a process
+     * @param _handler
+     *            receives each row
+     * @return the number of rows, not counting the header
+     * @throws IOException
+     *             Signals that an I/O exception has occurred.
+     */
+    public long parse(final InputStream _in, final RowHandler _handler) throws IOException {
+        byte[] buf = new byte[64 * 1024];
+        final Row row = new Row(this);
+        boolean isHeaderPending = m_isHeaderExpected;
+        if (isHeaderPending) {
+            m_names.clear();
+            m_starts = new int[0];
+            m_ends = new int[0];
+        }
+        long lineNumber = 0;
+        long rows = 0;
+        int filled = 0;
+        int lineStart = 0;
+        int scanned = 0;
+        boolean isEof = false;
+        while (true) {
+            // Find the next line terminator in what we have; read more if there is none
+            int nl = -1;
+            for (int i = scanned; i < filled; ++i) {
+                if ('\n' == buf[i]) {
+                    nl = i;
+                    break;
+                }
+            }
+            if (-1 == nl) {
+                if (isEof) {
+                    if (lineStart == filled) {
+                        return rows;
+                    }
+                    nl = filled;
+                } else {
+                    if (0 < lineStart) {
+                        System.arraycopy(buf, lineStart, buf, 0, filled - lineStart);
+                        filled -= lineStart;
+                        lineStart = 0;
+                    } else if (filled == buf.length) {
+                        buf = Arrays.copyOf(buf, buf.length * 2);
+                    }
+                    scanned = filled;
+                    final int read = _in.read(buf, filled, buf.length - filled);
+                    if (-1 == read) {
+                        isEof = true;
+                    } else {
+                        filled += read;
+                    }
+                    continue;
+                }
+            }
+            ++lineNumber;
+            final int lineEnd = (nl > lineStart && '\r' == buf[nl - 1]) ? nl - 1 : nl;
+            if (!isBlank(buf, lineStart, lineEnd)) {
+                if (isHeaderPending) {
+                    readHeader(buf, lineStart, lineEnd);
+                    isHeaderPending = false;
+                } else {
+                    row.m_buf = buf;
+                    row.m_lineNumber = lineNumber;
+                    row.m_count = 0;
+                    split(row, lineStart, lineEnd);
+                    _handler.onRow(row);
+                    ++rows;
+                }
+            }
+            lineStart = scanned = Math.min(nl + 1, filled);
+        }
+    }
+
+    private static boolean isBlank(final byte[] _buf, final int _start, final int _end) {
+        for (int i = _start; i < _end; ++i) {
+            if (!isSpace(_buf[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void readHeader(final byte[] _buf, final int _start, final int _end) {
+        final List<Integer> starts = new ArrayList<Integer>();
+        int i = _start;
+        while (i < _end) {
+            while (i < _end && isSpace(_buf[i])) {
+                ++i;
+            }
+            if (i == _end) {
+                break;
+            }
+            final int wordStart = i;
+            while (i < _end && !isSpace(_buf[i])) {
+                ++i;
+            }
+            starts.add(wordStart - _start);
+            m_names.add(new String(_buf, wordStart, i - wordStart, StandardCharsets.UTF_8));
+        }
+        m_starts = new int[starts.size()];
+        m_ends = new int[starts.size()];
+        for (int c = 0; c < m_starts.length; ++c) {
+            m_starts[c] = 0 == c ? 0 : starts.get(c);
+            m_ends[c] = c == m_starts.length - 1 ? -1 : starts.get(c + 1);
+        }
+    }
+
+    private void split(final Row _row, final int _start, final int _end) {
+        if (Mode.FIXED == m_mode) {
+            for (int c = 0; c < m_starts.length; ++c) {
+                final int s = Math.min(_start + m_starts[c], _end);
+                final int e = -1 == m_ends[c] ? _end : Math.min(_start + m_ends[c], _end);
+                _row.addField(s, e);
+            }
+            return;
+        }
+        final int maxFields = m_names.isEmpty() ? Integer.MAX_VALUE : m_names.size();
+        int i = _start;
+        while (i < _end) {
+            while (i < _end && isSpace(_row.m_buf[i])) {
+                ++i;
+            }
+            if (i == _end) {
+                break;
+            }
+            if (_row.m_count == maxFields - 1) {
+                _row.addField(i, _end);
+                return;
+            }
+            final int fieldStart = i;
+            while (i < _end && !isSpace(_row.m_buf[i])) {
+                ++i;
+            }
+            _row.addField(fieldStart, i);
+        }
+    }
+}
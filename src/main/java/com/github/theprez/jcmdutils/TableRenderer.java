@@ -0,0 +1,295 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Renders rows of text as aligned columns through an {@link AppLogger}. Alignment is by terminal display width
+ * (see {@link DisplayWidth}), so colored text, CJK characters and emoji line up.
+ * <br>
+ * Column widths are either set up front with {@link #setColumnWidths(int...)}, in which case every row is
+ * rendered as soon as it is added and over-wide cells are cut short, or sized from the header and the first
+ * rows (see {@link #setSampleSize(int)}), in which case those rows are held until the widths are known and later
+ * cells that don't fit simply overflow. Rendered rows are batched into the logger; call {@link #flush()} or
+ * {@link #close()} when done.
+ *
+ * <pre>
+ * try (TableRenderer table = new TableRenderer(logger, "NAME", "SIZE")) {
+ *     table.setAlignment(1, Alignment.RIGHT);
+ *     for (final File f : files) {
+ *         table.addRow(f.getName(), f.length());
+ *     }
+ * }
+ * </pre>
+ */
+public class TableRenderer implements AutoCloseable {
+
+    /**
+     * How a cell is placed within its column.
+     */
+    public enum Alignment {
+        /** Pad after the text. */
+        LEFT,
+        /** Pad before the text. */
+        RIGHT
+    }
+
+    /** The default number of rows used to size columns. */
+    public static final int DEFAULT_SAMPLE_SIZE = 1000;
+
+    private static final int MAX_CHUNK_CHARS = 8192;
+
+    private static final int MAX_CHUNK_ROWS = 64;
+
+    private Alignment[] m_alignments;
+
+    private final StringBuilder m_chunk = new StringBuilder();
+
+    private int m_chunkRows = 0;
+
+    private final String[] m_headers;
+
+    private boolean m_isTruncating = false;
+
+    private final AppLogger m_logger;
+
+    private long m_rowCount = 0;
+
+    private List<String[]> m_sample = new ArrayList<String[]>();
+
+    private int m_sampleSize = DEFAULT_SAMPLE_SIZE;
+
+    private String m_separator = "  ";
+
+    private int[] m_widths = null;
+
+    /**
+     * Instantiates a new table renderer.
+     *
+     * @param _logger
+     *            the logger to render to
+     * @param _headers
+     *            the column headings; if none are given, no heading is rendered and the first row decides the
+     *            number of columns
+     */
+    public TableRenderer(final AppLogger _logger, final String... _headers) {
+        m_logger = _logger;
+        m_headers = _headers.clone();
+        m_alignments = new Alignment[_headers.length];
+        Arrays.fill(m_alignments, Alignment.LEFT);
+    }
+
+    /**
+     * Add a row. Cells are converted with {@link String#valueOf(Object)}; <code>null</code> becomes an empty cell,
+     * and missing trailing cells are empty.
+     *
+     * @param _cells
+     *            the cells
+     */
+    public void addRow(final Object... _cells) {
+        final int columns = Math.max(_cells.length, m_headers.length);
+        final String[] row = new String[columns];
+        for (int i = 0; i < columns; ++i) {
+            row[i] = i < _cells.length && null != _cells[i] ? String.valueOf(_cells[i]) : "";
+        }
+        ++m_rowCount;
+        if (null != m_widths) {
+            appendRow(row);
+            return;
+        }
+        m_sample.add(row);
+        if (m_sample.size() >= m_sampleSize) {
+            sizeColumnsFromSample();
+        }
+    }
+
+    private void appendRow(final String[] _cells) {
+        if (0 != m_chunkRows) {
+            m_chunk.append('\n');
+        }
+        // Trailing empty, left-aligned cells would only add trailing blanks
+        int last = _cells.length - 1;
+        while (last > 0 && _cells[last].isEmpty() && Alignment.LEFT == getAlignment(last)) {
+            --last;
+        }
+        for (int i = 0; i <= last; ++i) {
+            if (0 != i) {
+                m_chunk.append(m_separator);
+            }
+            final String cell = _cells[i];
+            final boolean isRight = Alignment.RIGHT == getAlignment(i);
+            if (i >= m_widths.length) {
+                // A column nobody sized
+                m_chunk.append(cell);
+                continue;
+            }
+            final int width = m_widths[i];
+            if (i == last && !isRight) {
+                // No padding needed at the end of a line
+                if (m_isTruncating) {
+                    final int end = (int) (DisplayWidth.measure(cell, 0, cell.length(), width) >>> 32);
+                    m_chunk.append(cell, 0, end);
+                } else {
+                    m_chunk.append(cell);
+                }
+            } else if (m_isTruncating || DisplayWidth.of(cell) <= width) {
+                DisplayWidth.appendPadded(m_chunk, cell, width, isRight);
+            } else {
+                m_chunk.append(cell);
+            }
+        }
+        ++m_chunkRows;
+        if (m_chunkRows >= MAX_CHUNK_ROWS || m_chunk.length() >= MAX_CHUNK_CHARS) {
+            flushChunk();
+        }
+    }
+
+    /**
+     * Render any rows still held for sizing, and write out everything rendered so far.
+     */
+    @Override
+    public void close() {
+        flush();
+    }
+
+    /**
+     * Render any rows still held for sizing, and write out everything rendered so far. Further rows may still be
+     * added; they are rendered with the column widths already decided.
+     */
+    public void flush() {
+        if (null == m_widths) {
+            sizeColumnsFromSample();
+        }
+        flushChunk();
+    }
+
+    private void flushChunk() {
+        if (0 == m_chunkRows) {
+            return;
+        }
+        m_logger.println(m_chunk.toString());
+        m_chunk.setLength(0);
+        m_chunkRows = 0;
+    }
+
+    private Alignment getAlignment(final int _column) {
+        return _column < m_alignments.length ? m_alignments[_column] : Alignment.LEFT;
+    }
+
+    /**
+     * Gets the number of rows added so far.
+     *
+     * @return the row count
+     */
+    public long getRowCount() {
+        return m_rowCount;
+    }
+
+    private void renderHeader() {
+        if (0 == m_headers.length) {
+            return;
+        }
+        appendRow(m_headers);
+        final String[] rule = new String[m_headers.length];
+        for (int i = 0; i < rule.length; ++i) {
+            final StringBuilder dashes = new StringBuilder();
+            for (int j = DisplayWidth.of(m_headers[i]); j > 0; --j) {
+                dashes.append('-');
+            }
+            rule[i] = dashes.toString();
+        }
+        appendRow(rule);
+    }
+
+    /**
+     * Sets the alignment of a column.
+     *
+     * @param _column
+     *            the column, counting from 0
+     * @param _alignment
+     *            the alignment
+     * @return this object
+     */
+    public TableRenderer setAlignment(final int _column, final Alignment _alignment) {
+        if (_column >= m_alignments.length) {
+            final int oldLength = m_alignments.length;
+            m_alignments = Arrays.copyOf(m_alignments, _column + 1);
+            Arrays.fill(m_alignments, oldLength, m_alignments.length, Alignment.LEFT);
+        }
+        m_alignments[_column] = _alignment;
+        return this;
+    }
+
+    /**
+     * Sets fixed column widths, in terminal columns. Rows are then rendered as they are added, and cells wider
+     * than their column are cut short. Must be called before the first row is added.
+     *
+     * @param _widths
+     *            the widths
+     * @return this object
+     */
+    public TableRenderer setColumnWidths(final int... _widths) {
+        if (0 != m_rowCount) {
+            throw new IllegalStateException("Column widths must be set before adding rows");
+        }
+        m_widths = _widths.clone();
+        m_isTruncating = true;
+        m_sample = null;
+        renderHeader();
+        return this;
+    }
+
+    /**
+     * Sets how many rows are held and measured before column widths are decided. Has no effect once widths are
+     * decided.
+     *
+     * @param _rows
+     *            the number of rows, at least 1
+     * @return this object
+     */
+    public TableRenderer setSampleSize(final int _rows) {
+        m_sampleSize = Math.max(1, _rows);
+        if (null == m_widths && m_sample.size() >= m_sampleSize) {
+            sizeColumnsFromSample();
+        }
+        return this;
+    }
+
+    /**
+     * Sets the text placed between columns. The default is two spaces.
+     *
+     * @param _separator
+     *            the separator
+     * @return this object
+     */
+    public TableRenderer setSeparator(final String _separator) {
+        m_separator = _separator;
+        return this;
+    }
+
+    private void sizeColumnsFromSample() {
+        int columns = m_headers.length;
+        for (final String[] row : m_sample) {
+            columns = Math.max(columns, row.length);
+        }
+        final int[] widths = new int[columns];
+        for (int i = 0; i < m_headers.length; ++i) {
+            widths[i] = DisplayWidth.of(m_headers[i]);
+        }
+        for (final String[] row : m_sample) {
+            for (int i = 0; i < row.length; ++i) {
+                widths[i] = Math.max(widths[i], DisplayWidth.of(row[i]));
+            }
+        }
+        m_widths = widths;
+        renderHeader();
+        for (final String[] row : m_sample) {
+            appendRow(row);
+        }
+        m_sample = null;
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+import java.util.Locale;
+
+/**
+ * What the terminal attached to this process can display. The environment is probed once, on first use, and the
+ * result is cached for the life of the process. Colors are used only when output goes to a console (not a pipe
+ * or file) or the {@link StringUtils#PROP_FORCE_COLORS} system property is <code>true</code>, and never when the
+ * <code>NO_COLOR</code> environment variable is set, when <code>TERM</code> is <code>dumb</code>, or when the
+ * {@link StringUtils#PROP_DISABLE_COLORS} system property is <code>true</code>.
+ */
+public final class TerminalCapabilities {
+
+    /**
+     * How many colors the terminal can display, from least to most capable.
+     */
+    public enum ColorLevel {
+        /** No colors at all. */
+        NONE,
+        /** The basic 8 (and bright 8) ANSI colors. */
+        BASIC,
+        /** The xterm 256-color palette. */
+        PALETTE_256,
+        /** 24-bit RGB colors. */
+        TRUECOLOR
+    }
+
+    /** The terminal width assumed when it is not known. */
+    public static final int DEFAULT_COLUMNS = 80;
+
+    private static class Holder {
+        private static final TerminalCapabilities INSTANCE = probe();
+    }
+
+    /**
+     * Gets the capabilities of the terminal attached to this process, probing the environment on first call.
+     *
+     * @return the capabilities
+     */
+    public static TerminalCapabilities get() {
+        return Holder.INSTANCE;
+    }
+
+    private static String getenv(final String _name) {
+        final String ret = System.getenv(_name);
+        return null == ret ? "" : ret.trim();
+    }
+
+    private static boolean isUtf8(final String _encoding) {
+        final String lower = _encoding.toLowerCase(Locale.ROOT);
+        return lower.contains("utf-8") || lower.contains("utf8");
+    }
+
+    private static TerminalCapabilities probe() {
+        // System.console() returns null when input or output is being redirected
+        final boolean isInteractive = null != System.console();
+        final String term = getenv("TERM").toLowerCase(Locale.ROOT);
+        final String colorTerm = getenv("COLORTERM").toLowerCase(Locale.ROOT);
+        final boolean isSsh = !getenv("SSH_TTY").isEmpty();
+        final boolean isWindowsTerminal = !getenv("WT_SESSION").isEmpty();
+
+        final boolean isColorForced = Boolean.getBoolean(StringUtils.PROP_FORCE_COLORS);
+
+        final ColorLevel colorLevel;
+        if ((!isInteractive && !isColorForced) || !getenv("NO_COLOR").isEmpty() || "dumb".equals(term) || Boolean.getBoolean(StringUtils.PROP_DISABLE_COLORS)) {
+            colorLevel = ColorLevel.NONE;
+        } else if ("truecolor".equals(colorTerm) || "24bit".equals(colorTerm) || term.endsWith("-direct") || isWindowsTerminal) {
+            colorLevel = ColorLevel.TRUECOLOR;
+        } else if (term.contains("256color")) {
+            colorLevel = ColorLevel.PALETTE_256;
+        } else if (!term.isEmpty() || isSsh || isColorForced) {
+            colorLevel = ColorLevel.BASIC;
+        } else {
+            colorLevel = ColorLevel.NONE;
+        }
+
+        String encoding = System.getProperty("stdout.encoding", System.getProperty("sun.stdout.encoding", ""));
+        if (encoding.isEmpty()) {
+            encoding = System.getProperty("file.encoding", "");
+        }
+        String locale = getenv("LC_ALL");
+        if (locale.isEmpty()) {
+            locale = getenv("LC_CTYPE");
+        }
+        if (locale.isEmpty()) {
+            locale = getenv("LANG");
+        }
+        // The Linux virtual console has no emoji glyphs
+        final boolean isEmojiSupported = isInteractive && isUtf8(encoding) && (locale.isEmpty() || isUtf8(locale)) && (isSsh || isWindowsTerminal || !(term.isEmpty() || "dumb".equals(term) || "linux".equals(term)));
+
+        final boolean isCursorControlSupported = isInteractive && (isSsh || isWindowsTerminal || !(term.isEmpty() || "dumb".equals(term)));
+
+        int columns = DEFAULT_COLUMNS;
+        try {
+            final String columnsVar = getenv("COLUMNS");
+            if (!columnsVar.isEmpty()) {
+                columns = Math.max(1, Integer.parseInt(columnsVar));
+            }
+        } catch (final NumberFormatException e) {
+            // keep the default
+        }
+
+        return new TerminalCapabilities(colorLevel, isEmojiSupported, isInteractive, isCursorControlSupported, columns);
+    }
+
+    private final ColorLevel m_colorLevel;
+
+    private final int m_columns;
+
+    private final boolean m_isCursorControlSupported;
+
+    private final boolean m_isEmojiSupported;
+
+    private final boolean m_isInteractive;
+
+    private TerminalCapabilities(final ColorLevel _colorLevel, final boolean _isEmojiSupported, final boolean _isInteractive, final boolean _isCursorControlSupported, final int _columns) {
+        m_colorLevel = _colorLevel;
+        m_isCursorControlSupported = _isCursorControlSupported;
+        m_columns = _columns;
+        m_isEmojiSupported = _isEmojiSupported;
+        m_isInteractive = _isInteractive;
+    }
+
+    /**
+     * Gets how many colors the terminal can display.
+     *
+     * @return the color level
+     */
+    public ColorLevel getColorLevel() {
+        return m_colorLevel;
+    }
+
+    /**
+     * Gets the width of the terminal, from the <code>COLUMNS</code> environment variable if it is exported, or
+     * else {@value #DEFAULT_COLUMNS}.
+     *
+     * @return the number of columns
+     */
+    public int getColumns() {
+        return m_columns;
+    }
+
+    /**
+     * Checks if any colors can be displayed.
+     *
+     * @return true, if colors are supported
+     */
+    public boolean isColorSupported() {
+        return ColorLevel.NONE != m_colorLevel;
+    }
+
+    /**
+     * Checks if the cursor can be moved with escape sequences, so that output can be redrawn in place. This is
+     * independent of whether colors are wanted.
+     *
+     * @return true, if cursor control is supported
+     */
+    public boolean isCursorControlSupported() {
+        return m_isCursorControlSupported;
+    }
+
+    /**
+     * Checks if emoji can (probably) be displayed.
+     *
+     * @return true, if emoji are supported
+     */
+    public boolean isEmojiSupported() {
+        return m_isEmojiSupported;
+    }
+
+    /**
+     * Checks if this process is attached to a console, rather than having its input or output redirected.
+     *
+     * @return true, if interactive
+     */
+    public boolean isInteractive() {
+        return m_isInteractive;
+    }
+
+    @Override
+    public String toString() {
+        return "colors=" + m_colorLevel + ", emoji=" + m_isEmojiSupported + ", interactive=" + m_isInteractive + ", cursorControl=" + m_isCursorControlSupported + ", columns=" + m_columns;
+    }
+}
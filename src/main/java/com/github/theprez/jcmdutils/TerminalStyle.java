@@ -0,0 +1,277 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import com.github.theprez.jcmdutils.StringUtils.TerminalColor;
+import com.github.theprez.jcmdutils.TerminalCapabilities.ColorLevel;
+
+/**
+ * A foreground color and text attributes for terminal output. The escape sequence for every
+ * {@link ColorLevel} is computed when the style is created, so applying a style is a lookup and an append. A
+ * color the terminal can't show is replaced by the nearest one it can: 24-bit colors become the nearest 256-color
+ * palette entry, and palette colors become the nearest basic ANSI color. Styles are immutable; create them once
+ * and reuse them.
+ *
+ * <pre>
+ * private static final TerminalStyle ORANGE = TerminalStyle.rgb(255, 135, 0).bold();
+ * ...
+ * logger.println(StringUtils.colorizeForTerminal("warning", ORANGE));
+ * </pre>
+ */
+public final class TerminalStyle {
+
+    /** The xterm default RGB values of the 16 basic colors, packed as 0xRRGGBB. */
+    private static final int[] BASIC_RGB = { 0x000000, 0xcd0000, 0x00cd00, 0xcdcd00, 0x0000ee, 0xcd00cd, 0x00cdcd, 0xe5e5e5, 0x7f7f7f, 0xff0000, 0x00ff00, 0xffff00, 0x5c5cff, 0xff00ff, 0x00ffff, 0xffffff };
+
+    /** The component values of the 6x6x6 color cube in the 256-color palette. */
+    private static final int[] CUBE_LEVELS = { 0, 95, 135, 175, 215, 255 };
+
+    private static final int KIND_BASIC = 0;
+
+    private static final int KIND_PALETTE = 1;
+
+    private static final int KIND_RGB = 2;
+
+    private static final String RESET = "\u001B[0m";
+
+    private static final byte[] RESET_BYTES = RESET.getBytes(StandardCharsets.US_ASCII);
+
+    private static class BasicStyles {
+        private static final TerminalStyle[] STYLES = new TerminalStyle[TerminalColor.values().length];
+        static {
+            for (final TerminalColor color : TerminalColor.values()) {
+                final String code = color.getCode();
+                // The parameters between "ESC[" and "m"
+                STYLES[color.ordinal()] = new TerminalStyle(KIND_BASIC, code.substring(2, code.length() - 1), 0, "");
+            }
+        }
+    }
+
+    /**
+     * Gets the style for one of the basic {@link TerminalColor}s.
+     *
+     * @param _color
+     *            the color
+     * @return the style
+     */
+    public static TerminalStyle of(final TerminalColor _color) {
+        return BasicStyles.STYLES[_color.ordinal()];
+    }
+
+    /**
+     * Gets a style for an entry of the xterm 256-color palette.
+     *
+     * @param _index
+     *            the palette index, 0 to 255
+     * @return the style
+     */
+    public static TerminalStyle palette(final int _index) {
+        if (_index < 0 || _index > 255) {
+            throw new IllegalArgumentException("Palette index out of range: " + _index);
+        }
+        return new TerminalStyle(KIND_PALETTE, null, _index, "");
+    }
+
+    /**
+     * Gets a style for a 24-bit color.
+     *
+     * @param _red
+     *            the red component, 0 to 255
+     * @param _green
+     *            the green component, 0 to 255
+     * @param _blue
+     *            the blue component, 0 to 255
+     * @return the style
+     */
+    public static TerminalStyle rgb(final int _red, final int _green, final int _blue) {
+        if ((_red | _green | _blue) < 0 || Math.max(_red, Math.max(_green, _blue)) > 255) {
+            throw new IllegalArgumentException("Color component out of range");
+        }
+        return new TerminalStyle(KIND_RGB, null, (_red << 16) | (_green << 8) | _blue, "");
+    }
+
+    private static int distance(final int _rgb1, final int _rgb2) {
+        final int dr = ((_rgb1 >> 16) & 0xff) - ((_rgb2 >> 16) & 0xff);
+        final int dg = ((_rgb1 >> 8) & 0xff) - ((_rgb2 >> 8) & 0xff);
+        final int db = (_rgb1 & 0xff) - (_rgb2 & 0xff);
+        return dr * dr + dg * dg + db * db;
+    }
+
+    private static int nearestBasic(final int _rgb) {
+        int best = 0;
+        for (int i = 1; i < BASIC_RGB.length; ++i) {
+            if (distance(_rgb, BASIC_RGB[i]) < distance(_rgb, BASIC_RGB[best])) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    private static int nearestCubeLevel(final int _component) {
+        return _component < 48 ? 0 : (_component < 115 ? 1 : (_component - 35) / 40);
+    }
+
+    private static int nearestPaletteIndex(final int _rgb) {
+        final int r = nearestCubeLevel((_rgb >> 16) & 0xff);
+        final int g = nearestCubeLevel((_rgb >> 8) & 0xff);
+        final int b = nearestCubeLevel(_rgb & 0xff);
+        final int cubeIndex = 16 + 36 * r + 6 * g + b;
+        final int average = (((_rgb >> 16) & 0xff) + ((_rgb >> 8) & 0xff) + (_rgb & 0xff)) / 3;
+        final int grayIndex = 232 + Math.min(23, Math.max(0, (average - 3) / 10));
+        return distance(_rgb, paletteToRgb(grayIndex)) < distance(_rgb, paletteToRgb(cubeIndex)) ? grayIndex : cubeIndex;
+    }
+
+    private static int paletteToRgb(final int _index) {
+        if (_index < 16) {
+            return BASIC_RGB[_index];
+        }
+        if (_index < 232) {
+            final int i = _index - 16;
+            return (CUBE_LEVELS[i / 36] << 16) | (CUBE_LEVELS[(i / 6) % 6] << 8) | CUBE_LEVELS[i % 6];
+        }
+        final int gray = 8 + 10 * (_index - 232);
+        return (gray << 16) | (gray << 8) | gray;
+    }
+
+    private static String sgrForBasic(final int _basicIndex) {
+        return Integer.toString(_basicIndex < 8 ? 30 + _basicIndex : 90 + _basicIndex - 8);
+    }
+
+    private final String m_attributes;
+
+    private final String m_basicParams;
+
+    private final int m_kind;
+
+    private final byte[][] m_sequenceBytes = new byte[ColorLevel.values().length][];
+
+    private final String[] m_sequences = new String[ColorLevel.values().length];
+
+    private final int m_value;
+
+    private TerminalStyle(final int _kind, final String _basicParams, final int _value, final String _attributes) {
+        m_kind = _kind;
+        m_basicParams = _basicParams;
+        m_value = _value;
+        m_attributes = _attributes;
+        for (final ColorLevel level : ColorLevel.values()) {
+            final String seq = ColorLevel.NONE == level ? "" : "\u001B[" + m_attributes + colorParams(level) + "m";
+            m_sequences[level.ordinal()] = seq;
+            m_sequenceBytes[level.ordinal()] = seq.getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    /**
+     * Append text in this style to a buffer, followed by a reset. If the terminal has no colors, only the text is
+     * appended.
+     *
+     * @param _buf
+     *            the buffer
+     * @param _str
+     *            the text
+     * @return the buffer
+     */
+    public StringBuilder appendTo(final StringBuilder _buf, final CharSequence _str) {
+        final String seq = getSequence();
+        if (seq.isEmpty()) {
+            return _buf.append(_str);
+        }
+        return _buf.append(seq).append(_str).append(RESET);
+    }
+
+    /**
+     * Gets the same color, in bold.
+     *
+     * @return the style
+     */
+    public TerminalStyle bold() {
+        return withAttribute("1;");
+    }
+
+    private String colorParams(final ColorLevel _level) {
+        switch (m_kind) {
+            case KIND_PALETTE:
+                if (ColorLevel.BASIC == _level) {
+                    return sgrForBasic(nearestBasic(paletteToRgb(m_value)));
+                }
+                return "38;5;" + m_value;
+            case KIND_RGB:
+                if (ColorLevel.BASIC == _level) {
+                    return sgrForBasic(nearestBasic(m_value));
+                }
+                if (ColorLevel.PALETTE_256 == _level) {
+                    return "38;5;" + nearestPaletteIndex(m_value);
+                }
+                return "38;2;" + ((m_value >> 16) & 0xff) + ";" + ((m_value >> 8) & 0xff) + ";" + (m_value & 0xff);
+            default:
+                return m_basicParams;
+        }
+    }
+
+    /**
+     * Gets the escape sequence that starts this style on the attached terminal; empty if it has no colors.
+     *
+     * @return the escape sequence
+     */
+    public String getSequence() {
+        return m_sequences[TerminalCapabilities.get().getColorLevel().ordinal()];
+    }
+
+    /**
+     * Gets the escape sequence that starts this style on a terminal with the given capability.
+     *
+     * @param _level
+     *            the color level
+     * @return the escape sequence; empty for {@link ColorLevel#NONE}
+     */
+    public String getSequence(final ColorLevel _level) {
+        return m_sequences[_level.ordinal()];
+    }
+
+    /**
+     * Gets the same color, underlined.
+     *
+     * @return the style
+     */
+    public TerminalStyle underline() {
+        return withAttribute("4;");
+    }
+
+    private TerminalStyle withAttribute(final String _attribute) {
+        if (m_attributes.contains(_attribute)) {
+            return this;
+        }
+        return new TerminalStyle(m_kind, m_basicParams, m_value, m_attributes + _attribute);
+    }
+
+    /**
+     * Write text in this style to a stream, followed by a reset, using the precomputed bytes of the escape
+     * sequences. If the terminal has no colors, only the text is written.
+     *
+     * @param _out
+     *            the stream
+     * @param _text
+     *            the encoded text
+     * @param _off
+     *            the offset of the text
+     * @param _len
+     *            the length of the text
+     * @throws IOException
+     *             Signals that an I/O exception has occurred.
+     */
+    public void writeTo(final OutputStream _out, final byte[] _text, final int _off, final int _len) throws IOException {
+        final byte[] seq = m_sequenceBytes[TerminalCapabilities.get().getColorLevel().ordinal()];
+        if (0 == seq.length) {
+            _out.write(_text, _off, _len);
+            return;
+        }
+        _out.write(seq);
+        _out.write(_text, _off, _len);
+        _out.write(RESET_BYTES);
+    }
+}
@@ -0,0 +1,524 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+/**
+ * Checks on text that never allocate: blank checks, trimmed bounds, case-insensitive equality and prefix and
+ * suffix tests, over a {@link CharSequence}, a range of a <code>char[]</code>, or a range of a UTF-8 encoded
+ * <code>byte[]</code>. Nothing is copied, so these are safe to use on password buffers.
+ * <br>
+ * As with {@link String#trim()}, "blank" means every character is at most <code>' '</code> (U+0020): spaces and
+ * ASCII control characters, including tabs and line breaks. Case-insensitive comparison matches
+ * {@link String#equalsIgnoreCase(String)}.
+ */
+public final class TextPredicates {
+
+    /**
+     * A {@link CharSequence} view of a range of a <code>char[]</code>. Changes to the array show through.
+     */
+    private static final class CharArrayView implements CharSequence {
+        private final char[] m_buf;
+        private final int m_len;
+        private final int m_off;
+
+        CharArrayView(final char[] _buf, final int _off, final int _len) {
+            m_buf = _buf;
+            m_off = _off;
+            m_len = _len;
+        }
+
+        @Override
+        public char charAt(final int _index) {
+            if (_index < 0 || _index >= m_len) {
+                throw new IndexOutOfBoundsException("index " + _index + ", length " + m_len);
+            }
+            return m_buf[m_off + _index];
+        }
+
+        @Override
+        public int length() {
+            return m_len;
+        }
+
+        @Override
+        public CharSequence subSequence(final int _start, final int _end) {
+            if (_start < 0 || _end > m_len || _start > _end) {
+                throw new IndexOutOfBoundsException("start " + _start + ", end " + _end + ", length " + m_len);
+            }
+            return new CharArrayView(m_buf, m_off + _start, _end - _start);
+        }
+
+        @Override
+        public String toString() {
+            return new String(m_buf, m_off, m_len);
+        }
+    }
+
+    private static boolean charsEqualIgnoreCase(final char _c1, final char _c2) {
+        if (_c1 == _c2) {
+            return true;
+        }
+        if ((_c1 | _c2) < 0x80) {
+            final int lower1 = (_c1 >= 'A' && _c1 <= 'Z') ? _c1 + 0x20 : _c1;
+            final int lower2 = (_c2 >= 'A' && _c2 <= 'Z') ? _c2 + 0x20 : _c2;
+            return lower1 == lower2;
+        }
+        final char upper1 = Character.toUpperCase(_c1);
+        final char upper2 = Character.toUpperCase(_c2);
+        return upper1 == upper2 || Character.toLowerCase(upper1) == Character.toLowerCase(upper2);
+    }
+
+    /**
+     * Compare UTF-8 bytes with characters, code point by code point.
+     *
+     * @return the number of characters of <code>_str</code> matched if all of the bytes match, or -1
+     */
+    private static int compareUtf8(final byte[] _buf, final int _off, final int _len, final CharSequence _str, final boolean _isIgnoringCase) {
+        final int end = _off + _len;
+        final int strLen = _str.length();
+        int i = _off;
+        int j = 0;
+        while (i < end) {
+            final int b = _buf[i] & 0xff;
+            int cp;
+            int units;
+            if (b < 0x80) {
+                cp = b;
+                units = 1;
+            } else if (b >= 0xc2 && b < 0xe0) {
+                cp = b & 0x1f;
+                units = 2;
+            } else if (b >= 0xe0 && b < 0xf0) {
+                cp = b & 0x0f;
+                units = 3;
+            } else if (b >= 0xf0 && b < 0xf5) {
+                cp = b & 0x07;
+                units = 4;
+            } else {
+                return -1;
+            }
+            if (i + units > end) {
+                return -1;
+            }
+            for (int k = 1; k < units; ++k) {
+                final int cont = _buf[i + k] & 0xff;
+                if (0x80 != (cont & 0xc0)) {
+                    return -1;
+                }
+                cp = (cp << 6) | (cont & 0x3f);
+            }
+            i += units;
+            if (cp < 0x10000) {
+                if (j >= strLen) {
+                    return -1;
+                }
+                final char c = _str.charAt(j++);
+                if (c != cp && !(_isIgnoringCase && charsEqualIgnoreCase((char) cp, c))) {
+                    return -1;
+                }
+            } else {
+                // Supplementary characters have no case mappings that String.equalsIgnoreCase() honours
+                if (j + 1 >= strLen || _str.charAt(j) != Character.highSurrogate(cp) || _str.charAt(j + 1) != Character.lowSurrogate(cp)) {
+                    return -1;
+                }
+                j += 2;
+            }
+        }
+        return j;
+    }
+
+    /**
+     * Checks if a range of characters ends with the given suffix.
+     *
+     * @param _buf
+     *            the characters
+     * @param _off
+     *            the offset of the range
+     * @param _len
+     *            the length of the range
+     * @param _suffix
+     *            the suffix
+     * @return true, if it does
+     */
+    public static boolean endsWith(final char[] _buf, final int _off, final int _len, final CharSequence _suffix) {
+        final int suffixLen = _suffix.length();
+        return suffixLen <= _len && regionMatches(_buf, _off + _len - suffixLen, _suffix, suffixLen, false);
+    }
+
+    /**
+     * Checks if text ends with the given suffix.
+     *
+     * @param _str
+     *            the text
+     * @param _suffix
+     *            the suffix
+     * @return true, if it does
+     */
+    public static boolean endsWith(final CharSequence _str, final CharSequence _suffix) {
+        final int suffixLen = _suffix.length();
+        final int len = _str.length();
+        return suffixLen <= len && regionMatches(_str, len - suffixLen, _suffix, suffixLen, false);
+    }
+
+    /**
+     * Checks if a range of UTF-8 bytes ends with the encoding of the given suffix.
+     *
+     * @param _buf
+     *            the bytes
+     * @param _off
+     *            the offset of the range
+     * @param _len
+     *            the length of the range
+     * @param _suffix
+     *            the suffix
+     * @return true, if it does
+     */
+    public static boolean endsWithUtf8(final byte[] _buf, final int _off, final int _len, final CharSequence _suffix) {
+        final int suffixBytes = utf8Length(_suffix);
+        if (suffixBytes > _len) {
+            return false;
+        }
+        return _suffix.length() == compareUtf8(_buf, _off + _len - suffixBytes, suffixBytes, _suffix, false);
+    }
+
+    /**
+     * Checks if a range of characters equals the given text, ignoring case.
+     *
+     * @param _buf
+     *            the characters
+     * @param _off
+     *            the offset of the range
+     * @param _len
+     *            the length of the range
+     * @param _str
+     *            the text
+     * @return true, if they are equal
+     */
+    public static boolean equalsIgnoreCase(final char[] _buf, final int _off, final int _len, final CharSequence _str) {
+        return _len == _str.length() && regionMatches(_buf, _off, _str, _len, true);
+    }
+
+    /**
+     * Checks if two pieces of text are equal, ignoring case. Two <code>null</code>s are equal.
+     *
+     * @param _str1
+     *            the first text
+     * @param _str2
+     *            the second text
+     * @return true, if they are equal
+     */
+    public static boolean equalsIgnoreCase(final CharSequence _str1, final CharSequence _str2) {
+        if (_str1 == _str2) {
+            return true;
+        }
+        if (null == _str1 || null == _str2) {
+            return false;
+        }
+        final int len = _str1.length();
+        return len == _str2.length() && regionMatches(_str1, 0, _str2, len, true);
+    }
+
+    /**
+     * Checks if a range of UTF-8 bytes is the encoding of the given text, ignoring case.
+     *
+     * @param _buf
+     *            the bytes
+     * @param _off
+     *            the offset of the range
+     * @param _len
+     *            the length of the range
+     * @param _str
+     *            the text
+     * @return true, if they are equal
+     */
+    public static boolean equalsIgnoreCaseUtf8(final byte[] _buf, final int _off, final int _len, final CharSequence _str) {
+        return _str.length() == compareUtf8(_buf, _off, _len, _str, true);
+    }
+
+    /**
+     * Checks if a range of characters is blank.
+     *
+     * @param _buf
+     *            the characters
+     * @param _off
+     *            the offset of the range
+     * @param _len
+     *            the length of the range
+     * @return true, if every character is whitespace or a control character
+     */
+    public static boolean isBlank(final char[] _buf, final int _off, final int _len) {
+        return trimStart(_buf, _off, _len) == _off + _len;
+    }
+
+    /**
+     * Checks if text is <code>null</code> or blank.
+     *
+     * @param _str
+     *            the text
+     * @return true, if every character is whitespace or a control character
+     */
+    public static boolean isBlank(final CharSequence _str) {
+        return null == _str || isBlank(_str, 0, _str.length());
+    }
+
+    /**
+     * Checks if part of some text is blank.
+     *
+     * @param _str
+     *            the text
+     * @param _start
+     *            the start index, inclusive
+     * @param _end
+     *            the end index, exclusive
+     * @return true, if every character is whitespace or a control character
+     */
+    public static boolean isBlank(final CharSequence _str, final int _start, final int _end) {
+        return trimStart(_str, _start, _end) == _end;
+    }
+
+    /**
+     * Checks if a range of UTF-8 bytes is blank.
+     *
+     * @param _buf
+     *            the bytes
+     * @param _off
+     *            the offset of the range
+     * @param _len
+     *            the length of the range
+     * @return true, if every byte is ASCII whitespace or a control character
+     */
+    public static boolean isBlankUtf8(final byte[] _buf, final int _off, final int _len) {
+        return trimStartUtf8(_buf, _off, _len) == _off + _len;
+    }
+
+    private static boolean regionMatches(final char[] _buf, final int _off, final CharSequence _str, final int _len, final boolean _isIgnoringCase) {
+        for (int i = 0; i < _len; ++i) {
+            final char c1 = _buf[_off + i];
+            final char c2 = _str.charAt(i);
+            if (c1 != c2 && !(_isIgnoringCase && charsEqualIgnoreCase(c1, c2))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean regionMatches(final CharSequence _str, final int _off, final CharSequence _other, final int _len, final boolean _isIgnoringCase) {
+        for (int i = 0; i < _len; ++i) {
+            final char c1 = _str.charAt(_off + i);
+            final char c2 = _other.charAt(i);
+            if (c1 != c2 && !(_isIgnoringCase && charsEqualIgnoreCase(c1, c2))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks if a range of characters starts with the given prefix.
+     *
+     * @param _buf
+     *            the characters
+     * @param _off
+     *            the offset of the range
+     * @param _len
+     *            the length of the range
+     * @param _prefix
+     *            the prefix
+     * @return true, if it does
+     */
+    public static boolean startsWith(final char[] _buf, final int _off, final int _len, final CharSequence _prefix) {
+        final int prefixLen = _prefix.length();
+        return prefixLen <= _len && regionMatches(_buf, _off, _prefix, prefixLen, false);
+    }
+
+    /**
+     * Checks if text starts with the given prefix.
+     *
+     * @param _str
+     *            the text
+     * @param _prefix
+     *            the prefix
+     * @return true, if it does
+     */
+    public static boolean startsWith(final CharSequence _str, final CharSequence _prefix) {
+        final int prefixLen = _prefix.length();
+        return prefixLen <= _str.length() && regionMatches(_str, 0, _prefix, prefixLen, false);
+    }
+
+    /**
+     * Checks if a range of UTF-8 bytes starts with the encoding of the given prefix.
+     *
+     * @param _buf
+     *            the bytes
+     * @param _off
+     *            the offset of the range
+     * @param _len
+     *            the length of the range
+     * @param _prefix
+     *            the prefix
+     * @return true, if it does
+     */
+    public static boolean startsWithUtf8(final byte[] _buf, final int _off, final int _len, final CharSequence _prefix) {
+        final int prefixBytes = utf8Length(_prefix);
+        return prefixBytes <= _len && _prefix.length() == compareUtf8(_buf, _off, prefixBytes, _prefix, false);
+    }
+
+    /**
+     * Find the end of a range of characters without trailing blanks.
+     *
+     * @param _buf
+     *            the characters
+     * @param _off
+     *            the offset of the range
+     * @param _len
+     *            the length of the range
+     * @return the index after the last non-blank character, or <code>_off</code> if all are blank
+     */
+    public static int trimEnd(final char[] _buf, final int _off, final int _len) {
+        int end = _off + _len;
+        while (end > _off && _buf[end - 1] <= ' ') {
+            --end;
+        }
+        return end;
+    }
+
+    /**
+     * Find the end of part of some text without trailing blanks.
+     *
+     * @param _str
+     *            the text
+     * @param _start
+     *            the start index, inclusive
+     * @param _end
+     *            the end index, exclusive
+     * @return the index after the last non-blank character, or <code>_start</code> if all are blank
+     */
+    public static int trimEnd(final CharSequence _str, final int _start, final int _end) {
+        int end = _end;
+        while (end > _start && _str.charAt(end - 1) <= ' ') {
+            --end;
+        }
+        return end;
+    }
+
+    /**
+     * Find the end of a range of UTF-8 bytes without trailing blanks.
+     *
+     * @param _buf
+     *            the bytes
+     * @param _off
+     *            the offset of the range
+     * @param _len
+     *            the length of the range
+     * @return the index after the last non-blank byte, or <code>_off</code> if all are blank
+     */
+    public static int trimEndUtf8(final byte[] _buf, final int _off, final int _len) {
+        int end = _off + _len;
+        // Bytes of multi-byte sequences are all negative, so never blank
+        while (end > _off && _buf[end - 1] >= 0 && _buf[end - 1] <= ' ') {
+            --end;
+        }
+        return end;
+    }
+
+    /**
+     * Find the start of a range of characters without leading blanks.
+     *
+     * @param _buf
+     *            the characters
+     * @param _off
+     *            the offset of the range
+     * @param _len
+     *            the length of the range
+     * @return the index of the first non-blank character, or <code>_off + _len</code> if all are blank
+     */
+    public static int trimStart(final char[] _buf, final int _off, final int _len) {
+        final int end = _off + _len;
+        int start = _off;
+        while (start < end && _buf[start] <= ' ') {
+            ++start;
+        }
+        return start;
+    }
+
+    /**
+     * Find the start of part of some text without leading blanks.
+     *
+     * @param _str
+     *            the text
+     * @param _start
+     *            the start index, inclusive
+     * @param _end
+     *            the end index, exclusive
+     * @return the index of the first non-blank character, or <code>_end</code> if all are blank
+     */
+    public static int trimStart(final CharSequence _str, final int _start, final int _end) {
+        int start = _start;
+        while (start < _end && _str.charAt(start) <= ' ') {
+            ++start;
+        }
+        return start;
+    }
+
+    /**
+     * Find the start of a range of UTF-8 bytes without leading blanks.
+     *
+     * @param _buf
+     *            the bytes
+     * @param _off
+     *            the offset of the range
+     * @param _len
+     *            the length of the range
+     * @return the index of the first non-blank byte, or <code>_off + _len</code> if all are blank
+     */
+    public static int trimStartUtf8(final byte[] _buf, final int _off, final int _len) {
+        final int end = _off + _len;
+        int start = _off;
+        while (start < end && _buf[start] >= 0 && _buf[start] <= ' ') {
+            ++start;
+        }
+        return start;
+    }
+
+    private static int utf8Length(final CharSequence _str) {
+        final int len = _str.length();
+        int ret = 0;
+        for (int i = 0; i < len; ++i) {
+            final char c = _str.charAt(i);
+            if (c < 0x80) {
+                ++ret;
+            } else if (c < 0x800) {
+                ret += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(_str.charAt(i + 1))) {
+                ret += 4;
+                ++i;
+            } else {
+                ret += 3;
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Gets a {@link CharSequence} view of a range of characters, without copying them. Only the view itself is
+     * allocated, and nothing is copied until {@link Object#toString()} is called.
+     *
+     * @param _buf
+     *            the characters
+     * @param _off
+     *            the offset of the range
+     * @param _len
+     *            the length of the range
+     * @return the view
+     */
+    public static CharSequence view(final char[] _buf, final int _off, final int _len) {
+        if (_off < 0 || _len < 0 || _off + _len > _buf.length) {
+            throw new IndexOutOfBoundsException("offset " + _off + ", length " + _len + ", array length " + _buf.length);
+        }
+        return new CharArrayView(_buf, _off, _len);
+    }
+
+    private TextPredicates() {
+    }
+}
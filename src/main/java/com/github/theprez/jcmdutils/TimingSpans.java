@@ -0,0 +1,270 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+import java.util.Arrays;
+
+/**
+ * Where a run spent its time, as a tree of named spans; see {@link AppLogger#time(String)}. A span opened while
+ * another is open on the same thread becomes its child, and every span with the same name under the same parent
+ * is counted in one {@link LogHistogram}, so a span inside a loop adds one line to the summary, not one per
+ * iteration. Spans from different threads with the same path are merged.
+ * <br>
+ * Opening and closing a span does not allocate once a thread has reached its deepest nesting: each thread keeps a
+ * stack of reusable {@link Span} objects, and remembers the last span opened at each depth, so that repeating it
+ * doesn't have to search the tree.
+ */
+public class TimingSpans {
+
+    /**
+     * An open span, closed by {@link #close()}, typically by try-with-resources. A span must be closed on the
+     * thread that opened it, and only once: the object is reused for the next span opened at the same depth.
+     */
+    public static final class Span implements AutoCloseable {
+
+        /** Returned when timing is off; closing it does nothing. */
+        static final Span DISABLED = new Span(null, 0);
+
+        private final int m_depth;
+
+        private LogHistogram m_histogram;
+
+        private boolean m_isOpen = false;
+
+        private final ThreadSpans m_owner;
+
+        private long m_startNanos;
+
+        private Span(final ThreadSpans _owner, final int _depth) {
+            m_owner = _owner;
+            m_depth = _depth;
+        }
+
+        /**
+         * Close the span and record its duration. Any spans still open inside it are closed too.
+         */
+        @Override
+        public void close() {
+            if (m_isOpen) {
+                m_owner.end(this);
+            }
+        }
+    }
+
+    /** The spans open on one thread. */
+    private static final class ThreadSpans {
+
+        private Span[] m_frames = new Span[8];
+
+        private LogHistogram[] m_lastHistograms = new LogHistogram[8];
+
+        /** The last span opened at each depth: its name, its parent, and the node found for it. */
+        private String[] m_lastNames = new String[8];
+
+        private int[] m_lastNodes = new int[8];
+
+        private int[] m_lastParents = new int[8];
+
+        private int m_depth = 0;
+
+        /** The node of each open span, by depth; the root is at 0. */
+        private int[] m_nodes = new int[9];
+
+        private final TimingSpans m_tree;
+
+        ThreadSpans(final TimingSpans _tree) {
+            m_tree = _tree;
+        }
+
+        void end(final Span _span) {
+            final long now = System.nanoTime();
+            for (int i = m_depth - 1; i >= _span.m_depth; --i) {
+                final Span frame = m_frames[i];
+                if (frame.m_isOpen) {
+                    frame.m_histogram.record(now - frame.m_startNanos);
+                    frame.m_isOpen = false;
+                }
+            }
+            m_depth = _span.m_depth;
+        }
+
+        private void grow() {
+            final int newLen = m_frames.length * 2;
+            m_frames = Arrays.copyOf(m_frames, newLen);
+            m_lastHistograms = Arrays.copyOf(m_lastHistograms, newLen);
+            m_lastNames = Arrays.copyOf(m_lastNames, newLen);
+            m_lastNodes = Arrays.copyOf(m_lastNodes, newLen);
+            m_lastParents = Arrays.copyOf(m_lastParents, newLen);
+            m_nodes = Arrays.copyOf(m_nodes, newLen + 1);
+        }
+
+        Span start(final String _name) {
+            final int depth = m_depth;
+            if (depth == m_frames.length) {
+                grow();
+            }
+            final int parent = m_nodes[depth];
+            if (parent != m_lastParents[depth] || !_name.equals(m_lastNames[depth])) {
+                final int node = m_tree.child(parent, _name);
+                m_lastParents[depth] = parent;
+                m_lastNames[depth] = _name;
+                m_lastNodes[depth] = node;
+                m_lastHistograms[depth] = m_tree.histogramOf(node);
+            }
+            m_nodes[depth + 1] = m_lastNodes[depth];
+            Span ret = m_frames[depth];
+            if (null == ret) {
+                ret = m_frames[depth] = new Span(this, depth);
+            }
+            ret.m_histogram = m_lastHistograms[depth];
+            ret.m_isOpen = true;
+            m_depth = depth + 1;
+            ret.m_startNanos = System.nanoTime();
+            return ret;
+        }
+    }
+
+    private static final double NANOS_PER_MILLI = 1000000.0;
+
+    private static final int ROOT = 0;
+
+    // The tree, one node per distinct path, guarded by this object. Children are kept in the order first seen.
+
+    private int[] m_firstChildren = new int[16];
+
+    private LogHistogram[] m_histograms = new LogHistogram[16];
+
+    private int[] m_lastChildren = new int[16];
+
+    private String[] m_names = new String[16];
+
+    private int[] m_nextSiblings = new int[16];
+
+    private int[] m_parents = new int[16];
+
+    private int m_size = 1;
+
+    private final ThreadLocal<ThreadSpans> m_threadSpans = ThreadLocal.withInitial(() -> new ThreadSpans(this));
+
+    TimingSpans() {
+        m_names[ROOT] = "";
+        m_lastChildren[ROOT] = -1;
+        m_firstChildren[ROOT] = -1;
+        m_nextSiblings[ROOT] = -1;
+        m_parents[ROOT] = -1;
+        m_histograms[ROOT] = new LogHistogram();
+    }
+
+    private synchronized int child(final int _parent, final String _name) {
+        for (int node = m_firstChildren[_parent]; -1 != node; node = m_nextSiblings[node]) {
+            if (m_names[node].equals(_name)) {
+                return node;
+            }
+        }
+        if (m_size == m_names.length) {
+            final int newLen = m_size * 2;
+            m_firstChildren = Arrays.copyOf(m_firstChildren, newLen);
+            m_histograms = Arrays.copyOf(m_histograms, newLen);
+            m_lastChildren = Arrays.copyOf(m_lastChildren, newLen);
+            m_names = Arrays.copyOf(m_names, newLen);
+            m_nextSiblings = Arrays.copyOf(m_nextSiblings, newLen);
+            m_parents = Arrays.copyOf(m_parents, newLen);
+        }
+        final int ret = m_size++;
+        m_names[ret] = _name;
+        m_histograms[ret] = new LogHistogram();
+        m_firstChildren[ret] = -1;
+        m_lastChildren[ret] = -1;
+        m_nextSiblings[ret] = -1;
+        m_parents[ret] = _parent;
+        if (-1 == m_lastChildren[_parent]) {
+            m_firstChildren[_parent] = ret;
+        } else {
+            m_nextSiblings[m_lastChildren[_parent]] = ret;
+        }
+        m_lastChildren[_parent] = ret;
+        return ret;
+    }
+
+    private int depth(final int _node) {
+        int ret = 0;
+        for (int node = _node; ROOT != node; node = m_parents[node]) {
+            ++ret;
+        }
+        return ret;
+    }
+
+    private synchronized LogHistogram histogramOf(final int _node) {
+        return m_histograms[_node];
+    }
+
+    /**
+     * Gets the histogram of a span, by its path from the outermost span.
+     *
+     * @param _path
+     *            the names of the span and its enclosing spans, outermost first
+     * @return the durations, in nanoseconds, or <code>null</code> if no such span has been opened
+     */
+    public synchronized LogHistogram getHistogram(final String... _path) {
+        int node = ROOT;
+        for (final String name : _path) {
+            int next = m_firstChildren[node];
+            while (-1 != next && !m_names[next].equals(name)) {
+                next = m_nextSiblings[next];
+            }
+            if (-1 == next) {
+                return null;
+            }
+            node = next;
+        }
+        return ROOT == node ? null : m_histograms[node];
+    }
+
+    /**
+     * Print a summary to the given logger's error stream, which keeps it apart from the program's own output: one
+     * line per span, indented under its parent, with the count, total, p50, p99 and max.
+     *
+     * @param _logger
+     *            the logger
+     */
+    public synchronized void print(final AppLogger _logger) {
+        int nameWidth = 24;
+        for (int node = m_firstChildren[ROOT]; -1 != node; node = nextInTree(node)) {
+            nameWidth = Math.max(nameWidth, 2 * (depth(node) - 1) + m_names[node].length());
+        }
+        _logger.getErr().printf("%-" + nameWidth + "s %8s %12s %10s %10s %10s\n", "span", "count", "total(ms)", "p50(ms)", "p99(ms)", "max(ms)");
+        final String format = "%-" + nameWidth + "s %8d %12.3f %10.3f %10.3f %10.3f\n";
+        for (int node = m_firstChildren[ROOT]; -1 != node; node = nextInTree(node)) {
+            final LogHistogram h = m_histograms[node];
+            final String name = StringUtils.spacePad("", 2 * (depth(node) - 1)) + m_names[node];
+            _logger.getErr().printf(format, name, h.getCount(), h.getTotal() / NANOS_PER_MILLI, h.getValueAtPercentile(50) / NANOS_PER_MILLI, h.getValueAtPercentile(99) / NANOS_PER_MILLI, h.getMax() / NANOS_PER_MILLI);
+        }
+    }
+
+    /** The node after the given one in a depth-first walk, or -1 at the end. */
+    private int nextInTree(final int _node) {
+        if (-1 != m_firstChildren[_node]) {
+            return m_firstChildren[_node];
+        }
+        for (int node = _node; ROOT != node; node = m_parents[node]) {
+            if (-1 != m_nextSiblings[node]) {
+                return m_nextSiblings[node];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Discard everything recorded so far. Spans already seen stay in the tree, with a count of 0.
+     */
+    public synchronized void reset() {
+        for (int i = 0; i < m_size; ++i) {
+            m_histograms[i].reset();
+        }
+    }
+
+    Span start(final String _name) {
+        return m_threadSpans.get().start(_name);
+    }
+}
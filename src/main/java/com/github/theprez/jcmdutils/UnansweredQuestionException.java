@@ -0,0 +1,37 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+/**
+ * Thrown by {@link ConsoleQuestionAsker} when a question can't be answered: no {@link AnswerProvider} has an
+ * acceptable answer and asking at the terminal is not allowed.
+ */
+public class UnansweredQuestionException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String m_key;
+
+    /**
+     * Instantiates a new exception.
+     *
+     * @param _key
+     *            the question key, see {@link AnswerProvider#keyFor(String)}
+     * @param _message
+     *            the message
+     */
+    public UnansweredQuestionException(final String _key, final String _message) {
+        super(_message);
+        m_key = _key;
+    }
+
+    /**
+     * Gets the key of the question that went unanswered.
+     *
+     * @return the question key
+     */
+    public String getKey() {
+        return m_key;
+    }
+}
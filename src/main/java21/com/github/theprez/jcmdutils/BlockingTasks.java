@@ -0,0 +1,29 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+/**
+ * Runs the library's blocking work, such as pumping a child process's output or reading the console, each task on
+ * a thread of its own. This is the Java 21+ version, which uses virtual threads: they are cheaper to start than
+ * platform threads, and give up their carrier while waiting on a lock or a queue. A read from a child process's
+ * pipe still occupies a carrier thread for as long as it blocks.
+ */
+final class BlockingTasks {
+
+    /**
+     * Start a task.
+     *
+     * @param _name
+     *            the name of the thread
+     * @param _task
+     *            the task
+     * @return the (started) thread running the task, which never keeps the JVM from exiting
+     */
+    static Thread start(final String _name, final Runnable _task) {
+        return Thread.ofVirtual().name(_name).start(_task);
+    }
+
+    private BlockingTasks() {
+    }
+}
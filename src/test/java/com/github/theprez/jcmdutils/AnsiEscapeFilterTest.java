@@ -0,0 +1,73 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.theprez.jcmdutils.StringUtils.TerminalColor;
+
+public class AnsiEscapeFilterTest {
+
+    private static final String STYLED = "\u001B[1;31mred\u001B[0m plain \u001B]0;title\u0007text\u001B]8;;http://x\u001B\\link\u001B(B end\u001B[38;2;1;2;3mrgb";
+
+    private static final String STYLED_STRIPPED = "red plain textlink endrgb";
+
+    @Test
+    public void outputStreamSplitsAnywhere() throws IOException {
+        final byte[] bytes = STYLED.getBytes(StandardCharsets.UTF_8);
+        for (int split = 0; split <= bytes.length; ++split) {
+            final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+            try (OutputStream out = new AnsiStrippingOutputStream(buf)) {
+                out.write(bytes, 0, split);
+                for (int i = split; i < bytes.length; ++i) {
+                    out.write(bytes[i]);
+                }
+            }
+            assertArrayEquals(STYLED_STRIPPED.getBytes(StandardCharsets.UTF_8), buf.toByteArray(), "split at " + split);
+        }
+    }
+
+    @Test
+    public void strip() {
+        assertEquals(STYLED_STRIPPED, AnsiEscapeFilter.strip(STYLED));
+        final String plain = "nothing to strip: ü";
+        assertSame(plain, AnsiEscapeFilter.strip(plain));
+        assertEquals("done", AnsiEscapeFilter.strip("\u001B[2K\u001B[1Gdone"));
+        assertEquals("x", TerminalColor.stripCodesFromString(TerminalColor.CYAN.getCode() + "x\u001B[0m"));
+    }
+
+    @Test
+    public void utf8IsNotMistakenForC1Controls() throws IOException {
+        // The continuation bytes of these characters are in the range 0x80-0x9f
+        final byte[] bytes = "€ – ‘’".getBytes(StandardCharsets.UTF_8);
+        final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        try (OutputStream out = new AnsiStrippingOutputStream(buf)) {
+            out.write(bytes);
+        }
+        assertArrayEquals(bytes, buf.toByteArray());
+    }
+
+    @Test
+    public void writerSplitsAnywhere() throws IOException {
+        for (int split = 0; split <= STYLED.length(); ++split) {
+            final StringWriter buf = new StringWriter();
+            try (Writer out = new AnsiStrippingWriter(buf)) {
+                out.write(STYLED, 0, split);
+                out.write(STYLED.substring(split).toCharArray());
+            }
+            assertEquals(STYLED_STRIPPED, buf.toString(), "split at " + split);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.jupiter.api.Test;
+
+public class AnswerProviderTest {
+
+    @Test
+    public void environment() {
+        // Every environment has a PATH
+        assertEquals(System.getenv("PATH"), AnswerProvider.fromEnvironment("").getAnswer("path", "Path?"));
+        assertNull(AnswerProvider.fromEnvironment("JCMDUTILS_TEST_NO_SUCH_").getAnswer("path", "Path?"));
+    }
+
+    @Test
+    public void keyFor() {
+        assertEquals("enter.the.host.name", AnswerProvider.keyFor("Enter the host name [localhost]:"));
+        assertEquals("port", AnswerProvider.keyFor("\u001B[32mPort?\u001B[0m "));
+        assertEquals("what.s.your.name", AnswerProvider.keyFor("What's your  name >"));
+        assertEquals("use.v2.api", AnswerProvider.keyFor("  Use v2 API? [y/N]  "));
+        assertEquals("1", AnswerProvider.keyFor("1> "));
+        assertEquals("", AnswerProvider.keyFor("[x]:"));
+    }
+
+    @Test
+    public void responseFile() throws IOException {
+        final File file = File.createTempFile("answers", ".txt");
+        try {
+            Files.write(file.toPath(), "# answers\n\nEnter the host name [localhost]: = example.com\n  port=8080 \n".getBytes(StandardCharsets.UTF_8));
+            final AnswerProvider provider = AnswerProvider.fromResponseFile(file);
+            assertTrue(provider.isKeyed());
+            assertEquals("example.com", provider.getAnswer("enter.the.host.name", ""));
+            assertEquals("8080", provider.getAnswer("port", ""));
+            assertNull(provider.getAnswer("user", ""));
+
+            Files.write(file.toPath(), "port=1\nno equals sign\n".getBytes(StandardCharsets.UTF_8));
+            final IOException e = assertThrows(IOException.class, () -> AnswerProvider.fromResponseFile(file));
+            assertTrue(e.getMessage().endsWith(":2: expected key=value"), e.getMessage());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void script() {
+        final AnswerProvider provider = AnswerProvider.fromScript(new ByteArrayInputStream("first\n\nthird".getBytes(StandardCharsets.UTF_8)));
+        assertFalse(provider.isKeyed());
+        assertEquals("first", provider.getAnswer("a", ""));
+        assertEquals("", provider.getAnswer("b", ""));
+        assertEquals("third", provider.getAnswer("c", ""));
+        assertNull(provider.getAnswer("d", ""));
+        assertNull(provider.getAnswer("d", ""));
+    }
+}
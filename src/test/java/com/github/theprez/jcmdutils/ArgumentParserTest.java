@@ -0,0 +1,136 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.theprez.jcmdutils.ArgumentParser.Option;
+
+public class ArgumentParserTest {
+
+    private final Option<Boolean> m_force;
+
+    private final Option<Integer> m_jobs;
+
+    private final Option<String> m_out;
+
+    private final Option<String> m_output;
+
+    private final ArgumentParser m_parser;
+
+    private final Option<Boolean> m_extract;
+
+    public ArgumentParserTest() {
+        final ArgumentParser.Builder builder = ArgumentParser.builder("test").setPositionalUsage("FILE...");
+        m_force = builder.flag('f', "force", "Overwrite");
+        m_extract = builder.flag('x', "extract", "Extract");
+        m_jobs = builder.intOption('j', "jobs", "N", "Jobs");
+        m_out = builder.stringOption('O', "out", "DIR", "Directory");
+        m_output = builder.stringOption('o', "output", "FILE", "File");
+        m_parser = builder.build();
+    }
+
+    @Test
+    public void ambiguousAbbreviation() {
+        // "--o" could be --out or --output
+        final ArgumentException e = assertThrows(ArgumentException.class, () -> m_parser.parse("--o", "x"));
+        assertTrue(e.getMessage().contains("--out, --output"), e.getMessage());
+    }
+
+    @Test
+    public void clusteredShortOptions() {
+        final ParsedArguments parsed = m_parser.parse("-xvfj4", "-ofile", "a");
+        assertTrue(parsed.get(m_extract));
+        assertTrue(parsed.isVerbose());
+        assertTrue(parsed.get(m_force));
+        assertEquals(Integer.valueOf(4), parsed.get(m_jobs));
+        assertEquals("file", parsed.get(m_output));
+        assertEquals(Arrays.asList("a"), parsed.getPositional());
+    }
+
+    @Test
+    public void doubleDashEndsOptions() {
+        final ParsedArguments parsed = m_parser.parse("-f", "--", "-x", "--jobs=3", "@nofile");
+        assertTrue(parsed.get(m_force));
+        assertFalse(parsed.get(m_extract));
+        assertEquals(Arrays.asList("-x", "--jobs=3", "@nofile"), parsed.getPositional());
+    }
+
+    @Test
+    public void errors() {
+        assertThrows(ArgumentException.class, () -> m_parser.parse("--nope"));
+        assertThrows(ArgumentException.class, () -> m_parser.parse("-z"));
+        assertThrows(ArgumentException.class, () -> m_parser.parse("--force=yes"));
+        assertThrows(ArgumentException.class, () -> m_parser.parse("--jobs"));
+        assertThrows(ArgumentException.class, () -> m_parser.parse("-j", "many"));
+    }
+
+    @Test
+    public void exactNameBeatsLongerOne() {
+        // "out" is a prefix of "output", but also a name in its own right
+        final ParsedArguments parsed = m_parser.parse("--out", "dir");
+        assertEquals("dir", parsed.get(m_out));
+        assertNull(parsed.get(m_output));
+    }
+
+    @Test
+    public void longOptionsAndAbbreviations() {
+        final ParsedArguments parsed = m_parser.parse("--for", "--jobs=2", "--outp", "file", "--ext", "--verb");
+        assertTrue(parsed.get(m_force));
+        assertTrue(parsed.get(m_extract));
+        assertTrue(parsed.isVerbose());
+        assertEquals(Integer.valueOf(2), parsed.get(m_jobs));
+        assertEquals("file", parsed.get(m_output));
+    }
+
+    @Test
+    public void negativeNumbersArePositional() {
+        final ParsedArguments parsed = m_parser.parse("-5", "-j", "-1", "-2.5");
+        assertEquals(Integer.valueOf(-1), parsed.get(m_jobs));
+        assertEquals(Arrays.asList("-5", "-2.5"), parsed.getPositional());
+    }
+
+    @Test
+    public void repeatedOptions() {
+        final ParsedArguments parsed = m_parser.parse("-j1", "--jobs", "2", "-ff");
+        assertEquals(Arrays.asList(1, 2), parsed.getAll(m_jobs));
+        assertEquals(Integer.valueOf(2), parsed.get(m_jobs));
+        assertEquals(2, parsed.getCount(m_force));
+        assertEquals("default", parsed.get(m_out, "default"));
+    }
+
+    @Test
+    public void responseFile() throws IOException {
+        final File file = File.createTempFile("args", ".txt");
+        try {
+            Files.write(file.toPath(), "-f 'two words' --jobs 3\n".getBytes(StandardCharsets.UTF_8));
+            final ParsedArguments parsed = m_parser.parse("@" + file.getPath(), "last");
+            assertTrue(parsed.get(m_force));
+            assertEquals(Integer.valueOf(3), parsed.get(m_jobs));
+            assertEquals(Arrays.asList("two words", "last"), parsed.getPositional());
+        } finally {
+            file.delete();
+        }
+        assertThrows(ArgumentException.class, () -> m_parser.parse("@" + file.getPath()));
+    }
+
+    @Test
+    public void optionsFromAnotherParserAreRejected() {
+        final Option<Boolean> other = ArgumentParser.builder("other").flag('f', "force", "Overwrite");
+        final ParsedArguments parsed = m_parser.parse();
+        assertThrows(IllegalArgumentException.class, () -> parsed.get(other));
+    }
+}
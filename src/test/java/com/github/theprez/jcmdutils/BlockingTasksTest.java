@@ -0,0 +1,29 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+public class BlockingTasksTest {
+
+    @Test
+    public void taskRunsOnANamedDaemonThread() throws InterruptedException {
+        final CountDownLatch ran = new CountDownLatch(1);
+        final String[] name = new String[1];
+        final Thread t = BlockingTasks.start("jcmdutils-test", () -> {
+            name[0] = Thread.currentThread().getName();
+            ran.countDown();
+        });
+        assertTrue(t.isDaemon());
+        assertTrue(ran.await(10, TimeUnit.SECONDS));
+        t.join();
+        assertEquals("jcmdutils-test", name[0]);
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.theprez.jcmdutils.ProcessLauncher.CaptureOptions;
+import com.github.theprez.jcmdutils.ProcessLauncher.ProcessResult;
+
+public class CapturedOutputTest {
+
+    private static CapturedOutput read(final OutputRetentionPolicy _policy, final String _text) throws IOException {
+        final CapturedOutput ret = new CapturedOutput(_policy);
+        ret.readFrom(new ByteArrayInputStream(_text.getBytes(StandardCharsets.UTF_8)), null);
+        return ret;
+    }
+
+    private static String repeat(final char _c, final int _count) {
+        final char[] ret = new char[_count];
+        Arrays.fill(ret, _c);
+        return new String(ret);
+    }
+
+    private static CapturedOutput capture(final OutputRetentionPolicy _policy, final int _lines) {
+        final CapturedOutput ret = new CapturedOutput(_policy);
+        for (int i = 1; i <= _lines; ++i) {
+            ret.add("line " + i);
+        }
+        return ret;
+    }
+
+    @Test
+    public void headAndTailBytes() {
+        // "line N" is 7 bytes with its terminator
+        final CapturedOutput out = capture(OutputRetentionPolicy.headAndTailBytes(14, 20), 10);
+        assertEquals(Arrays.asList("line 1", "line 2"), out.getHead());
+        assertEquals(Arrays.asList("line 9", "line 10"), out.getTail());
+        assertEquals(6, out.getOmittedLineCount());
+        assertEquals(10, out.getTotalLines());
+    }
+
+    @Test
+    public void headAndTailLines() {
+        final CapturedOutput out = capture(OutputRetentionPolicy.headAndTailLines(2, 3), 10);
+        assertEquals(Arrays.asList("line 1", "line 2"), out.getHead());
+        assertEquals(Arrays.asList("line 8", "line 9", "line 10"), out.getTail());
+        assertEquals(Arrays.asList("line 1", "line 2", "line 8", "line 9", "line 10"), out.getLines());
+        assertEquals(5, out.getOmittedLineCount());
+    }
+
+    @Test
+    public void lineTooLongForTheTail() {
+        final CapturedOutput out = new CapturedOutput(OutputRetentionPolicy.headAndTailBytes(0, 10));
+        out.add("short");
+        out.add("far too long for the tail");
+        assertEquals(Collections.emptyList(), out.getLines());
+        out.add("end");
+        assertEquals(Arrays.asList("end"), out.getTail());
+        assertEquals(2, out.getOmittedLineCount());
+    }
+
+    @Test
+    public void lineEndings() throws IOException {
+        // The chunk boundary falls between the \r and \n of the third line
+        final String first = repeat('a', 8 * 1024 - 4);
+        final CapturedOutput out = read(OutputRetentionPolicy.unbounded(), first + "\nb\r\nc\rd\n\ne");
+        assertEquals(Arrays.asList(first, "b", "c", "d", "", "e"), out.getLines());
+        assertEquals(0, read(OutputRetentionPolicy.unbounded(), "").getTotalLines());
+        assertEquals(Arrays.asList(""), read(OutputRetentionPolicy.unbounded(), "\r\n").getLines());
+    }
+
+    @Test
+    public void linesAreNotModifiable() {
+        final CapturedOutput out = capture(OutputRetentionPolicy.unbounded(), 2);
+        assertThrows(UnsupportedOperationException.class, () -> out.getLines().clear());
+        assertEquals(2, out.getLines().size());
+    }
+
+    @Test
+    public void longLinesAreCutWhenBounded() throws IOException {
+        final int max = OutputRetentionPolicy.MAX_LINE_LENGTH;
+        final String text = repeat('x', 3 * max) + "\nshort\n" + repeat('y', max) + "\n" + repeat('z', max + 1);
+        final CapturedOutput out = read(OutputRetentionPolicy.headAndTailLines(10, 10), text);
+        assertEquals(Arrays.asList(repeat('x', max), "short", repeat('y', max), repeat('z', max)), out.getLines());
+        assertEquals(2, out.getTruncatedLineCount());
+        // Everything is still counted
+        assertEquals(5L * max + 9, out.getTotalBytes());
+
+        // A character is never split in two
+        final String emoji = repeat('x', max - 1) + "\ud83d\ude00";
+        assertEquals(repeat('x', max - 1), read(OutputRetentionPolicy.headAndTailLines(1, 1), emoji).getLines().get(0));
+
+        final CapturedOutput unbounded = read(OutputRetentionPolicy.unbounded(), text);
+        assertEquals(3 * max, unbounded.getLines().get(0).length());
+        assertEquals(0, unbounded.getTruncatedLineCount());
+    }
+
+    @Test
+    public void meterCountsRawBytes() throws IOException {
+        final CapturedOutput out = capture(OutputRetentionPolicy.unbounded(), 0);
+        assertEquals(-1, out.getFirstByteNanos());
+        final long start = System.nanoTime();
+        try (InputStream in = out.meter(new ByteArrayInputStream("a\r\nbé\n".getBytes(StandardCharsets.UTF_8)))) {
+            assertEquals('a', in.read());
+            assertEquals(6, in.read(new byte[16], 0, 16));
+            assertEquals(-1, in.read());
+        }
+        // Line terminators count, as they came, unlike the lines added
+        assertEquals(7, out.getTotalBytes());
+        assertTrue(out.getFirstByteNanos() >= start);
+    }
+
+    @Test
+    public void negativeLimitsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> OutputRetentionPolicy.headAndTailLines(-1, 1));
+        assertThrows(IllegalArgumentException.class, () -> OutputRetentionPolicy.headAndTailBytes(1, -1));
+    }
+
+    @Test
+    public void processOutputIsBounded() throws IOException {
+        assumeTrue(new File("/bin/sh").canExecute());
+        final CaptureOptions options = new CaptureOptions().setRetentionPolicy(OutputRetentionPolicy.headAndTailLines(1, 1));
+        final ProcessResult result = ProcessLauncher.exec(options, "/bin/sh", "-c", "for i in 1 2 3 4 5; do echo $i; echo e$i >&2; done");
+        assertEquals(0, result.getExitStatus());
+        assertEquals(Arrays.asList("1", "5"), result.getStdout());
+        assertEquals(Arrays.asList("e1", "e5"), result.getStderr());
+        assertEquals(5, result.getStdoutLineCount());
+        assertEquals(3, result.getStderrOmittedLineCount());
+        assertEquals(10, result.getStdoutByteCount());
+        assertEquals(0, result.getStdoutTruncatedLineCount() + result.getStderrTruncatedLineCount());
+    }
+
+    @Test
+    public void unbounded() {
+        final CapturedOutput out = capture(OutputRetentionPolicy.unbounded(), 1000);
+        assertEquals(1000, out.getLines().size());
+        assertEquals(0, out.getOmittedLineCount());
+        assertTrue(out.getTail().isEmpty());
+        assertEquals(8, CapturedOutput.utf8LineLength("abé€"));
+        assertEquals(5, CapturedOutput.utf8LineLength("😀"));
+    }
+}
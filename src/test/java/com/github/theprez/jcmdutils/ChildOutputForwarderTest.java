@@ -0,0 +1,79 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class ChildOutputForwarderTest {
+
+    private static InputStream streamOf(final String _text) {
+        return new ByteArrayInputStream(_text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void chunksFromManyThreadsStayWhole() throws InterruptedException {
+        final RecordingLogger logger = new RecordingLogger(true);
+        final List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < 4; ++t) {
+            final String name = "t" + t;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 1000; ++i) {
+                    logger.publishChunk_verbose(name + " first\n" + name + " second", false);
+                }
+            }));
+        }
+        for (final Thread t : threads) {
+            t.start();
+        }
+        for (final Thread t : threads) {
+            t.join();
+        }
+        final String[] lines = logger.getOutText().split("\n");
+        assertEquals(8000, lines.length);
+        for (int i = 0; i < lines.length; i += 2) {
+            // The second line of a chunk always comes right after the first
+            assertEquals(lines[i].replace(" first", " second"), lines[i + 1]);
+        }
+    }
+
+    @Test
+    public void drainsWhenNotVerbose() {
+        final RecordingLogger logger = new RecordingLogger(false);
+        final InputStream in = streamOf("one\ntwo\n");
+        new ChildOutputForwarder("ls", logger).forward(in, false);
+        assertEquals("", logger.getOutText());
+        assertEquals("", logger.getErrText());
+    }
+
+    @Test
+    public void forwardsPrefixedLines() {
+        final RecordingLogger logger = new RecordingLogger(true);
+        final ChildOutputForwarder forwarder = new ChildOutputForwarder("ls", logger);
+        forwarder.forward(streamOf("one\ntwo\n"), false);
+        forwarder.forward(streamOf("oops"), true);
+        assertEquals("child process ls:one\nchild process ls:two\n", logger.getOutText());
+        assertEquals("child process ls:oops\n", logger.getErrText());
+    }
+
+    @Test
+    public void longOutputIsSplitIntoChunks() {
+        final RecordingLogger logger = new RecordingLogger(true);
+        final StringBuilder text = new StringBuilder();
+        final StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 1000; ++i) {
+            text.append(i).append('\n');
+            expected.append("child process seq:").append(i).append('\n');
+        }
+        new ChildOutputForwarder("seq", logger).forward(streamOf(text.toString()), false);
+        assertEquals(expected.toString(), logger.getOutText());
+    }
+}
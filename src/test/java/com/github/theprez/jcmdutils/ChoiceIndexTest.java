@@ -0,0 +1,74 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class ChoiceIndexTest {
+
+    private final ChoiceIndex m_index = ChoiceIndex.of("Apple", "apricot", "banana", "BAND", "cherry", "apple");
+
+    @Test
+    public void caseInsensitiveDuplicatesAreDropped() {
+        assertEquals(Arrays.asList("Apple", "apricot", "banana", "BAND", "cherry"), m_index.getChoices());
+        assertEquals(5, m_index.size());
+        assertEquals("BAND", m_index.get(3));
+    }
+
+    @Test
+    public void prefixes() {
+        assertEquals(Arrays.asList("Apple", "apricot"), m_index.getChoicesStartingWith("AP", 10));
+        assertEquals(Arrays.asList("banana"), m_index.getChoicesStartingWith("ban", 1));
+        assertEquals(2, m_index.countChoicesStartingWith("ban"));
+        assertEquals(0, m_index.countChoicesStartingWith("z"));
+        assertTrue(m_index.getChoicesStartingWith("a", 0).isEmpty());
+        assertTrue(m_index.getChoicesStartingWith("a", -1).isEmpty());
+    }
+
+    @Test
+    public void resolve() {
+        assertEquals("Apple", m_index.resolve(" apple "));
+        assertEquals("apricot", m_index.resolve("apr"));
+        assertEquals("cherry", m_index.resolve("C"));
+        // An exact match wins over a longer choice with the same prefix
+        assertEquals("BAND", m_index.resolve("band"));
+        assertNull(m_index.resolve("ap"));
+        assertNull(m_index.resolve("durian"));
+        assertNull(m_index.resolve("  "));
+    }
+
+    @Test
+    public void suggest() {
+        assertEquals("banana", m_index.suggest("bananna", 3).get(0));
+        assertEquals("cherry", m_index.suggest("chery", 1).get(0));
+        assertEquals(1, m_index.suggest("aple", 1).size());
+        assertTrue(m_index.suggest("xyzzy", 3).isEmpty());
+    }
+
+    @Test
+    public void suggestWithNoRoom() {
+        // A choice scores high enough to be kept, but there is nowhere to keep it
+        assertTrue(m_index.suggest("banana", 0).isEmpty());
+        assertTrue(m_index.suggest("banana", -1).isEmpty());
+    }
+
+    @Test
+    public void suggestAmongManyWithACommonPrefix() {
+        final List<String> choices = new ArrayList<String>();
+        for (int i = 0; i < 5000; ++i) {
+            choices.add("item-" + i);
+        }
+        choices.add("item-special");
+        final ChoiceIndex index = ChoiceIndex.of(choices);
+        assertEquals("item-special", index.suggest("item-spceial", 1).get(0));
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.github.theprez.jcmdutils.CommandWatcher.ChangeSummary;
+
+public class CommandWatcherTest {
+
+    private File m_file;
+
+    @AfterEach
+    public void deleteFile() {
+        m_file.delete();
+    }
+
+    @BeforeEach
+    public void createFile() throws IOException {
+        assumeTrue(new File("/bin/sh").canExecute());
+        m_file = File.createTempFile("watched", ".txt");
+    }
+
+    private void write(final String _text) throws IOException {
+        Files.write(m_file.toPath(), _text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void exitStatus() throws IOException {
+        write("x\n");
+        final ChangeSummary summary = new CommandWatcher(new RecordingLogger(false), "/bin/sh", "-c", "cat \"$0\"; exit 4", m_file.getPath()).runOnce();
+        assertEquals(4, summary.getExitStatus());
+    }
+
+    @Test
+    public void onlyChangesAreReported() throws IOException {
+        final RecordingLogger logger = new RecordingLogger(false);
+        final CommandWatcher watcher = new CommandWatcher(logger, "cat", m_file.getPath());
+        write("a\nb\nc\n");
+        ChangeSummary summary = watcher.runOnce();
+        assertTrue(summary.isChanged());
+        assertEquals(3, summary.getAddedLineCount());
+        assertEquals(0, summary.getRemovedLineCount());
+
+        summary = watcher.runOnce();
+        assertFalse(summary.isChanged());
+        assertEquals(0, summary.getAddedLineCount());
+
+        write("a\nB\nc\nd\n");
+        final int before = logger.getOutText().length();
+        summary = watcher.runOnce();
+        assertTrue(summary.isChanged());
+        assertEquals(2, summary.getAddedLineCount());
+        assertEquals(1, summary.getRemovedLineCount());
+        final String out = logger.getOutText().substring(before);
+        assertTrue(out.startsWith("cat: 2 line(s) added, 1 line(s) removed\n"), out);
+        assertTrue(out.contains("+ B\n"), out);
+        assertTrue(out.contains("+ d\n"), out);
+        assertTrue(out.contains("- b\n"), out);
+        // The whole diff goes to one stream, in order
+        assertTrue(out.indexOf("- b\n") < out.indexOf("+ d\n"), out);
+        assertEquals("", logger.getErrText());
+    }
+
+    @Test
+    public void summaryOnly() throws IOException {
+        final RecordingLogger logger = new RecordingLogger(false);
+        final CommandWatcher watcher = new CommandWatcher(logger, "cat", m_file.getPath()).setSummaryOnly(true);
+        write("a\n");
+        watcher.runOnce();
+        write("b\n");
+        watcher.runOnce();
+        assertEquals("cat: 1 line(s) added, 0 line(s) removed\ncat: 1 line(s) added, 1 line(s) removed\n", logger.getOutText());
+        assertEquals("", logger.getErrText());
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+public class ConsoleQuestionAskerTest {
+
+    /** Answers from a fixed map of keys, like a response file. */
+    private static AnswerProvider keyed(final String... _keysAndAnswers) {
+        return (_key, _prompt) -> {
+            for (int i = 0; i < _keysAndAnswers.length; i += 2) {
+                if (_keysAndAnswers[i].equals(_key)) {
+                    return _keysAndAnswers[i + 1];
+                }
+            }
+            return null;
+        };
+    }
+
+    private static AnswerProvider script(final String _lines) {
+        return AnswerProvider.fromScript(new ByteArrayInputStream(_lines.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private final RecordingLogger m_logger = new RecordingLogger(false);
+
+    @Test
+    public void keyedAnswersComeFirst() throws Exception {
+        final ConsoleQuestionAsker asker = new ConsoleQuestionAsker().addAnswerProvider(keyed("host.name", "example.com", "port", "8080")).addAnswerProvider(script("yes\nbob\n"));
+        assertEquals("example.com", asker.askStringQuestion(m_logger, "localhost", "Host name"));
+        assertEquals(8080, asker.askIntQuestion(m_logger, null, "Port"));
+        assertTrue(asker.askBooleanQuestion(m_logger, null, "Continue?"));
+        assertEquals("bob", asker.askUser("User: "));
+    }
+
+    @Test
+    public void noAnswerWithoutFallback() {
+        final ConsoleQuestionAsker asker = new ConsoleQuestionAsker().addAnswerProvider(keyed()).setInteractiveFallback(false);
+        final UnansweredQuestionException e = assertThrows(UnansweredQuestionException.class, () -> asker.askStringQuestion(m_logger, null, "Host name [%s]:", "localhost"));
+        assertEquals("host.name", e.getKey());
+    }
+
+    @Test
+    public void rejectedKeyedAnswerIsNotRetried() {
+        final ConsoleQuestionAsker asker = new ConsoleQuestionAsker().addAnswerProvider(keyed("port", "eighty"));
+        final UnansweredQuestionException e = assertThrows(UnansweredQuestionException.class, () -> asker.askIntQuestion(m_logger, null, "Port"));
+        assertEquals("port", e.getKey());
+    }
+
+    @Test
+    public void rejectedScriptedAnswerIsRetried() {
+        final ConsoleQuestionAsker asker = new ConsoleQuestionAsker().addAnswerProvider(script("eighty\n\n80\n"));
+        assertEquals(80, asker.askIntQuestion(m_logger, null, "Port"));
+        assertTrue(m_logger.getErrText().contains("Must be 'an integer value'"), m_logger.getErrText());
+    }
+
+    @Test
+    public void providedAnswerIsNotDelayedByTheDeadline() {
+        final ConsoleQuestionAsker asker = new ConsoleQuestionAsker().addAnswerProvider(script("bob\n")).setPromptTimeout(60000);
+        final long start = System.nanoTime();
+        assertEquals("bob", asker.askStringQuestion(m_logger, "alice", "Name"));
+        assertEquals("bob", new ConsoleQuestionAsker().addAnswerProvider(keyed("name", "bob")).askStringQuestion(m_logger, null, 60000, "Name"));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(30));
+    }
+
+    @Test
+    public void timeoutException() {
+        final PromptTimeoutException e = new PromptTimeoutException("host.name", 1500);
+        assertEquals("host.name", e.getKey());
+        assertEquals(1500, e.getTimeoutMillis());
+        assertTrue(e.getMessage().contains("1500 ms"), e.getMessage());
+        // Callers that only handle unanswered questions handle a timeout too
+        assertTrue(e instanceof UnansweredQuestionException);
+    }
+
+    @Test
+    public void keyedListIsCommaSeparated() {
+        final ConsoleQuestionAsker asker = new ConsoleQuestionAsker().addAnswerProvider(keyed("hosts", " a, b ,,a,c ")).setInteractiveFallback(false);
+        assertEquals(Arrays.asList("a", "b", "a", "c"), asker.askListOfStringsQuestion(m_logger, "Hosts"));
+        final List<String> unique = new ArrayList<String>();
+        asker.iterateListOfStringsQuestion(m_logger, "Hosts", true).forEachRemaining(unique::add);
+        assertEquals(Arrays.asList("a", "b", "c"), unique);
+    }
+
+    @Test
+    public void scriptedListEndsAtABlankLine() {
+        final ConsoleQuestionAsker asker = new ConsoleQuestionAsker().addAnswerProvider(script("x\n y \nx\n\nafter\n")).setInteractiveFallback(false);
+        assertEquals(Arrays.asList("x", "y"), asker.streamListOfStringsQuestion(m_logger, "Names", true).collect(Collectors.toList()));
+        assertEquals("after", asker.askStringQuestion(m_logger, null, "Next"));
+    }
+
+    @Test
+    public void scriptedListEndsWithTheInput() {
+        final ConsoleQuestionAsker asker = new ConsoleQuestionAsker().addAnswerProvider(script("x\ny")).setInteractiveFallback(false);
+        final Iterator<String> it = asker.iterateListOfStringsQuestion(m_logger, "Names", false);
+        assertEquals("x", it.next());
+        assertEquals("y", it.next());
+        assertFalse(it.hasNext());
+        assertThrows(NoSuchElementException.class, it::next);
+    }
+
+    @Test
+    public void choiceByPrefixAfterAMiss() {
+        final ConsoleQuestionAsker asker = new ConsoleQuestionAsker().addAnswerProvider(script("?ba\nbananna\nba\nban\nbana\n")).setInteractiveFallback(false);
+        assertEquals("banana", asker.askChoiceQuestion(m_logger, "Fruit", ChoiceIndex.of("apple", "banana", "band")));
+        final String err = m_logger.getErrText();
+        assertTrue(err.contains("Did you mean: banana"), err);
+        assertTrue(err.contains("'ba' could be any of 2 choices"), err);
+        assertTrue(err.contains("'ban' could be any of 2 choices"), err);
+    }
+
+    @Test
+    public void enumChoice() {
+        final ConsoleQuestionAsker asker = new ConsoleQuestionAsker().addAnswerProvider(script("sec\n")).setInteractiveFallback(false);
+        assertEquals(TimeUnit.SECONDS, asker.askEnumQuestion(m_logger, "Unit", TimeUnit.class));
+        assertThrows(IllegalArgumentException.class, () -> asker.askChoiceQuestion(m_logger, "Unit", ChoiceIndex.of()));
+    }
+
+    @Test
+    public void sameKeyedQuestionCanBeAskedAgain() {
+        final ConsoleQuestionAsker asker = new ConsoleQuestionAsker().addAnswerProvider(keyed("retry", "yes"));
+        // Asking again on purpose is not a rejection of the first answer
+        assertTrue(asker.askBooleanQuestion(m_logger, null, "Retry?"));
+        assertTrue(asker.askBooleanQuestion(m_logger, null, "Retry?"));
+    }
+}
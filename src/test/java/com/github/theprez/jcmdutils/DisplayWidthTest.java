@@ -0,0 +1,47 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+public class DisplayWidthTest {
+
+    @Test
+    public void codePoints() {
+        assertEquals(1, DisplayWidth.ofCodePoint('a'));
+        assertEquals(0, DisplayWidth.ofCodePoint('\t'));
+        assertEquals(0, DisplayWidth.ofCodePoint(0x301));
+        assertEquals(2, DisplayWidth.ofCodePoint('日'));
+        assertEquals(2, DisplayWidth.ofCodePoint(0x1F600));
+        assertEquals(1, DisplayWidth.ofCodePoint('é'));
+    }
+
+    @Test
+    public void padding() {
+        final StringBuilder buf = new StringBuilder();
+        DisplayWidth.appendPadded(buf, "日本", 6, false);
+        buf.append('|');
+        DisplayWidth.appendPadded(buf, "ab", 4, true);
+        assertEquals("日本  |  ab", buf.toString());
+        assertEquals("日 ", StringUtils.spacePad("日本", 3));
+        assertEquals("abc", StringUtils.spacePad("abcdef", 3));
+        assertEquals("\u001B[31mred\u001B[0m  ", StringUtils.spacePad("\u001B[31mred\u001B[0m", 5));
+        buf.setLength(0);
+        DisplayWidth.appendSpaces(buf, 200);
+        assertEquals(200, buf.length());
+    }
+
+    @Test
+    public void strings() {
+        assertEquals(0, DisplayWidth.of(""));
+        assertEquals(5, DisplayWidth.of("hello"));
+        assertEquals(4, DisplayWidth.of("日本"));
+        // e and a combining acute accent
+        assertEquals(1, DisplayWidth.of("é"));
+        assertEquals(3, DisplayWidth.of("\u001B[1;32mabc\u001B[0m"));
+        assertEquals(2, DisplayWidth.of("x😀y", 1, 3));
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+public class ExpectSessionTest {
+
+    /** A process whose output is whatever the test writes to {@link #m_stdout}. */
+    private static class FakeProcess extends Process {
+
+        private final PipedInputStream m_in;
+
+        private final ByteArrayOutputStream m_stdin = new ByteArrayOutputStream();
+
+        private final PipedOutputStream m_stdout;
+
+        FakeProcess() throws IOException {
+            m_in = new PipedInputStream(64 * 1024);
+            m_stdout = new PipedOutputStream(m_in);
+        }
+
+        @Override
+        public void destroy() {
+            closeOutput();
+        }
+
+        void closeOutput() {
+            try {
+                m_stdout.close();
+            } catch (final IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        @Override
+        public int exitValue() {
+            return 0;
+        }
+
+        @Override
+        public InputStream getErrorStream() {
+            return new PipedInputStream();
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return m_in;
+        }
+
+        @Override
+        public OutputStream getOutputStream() {
+            return m_stdin;
+        }
+
+        @Override
+        public int waitFor() {
+            return 0;
+        }
+
+        void write(final String _text) throws IOException {
+            m_stdout.write(_text.getBytes(StandardCharsets.UTF_8));
+            m_stdout.flush();
+        }
+    }
+
+    @Test
+    public void earliestMatchWins() throws IOException {
+        final FakeProcess p = new FakeProcess();
+        try (ExpectSession session = new ExpectSession(p, StandardCharsets.UTF_8)) {
+            p.write("login: password: ");
+            assertEquals(1, session.expect(5000, ExpectSession.literal("password:"), ExpectSession.literal("login:")));
+            assertEquals("login:", session.getLastMatch());
+            assertEquals(0, session.expect(5000, ExpectSession.literal("password:"), ExpectSession.literal("login:")));
+            assertEquals(" ", session.getBefore());
+        }
+    }
+
+    @Test
+    public void eof() throws IOException {
+        final FakeProcess p = new FakeProcess();
+        try (ExpectSession session = new ExpectSession(p, StandardCharsets.UTF_8)) {
+            p.write("bye");
+            p.closeOutput();
+            assertEquals(1, session.expect(5000, ExpectSession.literal("nope"), ExpectSession.eof()));
+            assertEquals("bye", session.getBefore());
+            assertThrows(EOFException.class, () -> session.expect(5000, ExpectSession.literal("nope")));
+        }
+    }
+
+    @Test
+    public void literalIsNotMatchedAcrossDiscardedOutput() throws IOException, InterruptedException {
+        final FakeProcess p = new FakeProcess();
+        try (ExpectSession session = new ExpectSession(p, StandardCharsets.UTF_8)) {
+            session.setWindow(8);
+            final Thread writer = new Thread(() -> {
+                try {
+                    // "abc" is trimmed from the window before "def" arrives, so "abcdef" must not match there
+                    for (final String chunk : new String[] { "xxabc", "0123456789", "def", "abcdef" }) {
+                        p.write(chunk);
+                        Thread.sleep(100);
+                    }
+                    p.closeOutput();
+                } catch (final IOException | InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            writer.start();
+            assertEquals(0, session.expect(5000, ExpectSession.literal("abcdef")));
+            assertEquals("abcdef", session.getLastMatch());
+            // A false match would have ended at the first "def", leaving the last chunk unconsumed
+            assertEquals("", session.getUnconsumedOutput());
+            writer.join();
+        }
+    }
+
+    @Test
+    public void regexAcrossReads() throws IOException, InterruptedException {
+        final FakeProcess p = new FakeProcess();
+        try (ExpectSession session = new ExpectSession(p, StandardCharsets.UTF_8)) {
+            final Thread writer = new Thread(() -> {
+                try {
+                    for (final String chunk : new String[] { "total 12", "34 more 99", "x done" }) {
+                        p.write(chunk);
+                        Thread.sleep(100);
+                    }
+                } catch (final IOException | InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            writer.start();
+            assertEquals(0, session.expect(5000, ExpectSession.regex("\\d+x")));
+            assertEquals("99x", session.getLastMatch());
+            assertEquals("total 1234 more ", session.getBefore());
+            writer.join();
+            p.closeOutput();
+        }
+    }
+
+    @Test
+    public void regexIsOnlySearchedInTheNewestOutput() throws IOException, InterruptedException {
+        final FakeProcess p = new FakeProcess();
+        try (ExpectSession session = new ExpectSession(p, StandardCharsets.UTF_8)) {
+            session.setWindow(1000).setSearchWindow(16);
+            final StringBuilder chunk = new StringBuilder();
+            for (int i = 0; i < 4096; ++i) {
+                chunk.append('a');
+            }
+            final Thread writer = new Thread(() -> {
+                try {
+                    // Every read could still extend a match of "a+b", which is what used to make each one rescan
+                    for (int i = 0; i < 512; ++i) {
+                        p.write(chunk.toString());
+                    }
+                    p.write("b tail");
+                } catch (final IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            writer.start();
+            assertEquals(0, session.expect(30000, ExpectSession.regex("a+b")));
+            // Only the last 16 characters read are searched, so the match can't go back further
+            final String match = session.getLastMatch();
+            assertTrue(match.length() <= 16 && match.endsWith("ab"), match);
+            writer.join();
+            assertEquals(0, session.expect(5000, ExpectSession.literal("tail")));
+            assertEquals(" ", session.getBefore());
+            p.closeOutput();
+        }
+    }
+
+    @Test
+    public void windowKeepsTheNewestOutput() throws IOException, InterruptedException {
+        final FakeProcess p = new FakeProcess();
+        try (ExpectSession session = new ExpectSession(p, StandardCharsets.UTF_8)) {
+            session.setWindow(10);
+            final StringBuilder text = new StringBuilder();
+            for (int i = 0; i < 100000; ++i) {
+                text.append(i % 10);
+            }
+            p.write(text.toString());
+            p.write("!");
+            assertEquals(0, session.expect(5000, ExpectSession.literal("!")));
+            assertEquals("123456789", session.getBefore());
+            p.write("more");
+            assertEquals(ExpectSession.TIMEOUT, session.expect(50, ExpectSession.literal("never")));
+            assertEquals("more", session.getUnconsumedOutput());
+        }
+    }
+
+    @Test
+    public void sendAndTimeout() throws IOException {
+        final FakeProcess p = new FakeProcess();
+        try (ExpectSession session = new ExpectSession(p, StandardCharsets.UTF_8)) {
+            p.write("prompt> ");
+            assertEquals(ExpectSession.TIMEOUT, session.expect(50, ExpectSession.literal("never")));
+            assertEquals("prompt> ", session.getUnconsumedOutput());
+            session.sendLine("hello");
+            assertEquals("hello\n", new String(p.m_stdin.toByteArray(), StandardCharsets.UTF_8));
+        }
+    }
+}
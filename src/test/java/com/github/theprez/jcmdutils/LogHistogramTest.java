@@ -0,0 +1,78 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.theprez.jcmdutils.LaunchStatistics.CommandStatistics;
+import com.github.theprez.jcmdutils.ProcessLauncher.ProcessResult;
+
+public class LogHistogramTest {
+
+    private static void assertClose(final long _expected, final long _actual) {
+        assertTrue(Math.abs(_actual - _expected) <= _expected * 0.04, "expected about " + _expected + " but was " + _actual);
+    }
+
+    @Test
+    public void empty() {
+        final LogHistogram h = new LogHistogram();
+        assertEquals(0, h.getCount());
+        assertEquals(0, h.getValueAtPercentile(50));
+    }
+
+    @Test
+    public void launchStatisticsAreRecorded() throws IOException {
+        assumeTrue(new File("/bin/sh").canExecute());
+        final LaunchStatistics stats = ProcessLauncher.getLaunchStatistics();
+        final long before = stats.getAll().getWallTimeNanos().getCount();
+        final ProcessResult result = ProcessLauncher.exec("/bin/sh", "-c", "echo hello");
+        assertTrue(result.getWallTimeNanos() > 0);
+        assertTrue(result.getSpawnLatencyNanos() > 0);
+        assertTrue(result.getSpawnLatencyNanos() <= result.getWallTimeNanos());
+        assertEquals(before + 1, stats.getAll().getWallTimeNanos().getCount());
+        boolean isFound = false;
+        for (final CommandStatistics cmd : stats.getByCommand()) {
+            isFound |= cmd.getCommand().endsWith("sh");
+        }
+        assertTrue(isFound);
+    }
+
+    @Test
+    public void percentiles() {
+        final LogHistogram h = new LogHistogram();
+        for (long i = 1; i <= 100000; ++i) {
+            h.record(i * 1000);
+        }
+        assertEquals(100000, h.getCount());
+        assertEquals(1000, h.getMin());
+        assertEquals(100000000, h.getMax());
+        assertEquals(50000500.0, h.getMean(), 1.0);
+        assertClose(50000000, h.getValueAtPercentile(50));
+        assertClose(99000000, h.getValueAtPercentile(99));
+        assertEquals(100000000, h.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void smallValuesAreExact() {
+        final LogHistogram h = new LogHistogram();
+        for (int i = 0; i < 32; ++i) {
+            h.record(i);
+        }
+        h.record(-5);
+        assertEquals(0, h.getMin());
+        assertEquals(0, h.getValueAtPercentile(0));
+        assertEquals(15, h.getValueAtPercentile(50));
+        assertEquals(31, h.getValueAtPercentile(100));
+        h.reset();
+        assertEquals(0, h.getCount());
+        assertEquals(0, h.getTotal());
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+import org.junit.jupiter.api.Test;
+
+public class NativeImagePropertiesTest {
+
+    @Test
+    public void buildTimeClassesExist() throws IOException, ClassNotFoundException {
+        final Properties props = new Properties();
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream("META-INF/native-image/io.github.theprez/jcmdutils/native-image.properties")) {
+            assertNotNull(in);
+            props.load(in);
+        }
+        final String args = props.getProperty("Args");
+        assertNotNull(args);
+        final String option = "--initialize-at-build-time=";
+        final int start = args.indexOf(option);
+        assertFalse(start < 0, args);
+        final String[] classes = args.substring(start + option.length()).split(",");
+        assertFalse(0 == classes.length);
+        for (final String name : classes) {
+            // A renamed class would only be noticed by a native-image build otherwise
+            Class.forName(name.trim(), false, getClass().getClassLoader());
+        }
+    }
+}
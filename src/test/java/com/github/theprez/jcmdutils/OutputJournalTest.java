@@ -0,0 +1,106 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.theprez.jcmdutils.OutputJournal.Stream;
+import com.github.theprez.jcmdutils.ProcessLauncher.CaptureOptions;
+import com.github.theprez.jcmdutils.ProcessLauncher.ProcessResult;
+
+public class OutputJournalTest {
+
+    @Test
+    public void appendOrderAndTiming() {
+        final OutputJournal journal = new OutputJournal(System.nanoTime());
+        for (int i = 0; i < 100; ++i) {
+            journal.append(0 == i % 3 ? Stream.STDERR : Stream.STDOUT, "line " + i);
+        }
+        assertEquals(100, journal.size());
+        assertEquals("line 42", journal.getLine(42));
+        assertEquals(Stream.STDERR, journal.getStream(42));
+        assertEquals(Stream.STDOUT, journal.getStream(43));
+        assertEquals("line 99", journal.getLines().get(99));
+        long total = 0;
+        for (int i = 0; i < journal.size(); ++i) {
+            assertTrue(journal.getGapNanos(i) >= 0);
+            total += journal.getGapNanos(i);
+        }
+        assertEquals(journal.getNanos(99), total);
+        assertThrows(IndexOutOfBoundsException.class, () -> journal.getLine(100));
+    }
+
+    @Test
+    public void gapsAreFromTheLineReadBefore() throws InterruptedException {
+        final OutputJournal journal = new OutputJournal(System.nanoTime(), OutputRetentionPolicy.headAndTailBytes(0, 20));
+        journal.append(Stream.STDOUT, "a");
+        Thread.sleep(200);
+        // Too long for the tail, so it empties it, but it was still read just before "b"
+        journal.append(Stream.STDOUT, "0123456789012345678901234567890");
+        journal.append(Stream.STDERR, "b");
+        assertEquals(1, journal.size());
+        assertEquals(2, journal.getSequence(0));
+        assertTrue(journal.getNanos(0) >= 200000000L);
+        assertTrue(journal.getGapNanos(0) < 200000000L, "" + journal.getGapNanos(0));
+    }
+
+    @Test
+    public void headAndTailOfTheMergedLines() throws InterruptedException, IOException {
+        final OutputJournal journal = new OutputJournal(System.nanoTime(), OutputRetentionPolicy.headAndTailLines(2, 3));
+        for (int i = 0; i < 10; ++i) {
+            journal.append(0 == i % 2 ? Stream.STDOUT : Stream.STDERR, "line " + i);
+            if (1 == i) {
+                Thread.sleep(200);
+            }
+        }
+        assertEquals(5, journal.size());
+        assertEquals(2, journal.getHeadCount());
+        assertEquals(5, journal.getOmittedLineCount());
+        assertEquals(Arrays.asList("line 0", "line 1", "line 7", "line 8", "line 9"), journal.getLines());
+        assertEquals(Stream.STDERR, journal.getStream(2));
+        assertEquals(Stream.STDOUT, journal.getStream(3));
+        assertEquals(1, journal.getSequence(1));
+        assertEquals(7, journal.getSequence(2));
+        assertEquals(9, journal.getSequence(4));
+        // "line 7" came right after "line 6", which was omitted, not 200ms after "line 1"
+        assertTrue(journal.getNanos(2) - journal.getNanos(1) >= 200000000L);
+        assertTrue(journal.getGapNanos(2) < 200000000L, "" + journal.getGapNanos(2));
+        final StringBuilder text = new StringBuilder();
+        journal.writeTo(text);
+        assertTrue(text.toString().split("\n")[2].startsWith("7\t"), text.toString());
+    }
+
+    @Test
+    public void processStreamsAreMergedInOrder() throws IOException {
+        assumeTrue(new File("/bin/sh").canExecute());
+        final CaptureOptions options = new CaptureOptions().setMergedJournal(true);
+        final ProcessResult result = ProcessLauncher.exec(options, "/bin/sh", "-c", "echo one; sleep 1; echo two >&2; sleep 1; echo three");
+        assertEquals(Arrays.asList("one", "two", "three"), result.getMergedOutput());
+        final OutputJournal journal = result.getJournal();
+        assertEquals(Stream.STDERR, journal.getStream(1));
+        assertTrue(journal.getGapNanos(1) > 500000000L, "" + journal.getGapNanos(1));
+    }
+
+    @Test
+    public void writeTo() throws IOException {
+        final OutputJournal journal = new OutputJournal(System.nanoTime());
+        journal.append(Stream.STDOUT, "hello");
+        journal.append(Stream.STDERR, "oops");
+        final StringBuilder text = new StringBuilder();
+        journal.writeTo(text);
+        final String[] lines = text.toString().split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].matches("0\t\\d+[.,]\\d{3}\t\\+\\d+[.,]\\d{3}\tSTDOUT\thello"), lines[0]);
+        assertTrue(lines[1].matches("1\t\\d+[.,]\\d{3}\t\\+\\d+[.,]\\d{3}\tSTDERR\toops"), lines[1]);
+    }
+}
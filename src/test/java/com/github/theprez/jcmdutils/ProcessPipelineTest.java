@@ -0,0 +1,65 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.github.theprez.jcmdutils.ProcessPipeline.PipelineResult;
+
+public class ProcessPipelineTest {
+
+    @BeforeEach
+    public void needsShell() {
+        assumeTrue(new File("/bin/sh").canExecute());
+    }
+
+    @Test
+    public void downstreamStageEndingEarly() throws IOException {
+        final PipelineResult result = new ProcessPipeline().then("/bin/sh", "-c", "while :; do echo y; done").then("head", "-n", "2").exec();
+        assertEquals(Arrays.asList("y", "y"), result.getResult().getStdout());
+        assertEquals(0, result.getExitStatus());
+        // The first stage only stops once it writes to the closed pipe
+        assertNotEquals(0, result.getExitStatus(0));
+    }
+
+    @Test
+    public void exitStatusOfEachStage() throws IOException {
+        final PipelineResult result = new ProcessPipeline().then("/bin/sh", "-c", "echo x; exit 3").then("/bin/sh", "-c", "cat; exit 5").exec();
+        assertArrayEquals(new int[] { 3, 5 }, result.getExitStatuses());
+        assertEquals(5, result.getExitStatus());
+        assertEquals(3, result.getExitStatus(0));
+        assertFalse(result.isSuccessful());
+        assertEquals(Arrays.asList("x"), result.getResult().getStdout());
+        result.getExitStatuses()[0] = 0;
+        assertEquals(3, result.getExitStatus(0));
+    }
+
+    @Test
+    public void invalidPipelines() {
+        assertThrows(IllegalArgumentException.class, () -> new ProcessPipeline().then());
+        assertThrows(IOException.class, () -> new ProcessPipeline().exec());
+        assertEquals("ls -l | sort | head", new ProcessPipeline().then("ls", "-l").then("sort").then("head").toString());
+    }
+
+    @Test
+    public void sort() throws IOException {
+        final PipelineResult result = new ProcessPipeline().then("/bin/sh", "-c", "printf 'b\\na\\nc\\n'").then("sort").exec();
+        assertTrue(result.isSuccessful());
+        assertEquals(Arrays.asList("a", "b", "c"), result.getResult().getStdout());
+        assertEquals(2, result.getExitStatuses().length);
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ProgressReporterTest {
+
+    private static String lastLine(final RecordingLogger _logger) {
+        final String[] lines = _logger.getOutText().split("\n");
+        return lines[lines.length - 1];
+    }
+
+    @BeforeEach
+    public void notATerminal() {
+        // Under a test runner, progress is reported with summary lines rather than redrawn
+        assumeTrue(!TerminalCapabilities.get().isCursorControlSupported());
+    }
+
+    @Test
+    public void countsFromManyThreads() throws InterruptedException {
+        final RecordingLogger logger = new RecordingLogger(false);
+        try (ProgressReporter progress = new ProgressReporter(logger, "Copying", 40000).start()) {
+            final List<Thread> threads = new ArrayList<Thread>();
+            for (int t = 0; t < 4; ++t) {
+                threads.add(new Thread(() -> {
+                    for (int i = 0; i < 10000; ++i) {
+                        progress.increment();
+                    }
+                }));
+            }
+            for (final Thread t : threads) {
+                t.start();
+            }
+            for (final Thread t : threads) {
+                t.join();
+            }
+            assertEquals(40000, progress.getDone());
+        }
+        assertTrue(lastLine(logger).startsWith("Copying: 40000/40000 (100%) "), lastLine(logger));
+    }
+
+    @Test
+    public void messagesAndLinesAbove() {
+        final RecordingLogger logger = new RecordingLogger(false);
+        final ProgressReporter progress = new ProgressReporter(logger, "\u001B[1mScanning\u001B[0m", 0).start();
+        progress.add(5);
+        progress.printAbove("found one");
+        progress.setMessage("/tmp");
+        progress.close();
+        progress.close();
+        final String out = logger.getOutText();
+        assertTrue(out.contains("found one\n"), out);
+        assertTrue(lastLine(logger).startsWith("Scanning: 5 "), lastLine(logger));
+        assertTrue(lastLine(logger).endsWith("  /tmp"), lastLine(logger));
+        assertEquals(out.indexOf("Scanning: 5 "), out.lastIndexOf("Scanning: 5 "));
+    }
+
+    @Test
+    public void summaryIsPeriodic() throws InterruptedException {
+        final RecordingLogger logger = new RecordingLogger(false);
+        try (ProgressReporter progress = new ProgressReporter(logger, "Working", 10).setSummaryInterval(50).start()) {
+            for (int i = 0; i < 5; ++i) {
+                progress.increment();
+                Thread.sleep(200);
+            }
+            assertTrue(logger.getOutText().contains("Working: 3/10 (30%)"), logger.getOutText());
+        }
+    }
+}
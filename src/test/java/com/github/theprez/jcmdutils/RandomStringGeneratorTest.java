@@ -0,0 +1,81 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.theprez.jcmdutils.RandomStringGenerator.Alphabet;
+
+public class RandomStringGeneratorTest {
+
+    private static void assertInAlphabet(final String _str, final String _chars) {
+        for (final char c : _str.toCharArray()) {
+            assertTrue(_chars.indexOf(c) >= 0, _str);
+        }
+    }
+
+    @Test
+    public void bitsAreUsedLowestFirst() {
+        final RandomStringGenerator generator = RandomStringGenerator.withSource(Alphabet.HEX, () -> 0x0123456789abcdefL);
+        assertEquals("fedcba9876543210fedc", generator.generate(20));
+    }
+
+    @Test
+    public void bulk() {
+        final String[] strings = RandomStringGenerator.fast(Alphabet.BASE32).generate(1000, 12);
+        assertEquals(1000, strings.length);
+        final Set<String> distinct = new HashSet<String>(Arrays.asList(strings));
+        assertEquals(1000, distinct.size());
+        for (final String str : strings) {
+            assertEquals(12, str.length());
+            assertInAlphabet(str, "abcdefghijklmnopqrstuvwxyz234567");
+        }
+        assertEquals(0, RandomStringGenerator.fast(Alphabet.HEX).generate(0, 12).length);
+        assertEquals("", RandomStringGenerator.fast(Alphabet.HEX).generate(3, 0)[2]);
+    }
+
+    @Test
+    public void badArguments() {
+        final RandomStringGenerator generator = RandomStringGenerator.fast(Alphabet.HEX);
+        assertThrows(IllegalArgumentException.class, () -> generator.generate(-1));
+        assertThrows(IllegalArgumentException.class, () -> generator.generate(-1, 8));
+        assertThrows(IllegalArgumentException.class, () -> generator.generate(8, -1));
+        // 65536 * 65536 wraps around to 0 in int arithmetic
+        assertThrows(IllegalArgumentException.class, () -> generator.generate(65536, 65536));
+        assertThrows(IllegalArgumentException.class, () -> generator.generate(Integer.MAX_VALUE, 2));
+        assertThrows(IndexOutOfBoundsException.class, () -> generator.fill(new char[4], 2, 3));
+        assertThrows(IndexOutOfBoundsException.class, () -> generator.fill(new char[4], -1, 2));
+    }
+
+    @Test
+    public void everyAlphabet() {
+        final String[] chars = { "abcdefghijklmnopqrstuvwxyz234567", "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz", "0123456789abcdef", "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_" };
+        for (final Alphabet alphabet : Alphabet.values()) {
+            final String str = RandomStringGenerator.secure(alphabet).generate(500);
+            assertEquals(500, str.length());
+            assertInAlphabet(str, chars[alphabet.ordinal()]);
+        }
+        final String hex = StringUtils.generateRandomString(40);
+        assertEquals(40, hex.length());
+        assertInAlphabet(hex, "0123456789abcdef");
+    }
+
+    @Test
+    public void valuesPastTheAlphabetAreSkipped() {
+        // Base 62 takes 6 bits at a time, so all ones (63) is not a valid index
+        final Iterator<Long> source = Arrays.asList(-1L, 0L).iterator();
+        final RandomStringGenerator generator = RandomStringGenerator.withSource(Alphabet.BASE62, () -> source.next());
+        assertEquals("000", generator.generate(3));
+        assertEquals(Alphabet.BASE62, generator.getAlphabet());
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+/**
+ * A logger that keeps what is written to each stream, without colors, for tests to check.
+ */
+class RecordingLogger extends AppLogger {
+
+    private final StringBuffer m_err = new StringBuffer();
+
+    private final StringBuffer m_out = new StringBuffer();
+
+    private final boolean m_verbose;
+
+    RecordingLogger(final boolean _verbose) {
+        m_verbose = _verbose;
+    }
+
+    @Override
+    protected OutputHandler getErr() {
+        return (_fmt, _args) -> m_err.append(String.format(_fmt, _args).replaceAll("\u001B\\[[0-9;]*m", ""));
+    }
+
+    @Override
+    protected OutputHandler getOut() {
+        return (_fmt, _args) -> m_out.append(String.format(_fmt, _args).replaceAll("\u001B\\[[0-9;]*m", ""));
+    }
+
+    String getErrText() {
+        return m_err.toString();
+    }
+
+    String getOutText() {
+        return m_out.toString();
+    }
+
+    @Override
+    public boolean isVerbose() {
+        return m_verbose;
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+public class SessionJournalTest {
+
+    private static SessionJournal record(final String _answers) throws IOException {
+        final ByteArrayOutputStream journal = new ByteArrayOutputStream();
+        try (SessionRecorder recorder = new SessionRecorder(journal)) {
+            final ConsoleQuestionAsker asker = new ConsoleQuestionAsker().addAnswerProvider(AnswerProvider.fromScript(new ByteArrayInputStream(_answers.getBytes(StandardCharsets.UTF_8)))).setRecorder(recorder);
+            askAll(asker);
+        }
+        return SessionJournal.read(new ByteArrayInputStream(journal.toByteArray()));
+    }
+
+    private static void askAll(final ConsoleQuestionAsker _asker) {
+        final AppLogger logger = new RecordingLogger(false);
+        assertEquals("example.com", _asker.askStringQuestion(logger, "localhost", "Host name"));
+        assertEquals(8080, _asker.askIntQuestion(logger, null, "Port"));
+        assertEquals(Arrays.asList("a", "b"), _asker.askListOfStringsQuestion(logger, "Tags"));
+    }
+
+    @Test
+    public void corruptJournals() {
+        assertThrows(IOException.class, () -> SessionJournal.read(new ByteArrayInputStream(new byte[] { 1, 2, 3, 4, 5 })));
+        final byte[] header = { 0x4a, 0x43, 0x51, 0x4a, 1, (byte) SessionJournal.FLAG_ANSWER, 0 };
+        final IOException e = assertThrows(IOException.class, () -> SessionJournal.read(new ByteArrayInputStream(header)));
+        assertTrue(e.getMessage().contains("truncated"), e.getMessage());
+    }
+
+    @Test
+    public void recordedAnswersAreReplayedInOrder() throws IOException {
+        final SessionJournal journal = record("example.com\n80ish\n8080\na\nb\n\n");
+        assertEquals(6, journal.size());
+        assertEquals("host.name", journal.getKey(0));
+        assertEquals("Host name ", journal.getPrompt(0));
+        assertEquals("localhost", journal.getDefault(0));
+        assertEquals("example.com", journal.getAnswer(0));
+        // The rejected answer is recorded too, since the tool asked again
+        assertEquals("80ish", journal.getAnswer(1));
+        assertEquals("8080", journal.getAnswer(2));
+        assertNull(journal.getDefault(2));
+        assertFalse(journal.isPassword(2));
+        assertEquals("", journal.getAnswer(5));
+        assertTrue(journal.getToolNanos(0) >= 0 && journal.getThinkNanos(0) >= 0);
+
+        final SessionReplay replay = journal.replay();
+        assertFalse(replay.isComplete());
+        askAll(new ConsoleQuestionAsker().addAnswerProvider(replay).setInteractiveFallback(false));
+        assertTrue(replay.isComplete());
+        assertEquals(6, replay.getPosition());
+        assertEquals(6, replay.getToolLatency().getCount());
+    }
+
+    @Test
+    public void replayStopsWhereTheToolDiverges() throws IOException {
+        final SessionReplay replay = record("example.com\n8080\na\nb\n\n").replay();
+        final ConsoleQuestionAsker asker = new ConsoleQuestionAsker().addAnswerProvider(replay).setInteractiveFallback(false);
+        final AppLogger logger = new RecordingLogger(false);
+        assertEquals("example.com", asker.askStringQuestion(logger, null, "Host name"));
+        final UnansweredQuestionException e = assertThrows(UnansweredQuestionException.class, () -> asker.askStringQuestion(logger, null, "User"));
+        assertEquals("user", e.getKey());
+        assertEquals(1, replay.getPosition());
+    }
+
+    @Test
+    public void varLongs() throws IOException {
+        final long[] values = { 0, 1, 127, 128, 300, Integer.MAX_VALUE, Long.MAX_VALUE, -1 };
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+        for (final long value : values) {
+            SessionJournal.writeVarLong(out, value);
+        }
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        for (final long value : values) {
+            assertEquals(value, SessionJournal.readVarLong(in));
+        }
+        assertEquals(0, in.available());
+    }
+}
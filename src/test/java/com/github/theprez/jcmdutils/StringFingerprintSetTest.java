@@ -0,0 +1,37 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class StringFingerprintSetTest {
+
+    @Test
+    public void addReportsNewStrings() {
+        final StringFingerprintSet set = new StringFingerprintSet();
+        assertTrue(set.add("a"));
+        assertTrue(set.add(""));
+        assertFalse(set.add("a"));
+        assertFalse(set.add(new StringBuilder("a")));
+        assertTrue(set.add("A"));
+        assertEquals(3, set.size());
+    }
+
+    @Test
+    public void growsPastTheInitialTable() {
+        final StringFingerprintSet set = new StringFingerprintSet();
+        for (int i = 0; i < 100000; ++i) {
+            assertTrue(set.add("entry-" + i));
+        }
+        // Everything added before the table grew is still there
+        for (int i = 0; i < 100000; ++i) {
+            assertFalse(set.add("entry-" + i));
+        }
+        assertEquals(100000, set.size());
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class StringUtilsTest {
+
+    @Test
+    public void isEmpty() {
+        assertTrue(StringUtils.isEmpty((String) null));
+        assertTrue(StringUtils.isEmpty(" \t\n"));
+        assertFalse(StringUtils.isEmpty(" x "));
+        assertTrue(StringUtils.isEmpty((char[]) null));
+        assertTrue(StringUtils.isEmpty(new char[] { ' ', '\r' }));
+        assertFalse(StringUtils.isEmpty(new char[] { ' ', 'x' }));
+    }
+
+    @Test
+    public void quoteThenTokenizeRoundTrips() {
+        final String[] args = { "plain", "", "two words", "it's", "'", "\"double\"", "back\\slash", "$HOME", "tab\there", "new\nline", "*.txt", "ünï" };
+        assertArrayEquals(args, StringUtils.tokenizeCommandLine(StringUtils.arrayToSpaceSeparatedString((Object[]) args)));
+        for (final String arg : args) {
+            assertArrayEquals(new String[] { arg }, StringUtils.tokenizeCommandLine(StringUtils.shellQuote(arg)), arg);
+        }
+    }
+
+    @Test
+    public void quoteThenTokenizeRoundTripsRandomStrings() {
+        final Random random = new Random(42);
+        final String alphabet = "ab '\"\\$`\t\n-_=@%";
+        for (int n = 0; n < 1000; ++n) {
+            final char[] chars = new char[random.nextInt(8)];
+            for (int i = 0; i < chars.length; ++i) {
+                chars[i] = alphabet.charAt(random.nextInt(alphabet.length()));
+            }
+            final String arg = new String(chars);
+            assertArrayEquals(new String[] { arg }, StringUtils.tokenizeCommandLine(StringUtils.shellQuote(arg)), arg);
+        }
+    }
+
+    @Test
+    public void shellQuoteLeavesSafeStringsAlone() {
+        assertEquals("/usr/bin/ls", StringUtils.shellQuote("/usr/bin/ls"));
+        assertEquals("a,b:c+d@e%f", StringUtils.shellQuote("a,b:c+d@e%f"));
+        assertEquals("''", StringUtils.shellQuote(""));
+        assertEquals("'it'\\''s'", StringUtils.shellQuote("it's"));
+    }
+
+    @Test
+    public void tokenize() {
+        assertArrayEquals(new String[] { "a", "b c", "d\"e", "f g", "h$i", "jk" }, StringUtils.tokenizeCommandLine("  a 'b c'\td\\\"e \"f g\" \"h\\$i\" j\\\nk "));
+        assertArrayEquals(new String[] { "" }, StringUtils.tokenizeCommandLine("''"));
+        assertArrayEquals(new String[0], StringUtils.tokenizeCommandLine(" \n "));
+        assertThrows(IllegalArgumentException.class, () -> StringUtils.tokenizeCommandLine("'open"));
+        assertThrows(IllegalArgumentException.class, () -> StringUtils.tokenizeCommandLine("\"open"));
+        // Backslashes are escapes, so Windows paths only survive in single quotes
+        assertArrayEquals(new String[] { "C:Toolsapp.exe" }, StringUtils.tokenizeCommandLine("C:\\Tools\\app.exe"));
+        assertArrayEquals(new String[] { "C:\\Tools\\app.exe", "-v" }, StringUtils.tokenizeCommandLine("'C:\\Tools\\app.exe' -v"));
+    }
+}
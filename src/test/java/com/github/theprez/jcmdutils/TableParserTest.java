@@ -0,0 +1,99 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.theprez.jcmdutils.TableParser.ColumnSpec;
+
+public class TableParserTest {
+
+    /** Parse the text, returning each row's fields joined by '|'. */
+    private static List<String> parse(final TableParser _parser, final String _text) throws IOException {
+        final List<String> ret = new ArrayList<String>();
+        final long count = _parser.parse(new ByteArrayInputStream(_text.getBytes(StandardCharsets.UTF_8)), row -> {
+            final StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < row.getColumnCount(); ++i) {
+                sb.append(0 == i ? "" : "|").append(row.getString(i));
+            }
+            ret.add(sb.toString());
+        });
+        assertEquals(ret.size(), count);
+        return ret;
+    }
+
+    @Test
+    public void columnSpecRejectsBadBounds() {
+        assertThrows(IllegalArgumentException.class, () -> new ColumnSpec("a", 5, 3));
+        assertThrows(IllegalArgumentException.class, () -> new ColumnSpec("a", -1, 3));
+        new ColumnSpec("a", 3, 3);
+        new ColumnSpec("a", 3, -1);
+    }
+
+    @Test
+    public void fixedWidth() throws IOException {
+        final TableParser parser = TableParser.fixedWidth(new ColumnSpec("name", 0, 6), new ColumnSpec("size", 6, -1));
+        assertEquals(Arrays.asList("foo|12", "barbaz|7"), parse(parser, "foo   12\nbarbaz 7\n"));
+        assertEquals(Arrays.asList("name", "size"), parser.getColumnNames());
+    }
+
+    @Test
+    public void fixedWidthFromHeader() throws IOException {
+        final TableParser parser = TableParser.fixedWidthFromHeader();
+        assertEquals(Arrays.asList("foo|12", "barbaz|7"), parse(parser, "NAME    SIZE\nfoo     12\nbarbaz  7\n"));
+        assertEquals(1, parser.getColumnIndex("size"));
+    }
+
+    @Test
+    public void headerIsTakenAfreshForEachStream() throws IOException {
+        final TableParser parser = TableParser.whitespaceDelimited();
+        parse(parser, "A B\n1 2\n");
+        assertEquals(Arrays.asList("A", "B"), parser.getColumnNames());
+        assertEquals(Arrays.asList("1|2|3"), parse(parser, "X Y Z\n1 2 3\n"));
+        assertEquals(Arrays.asList("X", "Y", "Z"), parser.getColumnNames());
+        assertThrows(IllegalArgumentException.class, () -> parser.getColumnIndex("A"));
+    }
+
+    @Test
+    public void missingColumnIsNamed() throws IOException {
+        final TableParser parser = TableParser.whitespaceDelimited();
+        final List<String> messages = new ArrayList<String>();
+        parser.parse(new ByteArrayInputStream("A B\n1\n".getBytes(StandardCharsets.UTF_8)), row -> {
+            assertEquals(1, row.getLong("A"));
+            assertEquals("", row.getString("B"));
+            messages.add(assertThrows(IndexOutOfBoundsException.class, () -> row.getLong("B")).getMessage());
+            messages.add(assertThrows(IndexOutOfBoundsException.class, () -> row.getDouble(5)).getMessage());
+        });
+        assertEquals(Arrays.asList("Line 2 has 1 columns, so it has no column 1 (B)", "Line 2 has 1 columns, so it has no column 5"), messages);
+    }
+
+    @Test
+    public void numbersAndLineNumbers() throws IOException {
+        final TableParser parser = TableParser.whitespaceDelimited();
+        final List<String> seen = new ArrayList<String>();
+        parser.parse(new ByteArrayInputStream("PID PCT\n\n42 -1.5\r\n7 100\n".getBytes(StandardCharsets.UTF_8)), row -> {
+            seen.add(row.getLineNumber() + ":" + row.getLong("pid") + ":" + row.getDouble("PCT"));
+        });
+        assertEquals(Arrays.asList("3:42:-1.5", "4:7:100.0"), seen);
+    }
+
+    @Test
+    public void whitespaceDelimitedKeepsTrailingColumnWhole() throws IOException {
+        final TableParser parser = TableParser.whitespaceDelimited();
+        final List<String> rows = parse(parser, "PID  USER  CMD\n1    root  /sbin/init splash\n\n42   bob   vi x.txt\n");
+        assertEquals(Arrays.asList("1|root|/sbin/init splash", "42|bob|vi x.txt"), rows);
+        assertTrue(parser.getColumnNames().contains("CMD"));
+    }
+}
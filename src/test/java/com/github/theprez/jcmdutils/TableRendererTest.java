@@ -0,0 +1,50 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.theprez.jcmdutils.TableRenderer.Alignment;
+
+public class TableRendererTest {
+
+    @Test
+    public void fixedWidthsCutCellsShort() {
+        final RecordingLogger logger = new RecordingLogger(false);
+        try (TableRenderer table = new TableRenderer(logger, "NAME", "SIZE")) {
+            table.setSeparator(" | ").setColumnWidths(3, 4);
+            table.addRow("abcdef", "xyz");
+            table.addRow("日本語", "toolong");
+            assertThrows(IllegalStateException.class, () -> table.setColumnWidths(5, 5));
+        }
+        assertEquals("NAM | SIZE\n--- | ----\nabc | xyz\n日  | tool\n", logger.getOutText());
+    }
+
+    @Test
+    public void sizedFromSample() {
+        final RecordingLogger logger = new RecordingLogger(false);
+        try (TableRenderer table = new TableRenderer(logger, "NAME", "SIZE")) {
+            table.setAlignment(1, Alignment.RIGHT);
+            table.addRow("a", 1);
+            table.addRow("日本", 12345);
+            table.addRow(null, null);
+            assertEquals(3, table.getRowCount());
+            assertEquals("", logger.getOutText());
+        }
+        assertEquals("NAME   SIZE\n----   ----\na         1\n日本  12345\n           \n", logger.getOutText());
+    }
+
+    @Test
+    public void overflowAfterTheSample() {
+        final RecordingLogger logger = new RecordingLogger(false);
+        final TableRenderer table = new TableRenderer(logger, "A", "B").setSampleSize(1);
+        table.addRow("x", "y");
+        table.addRow("wider", "z");
+        table.flush();
+        assertEquals("A  B\n-  -\nx  y\nwider  z\n", logger.getOutText());
+    }
+}
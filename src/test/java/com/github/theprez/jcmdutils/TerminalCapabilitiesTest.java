@@ -0,0 +1,64 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+public class TerminalCapabilitiesTest {
+
+    /** Run in a child JVM, whose output is not a terminal, by {@link #colorLevelOf(String, String...)}. */
+    public static void main(final String[] _args) {
+        System.out.print(TerminalCapabilities.get().getColorLevel());
+    }
+
+    /** The capabilities are probed once per JVM, so each case runs in a JVM of its own. */
+    private static String colorLevelOf(final String _term, final String... _props) throws IOException, InterruptedException {
+        final List<String> cmd = new ArrayList<String>();
+        cmd.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        cmd.addAll(Arrays.asList(_props));
+        cmd.add("-cp");
+        cmd.add(System.getProperty("java.class.path"));
+        cmd.add(TerminalCapabilitiesTest.class.getName());
+        final ProcessBuilder pb = new ProcessBuilder(cmd).redirectErrorStream(true);
+        final Map<String, String> env = pb.environment();
+        for (final String name : new String[] { "NO_COLOR", "COLORTERM", "SSH_TTY", "WT_SESSION" }) {
+            env.remove(name);
+        }
+        env.put("TERM", _term);
+        final Process p = pb.start();
+        p.getOutputStream().close();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = p.getInputStream()) {
+            final byte[] buf = new byte[1024];
+            for (int n; -1 != (n = in.read(buf));) {
+                out.write(buf, 0, n);
+            }
+        }
+        assertEquals(0, p.waitFor());
+        return new String(out.toByteArray(), StandardCharsets.UTF_8).trim();
+    }
+
+    @Test
+    public void colorsCanBeForcedWithoutAConsole() throws IOException, InterruptedException {
+        final String force = "-D" + StringUtils.PROP_FORCE_COLORS + "=true";
+        assertEquals("NONE", colorLevelOf("xterm"));
+        assertEquals("BASIC", colorLevelOf("xterm", force));
+        assertEquals("PALETTE_256", colorLevelOf("xterm-256color", force));
+        // Disabling still wins
+        assertEquals("NONE", colorLevelOf("xterm", force, "-D" + StringUtils.PROP_DISABLE_COLORS + "=true"));
+        assertEquals("NONE", colorLevelOf("dumb", force));
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.theprez.jcmdutils.StringUtils.TerminalColor;
+import com.github.theprez.jcmdutils.TerminalCapabilities.ColorLevel;
+
+public class TerminalStyleTest {
+
+    @Test
+    public void attributes() {
+        final TerminalStyle bold = TerminalStyle.of(TerminalColor.RED).bold();
+        assertEquals("\u001B[1;31m", bold.getSequence(ColorLevel.BASIC));
+        assertSame(bold, bold.bold());
+        assertEquals("\u001B[1;4;38;5;208m", TerminalStyle.palette(208).bold().underline().getSequence(ColorLevel.TRUECOLOR));
+    }
+
+    @Test
+    public void basicColors() {
+        final TerminalStyle red = TerminalStyle.of(TerminalColor.RED);
+        assertSame(red, TerminalStyle.of(TerminalColor.RED));
+        assertEquals("", red.getSequence(ColorLevel.NONE));
+        assertEquals("\u001B[31m", red.getSequence(ColorLevel.BASIC));
+        assertEquals("\u001B[31m", red.getSequence(ColorLevel.TRUECOLOR));
+    }
+
+    @Test
+    public void downgrade() {
+        final TerminalStyle red = TerminalStyle.rgb(255, 0, 0);
+        assertEquals("\u001B[38;2;255;0;0m", red.getSequence(ColorLevel.TRUECOLOR));
+        assertEquals("\u001B[38;5;196m", red.getSequence(ColorLevel.PALETTE_256));
+        assertEquals("\u001B[91m", red.getSequence(ColorLevel.BASIC));
+        assertEquals("", red.getSequence(ColorLevel.NONE));
+        // A gray is closer to the gray ramp than to the color cube
+        assertEquals("\u001B[38;5;244m", TerminalStyle.rgb(128, 128, 128).getSequence(ColorLevel.PALETTE_256));
+        assertEquals("\u001B[38;5;208m", TerminalStyle.palette(208).getSequence(ColorLevel.PALETTE_256));
+    }
+
+    @Test
+    public void outOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> TerminalStyle.palette(256));
+        assertThrows(IllegalArgumentException.class, () -> TerminalStyle.palette(-1));
+        assertThrows(IllegalArgumentException.class, () -> TerminalStyle.rgb(0, 256, 0));
+        assertThrows(IllegalArgumentException.class, () -> TerminalStyle.rgb(0, 0, -1));
+    }
+
+    @Test
+    public void plainWithoutColors() throws IOException {
+        final TerminalCapabilities terminal = TerminalCapabilities.get();
+        // Under a test runner, output is not a console
+        assumeTrue(ColorLevel.NONE == terminal.getColorLevel());
+        final TerminalStyle style = TerminalStyle.rgb(1, 2, 3).bold();
+        assertEquals("text", style.appendTo(new StringBuilder(), "text").toString());
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        style.writeTo(out, "text".getBytes(StandardCharsets.US_ASCII), 1, 2);
+        assertEquals("ex", new String(out.toByteArray(), StandardCharsets.US_ASCII));
+        assertEquals("plain", StringUtils.colorizeForTerminal("plain", TerminalColor.GREEN));
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+public class TextPredicatesTest {
+
+    private static final int ALLOCATION_ATTEMPTS = 5;
+
+    private static final int ALLOCATION_RUNS = 10000;
+
+    private static final char[] PASSWORD = "  s3cret\t".toCharArray();
+
+    private static final byte[] UTF8 = " \tGrüße aus Köln \n".getBytes(StandardCharsets.UTF_8);
+
+    /** Exercise every predicate once; the result only keeps the work from being optimized away. */
+    private static int exerciseAll() {
+        int ret = 0;
+        ret += TextPredicates.isBlank(PASSWORD, 0, PASSWORD.length) ? 1 : 0;
+        ret += TextPredicates.isBlank("  x ") ? 1 : 0;
+        ret += TextPredicates.isBlankUtf8(UTF8, 0, UTF8.length) ? 1 : 0;
+        ret += TextPredicates.trimStart(PASSWORD, 0, PASSWORD.length) + TextPredicates.trimEnd(PASSWORD, 0, PASSWORD.length);
+        ret += TextPredicates.trimStartUtf8(UTF8, 0, UTF8.length) + TextPredicates.trimEndUtf8(UTF8, 0, UTF8.length);
+        ret += TextPredicates.equalsIgnoreCase(PASSWORD, 2, 6, "S3CRET") ? 1 : 0;
+        ret += TextPredicates.equalsIgnoreCaseUtf8(UTF8, 2, 7, "GRÜSSE") ? 1 : 0;
+        ret += TextPredicates.startsWith(PASSWORD, 2, 6, "s3") ? 1 : 0;
+        ret += TextPredicates.endsWith("Hello", "LLO") ? 1 : 0;
+        ret += TextPredicates.startsWithUtf8(UTF8, 2, 7, "Grü") ? 1 : 0;
+        ret += TextPredicates.endsWithUtf8(UTF8, 2, 17, "Köln") ? 1 : 0;
+        ret += StringUtils.isEmpty(PASSWORD) ? 1 : 0;
+        ret += StringUtils.isEmpty(" padded ") ? 1 : 0;
+        return ret;
+    }
+
+    @Test
+    public void blanksAndTrimming() {
+        assertTrue(TextPredicates.isBlank(""));
+        assertTrue(TextPredicates.isBlank(" \t\r\n"));
+        assertFalse(TextPredicates.isBlank(" x "));
+        assertTrue(TextPredicates.isBlank("ab  cd", 2, 4));
+        assertTrue(TextPredicates.isBlank(PASSWORD, 0, 2));
+        assertFalse(TextPredicates.isBlank(PASSWORD, 0, 3));
+        assertEquals(2, TextPredicates.trimStart(PASSWORD, 0, PASSWORD.length));
+        assertEquals(8, TextPredicates.trimEnd(PASSWORD, 0, PASSWORD.length));
+        assertEquals(1, TextPredicates.trimStart(PASSWORD, 1, 0));
+        assertEquals(1, TextPredicates.trimEnd(PASSWORD, 1, 0));
+        assertEquals(2, TextPredicates.trimStart(" \tx", 0, 3));
+        assertEquals(1, TextPredicates.trimEnd("x \n", 0, 3));
+        final int start = TextPredicates.trimStartUtf8(UTF8, 0, UTF8.length);
+        final int end = TextPredicates.trimEndUtf8(UTF8, 0, UTF8.length);
+        assertEquals("Grüße aus Köln", new String(UTF8, start, end - start, StandardCharsets.UTF_8));
+        assertFalse(TextPredicates.isBlankUtf8(UTF8, 0, UTF8.length));
+        assertTrue(TextPredicates.isBlankUtf8(UTF8, 0, 2));
+    }
+
+    @Test
+    public void comparisons() {
+        assertTrue(TextPredicates.equalsIgnoreCase("ÄBC", "äbc"));
+        assertFalse(TextPredicates.equalsIgnoreCase("abc", "abcd"));
+        assertTrue(TextPredicates.equalsIgnoreCase(PASSWORD, 2, 6, "S3CRET"));
+        assertFalse(TextPredicates.equalsIgnoreCase(PASSWORD, 2, 5, "S3CRET"));
+        assertTrue(TextPredicates.equalsIgnoreCaseUtf8(UTF8, 2, 7, "GRÜßE"));
+        assertFalse(TextPredicates.equalsIgnoreCaseUtf8(UTF8, 2, 7, "GRUSSE"));
+        assertTrue(TextPredicates.startsWith("Hello", "He"));
+        assertFalse(TextPredicates.startsWith("He", "Hello"));
+        assertTrue(TextPredicates.endsWith(PASSWORD, 0, 8, "ret"));
+        assertTrue(TextPredicates.startsWithUtf8(UTF8, 2, 7, "Grü"));
+        assertFalse(TextPredicates.startsWithUtf8(UTF8, 2, 7, "Gru"));
+        assertTrue(TextPredicates.endsWithUtf8(UTF8, 2, 17, "Köln"));
+    }
+
+    @Test
+    public void noAllocation() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+        final long thread = Thread.currentThread().getId();
+        int sink = 0;
+        for (int i = 0; i < ALLOCATION_RUNS; ++i) {
+            sink += exerciseAll();
+        }
+        // What reading the counter costs by itself
+        final long overheadStart = threads.getThreadAllocatedBytes(thread);
+        final long overhead = threads.getThreadAllocatedBytes(thread) - overheadStart;
+
+        // The JVM itself may allocate on this thread now and then (Java 8 does, as methods get compiled), so take
+        // the best of a few attempts: allocation by the predicates would show up in every one of them
+        long allocated = Long.MAX_VALUE;
+        for (int attempt = 0; attempt < ALLOCATION_ATTEMPTS && allocated > 0; ++attempt) {
+            final long start = threads.getThreadAllocatedBytes(thread);
+            for (int i = 0; i < ALLOCATION_RUNS; ++i) {
+                sink += exerciseAll();
+            }
+            allocated = Math.min(allocated, threads.getThreadAllocatedBytes(thread) - start - overhead);
+        }
+        // Even one small object per run would be well over this
+        assertTrue(allocated < 1024, "Allocated " + allocated + " bytes in " + ALLOCATION_RUNS + " runs");
+        assertTrue(sink > 0);
+    }
+
+    @Test
+    public void view() {
+        final CharSequence view = TextPredicates.view(PASSWORD, 2, 6);
+        assertEquals("s3cret", view.toString());
+        assertEquals("3c", view.subSequence(1, 3).toString());
+        assertThrows(IndexOutOfBoundsException.class, () -> TextPredicates.view(PASSWORD, 5, 10));
+    }
+}
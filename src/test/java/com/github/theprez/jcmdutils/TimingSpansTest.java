@@ -0,0 +1,73 @@
+/*
+ *
+ */
+package com.github.theprez.jcmdutils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class TimingSpansTest {
+
+    @Test
+    public void disabledByDefault() {
+        final RecordingLogger logger = new RecordingLogger(false);
+        assertFalse(logger.isTimingEnabled());
+        assertNull(logger.getTiming());
+        assertSame(TimingSpans.Span.DISABLED, logger.time("a"));
+        logger.printTimingSummary();
+        assertEquals("", logger.getErrText());
+    }
+
+    @Test
+    public void nestedAndRepeatedSpans() {
+        final RecordingLogger logger = new RecordingLogger(false);
+        logger.setTimingEnabled(true);
+        try (TimingSpans.Span outer = logger.time("load")) {
+            for (int i = 0; i < 3; ++i) {
+                try (TimingSpans.Span inner = logger.time("parse")) {
+                    assertTrue(i >= 0);
+                }
+            }
+        }
+        try (TimingSpans.Span other = logger.time("parse")) {
+            assertTrue(logger.isTimingEnabled());
+        }
+        final TimingSpans timing = logger.getTiming();
+        assertEquals(1, timing.getHistogram("load").getCount());
+        assertEquals(3, timing.getHistogram("load", "parse").getCount());
+        // The same name at the top level is a different span
+        assertEquals(1, timing.getHistogram("parse").getCount());
+        assertNull(timing.getHistogram("load", "nope"));
+        assertNull(timing.getHistogram());
+
+        logger.printTimingSummary();
+        final String summary = logger.getErrText();
+        assertTrue(summary.contains("\nload "), summary);
+        assertTrue(summary.contains("\n  parse "), summary);
+
+        timing.reset();
+        assertEquals(0, timing.getHistogram("load", "parse").getCount());
+        logger.setTimingEnabled(false);
+        assertNull(logger.getTiming());
+    }
+
+    @Test
+    public void unclosedInnerSpansAreClosedWithTheOuter() {
+        final RecordingLogger logger = new RecordingLogger(false);
+        logger.setTimingEnabled(true);
+        final TimingSpans.Span outer = logger.time("outer");
+        logger.time("inner");
+        outer.close();
+        try (TimingSpans.Span next = logger.time("next")) {
+            assertTrue(logger.isTimingEnabled());
+        }
+        assertEquals(1, logger.getTiming().getHistogram("outer", "inner").getCount());
+        // Not nested under the span left open
+        assertEquals(1, logger.getTiming().getHistogram("next").getCount());
+    }
+}